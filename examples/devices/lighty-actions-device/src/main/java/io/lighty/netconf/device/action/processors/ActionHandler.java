@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.action.processors;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.w3c.dom.Element;
+
+/**
+ * Handler of single action registered in {@link ActionServiceDeviceProcessor}. Handler is shared by all
+ * requests invoking the action, so it must not keep any per-request state.
+ */
+public interface ActionHandler {
+
+    /**
+     * Provides QName of handled action.
+     * @return action QName
+     */
+    QName getActionQName();
+
+    /**
+     * Invokes action.
+     * @param input deserialized action input
+     * @param actionElement action element of the request, its ancestors identify the data node
+     *                      on which the action is invoked
+     * @param serializer serializer shared by all requests
+     * @return future of action output
+     */
+    ListenableFuture<ContainerNode> invoke(ContainerNode input, Element actionElement,
+            CurrentAdapterSerializer serializer);
+
+    /**
+     * Extracts output of successful action invocation.
+     * @param result result of action invocation
+     * @param <O> type of action output
+     * @return action output
+     * @throws IllegalStateException if action invocation failed
+     */
+    static <O> O checkOutput(final RpcResult<O> result) {
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException("Action invocation failed: " + result.getErrors());
+        }
+        return result.getResult();
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.action.processors;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.ActionDefinition;
+import org.opendaylight.yangtools.yang.model.api.ActionNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.CaseSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Index of actions defined in model context. Actions are indexed by their QName, every action also
+ * carries path of data elements leading to it, which is the schema path without choice and case nodes,
+ * as these do not appear in XML. Only elements on these paths are visited when resolving action.
+ */
+final class ActionIndex {
+
+    private final ImmutableListMultimap<QName, IndexedAction> actionsByQName;
+    private final ImmutableSet<List<QName>> dataPathPrefixes;
+
+    private ActionIndex(final ImmutableListMultimap<QName, IndexedAction> actionsByQName,
+            final ImmutableSet<List<QName>> dataPathPrefixes) {
+        this.actionsByQName = actionsByQName;
+        this.dataPathPrefixes = dataPathPrefixes;
+    }
+
+    static ActionIndex of(final EffectiveModelContext context) {
+        final var actions = ImmutableListMultimap.<QName, IndexedAction>builder();
+        final var prefixes = ImmutableSet.<List<QName>>builder();
+        final var schemaPath = new ArrayDeque<QName>();
+        final var dataPath = new ArrayDeque<QName>();
+        for (final DataSchemaNode dataSchemaNode : context.getChildNodes()) {
+            if (dataSchemaNode instanceof ActionNodeContainer) {
+                schemaPath.addLast(dataSchemaNode.getQName());
+                dataPath.addLast(dataSchemaNode.getQName());
+                indexActions(dataSchemaNode, actions, prefixes, schemaPath, dataPath);
+                dataPath.removeLast();
+                schemaPath.removeLast();
+            }
+        }
+        return new ActionIndex(actions.build(), prefixes.build());
+    }
+
+    int size() {
+        return actionsByQName.size();
+    }
+
+    /**
+     * Finds action invoked by NETCONF action request. Request is walked once, descending only into
+     * elements which lie on a path to some action.
+     * @param actionRequest content of NETCONF action element
+     * @return action together with its element in request
+     */
+    Optional<ResolvedAction> resolve(final Element actionRequest) {
+        final Deque<Element> elements = new ArrayDeque<>();
+        final Deque<List<QName>> paths = new ArrayDeque<>();
+        pushChildren(actionRequest, List.of(), elements, paths);
+        while (!elements.isEmpty()) {
+            final Element element = elements.pop();
+            final List<QName> path = paths.pop();
+            final QName last = path.get(path.size() - 1);
+            for (final IndexedAction action : actionsByQName.get(last)) {
+                if (action.dataPath().equals(path)) {
+                    return Optional.of(new ResolvedAction(action, element));
+                }
+            }
+            if (dataPathPrefixes.contains(path)) {
+                pushChildren(element, path, elements, paths);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void pushChildren(final Element parent, final List<QName> parentPath,
+            final Deque<Element> elements, final Deque<List<QName>> paths) {
+        for (Node child = parent.getLastChild(); child != null; child = child.getPreviousSibling()) {
+            if (child instanceof Element childElement && childElement.getNamespaceURI() != null) {
+                final List<QName> childPath = new ArrayList<>(parentPath.size() + 1);
+                childPath.addAll(parentPath);
+                childPath.add(QName.create(childElement.getNamespaceURI(), childElement.getLocalName()));
+                elements.push(childElement);
+                paths.push(childPath);
+            }
+        }
+    }
+
+    private static void indexActions(final DataSchemaNode dataSchemaNode,
+            final ImmutableListMultimap.Builder<QName, IndexedAction> actions,
+            final ImmutableSet.Builder<List<QName>> prefixes, final Deque<QName> schemaPath,
+            final Deque<QName> dataPath) {
+        if (dataSchemaNode instanceof ActionNodeContainer actionContainer) {
+            for (final ActionDefinition actionDefinition : actionContainer.getActions()) {
+                schemaPath.addLast(actionDefinition.getQName());
+                dataPath.addLast(actionDefinition.getQName());
+                actions.put(actionDefinition.getQName(), IndexedAction.of(List.copyOf(schemaPath),
+                    List.copyOf(dataPath), actionDefinition));
+                dataPath.removeLast();
+                schemaPath.removeLast();
+                addPrefixes(prefixes, dataPath);
+            }
+        }
+        if (dataSchemaNode instanceof DataNodeContainer container) {
+            for (final DataSchemaNode child : container.getChildNodes()) {
+                schemaPath.addLast(child.getQName());
+                dataPath.addLast(child.getQName());
+                indexActions(child, actions, prefixes, schemaPath, dataPath);
+                dataPath.removeLast();
+                schemaPath.removeLast();
+            }
+        } else if (dataSchemaNode instanceof ChoiceSchemaNode choice) {
+            // choice and its cases are not present in XML, their children continue on parent data path
+            dataPath.removeLast();
+            for (final CaseSchemaNode caze : choice.getCases()) {
+                schemaPath.addLast(caze.getQName());
+                for (final DataSchemaNode child : caze.getChildNodes()) {
+                    schemaPath.addLast(child.getQName());
+                    dataPath.addLast(child.getQName());
+                    indexActions(child, actions, prefixes, schemaPath, dataPath);
+                    dataPath.removeLast();
+                    schemaPath.removeLast();
+                }
+                schemaPath.removeLast();
+            }
+            dataPath.addLast(choice.getQName());
+        }
+    }
+
+    private static void addPrefixes(final ImmutableSet.Builder<List<QName>> prefixes, final Deque<QName> dataPath) {
+        final List<QName> path = List.copyOf(dataPath);
+        for (int length = 1; length <= path.size(); length++) {
+            prefixes.add(path.subList(0, length));
+        }
+    }
+
+    /**
+     * Action defined in model context.
+     * @param path schema path of the action
+     * @param dataPath path of XML elements leading to the action element
+     * @param definition action definition
+     * @param inputPath schema path of the action input
+     * @param outputPath schema path of the action output
+     */
+    record IndexedAction(Absolute path, List<QName> dataPath, ActionDefinition definition, Absolute inputPath,
+            Absolute outputPath) {
+
+        static IndexedAction of(final List<QName> schemaPath, final List<QName> dataPath,
+                final ActionDefinition definition) {
+            return new IndexedAction(Absolute.of(schemaPath), dataPath, definition,
+                childPath(schemaPath, definition.getInput().getQName()),
+                childPath(schemaPath, definition.getOutput().getQName()));
+        }
+
+        private static Absolute childPath(final List<QName> schemaPath, final QName child) {
+            final List<QName> path = new ArrayList<>(schemaPath.size() + 1);
+            path.addAll(schemaPath);
+            path.add(child);
+            return Absolute.of(path);
+        }
+    }
+
+    /**
+     * Action found in request.
+     * @param action invoked action
+     * @param element action element containing action input
+     */
+    record ResolvedAction(IndexedAction action, Element element) {
+    }
+}
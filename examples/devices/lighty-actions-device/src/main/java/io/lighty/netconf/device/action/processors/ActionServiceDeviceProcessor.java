@@ -7,61 +7,71 @@
  */
 package io.lighty.netconf.device.action.processors;
 
-import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.lighty.codecs.util.exception.DeserializationException;
 import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.NetconfDeviceServices;
 import io.lighty.netconf.device.action.actions.ResetAction;
 import io.lighty.netconf.device.action.actions.StartAction;
-import io.lighty.netconf.device.requests.BaseRequestProcessor;
+import io.lighty.netconf.device.requests.AbstractRequestProcessor;
 import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
 import io.lighty.netconf.device.utils.RPCUtil;
-import java.util.ArrayDeque;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.ParserConfigurationException;
-import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
-import org.opendaylight.netconf.api.DocumentedException;
-import org.opendaylight.netconf.api.xml.XmlElement;
-import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.device.Start;
-import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.server.Reset;
+import javax.xml.transform.TransformerException;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
 import org.opendaylight.yangtools.yang.common.QName;
-import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
-import org.opendaylight.yangtools.yang.model.api.ActionDefinition;
-import org.opendaylight.yangtools.yang.model.api.ActionNodeContainer;
-import org.opendaylight.yangtools.yang.model.api.CaseSchemaNode;
-import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
-import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
-import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
-import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Dispatches NETCONF action requests to registered {@link ActionHandler}s. Handlers, action index and
+ * serializer are created once and shared by all requests, invoked action travels with the response,
+ * so concurrent requests from different sessions do not interfere. Output is serialized using the schema
+ * of the invoked action, so this processor builds the reply from the whole response.
+ */
 @SuppressFBWarnings("UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR")
-public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
+public class ActionServiceDeviceProcessor extends AbstractRequestProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(ActionServiceDeviceProcessor.class);
-    private AdapterContext adapterContext;
-    private ImmutableMap<Absolute, ActionDefinition> actions;
-    private ActionServiceDeviceProcessor actionProcessor;
+
+    private final ImmutableMap<QName, ActionHandler> actionHandlers;
+    private CurrentAdapterSerializer serializer;
+    private ActionIndex actionIndex;
+
+    public ActionServiceDeviceProcessor() {
+        this(List.of(new StartActionProcessor(new StartAction()), new ResetActionProcessor(new ResetAction())));
+    }
+
+    public ActionServiceDeviceProcessor(final Collection<? extends ActionHandler> actionHandlers) {
+        final ImmutableMap.Builder<QName, ActionHandler> builder = ImmutableMap.builder();
+        actionHandlers.forEach(handler -> builder.put(handler.getActionQName(), handler));
+        this.actionHandlers = builder.build();
+    }
 
     @Override
     public void init(final NetconfDeviceServices netconfDeviceServices) {
         super.init(netconfDeviceServices);
-        this.adapterContext = netconfDeviceServices.getAdapterContext();
-        this.actions = getAction();
+        this.serializer = netconfDeviceServices.getAdapterContext().currentSerializer();
+        this.actionIndex = ActionIndex.of(this.serializer.getRuntimeContext().modelContext());
+        LOG.debug("Indexed {} actions, {} of them have handler", this.actionIndex.size(), this.actionHandlers.size());
     }
 
     @Override
@@ -71,172 +81,104 @@ public class ActionServiceDeviceProcessor extends BaseRequestProcessor {
 
     @Override
     protected CompletableFuture<Response> execute(final Element requestXmlElement) {
-        final XmlElement fromDomElement = XmlElement.fromDomElement(requestXmlElement);
-        final Optional<Entry<Absolute, ActionDefinition>> actionEntry = findActionInElement(fromDomElement);
-
-        Preconditions.checkState(actionEntry.isPresent(), "Action is not present on the device.");
-
-        if (actionEntry.get().getValue().getQName().equals(Start.QNAME)) {
-            this.actionProcessor = new StartActionProcessor(new StartAction(), actionEntry.get().getKey(),
-                    actionEntry.get().getValue(), this.adapterContext.currentSerializer());
+        final ActionIndex.ResolvedAction resolvedAction = actionIndex.resolve(requestXmlElement)
+            .orElseThrow(() -> new IllegalStateException("Action is not present on the device."));
+        final ActionIndex.IndexedAction action = resolvedAction.action();
+        final ActionHandler handler = actionHandlers.get(action.definition().getQName());
+        if (handler == null) {
+            throw new IllegalStateException("Action is not implemented on the device.");
         }
-        if (actionEntry.get().getValue().getQName().equals(Reset.QNAME)) {
-            this.actionProcessor = new ResetActionProcessor(new ResetAction(), actionEntry.get().getKey(),
-                    actionEntry.get().getValue(), this.adapterContext.currentSerializer());
+
+        final ContainerNode input;
+        try {
+            input = (ContainerNode) getNetconfDeviceServices().getXmlNodeConverter().deserialize(action.inputPath(),
+                RPCUtil.createReaderFromElement(resolvedAction.element()));
+        } catch (final TransformerException | DeserializationException e) {
+            throw new IllegalStateException("Unable to deserialize input of action " + action.path(), e);
         }
 
-        Preconditions.checkState(this.actionProcessor != null, "Action is not implemented on the device.");
+        final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
+        Futures.addCallback(handler.invoke(input, resolvedAction.element(), serializer), new FutureCallback<>() {
+            @Override
+            public void onSuccess(final ContainerNode output) {
+                responseFuture.complete(new ActionResponse(action, output));
+            }
 
-        this.actionProcessor.init(getNetconfDeviceServices());
-        return this.actionProcessor.execute(requestXmlElement);
+            @Override
+            public void onFailure(final Throwable throwable) {
+                LOG.error("{} action cannot be invoked.", action.definition().getQName(), throwable);
+                responseFuture.completeExceptionally(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return responseFuture;
     }
 
     @Override
-    protected Document wrapToFinalDocumentReply(final List<NormalizedNode> responseOutput)
-            throws ParserConfigurationException {
+    protected Document wrapToFinalDocumentReply(final Response response) throws ParserConfigurationException {
+        // execute completes only with action responses, errors are replied before this method is called
+        final ActionResponse actionResponse = (ActionResponse) response;
         final DocumentBuilder builder = getDocumentBuilderFactory().newDocumentBuilder();
         final Document newDocument = builder.newDocument();
-        if (!responseOutput.isEmpty()) {
-            // convert normalized nodes to xml nodes
-            final List<Node> outputNodes = convertOutputToXmlNodes(responseOutput, builder, newDocument);
-            final List<Node> outputNodesData = new ArrayList<>();
-            final NodeList nodeList = outputNodes.get(0).getChildNodes();
-            for (int i = 0; i < nodeList.getLength(); i++) {
-                final Node node = nodeList.item(i);
-                final Element data = newDocument.createElementNS(this.actionProcessor.getActionDefinition().getQName()
-                        .getNamespace()
-                        .toString(), node.getNodeName());
-                final int length = node.getChildNodes().getLength();
-                for (int j = 0; j < length; j++) {
+        final List<Node> outputNodesData = new ArrayList<>();
+        if (actionResponse.output() != null) {
+            final String namespace = actionResponse.action().definition().getQName().getNamespace().toString();
+            final Node outputNode = serializeOutput(actionResponse, builder, newDocument);
+            for (Node node = outputNode.getFirstChild(); node != null; node = node.getNextSibling()) {
+                final Element data = newDocument.createElementNS(namespace, node.getNodeName());
+                while (node.getFirstChild() != null) {
                     data.appendChild(node.getFirstChild());
                 }
                 outputNodesData.add(data);
             }
-            // wrap nodes to final document
-            final List<Node> wrappedOutputNodes = new ArrayList<>();
-            outputNodesData.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
-            newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
-        } else {
-            // convert normalized nodes to xml nodes
-            final List<Node> outputNodes = Collections.singletonList(RPCUtil.createOkNode(newDocument));
-            final List<Node> wrappedOutputNodes = new ArrayList<>();
-            outputNodes.forEach(outputNode -> wrappedOutputNodes.add(newDocument.importNode(outputNode, true)));
-            newDocument.appendChild(wrapReplyResponse(newDocument, wrappedOutputNodes));
         }
-        final String formattedResponse = RPCUtil.formatXml(newDocument.getDocumentElement());
-        LOG.debug("Response: {}.", formattedResponse);
+        if (outputNodesData.isEmpty()) {
+            outputNodesData.add(RPCUtil.createOkNode(newDocument));
+        }
+        newDocument.appendChild(wrapReplyResponse(newDocument, outputNodesData));
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Response: {}.", RPCUtil.formatXml(newDocument.getDocumentElement()));
+        }
         return newDocument;
     }
 
-    @Override
-    protected String convertNormalizedNodeToXmlString(final NormalizedNode normalizedNode)
-            throws SerializationException {
-        final Absolute actionOutput = getActionOutput(actionProcessor.getActionPath(),
-                actionProcessor.getActionDefinition());
-        return getNetconfDeviceServices().getXmlNodeConverter().serializeRpc(actionOutput, normalizedNode).toString();
-    }
-
-    protected static Absolute getActionInput(final Absolute path, final ActionDefinition action) {
-        final var inputPath = new ArrayList<>(path.getNodeIdentifiers());
-        inputPath.add(action.getInput().getQName());
-        return Absolute.of(inputPath);
-    }
-
-    protected static Absolute getActionOutput(final Absolute path, final ActionDefinition action) {
-        final var outputPath = new ArrayList<>(path.getNodeIdentifiers());
-        outputPath.add(action.getOutput().getQName());
-        return Absolute.of(outputPath);
+    protected Node wrapReplyResponse(final Document document, final List<Node> response) {
+        final Element rpcReply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        response.forEach(rpcReply::appendChild);
+        return rpcReply;
     }
 
-    protected ActionDefinition getActionDefinition() {
-        return null;
+    private Node serializeOutput(final ActionResponse response, final DocumentBuilder builder,
+            final Document document) {
+        try {
+            final String output = getNetconfDeviceServices().getXmlNodeConverter()
+                .serializeRpc(response.action().outputPath(), response.output()).toString();
+            return document.importNode(builder.parse(new InputSource(new StringReader(output)))
+                .getDocumentElement(), true);
+        } catch (SerializationException | IOException | SAXException e) {
+            throw new IllegalStateException("Unable to serialize output of action " + response.action().path(), e);
+        }
     }
 
-    protected Absolute getActionPath() {
-        return null;
-    }
+    /**
+     * Response of action invocation carrying the invoked action, which is needed to serialize the output.
+     */
+    private static final class ActionResponse extends ResponseData {
 
-    protected Element findInputElement(final XmlElement fromDomElement, final QName actionQName)
-            throws DocumentedException {
-        Preconditions.checkNotNull(fromDomElement);
-        if (fromDomElement.getNamespace().equals(actionQName.getNamespace().toString()) && fromDomElement.getName()
-                .equals(actionQName.getLocalName())) {
-            return fromDomElement.getDomElement();
-        }
-        for (final XmlElement xmlElement : fromDomElement.getChildElements()) {
-            final Element findInputElement = findInputElement(xmlElement, actionQName);
-            if (findInputElement != null) {
-                return findInputElement;
-            }
-        }
-        return null;
-    }
+        private final ActionIndex.IndexedAction action;
+        private final ContainerNode output;
 
-    private Optional<Entry<Absolute, ActionDefinition>> findActionInElement(final XmlElement fromDomElement) {
-        for (final Entry<Absolute, ActionDefinition> actionEntry : actions.entrySet()) {
-            final var actionDefinition = actionEntry.getValue();
-            final var actionQname = actionDefinition.getQName();
-            try {
-                if (actionQname.getLocalName().equals(fromDomElement.getName())
-                        && actionQname.getNamespace().toString().equals(fromDomElement.getNamespace())) {
-                    return Optional.of(actionEntry);
-                } else {
-                    for (final XmlElement element : fromDomElement.getChildElements()) {
-                        final var foundActionEntry = findActionInElement(element);
-                        if (foundActionEntry.isPresent()) {
-                            return foundActionEntry;
-                        }
-                    }
-                }
-            } catch (final DocumentedException e) {
-                throw new RuntimeException(e);
-            }
+        ActionResponse(final ActionIndex.IndexedAction action, final ContainerNode output) {
+            super(output == null ? List.of() : List.of(output));
+            this.action = action;
+            this.output = output;
         }
-        return Optional.empty();
-    }
 
-    private ImmutableMap<Absolute, ActionDefinition> getAction() {
-        final var builder = ImmutableMap.<Absolute, ActionDefinition>builder();
-        final var context = adapterContext.currentSerializer().getRuntimeContext().modelContext();
-        final var qnames = new ArrayDeque<QName>();
-        for (final DataSchemaNode dataSchemaNode : context.getChildNodes()) {
-            if (dataSchemaNode instanceof ActionNodeContainer) {
-                qnames.addLast(dataSchemaNode.getQName());
-                findAction(dataSchemaNode, builder, qnames);
-                qnames.removeLast();
-            }
+        ActionIndex.IndexedAction action() {
+            return action;
         }
-        return builder.build();
-    }
 
-    private void findAction(final DataSchemaNode dataSchemaNode, final Builder<Absolute, ActionDefinition> builder,
-            final Deque<QName> path) {
-        if (dataSchemaNode instanceof ActionNodeContainer) {
-            for (ActionDefinition actionDefinition : ((ActionNodeContainer) dataSchemaNode).getActions()) {
-                path.addLast(actionDefinition.getQName());
-                builder.put(Absolute.of(List.copyOf(path)), actionDefinition);
-                path.removeLast();
-            }
-        }
-        if (dataSchemaNode instanceof DataNodeContainer) {
-            for (DataSchemaNode innerDataSchemaNode : ((DataNodeContainer) dataSchemaNode).getChildNodes()) {
-                path.addLast(innerDataSchemaNode.getQName());
-                findAction(innerDataSchemaNode, builder, path);
-                path.removeLast();
-            }
-        } else if (dataSchemaNode instanceof ChoiceSchemaNode) {
-            for (CaseSchemaNode caze : ((ChoiceSchemaNode) dataSchemaNode).getCases()) {
-                path.addLast(caze.getQName());
-                findAction(caze, builder, path);
-                path.removeLast();
-            }
+        ContainerNode output() {
+            return output;
         }
     }
-
-    protected Node wrapReplyResponse(final Document document, final List<Node> response) {
-        final Element rpcReply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
-        response.forEach(rpcReply::appendChild);
-        return rpcReply;
-    }
 }
-
@@ -7,100 +7,39 @@
  */
 package io.lighty.netconf.device.action.processors;
 
-import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import io.lighty.codecs.util.XmlNodeConverter;
-import io.lighty.codecs.util.exception.DeserializationException;
-import io.lighty.netconf.device.response.Response;
-import io.lighty.netconf.device.response.ResponseData;
-import io.lighty.netconf.device.utils.RPCUtil;
-import java.io.Reader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
-import javax.xml.transform.TransformerException;
-import org.opendaylight.mdsal.binding.dom.adapter.ConstantAdapterContext;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
-import org.opendaylight.netconf.api.DocumentedException;
-import org.opendaylight.netconf.api.xml.XmlElement;
 import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.Device;
 import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.device.Start;
 import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.device.StartInput;
-import org.opendaylight.yang.gen.v1.urn.example.data.center.rev180807.device.StartOutput;
 import org.opendaylight.yangtools.binding.DataObjectIdentifier;
-import org.opendaylight.yangtools.binding.data.codec.spi.BindingDOMCodecServices;
-import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
-import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
-import org.opendaylight.yangtools.yang.model.api.ActionDefinition;
-import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
 
-public final class StartActionProcessor extends ActionServiceDeviceProcessor {
+public final class StartActionProcessor implements ActionHandler {
 
-    private static final Logger LOG = LoggerFactory.getLogger(StartActionProcessor.class);
+    private static final DataObjectIdentifier<Device> DEVICE = DataObjectIdentifier.builder(Device.class).build();
 
     private final Start startAction;
-    private final Absolute path;
-    private final ActionDefinition definition;
-    private final CurrentAdapterSerializer adapterSerializer;
 
-    public StartActionProcessor(final Start startAction, final Absolute path, final ActionDefinition definition,
-            final BindingDOMCodecServices codecServices) {
+    public StartActionProcessor(final Start startAction) {
         this.startAction = startAction;
-        this.path = path;
-        this.definition = definition;
-        this.adapterSerializer = new ConstantAdapterContext(codecServices).currentSerializer();
     }
 
-    @SuppressWarnings("checkstyle:IllegalCatch")
     @Override
-    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
-        final XmlNodeConverter xmlNodeConverter = getNetconfDeviceServices().getXmlNodeConverter();
-        try {
-            final XmlElement xmlElement = XmlElement.fromDomElement(requestXmlElement);
-            final Element actionElement = findInputElement(xmlElement, this.definition.getQName());
-            final Reader readerFromElement = RPCUtil.createReaderFromElement(actionElement);
-            final Absolute actionInput = getActionInput(this.path, this.definition);
-            final ContainerNode deserializedNode = (ContainerNode) xmlNodeConverter.deserialize(actionInput,
-                    readerFromElement);
-            final StartInput input = this.adapterSerializer.fromNormalizedNodeActionInput(Start.class,
-                    deserializedNode);
-            final ListenableFuture<RpcResult<StartOutput>> outputFuture = this.startAction
-                    .invoke(DataObjectIdentifier.builder(Device.class).build(), input);
-            final CompletableFuture<Response> completableFuture = new CompletableFuture<>();
-            Futures.addCallback(outputFuture, new FutureCallback<>() {
-                @Override
-                public void onSuccess(final RpcResult<StartOutput> result) {
-                    final NormalizedNode domOutput = StartActionProcessor.this.adapterSerializer
-                            .toNormalizedNodeActionOutput(Start.class, result.getResult());
-                    final List<NormalizedNode> list = new ArrayList<>();
-                    list.add(domOutput);
-                    completableFuture.complete(new ResponseData(list));
-                }
-
-                @Override
-                public void onFailure(final Throwable throwable) {
-                    LOG.error("{} action cannot be invoked.", startAction, throwable);
-                }
-            }, Executors.newSingleThreadExecutor());
-            return completableFuture;
-        } catch (final TransformerException | DocumentedException | DeserializationException e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    @Override
-    protected ActionDefinition getActionDefinition() {
-        return this.definition;
+    public QName getActionQName() {
+        return Start.QNAME;
     }
 
     @Override
-    protected Absolute getActionPath() {
-        return this.path;
+    public ListenableFuture<ContainerNode> invoke(final ContainerNode input, final Element actionElement,
+            final CurrentAdapterSerializer serializer) {
+        final StartInput startInput = serializer.fromNormalizedNodeActionInput(Start.class, input);
+        return Futures.transform(this.startAction.invoke(DEVICE, startInput),
+            result -> serializer.toNormalizedNodeActionOutput(Start.class, ActionHandler.checkOutput(result)),
+            MoreExecutors.directExecutor());
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.action.processors;
+
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.action.Main;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class ActionIndexTest {
+
+    private static final String NAMESPACE = "urn:example:data-center";
+    private static final QName SERVER = QName.create(NAMESPACE, "2018-08-07", "server");
+    private static final QName RESET = QName.create(SERVER, "reset");
+    private static final QName BOX_OUT = QName.create(SERVER, "box-out");
+    private static final QName BOX_IN = QName.create(SERVER, "box-in");
+    private static final QName OPEN = QName.create(SERVER, "open");
+
+    private static ActionIndex actionIndex;
+
+    @BeforeAll
+    public static void setUp() {
+        final EffectiveModelContext modelContext = new NetconfDeviceBuilder()
+            .withModels(Main.ACTION_MODEL_PATHS)
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+        actionIndex = ActionIndex.of(modelContext);
+    }
+
+    @Test
+    public void testIndexedActions() {
+        Assertions.assertEquals(3, actionIndex.size());
+    }
+
+    @Test
+    public void testResolveActionOfListEntry() throws Exception {
+        final Element request = parseAction("<server xmlns=\"" + NAMESPACE + "\">"
+            + "<name>server-earth</name>"
+            + "<reset><reset-at>2020-09-03T16:20:00Z</reset-at></reset>"
+            + "</server>");
+        final ActionIndex.ResolvedAction resolved = actionIndex.resolve(request).orElseThrow();
+        Assertions.assertEquals(RESET, resolved.action().definition().getQName());
+        Assertions.assertEquals(List.of(SERVER, RESET), List.copyOf(resolved.action().path().getNodeIdentifiers()));
+        Assertions.assertEquals("reset", resolved.element().getLocalName());
+        Assertions.assertEquals(QName.create(RESET, "input"),
+            resolved.action().inputPath().lastNodeIdentifier());
+        Assertions.assertEquals(QName.create(RESET, "output"),
+            resolved.action().outputPath().lastNodeIdentifier());
+    }
+
+    @Test
+    public void testResolveNestedAction() throws Exception {
+        final Element request = parseAction("<box-out xmlns=\"" + NAMESPACE + "\">"
+            + "<box-in><open/></box-in>"
+            + "</box-out>");
+        final ActionIndex.ResolvedAction resolved = actionIndex.resolve(request).orElseThrow();
+        Assertions.assertEquals(List.of(BOX_OUT, BOX_IN, OPEN),
+            List.copyOf(resolved.action().path().getNodeIdentifiers()));
+    }
+
+    @Test
+    public void testActionOutsideOfDataPath() throws Exception {
+        //action name is known, but it is not defined at this path
+        final Optional<ActionIndex.ResolvedAction> misplaced = actionIndex.resolve(parseAction(
+            "<box-out xmlns=\"" + NAMESPACE + "\"><reset/></box-out>"));
+        Assertions.assertTrue(misplaced.isEmpty());
+        final Optional<ActionIndex.ResolvedAction> unknown = actionIndex.resolve(parseAction(
+            "<device xmlns=\"" + NAMESPACE + "\"><stop/></device>"));
+        Assertions.assertTrue(unknown.isEmpty());
+        final Optional<ActionIndex.ResolvedAction> otherNamespace = actionIndex.resolve(parseAction(
+            "<device xmlns=\"urn:example:other\"><start/></device>"));
+        Assertions.assertTrue(otherNamespace.isEmpty());
+    }
+
+    static Element parseAction(final String content) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(
+            "<action xmlns=\"urn:ietf:params:xml:ns:yang:1\">" + content + "</action>"))).getDocumentElement();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.action.processors;
+
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.action.Main;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+public class ActionServiceDeviceProcessorTest {
+
+    private static final String NAMESPACE = "urn:example:data-center";
+
+    private static ActionServiceDeviceProcessor processor;
+
+    @BeforeAll
+    public static void setUp() {
+        processor = new ActionServiceDeviceProcessor();
+        processor.init(new NetconfDeviceBuilder()
+            .withModels(Main.ACTION_MODEL_PATHS)
+            .build()
+            .getNetconfDeviceServices());
+    }
+
+    @Test
+    public void testStartActionReply() throws Exception {
+        final Document reply = processor.processRequest(ActionIndexTest.parseAction(
+            "<device xmlns=\"" + NAMESPACE + "\"><start><start-at>2020-09-03T16:30:00Z</start-at></start></device>"));
+        final Element output = (Element) reply.getDocumentElement()
+            .getElementsByTagNameNS(NAMESPACE, "start-finished-at").item(0);
+        Assertions.assertNotNull(output);
+        Assertions.assertEquals("2020-09-03T16:30:00Z", output.getTextContent());
+    }
+
+    @Test
+    public void testResetActionReply() throws Exception {
+        final Document reply = processor.processRequest(ActionIndexTest.parseAction(
+            "<server xmlns=\"" + NAMESPACE + "\"><name>server-earth</name>"
+                + "<reset><reset-at>2020-09-03T16:20:00Z</reset-at></reset></server>"));
+        final Element output = (Element) reply.getDocumentElement()
+            .getElementsByTagNameNS(NAMESPACE, "reset-finished-at").item(0);
+        Assertions.assertNotNull(output);
+        Assertions.assertEquals("2020-09-03T16:20:00Z", output.getTextContent());
+    }
+}
@@ -120,7 +120,7 @@ public final class Main {
         DataTreeChangeListenerActivator listenerActivator =
                 new DataTreeChangeListenerActivator(
                     netconfDevice.getNetconfDeviceServices().getNotificationPublishService(),
-                    dataBroker);
+                    dataBroker, networkTopologyService.getTopologyIdIndex());
         listenerActivator.init();
 
         networkTopologyService.setDataBrokerService(
@@ -8,7 +8,12 @@
 package io.lighty.netconf.device.topology.datastore;
 
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
 import org.opendaylight.yangtools.binding.DataObjectIdentifier;
@@ -24,17 +29,35 @@ public final class DataTreeChangeListenerActivator {
 
     private final DataBroker dataBroker;
     private final NotificationPublishService notificationPublishService;
+    private final TopologyIdIndex topologyIdIndex;
     private Registration dataTreeChangeListenerRegistration;
 
     public DataTreeChangeListenerActivator(final NotificationPublishService notificationPublishService,
                                            final DataBroker dataBroker) {
+        this(notificationPublishService, dataBroker, new TopologyIdIndex());
+    }
+
+    /**
+     * Creates activator of listener, which also maintains index of configured topology ids.
+     * @param notificationPublishService service publishing topology notifications
+     * @param dataBroker data broker of the device
+     * @param topologyIdIndex index updated by the listener
+     */
+    public DataTreeChangeListenerActivator(final NotificationPublishService notificationPublishService,
+                                           final DataBroker dataBroker, final TopologyIdIndex topologyIdIndex) {
         this.notificationPublishService = notificationPublishService;
         this.dataBroker = dataBroker;
+        this.topologyIdIndex = topologyIdIndex;
     }
 
+    /**
+     * Seeds index of topology ids with topologies already present in configuration datastore and registers
+     * the listener.
+     */
     public void init() {
+        seedTopologyIdIndex();
         TopologyDataTreeChangeListener topologyDataTreeChangeListener =
-                new TopologyDataTreeChangeListener(notificationPublishService);
+                new TopologyDataTreeChangeListener(notificationPublishService, topologyIdIndex);
         dataTreeChangeListenerRegistration = dataBroker.registerTreeChangeListener(LogicalDatastoreType.CONFIGURATION,
             TOPOLOGY_ID, topologyDataTreeChangeListener);
 
@@ -44,4 +67,18 @@ public final class DataTreeChangeListenerActivator {
     public void close() {
         dataTreeChangeListenerRegistration.close();
     }
+
+    private void seedTopologyIdIndex() {
+        try (ReadTransaction readTx = dataBroker.newReadOnlyTransaction()) {
+            readTx.read(LogicalDatastoreType.CONFIGURATION, TOPOLOGY_ID)
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .ifPresent(networkTopology -> networkTopology.nonnullTopology().keySet()
+                    .forEach(key -> topologyIdIndex.add(key.getTopologyId())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading configured topologies", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Unable to read configured topologies", e);
+        }
+    }
 }
@@ -13,11 +13,13 @@ import java.util.List;
 import java.util.Set;
 import org.eclipse.jdt.annotation.NonNull;
 import org.opendaylight.mdsal.binding.api.DataObjectDeleted;
+import org.opendaylight.mdsal.binding.api.DataObjectModification;
 import org.opendaylight.mdsal.binding.api.DataObjectModification.WithDataAfter;
 import org.opendaylight.mdsal.binding.api.DataTreeChangeListener;
 import org.opendaylight.mdsal.binding.api.DataTreeModification;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.NewTopologyCreated;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.NewTopologyCreatedBuilder;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.TopologyDeleted;
@@ -30,65 +32,58 @@ final class TopologyDataTreeChangeListener implements DataTreeChangeListener<Net
     private static final Logger LOG = LoggerFactory.getLogger(TopologyDataTreeChangeListener.class);
 
     private final NotificationPublishService notificationPublishService;
+    private final TopologyIdIndex topologyIdIndex;
 
-    TopologyDataTreeChangeListener(NotificationPublishService notificationPublishService) {
+    TopologyDataTreeChangeListener(final NotificationPublishService notificationPublishService,
+                                   final TopologyIdIndex topologyIdIndex) {
         this.notificationPublishService = notificationPublishService;
+        this.topologyIdIndex = topologyIdIndex;
     }
 
     @Override
     public void onDataTreeChanged(@NonNull List<DataTreeModification<NetworkTopology>> changes) {
         changes.forEach(change -> {
-            final var rootNode = change.getRootNode();
-            Set<TopologyId> ids = new HashSet<>();
-            switch (rootNode) {
+            final Set<TopologyId> deletedIds = new HashSet<>();
+            switch (change.getRootNode()) {
                 case WithDataAfter<NetworkTopology> written -> {
-                    final var dataBefore = written.dataBefore();
-                    final var dataAfter = written.dataAfter();
-                    int sizeOfDataBefore = 0;
-                    int sizeOfDataAfter = dataAfter.nonnullTopology().size();
-                    if (dataBefore != null) {
-                        sizeOfDataBefore = dataBefore.nonnullTopology().size();
-                    }
-
-                    if (sizeOfDataBefore < sizeOfDataAfter) {
-                        LOG.info("Data has been created");
-                        if (dataBefore != null) {
-                            dataBefore.nonnullTopology().values().forEach(
-                                topology -> ids.add(topology.getTopologyId()));
-                        }
-
-                        dataAfter.nonnullTopology().values().forEach(topology -> {
-                            if (!ids.contains(topology.getTopologyId())) {
-                                notificationPublishService.publish(new NewTopologyCreatedBuilder()
-                                    .setTopologyId(topology.getTopologyId())
-                                    .build(), NewTopologyCreated.QNAME);
-                            }
-                        });
-                    } else {
-                        LOG.info("Data has been modified");
-                        notificationForDeletedData(dataBefore, dataAfter, ids);
-                    }
+                    LOG.debug("Network topology has been modified");
+                    written.modifiedChildren().forEach(child -> onTopologyModified(child, deletedIds));
                 }
                 case DataObjectDeleted<NetworkTopology> deleted -> {
-                    LOG.info("Data has been deleted");
-                    notificationForDeletedData(deleted.dataBefore(), null, ids);
+                    LOG.debug("Network topology has been deleted");
+                    topologyIdIndex.clear();
+                    deleted.dataBefore().nonnullTopology().keySet()
+                        .forEach(key -> deletedIds.add(key.getTopologyId()));
                 }
             }
+            if (!deletedIds.isEmpty()) {
+                notificationPublishService.publish(new TopologyDeletedBuilder()
+                        .setTopologyIds(deletedIds)
+                        .build(), TopologyDeleted.QNAME);
+            }
         });
     }
 
-    private void notificationForDeletedData(final NetworkTopology dataBefore, final NetworkTopology dataAfter,
-                                            final Set<TopologyId> ids) {
-        if (dataBefore != null) {
-            dataBefore.nonnullTopology().values().forEach(topology -> ids.add(topology.getTopologyId()));
-        }
-        if (dataAfter != null) {
-            dataAfter.nonnullTopology().values().forEach(topology -> ids.remove(topology.getTopologyId()));
-        }
-        if (ids.iterator().hasNext()) {
-            notificationPublishService.publish(new TopologyDeletedBuilder()
-                    .setTopologyIds(new HashSet<>(ids))
-                    .build(), TopologyDeleted.QNAME);
+    /**
+     * Handles modification of single topology entry. Only entries changed by the modification are visited,
+     * so the cost does not depend on number of unchanged topologies.
+     */
+    private void onTopologyModified(final DataObjectModification<?> child, final Set<TopologyId> deletedIds) {
+        switch (child) {
+            case WithDataAfter<?> written -> {
+                if (written.dataAfter() instanceof Topology topology && written.dataBefore() == null) {
+                    topologyIdIndex.add(topology.getTopologyId());
+                    notificationPublishService.publish(new NewTopologyCreatedBuilder()
+                        .setTopologyId(topology.getTopologyId())
+                        .build(), NewTopologyCreated.QNAME);
+                }
+            }
+            case DataObjectDeleted<?> deleted -> {
+                if (deleted.dataBefore() instanceof Topology topology) {
+                    topologyIdIndex.remove(topology.getTopologyId());
+                    deletedIds.add(topology.getTopologyId());
+                }
+            }
         }
     }
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.topology.datastore;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+
+/**
+ * Ids of topologies present in configuration datastore, so listing topology ids does not need to read whole
+ * topology tree. Topology RPCs update the index right after their commits, {@link TopologyDataTreeChangeListener}
+ * updates it for other changes, such as edit-config requests. Listener may lag behind the datastore when data tree
+ * change listeners are notified asynchronously, so it is not the only source of the index.
+ */
+public final class TopologyIdIndex {
+
+    private final Set<TopologyId> topologyIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Provides ids of all indexed topologies.
+     * @return snapshot of topology ids
+     */
+    public Set<TopologyId> getTopologyIds() {
+        return Set.copyOf(topologyIds);
+    }
+
+    public boolean contains(final TopologyId topologyId) {
+        return topologyIds.contains(topologyId);
+    }
+
+    public void add(final TopologyId topologyId) {
+        topologyIds.add(topologyId);
+    }
+
+    public void remove(final TopologyId topologyId) {
+        topologyIds.remove(topologyId);
+    }
+
+    public void clear() {
+        topologyIds.clear();
+    }
+}
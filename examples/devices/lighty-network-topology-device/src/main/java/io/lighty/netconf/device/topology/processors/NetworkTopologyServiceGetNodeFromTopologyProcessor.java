@@ -8,6 +8,7 @@
 package io.lighty.netconf.device.topology.processors;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.lighty.netconf.device.requests.BindingRpcRequestProcessor;
 import io.lighty.netconf.device.topology.rpcs.NetworkTopologyServiceImpl;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.GetNodeFromTopologyById;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.GetNodeFromTopologyByIdInput;
@@ -19,7 +20,7 @@ import org.slf4j.LoggerFactory;
 
 @SuppressWarnings("checkstyle:MemberName")
 public class NetworkTopologyServiceGetNodeFromTopologyProcessor extends
-        NetworkTopologyServiceAbstractProcessor<GetNodeFromTopologyByIdInput, GetNodeFromTopologyByIdOutput>
+        BindingRpcRequestProcessor<GetNodeFromTopologyByIdInput, GetNodeFromTopologyByIdOutput>
         implements GetNodeFromTopologyById {
     private static final Logger LOG = LoggerFactory.getLogger(NetworkTopologyServiceGetNodeFromTopologyProcessor.class);
 
@@ -8,6 +8,7 @@
 package io.lighty.netconf.device.topology.processors;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.lighty.netconf.device.requests.BindingRpcRequestProcessor;
 import io.lighty.netconf.device.topology.rpcs.NetworkTopologyServiceImpl;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.GetTopologyIds;
 import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.GetTopologyIdsInput;
@@ -18,7 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @SuppressWarnings("checkstyle:MemberName")
-public class NetworkTopologyServiceGetTopologyIdsProcessor extends NetworkTopologyServiceAbstractProcessor<
+public class NetworkTopologyServiceGetTopologyIdsProcessor extends BindingRpcRequestProcessor<
         GetTopologyIdsInput, GetTopologyIdsOutput> implements GetTopologyIds {
     private static final Logger LOG = LoggerFactory.getLogger(NetworkTopologyServiceGetTopologyIdsProcessor.class);
 
@@ -8,30 +8,31 @@
 package io.lighty.netconf.device.topology.rpcs;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.SettableFuture;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.lighty.netconf.device.topology.datastore.TopologyIdIndex;
 import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.ReadTransaction;
 import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.CommitInfo;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.ConnectionOper.ConnectionStatus;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.AvailableCapabilities;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.AvailableCapabilitiesBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.UnavailableCapabilities;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.UnavailableCapabilitiesBuilder;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.available.capabilities.AvailableCapability;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.netconf.device.rev251205.connection.oper.available.capabilities.AvailableCapabilityBuilder;
@@ -87,118 +88,90 @@ import org.slf4j.LoggerFactory;
 public final class NetworkTopologyServiceImpl implements AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkTopologyServiceImpl.class);
+    private static final int NODE_BATCH_SIZE = 10_000;
+    private static final UnavailableCapabilities UNAVAILABLE_CAPABILITIES =
+            new UnavailableCapabilitiesBuilder().build();
 
-    private final ExecutorService executor;
+    private final TopologyOperationExecutor executor;
+    private final int nodeBatchSize;
+    private final TopologyIdIndex topologyIdIndex = new TopologyIdIndex();
     private DataBroker dataBrokerService;
-    private EffectiveModelContext effectiveModelContext;
+    private AvailableCapabilities availableCapabilities;
 
     public NetworkTopologyServiceImpl() {
-        this.executor = Executors.newFixedThreadPool(1);
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates topology service. Operations on the same topology are executed in order, while operations
+     * on different topologies and read operations are executed concurrently.
+     * @param threadCount number of threads executing topology operations
+     */
+    public NetworkTopologyServiceImpl(final int threadCount) {
+        this(threadCount, NODE_BATCH_SIZE);
+    }
+
+    NetworkTopologyServiceImpl(final int threadCount, final int nodeBatchSize) {
+        Preconditions.checkArgument(nodeBatchSize > 0, "Node batch size has to be positive");
+        this.executor = new TopologyOperationExecutor(threadCount);
+        this.nodeBatchSize = nodeBatchSize;
     }
 
     @Override
     public void close() {
-        this.executor.shutdown();
+        this.executor.close();
+    }
+
+    /**
+     * Provides index of configured topology ids used by get-topology-ids RPC. Topology RPCs update the index
+     * after their commits, changes made by other requests are indexed by listener registered with
+     * {@link io.lighty.netconf.device.topology.datastore.DataTreeChangeListenerActivator}.
+     * @return index of topology ids
+     */
+    public TopologyIdIndex getTopologyIdIndex() {
+        return this.topologyIdIndex;
     }
 
     public void setDataBrokerService(final DataBroker dataBrokerService) {
         this.dataBrokerService = dataBrokerService;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
+    /**
+     * Adds nodes into topology. Nodes are written in batches, each batch is committed before the next one
+     * is created. When commit of a batch fails, nodes of previously committed batches stay in the topology.
+     * @param input RPC input
+     * @return The future result of RPC processing
+     */
     public ListenableFuture<RpcResult<AddNodeIntoTopologyOutput>> addNodeIntoTopology(
             final AddNodeIntoTopologyInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
         LOG.info("Adding node to topology {}", input.getTopologyId());
-        final SettableFuture<RpcResult<AddNodeIntoTopologyOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<AddNodeIntoTopologyOutput>>() {
+        return this.executor.submitWrite(input.getTopologyId(),
+                new Callable<RpcResult<AddNodeIntoTopologyOutput>>() {
             @Override
             public RpcResult<AddNodeIntoTopologyOutput> call() throws Exception {
-                final WriteTransaction writeTxConfig =
-                        NetworkTopologyServiceImpl.this.dataBrokerService.newWriteOnlyTransaction();
-                final WriteTransaction writeTxOper =
-                        NetworkTopologyServiceImpl.this.dataBrokerService.newWriteOnlyTransaction();
                 final TopologyId topologyId = input.getTopologyId();
-                final Collection<Node> nodeCollection = input.nonnullNode().values();
-
-                final Map<org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network
-                        .topology.topology.NodeKey, org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network
-                        .topology.rev131021.network.topology.topology.Node> nodeConfigMap = new HashMap<>();
-                final Map<org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network
-                        .topology.topology.NodeKey, org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network
-                        .topology.rev131021.network.topology.topology.Node> nodeOperMap = new HashMap<>();
-                for (final Node node : nodeCollection) {
-
-                    NetconfNode netconfNode = new NetconfNodeBuilder()
-                            .setHost(node.getHost())
-                            .setPort(node.getPort())
-                            .setCredentials(node.getCredentials())
-                            .setKeepaliveDelay(node.getKeepaliveDelay())
-                            .setSchemaless(node.getSchemaless())
-                            .setTcpOnly(node.getTcpOnly())
-                            .build();
-
-                    final org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
-                        .rev131021.network.topology.topology.Node nConfig =
-                            createNetworkTopologyNode(node, netconfNode);
-
-                    final List<AvailableCapability> availableCapabilities = new ArrayList<>();
-                    for (final Module m : NetworkTopologyServiceImpl.this.effectiveModelContext.getModules()) {
-                        final Revision revision = m.getRevision().orElse(Revision.of("2017-01-01"));
-                        final AvailableCapability ac = new AvailableCapabilityBuilder()
-                                .setCapabilityOrigin(AvailableCapability.CapabilityOrigin.DeviceAdvertised)
-                                .setCapability(String.format("(%s?revision=%s)%s", m.getNamespace(), revision,
-                                    m.getName())).build();
-                        availableCapabilities.add(ac);
-                    }
-                    netconfNode = new NetconfNodeBuilder()
-                            .setConnectionStatus(ConnectionStatus.Connected)
-                            .setUnavailableCapabilities(new UnavailableCapabilitiesBuilder().build())
-                            .setAvailableCapabilities(new AvailableCapabilitiesBuilder()
-                                    .setAvailableCapability(availableCapabilities).build())
-                            .setHost(node.getHost())
-                            .setPort(node.getPort())
-                            .build();
-                    final org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
-                        .rev131021.network.topology.topology.Node nOper =
-                            createNetworkTopologyNode(node, netconfNode);
-                    nodeConfigMap.put(nConfig.key() ,nConfig);
-                    nodeOperMap.put(nOper.key() ,nOper);
-                }
-
-                Topology topology = new TopologyBuilder()
-                        .setTopologyId(topologyId)
-                        .setNode(nodeConfigMap)
-                        .build();
-                final DataObjectIdentifier<Topology> tii =
-                    DataObjectIdentifier.builder(NetworkTopology.class).child(Topology.class,
-                                topology.key()).build();
-                writeTxConfig.merge(LogicalDatastoreType.CONFIGURATION, tii, topology);
-                topology = new TopologyBuilder()
-                        .setTopologyId(topologyId)
-                        .setNode(nodeOperMap)
-                        .build();
-                writeTxOper.merge(LogicalDatastoreType.OPERATIONAL, tii, topology);
-                writeTxConfig.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-                writeTxOper.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                final DataObjectIdentifier<Topology> tii = topologyIdentifier(topologyId);
+                final Iterator<Node> nodes = input.nonnullNode().values().iterator();
+                // topology is written even when there are no nodes to add
+                do {
+                    writeNodeBatch(tii, topologyId, nodes).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } while (nodes.hasNext());
+                NetworkTopologyServiceImpl.this.topologyIdIndex.add(topologyId);
 
                 final AddNodeIntoTopologyOutput addNodeIntoTopologyOutput = new AddNodeIntoTopologyOutputBuilder()
                         .build();
                 final RpcResult<AddNodeIntoTopologyOutput> rpcResult = RpcResultBuilder.success(
                         addNodeIntoTopologyOutput).build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<CreateTopologyOutput>> createTopology(final CreateTopologyInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
-        final SettableFuture<RpcResult<CreateTopologyOutput>> result = SettableFuture.create();
         LOG.info("Creating topology {}", input.getTopologyId());
-        this.executor.submit(new Callable<RpcResult<CreateTopologyOutput>>() {
+        return this.executor.submitWrite(input.getTopologyId(), new Callable<RpcResult<CreateTopologyOutput>>() {
             @Override
             public RpcResult<CreateTopologyOutput> call() throws Exception {
                 final WriteTransaction writeTxOper =
@@ -213,23 +186,20 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                 writeTxOper.merge(LogicalDatastoreType.OPERATIONAL, tii, topology);
                 writeTxConfig.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
                 writeTxOper.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                NetworkTopologyServiceImpl.this.topologyIdIndex.add(input.getTopologyId());
                 final CreateTopologyOutput topologyOutput = new CreateTopologyOutputBuilder().build();
 
                 final RpcResult<CreateTopologyOutput> rpcResult = RpcResultBuilder.success(topologyOutput).build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<RemoveTopologyOutput>> removeTopology(final RemoveTopologyInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
 
-        final SettableFuture<RpcResult<RemoveTopologyOutput>> result = SettableFuture.create();
         LOG.info("Removing topology {}", input.getTopologyId());
-        this.executor.submit(new Callable<RpcResult<RemoveTopologyOutput>>() {
+        return this.executor.submitWrite(input.getTopologyId(), new Callable<RpcResult<RemoveTopologyOutput>>() {
             @Override
             public RpcResult<RemoveTopologyOutput> call() throws Exception {
                 final Topology topology = new TopologyBuilder().setTopologyId(input.getTopologyId()).build();
@@ -238,23 +208,21 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                         .child(Topology.class, topology.key())
                         .build();
                 removeFromDatastore(tii);
+                NetworkTopologyServiceImpl.this.topologyIdIndex.remove(input.getTopologyId());
                 final RemoveTopologyOutput topologyOutput = new RemoveTopologyOutputBuilder().build();
                 final RpcResult<RemoveTopologyOutput> rpcResult = RpcResultBuilder.success(topologyOutput).build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<RemoveNodeFromTopologyOutput>> removeNodeFromTopology(
             final RemoveNodeFromTopologyInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
 
         LOG.info("Removing node {} from topology {}", input.getNodeId(), input.getTopologyId());
-        final SettableFuture<RpcResult<RemoveNodeFromTopologyOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<RemoveNodeFromTopologyOutput>>() {
+        return this.executor.submitWrite(input.getTopologyId(),
+                new Callable<RpcResult<RemoveNodeFromTopologyOutput>>() {
             @Override
             public RpcResult<RemoveNodeFromTopologyOutput> call() throws Exception {
                 final Topology topology = new TopologyBuilder().setTopologyId(input.getTopologyId()).build();
@@ -274,43 +242,36 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                 final RemoveNodeFromTopologyOutput topologyOutput = new RemoveNodeFromTopologyOutputBuilder().build();
                 final RpcResult<RemoveNodeFromTopologyOutput> rpcResult = RpcResultBuilder.success(topologyOutput)
                         .build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<RemoveAllTopologiesOutput>> removeAllTopologies(
             final RemoveAllTopologiesInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
 
         LOG.info("Removing whole topology");
-        final SettableFuture<RpcResult<RemoveAllTopologiesOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<RemoveAllTopologiesOutput>>() {
+        return this.executor.submitGlobalWrite(new Callable<RpcResult<RemoveAllTopologiesOutput>>() {
             @Override
             public RpcResult<RemoveAllTopologiesOutput> call() throws Exception {
                 final DataObjectIdentifier<NetworkTopology> ntii =
                     DataObjectIdentifier.builder(NetworkTopology.class).build();
                 removeFromDatastore(ntii);
+                NetworkTopologyServiceImpl.this.topologyIdIndex.clear();
                 final RemoveAllTopologiesOutput topologiesOutput = new RemoveAllTopologiesOutputBuilder().build();
                 final RpcResult<RemoveAllTopologiesOutput> rpcResult = RpcResultBuilder.success(topologiesOutput)
                         .build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<GetTopologyByIdOutput>> getTopologyById(final GetTopologyByIdInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
 
         LOG.info("Searching for topology {}", input.getTopologyId());
-        final SettableFuture<RpcResult<GetTopologyByIdOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<GetTopologyByIdOutput>>() {
+        return this.executor.submitRead(new Callable<RpcResult<GetTopologyByIdOutput>>() {
             @Override
             public RpcResult<GetTopologyByIdOutput> call() throws Exception {
                 try (ReadTransaction readTx =
@@ -349,42 +310,34 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                             finalTopology).build();
                     final RpcResult<GetTopologyByIdOutput> rpcResult = RpcResultBuilder.success(getTopologyByIdOutput)
                             .build();
-                    result.set(rpcResult);
                     return rpcResult;
                 }
 
 
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<GetTopologyIdsOutput>> getTopologyIds(final GetTopologyIdsInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
 
         LOG.info("Searching for list of topologies");
-        final SettableFuture<RpcResult<GetTopologyIdsOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<GetTopologyIdsOutput>>() {
+        return this.executor.submitRead(new Callable<RpcResult<GetTopologyIdsOutput>>() {
             @Override
             public RpcResult<GetTopologyIdsOutput> call() throws Exception {
                 final GetTopologyIdsOutput topologyIdsOutput = new GetTopologyIdsOutputBuilder().setTopologyIds(
-                        prepareGetTopologyIds()).build();
+                        NetworkTopologyServiceImpl.this.topologyIdIndex.getTopologyIds()).build();
                 final RpcResult<GetTopologyIdsOutput> rpcResult = RpcResultBuilder.success(topologyIdsOutput).build();
-                result.set(rpcResult);
                 return rpcResult;
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<GetNodeFromTopologyByIdOutput>> getNodeFromTopologyById(
             final GetNodeFromTopologyByIdInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
         LOG.info("Searching node {} on topology {}", input.getNodeId(), input.getTopologyId());
-        final SettableFuture<RpcResult<GetNodeFromTopologyByIdOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<GetNodeFromTopologyByIdOutput>>() {
+        return this.executor.submitRead(new Callable<RpcResult<GetNodeFromTopologyByIdOutput>>() {
             @Override
             public RpcResult<GetNodeFromTopologyByIdOutput> call() throws Exception {
                 try (ReadTransaction readTx =
@@ -440,28 +393,23 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                                 new GetNodeFromTopologyByIdOutputBuilder().setNode(finalNodeMap).build();
                         final RpcResult<GetNodeFromTopologyByIdOutput> rpcResult = RpcResultBuilder.success(
                                 nodeFromTopologyByIdOutput).build();
-                        result.set(rpcResult);
                         return rpcResult;
                     } else {
                         final GetNodeFromTopologyByIdOutput getNodeFromTopologyByIdOutput =
                                 new GetNodeFromTopologyByIdOutputBuilder().build();
                         final RpcResult<GetNodeFromTopologyByIdOutput> rpcResult = RpcResultBuilder.success(
                                 getNodeFromTopologyByIdOutput).build();
-                        result.set(rpcResult);
                         return rpcResult;
                     }
                 }
             }
         });
-        return result;
     }
 
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED_BAD_PRACTICE")
     public ListenableFuture<RpcResult<GetTopologiesOutput>> getTopologies(final GetTopologiesInput input) {
         Preconditions.checkNotNull(this.dataBrokerService);
         LOG.info("Searching data for all topologies");
-        final SettableFuture<RpcResult<GetTopologiesOutput>> result = SettableFuture.create();
-        this.executor.submit(new Callable<RpcResult<GetTopologiesOutput>>() {
+        return this.executor.submitRead(new Callable<RpcResult<GetTopologiesOutput>>() {
             @Override
             public RpcResult<GetTopologiesOutput> call() throws Exception {
                 try (ReadTransaction readTx =
@@ -506,21 +454,93 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
                                         .build()).build();
                         final RpcResult<GetTopologiesOutput> rpcResult = RpcResultBuilder.success(getTopologiesOutput)
                                 .build();
-                        result.set(rpcResult);
                         return rpcResult;
                     }
                     final RpcResult<GetTopologiesOutput> rpcResult = RpcResultBuilder.success(
                             new GetTopologiesOutputBuilder().build()).build();
-                    result.set(rpcResult);
                     return rpcResult;
                 }
             }
         });
-        return result;
     }
 
     public void setEffectiveModelContext(final EffectiveModelContext effectiveModelContext) {
-        this.effectiveModelContext = effectiveModelContext;
+        this.availableCapabilities = createAvailableCapabilities(effectiveModelContext);
+    }
+
+    /**
+     * Writes next batch of nodes into both datastores, each datastore by its own transaction. Caller awaits
+     * both commits before writing the next batch, so only nodes of a single batch are converted and held
+     * by the transactions.
+     */
+    private ListenableFuture<List<CommitInfo>> writeNodeBatch(final DataObjectIdentifier<Topology> tii,
+            final TopologyId topologyId, final Iterator<Node> nodes) {
+        final Map<org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network
+                .topology.topology.NodeKey, org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network
+                .topology.rev131021.network.topology.topology.Node> nodeConfigMap = new HashMap<>();
+        final Map<org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network
+                .topology.topology.NodeKey, org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network
+                .topology.rev131021.network.topology.topology.Node> nodeOperMap = new HashMap<>();
+        for (int i = 0; i < this.nodeBatchSize && nodes.hasNext(); i++) {
+            final Node node = nodes.next();
+            final NetconfNode configNode = new NetconfNodeBuilder()
+                    .setHost(node.getHost())
+                    .setPort(node.getPort())
+                    .setCredentials(node.getCredentials())
+                    .setKeepaliveDelay(node.getKeepaliveDelay())
+                    .setSchemaless(node.getSchemaless())
+                    .setTcpOnly(node.getTcpOnly())
+                    .build();
+            final NetconfNode operNode = new NetconfNodeBuilder()
+                    .setConnectionStatus(ConnectionStatus.Connected)
+                    .setUnavailableCapabilities(UNAVAILABLE_CAPABILITIES)
+                    .setAvailableCapabilities(this.availableCapabilities)
+                    .setHost(node.getHost())
+                    .setPort(node.getPort())
+                    .build();
+            final org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
+                .rev131021.network.topology.topology.Node nConfig = createNetworkTopologyNode(node, configNode);
+            final org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
+                .rev131021.network.topology.topology.Node nOper = createNetworkTopologyNode(node, operNode);
+            nodeConfigMap.put(nConfig.key(), nConfig);
+            nodeOperMap.put(nOper.key(), nOper);
+        }
+
+        final WriteTransaction writeTxConfig = this.dataBrokerService.newWriteOnlyTransaction();
+        final WriteTransaction writeTxOper = this.dataBrokerService.newWriteOnlyTransaction();
+        writeTxConfig.merge(LogicalDatastoreType.CONFIGURATION, tii, new TopologyBuilder()
+                .setTopologyId(topologyId)
+                .setNode(nodeConfigMap)
+                .build());
+        writeTxOper.merge(LogicalDatastoreType.OPERATIONAL, tii, new TopologyBuilder()
+                .setTopologyId(topologyId)
+                .setNode(nodeOperMap)
+                .build());
+        return Futures.allAsList(writeTxConfig.commit(), writeTxOper.commit());
+    }
+
+    private static DataObjectIdentifier<Topology> topologyIdentifier(final TopologyId topologyId) {
+        return DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, new org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
+                        .rev131021.network.topology.TopologyKey(topologyId))
+                .build();
+    }
+
+    /**
+     * Creates capabilities reported by every added node. They depend only on the model context,
+     * so they are created once and shared by all nodes.
+     */
+    private static AvailableCapabilities createAvailableCapabilities(
+            final EffectiveModelContext effectiveModelContext) {
+        final List<AvailableCapability> availableCapabilities = new ArrayList<>();
+        for (final Module m : effectiveModelContext.getModules()) {
+            final Revision revision = m.getRevision().orElse(Revision.of("2017-01-01"));
+            availableCapabilities.add(new AvailableCapabilityBuilder()
+                    .setCapabilityOrigin(AvailableCapability.CapabilityOrigin.DeviceAdvertised)
+                    .setCapability(String.format("(%s?revision=%s)%s", m.getNamespace(), revision, m.getName()))
+                    .build());
+        }
+        return new AvailableCapabilitiesBuilder().setAvailableCapability(availableCapabilities).build();
     }
 
     @SuppressFBWarnings("UPM_UNCALLED_PRIVATE_METHOD")
@@ -551,24 +571,6 @@ public final class NetworkTopologyServiceImpl implements AutoCloseable {
         writeTxOper.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
     }
 
-    @SuppressFBWarnings("UPM_UNCALLED_PRIVATE_METHOD")
-    private Set<TopologyId> prepareGetTopologyIds() throws ExecutionException, InterruptedException, TimeoutException {
-        try (ReadTransaction readTx = this.dataBrokerService.newReadOnlyTransaction()) {
-            final DataObjectIdentifier<NetworkTopology> ntii =
-                DataObjectIdentifier.builder(NetworkTopology.class)
-                            .build();
-            final Optional<NetworkTopology> networkTopology = readTx.read(LogicalDatastoreType.CONFIGURATION, ntii)
-                    .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-            final Set<TopologyId> topologyIds = new HashSet<>();
-            if (networkTopology.isPresent()) {
-                for (final Topology topology : networkTopology.get().nonnullTopology().values()) {
-                    topologyIds.add(topology.getTopologyId());
-                }
-            }
-            return topologyIds;
-        }
-    }
-
     @SuppressFBWarnings("UPM_UNCALLED_PRIVATE_METHOD")
     private Node buildNode(final NodeKey key,
         final org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology
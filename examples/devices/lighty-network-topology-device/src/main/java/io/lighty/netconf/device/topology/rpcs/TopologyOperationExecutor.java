@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.topology.rpcs;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+
+/**
+ * Executor of topology operations. Writes to the same topology run in submission order, writes to different
+ * topologies and reads run concurrently. Write affecting all topologies waits for all previously submitted
+ * writes and every later write waits for it.
+ */
+final class TopologyOperationExecutor implements AutoCloseable {
+
+    private final ListeningExecutorService executor;
+    // guarded by this
+    private final Map<TopologyId, ListenableFuture<?>> pendingWrites = new HashMap<>();
+    // guarded by this
+    private ListenableFuture<?> pendingGlobalWrite = Futures.immediateVoidFuture();
+
+    TopologyOperationExecutor(final int threadCount) {
+        this.executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(threadCount,
+            new ThreadFactoryBuilder().setNameFormat("topology-operation-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * Submits write of single topology. It runs after all writes of the same topology submitted before.
+     */
+    synchronized <V> ListenableFuture<V> submitWrite(final TopologyId topologyId, final Callable<V> task) {
+        final ListenableFuture<?> previous = pendingWrites.get(topologyId);
+        final ListenableFuture<V> future = previous == null
+            ? runAfter(List.of(pendingGlobalWrite), task)
+            : runAfter(List.of(pendingGlobalWrite, previous), task);
+        pendingWrites.put(topologyId, future);
+        future.addListener(() -> release(topologyId, future), MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * Submits write affecting all topologies. It runs after all writes submitted before.
+     */
+    synchronized <V> ListenableFuture<V> submitGlobalWrite(final Callable<V> task) {
+        final List<ListenableFuture<?>> previous = new ArrayList<>(pendingWrites.values());
+        previous.add(pendingGlobalWrite);
+        final ListenableFuture<V> future = runAfter(previous, task);
+        pendingWrites.clear();
+        pendingGlobalWrite = future;
+        return future;
+    }
+
+    /**
+     * Submits read. Reads work on committed datastore snapshots, so they are not ordered with writes.
+     */
+    <V> ListenableFuture<V> submitRead(final Callable<V> task) {
+        return executor.submit(task);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <V> ListenableFuture<V> runAfter(final List<ListenableFuture<?>> previous, final Callable<V> task) {
+        // failure of previous operation does not prevent the next one from running
+        return Futures.whenAllComplete(previous).callAsync(() -> executor.submit(task), MoreExecutors.directExecutor());
+    }
+
+    private synchronized void release(final TopologyId topologyId, final ListenableFuture<?> future) {
+        pendingWrites.remove(topologyId, future);
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.topology.datastore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.datastore.ListenerDispatchConfig;
+import io.lighty.netconf.device.topology.rpcs.NetworkTopologyServiceImpl;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyBuilder;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.CreateTopologyInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.GetTopologyIdsInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.RemoveAllTopologiesInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.RemoveTopologyInputBuilder;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class TopologyIdIndexTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final TopologyId FIRST_TOPOLOGY = new TopologyId("first-topology");
+    private static final TopologyId SECOND_TOPOLOGY = new TopologyId("second-topology");
+
+    private static Set<YangModuleInfo> modules;
+
+    @BeforeAll
+    public static void setUp() {
+        modules = ModelUtils.getModelsFromClasspath(
+            ModuleId.from("urn:tech.pantheon.netconfdevice.network.topology.rpcs",
+                "network-topology-rpcs",
+                "2023-09-27"),
+            ModuleId.from("urn:opendaylight:netconf-node-topology",
+                "netconf-node-topology",
+                "2023-11-21"));
+    }
+
+    @Test
+    public void testIndexUpdatedByTopologyRpcs() throws Exception {
+        //listeners are notified asynchronously, so only the RPCs can keep the index current
+        final NetconfDeviceServices services = new NetconfDeviceBuilder()
+            .withModels(modules)
+            .withAsyncDataTreeChangeListeners(ListenerDispatchConfig.defaults())
+            .build()
+            .getNetconfDeviceServices();
+        try (NetworkTopologyServiceImpl service = new NetworkTopologyServiceImpl(1)) {
+            service.setDataBrokerService(services.getDataBroker());
+            final DataTreeChangeListenerActivator activator = new DataTreeChangeListenerActivator(
+                services.getNotificationPublishService(), services.getDataBroker(), service.getTopologyIdIndex());
+            activator.init();
+            try {
+                createTopology(service, FIRST_TOPOLOGY);
+                createTopology(service, SECOND_TOPOLOGY);
+                assertEquals(Set.of(FIRST_TOPOLOGY, SECOND_TOPOLOGY), getTopologyIds(service));
+
+                service.removeTopology(new RemoveTopologyInputBuilder().setTopologyId(FIRST_TOPOLOGY).build())
+                    .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                assertEquals(Set.of(SECOND_TOPOLOGY), getTopologyIds(service));
+
+                service.removeAllTopologies(new RemoveAllTopologiesInputBuilder().build())
+                    .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                assertEquals(Set.of(), getTopologyIds(service));
+            } finally {
+                activator.close();
+            }
+        }
+    }
+
+    @Test
+    public void testIndexSeededFromDatastore() throws Exception {
+        final NetconfDeviceServices services = new NetconfDeviceBuilder()
+            .withModels(modules)
+            .withAsyncDataTreeChangeListeners(ListenerDispatchConfig.defaults())
+            .build()
+            .getNetconfDeviceServices();
+        writeTopology(services, FIRST_TOPOLOGY);
+
+        final TopologyIdIndex index = new TopologyIdIndex();
+        final DataTreeChangeListenerActivator activator = new DataTreeChangeListenerActivator(
+            services.getNotificationPublishService(), services.getDataBroker(), index);
+        activator.init();
+        try {
+            assertEquals(Set.of(FIRST_TOPOLOGY), index.getTopologyIds());
+        } finally {
+            activator.close();
+        }
+    }
+
+    @Test
+    public void testIndexUpdatedByListener() throws Exception {
+        final NetconfDeviceServices services = new NetconfDeviceBuilder()
+            .withModels(modules)
+            .build()
+            .getNetconfDeviceServices();
+        final TopologyIdIndex index = new TopologyIdIndex();
+        final DataTreeChangeListenerActivator activator = new DataTreeChangeListenerActivator(
+            services.getNotificationPublishService(), services.getDataBroker(), index);
+        activator.init();
+        try {
+            //topology written by other request than topology RPC, such as edit-config
+            writeTopology(services, SECOND_TOPOLOGY);
+            final long deadline = System.currentTimeMillis() + REQUEST_TIMEOUT_MILLIS;
+            while (!index.contains(SECOND_TOPOLOGY) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(index.contains(SECOND_TOPOLOGY));
+        } finally {
+            activator.close();
+        }
+    }
+
+    private static void createTopology(final NetworkTopologyServiceImpl service, final TopologyId topologyId)
+            throws Exception {
+        service.createTopology(new CreateTopologyInputBuilder().setTopologyId(topologyId).build())
+            .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Set<TopologyId> getTopologyIds(final NetworkTopologyServiceImpl service) throws Exception {
+        return service.getTopologyIds(new GetTopologyIdsInputBuilder().build())
+            .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getResult().getTopologyIds();
+    }
+
+    private static void writeTopology(final NetconfDeviceServices services, final TopologyId topologyId)
+            throws Exception {
+        final DataObjectIdentifier<Topology> tii = DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(topologyId))
+            .build();
+        final WriteTransaction writeTx = services.getDataBroker().newWriteOnlyTransaction();
+        writeTx.put(LogicalDatastoreType.CONFIGURATION, tii, new TopologyBuilder().setTopologyId(topologyId).build());
+        writeTx.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.topology.rpcs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.DataBroker;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.binding.api.WriteTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.AddNodeIntoTopologyInput;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.AddNodeIntoTopologyInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.node.data.Node;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.node.data.NodeBuilder;
+import org.opendaylight.yang.gen.v1.urn.tech.pantheon.netconfdevice.network.topology.rpcs.rev230927.node.data.NodeKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class NetworkTopologyServiceImplTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final int NODE_BATCH_SIZE = 2;
+
+    private static DataBroker dataBroker;
+
+    @BeforeAll
+    public static void setUp() {
+        final Set<YangModuleInfo> modules = ModelUtils.getModelsFromClasspath(
+            ModuleId.from("urn:tech.pantheon.netconfdevice.network.topology.rpcs",
+                "network-topology-rpcs",
+                "2023-09-27"),
+            ModuleId.from("urn:opendaylight:netconf-node-topology",
+                "netconf-node-topology",
+                "2023-11-21"));
+        dataBroker = new NetconfDeviceBuilder()
+            .withModels(modules)
+            .build()
+            .getNetconfDeviceServices()
+            .getDataBroker();
+    }
+
+    @Test
+    public void testNodesWrittenInSequentialBatches() throws Exception {
+        final CommitRecordingBroker broker = new CommitRecordingBroker(-1);
+        try (NetworkTopologyServiceImpl service = new NetworkTopologyServiceImpl(1, NODE_BATCH_SIZE)) {
+            service.setDataBrokerService(broker.proxy());
+            assertTrue(service.addNodeIntoTopology(addNodesInput("batched-topology", 5))
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccessful());
+        }
+        //every batch is committed to both datastores before the next one is written
+        assertEquals(6, broker.transactions.get());
+        assertFalse(broker.overlappingCommits.get());
+        assertEquals(5, readNodeCount(LogicalDatastoreType.CONFIGURATION, "batched-topology"));
+        assertEquals(5, readNodeCount(LogicalDatastoreType.OPERATIONAL, "batched-topology"));
+    }
+
+    @Test
+    public void testTopologyWrittenWithoutNodes() throws Exception {
+        final CommitRecordingBroker broker = new CommitRecordingBroker(-1);
+        try (NetworkTopologyServiceImpl service = new NetworkTopologyServiceImpl(1, NODE_BATCH_SIZE)) {
+            service.setDataBrokerService(broker.proxy());
+            assertTrue(service.addNodeIntoTopology(addNodesInput("empty-topology", 0))
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).isSuccessful());
+        }
+        assertEquals(2, broker.transactions.get());
+        assertEquals(0, readNodeCount(LogicalDatastoreType.CONFIGURATION, "empty-topology"));
+        assertEquals(0, readNodeCount(LogicalDatastoreType.OPERATIONAL, "empty-topology"));
+    }
+
+    @Test
+    public void testFailedBatchKeepsPreviousBatches() throws Exception {
+        //configuration transaction of the second batch fails
+        final CommitRecordingBroker broker = new CommitRecordingBroker(2);
+        try (NetworkTopologyServiceImpl service = new NetworkTopologyServiceImpl(1, NODE_BATCH_SIZE)) {
+            service.setDataBrokerService(broker.proxy());
+            assertThrows(ExecutionException.class, () -> service.addNodeIntoTopology(
+                addNodesInput("partial-topology", 5)).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+        //batches after the failed one are not written, the first one stays committed
+        assertEquals(4, broker.transactions.get());
+        assertEquals(NODE_BATCH_SIZE, readNodeCount(LogicalDatastoreType.CONFIGURATION, "partial-topology"));
+    }
+
+    private static AddNodeIntoTopologyInput addNodesInput(final String topologyId, final int nodeCount) {
+        final Map<NodeKey, Node> nodes = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            final Node node = new NodeBuilder().setNodeId(new NodeId(topologyId + "-node-" + i)).build();
+            nodes.put(node.key(), node);
+        }
+        return new AddNodeIntoTopologyInputBuilder()
+            .setTopologyId(new TopologyId(topologyId))
+            .setNode(nodes)
+            .build();
+    }
+
+    private static int readNodeCount(final LogicalDatastoreType type, final String topologyId) throws Exception {
+        final DataObjectIdentifier<Topology> tii = DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .build();
+        try (ReadTransaction tx = dataBroker.newReadOnlyTransaction()) {
+            final Optional<Topology> topology = tx.read(type, tii).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return topology.orElseThrow().nonnullNode().size();
+        }
+    }
+
+    /**
+     * Data broker counting write transactions and failing commit of the transaction with given index.
+     */
+    private static final class CommitRecordingBroker {
+
+        private final int failingTransaction;
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final AtomicBoolean overlappingCommits = new AtomicBoolean();
+        private final AtomicReference<FluentFuture<?>> lastCommit = new AtomicReference<>();
+
+        CommitRecordingBroker(final int failingTransaction) {
+            this.failingTransaction = failingTransaction;
+        }
+
+        DataBroker proxy() {
+            return (DataBroker) Proxy.newProxyInstance(DataBroker.class.getClassLoader(),
+                new Class<?>[] {DataBroker.class}, (proxy, method, args) -> {
+                    if ("newWriteOnlyTransaction".equals(method.getName())) {
+                        final FluentFuture<?> previous = lastCommit.get();
+                        if (previous != null && !previous.isDone()) {
+                            overlappingCommits.set(true);
+                        }
+                        return writeTransaction(dataBroker.newWriteOnlyTransaction(),
+                            transactions.getAndIncrement() == failingTransaction);
+                    }
+                    return method.invoke(dataBroker, args);
+                });
+        }
+
+        private WriteTransaction writeTransaction(final WriteTransaction delegate, final boolean failing) {
+            return (WriteTransaction) Proxy.newProxyInstance(WriteTransaction.class.getClassLoader(),
+                new Class<?>[] {WriteTransaction.class}, (proxy, method, args) -> {
+                    if ("commit".equals(method.getName())) {
+                        final FluentFuture<?> commit;
+                        if (failing) {
+                            delegate.cancel();
+                            commit = FluentFuture.from(Futures.immediateFailedFuture(
+                                new IllegalStateException("Commit failed")));
+                        } else {
+                            commit = delegate.commit();
+                        }
+                        lastCommit.set(commit);
+                        return commit;
+                    }
+                    return method.invoke(delegate, args);
+                });
+        }
+    }
+}
@@ -8,6 +8,7 @@
 package io.lighty.netconf.device.toaster.processors;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.lighty.netconf.device.requests.BindingRpcRequestProcessor;
 import io.lighty.netconf.device.toaster.rpcs.ToasterServiceImpl;
 import org.opendaylight.yang.gen.v1.http.netconfcentral.org.ns.toaster.rev091120.CancelToast;
 import org.opendaylight.yang.gen.v1.http.netconfcentral.org.ns.toaster.rev091120.CancelToastInput;
@@ -18,7 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @SuppressWarnings("checkstyle:MemberName")
-public class ToasterServiceCancelToastProcessor extends ToasterServiceAbstractProcessor<CancelToastInput,
+public class ToasterServiceCancelToastProcessor extends BindingRpcRequestProcessor<CancelToastInput,
         CancelToastOutput> implements CancelToast {
 
     private static final Logger LOG = LoggerFactory.getLogger(ToasterServiceCancelToastProcessor.class);
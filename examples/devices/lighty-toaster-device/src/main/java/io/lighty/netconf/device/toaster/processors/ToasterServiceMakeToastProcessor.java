@@ -8,6 +8,7 @@
 package io.lighty.netconf.device.toaster.processors;
 
 import com.google.common.util.concurrent.ListenableFuture;
+import io.lighty.netconf.device.requests.BindingRpcRequestProcessor;
 import io.lighty.netconf.device.toaster.rpcs.ToasterServiceImpl;
 import org.opendaylight.yang.gen.v1.http.netconfcentral.org.ns.toaster.rev091120.MakeToast;
 import org.opendaylight.yang.gen.v1.http.netconfcentral.org.ns.toaster.rev091120.MakeToastInput;
@@ -18,7 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @SuppressWarnings("checkstyle:MemberName")
-public class ToasterServiceMakeToastProcessor extends ToasterServiceAbstractProcessor<MakeToastInput, MakeToastOutput>
+public class ToasterServiceMakeToastProcessor extends BindingRpcRequestProcessor<MakeToastInput, MakeToastOutput>
         implements MakeToast {
 
     private static final Logger LOG = LoggerFactory.getLogger(ToasterServiceMakeToastProcessor.class);
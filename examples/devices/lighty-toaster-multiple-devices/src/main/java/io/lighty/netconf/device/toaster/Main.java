@@ -9,16 +9,19 @@ package io.lighty.netconf.device.toaster;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.lighty.core.common.models.ModuleId;
-import io.lighty.netconf.device.NetconfDevice;
 import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.fleet.DatastoreTemplate;
+import io.lighty.netconf.device.fleet.NetconfDeviceFleet;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceCancelToastProcessor;
 import io.lighty.netconf.device.toaster.processors.ToasterServiceMakeToastProcessor;
 import io.lighty.netconf.device.toaster.rpcs.ToasterServiceImpl;
 import io.lighty.netconf.device.utils.ArgumentParser;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import net.sourceforge.argparse4j.inf.Namespace;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.slf4j.Logger;
@@ -60,50 +63,58 @@ public final class Main {
                 ModuleId.from(
                         "http://netconfcentral.org/ns/toaster", "toaster", "2009-11-20"));
 
-        //3. Initialize DataStores
-        File operationalFile = null;
-        File configFile = null;
+        //3. Load initial datastore templates, rendered separately for every device
+        DatastoreTemplate operationalTemplate = null;
+        DatastoreTemplate configTemplate = null;
         final String configDir = System.getProperty("config.dir",
             "examples/devices/lighty-toaster-multiple-devices/src/main/resources");
         if (argumentParser.isInitDatastore()) {
-            LOG.info("Using initial datastore from: {}", configDir);
-            operationalFile = new File(
-                configDir, "initial-toaster-operational-datastore.xml");
-            configFile = new File(
-                configDir, "initial-toaster-config-datastore.xml");
+            LOG.info("Using initial datastore templates from: {}", configDir);
+            try {
+                operationalTemplate = DatastoreTemplate.load(
+                    new File(configDir, "initial-toaster-operational-datastore.xml"));
+                configTemplate = DatastoreTemplate.load(new File(configDir, "initial-toaster-config-datastore.xml"));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to load initial datastore templates", e);
+            }
         }
         if (argumentParser.isSaveDatastore()) {
-            operationalFile = new File(configDir, "initial-toaster-operational-datastore.xml");
-            configFile = new File(configDir, "initial-toaster-config-datastore.xml");
+            throw new IllegalArgumentException(
+                "Datastores of multiple devices are not persisted, output datastore option is not supported");
         }
 
-        ToasterServiceImpl toasterService = new ToasterServiceImpl();
-
         //parameters are stored as string list
-        final List<?> devicesList = parseArguments.get("port");
+        final List<?> devicesList = parseArguments.get("devices-count");
         final int devicesCount = Integer.parseInt(String.valueOf(devicesList.getFirst()));
-        final List<?> threadList = parseArguments.get("port");
+        final List<?> threadList = parseArguments.get("thread-pool-size");
         final int threadCount = Integer.parseInt(String.valueOf(threadList.getFirst()));
 
-        //4. Initialize Netconf device
-        NetconfDevice netconfDevice = new NetconfDeviceBuilder()
-                .setCredentials("admin", "admin")
-                .setBindingPort(port)
-                .withModels(toasterModules)
-                .withDefaultRequestProcessors()
-                .withDefaultCapabilities()
-                .withRequestProcessor(new ToasterServiceMakeToastProcessor(toasterService))
-                .withRequestProcessor(new ToasterServiceCancelToastProcessor(toasterService))
-                .setThreadPoolSize(threadCount)
-                .setDeviceCount(devicesCount)
-                .setOperationalDatastore(operationalFile)
-                .setConfigDatastore(configFile)
+        //4. Initialize Netconf devices, each device has its own datastores and toaster service
+        final List<ToasterServiceImpl> toasterServices = new CopyOnWriteArrayList<>();
+        NetconfDeviceFleet netconfDeviceFleet = NetconfDeviceFleet.builder()
+                .setPortRange(port, devicesCount)
+                .setHostnamePattern("toaster-%d")
+                .setConfigDatastoreTemplate(configTemplate)
+                .setOperationalDatastoreTemplate(operationalTemplate)
+                .setDeviceBuilderFactory(identity -> {
+                    final ToasterServiceImpl toasterService = new ToasterServiceImpl();
+                    toasterServices.add(toasterService);
+                    return new NetconfDeviceBuilder()
+                        .setCredentials("admin", "admin")
+                        .withModels(toasterModules)
+                        .withDefaultRequestProcessors()
+                        .withDefaultCapabilities()
+                        .withRequestProcessor(new ToasterServiceMakeToastProcessor(toasterService))
+                        .withRequestProcessor(new ToasterServiceCancelToastProcessor(toasterService))
+                        .setThreadPoolSize(threadCount)
+                        .withLazyActivation(true);
+                })
                 .build();
 
-        netconfDevice.start();
+        netconfDeviceFleet.start();
 
         //5. Register shutdown hook
-        this.shutdownHook = new ShutdownHook(netconfDevice,toasterService);
+        this.shutdownHook = new ShutdownHook(netconfDeviceFleet, toasterServices);
         if (registerShutdownHook) {
             Runtime.getRuntime().addShutdownHook(this.shutdownHook);
         }
@@ -117,12 +128,12 @@ public final class Main {
 
     private static class ShutdownHook extends Thread {
 
-        private final NetconfDevice netConfDevice;
-        private final ToasterServiceImpl toasterService;
+        private final NetconfDeviceFleet netconfDeviceFleet;
+        private final List<ToasterServiceImpl> toasterServices;
 
-        ShutdownHook(NetconfDevice netConfDevice, ToasterServiceImpl toasterService) {
-            this.netConfDevice = netConfDevice;
-            this.toasterService = toasterService;
+        ShutdownHook(NetconfDeviceFleet netconfDeviceFleet, List<ToasterServiceImpl> toasterServices) {
+            this.netconfDeviceFleet = netconfDeviceFleet;
+            this.toasterServices = toasterServices;
         }
 
         @Override
@@ -132,15 +143,13 @@ public final class Main {
 
         @SuppressWarnings("checkstyle:IllegalCatch")
         public void execute() {
-            LOG.info("Shutting down Lighty-Toaster device.");
-            if (toasterService != null) {
-                toasterService.close();
-            }
-            if (netConfDevice != null) {
+            LOG.info("Shutting down Lighty-Toaster devices.");
+            toasterServices.forEach(ToasterServiceImpl::close);
+            if (netconfDeviceFleet != null) {
                 try {
-                    netConfDevice.close();
+                    netconfDeviceFleet.close();
                 } catch (Exception e) {
-                    LOG.error("Failed to close Netconf device properly", e);
+                    LOG.error("Failed to close Netconf devices properly", e);
                 }
             }
         }
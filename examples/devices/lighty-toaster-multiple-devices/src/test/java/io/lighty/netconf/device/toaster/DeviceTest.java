@@ -101,16 +101,19 @@ public class DeviceTest {
     }
 
     @Test
-    public void sharedDatastoreTest() throws InterruptedException, ExecutionException,
+    public void isolatedDatastoreTest() throws InterruptedException, ExecutionException,
             TimeoutException, SAXException, IOException, URISyntaxException {
         final SimpleNetconfClientSessionListener sessionListener = SESSION_LISTENERS.get(0);
         final NetconfMessage createToasterResponse = sendRequestToDevice(CREATE_TOASTER_REQUEST_XML, sessionListener);
         assertTrue(containsOkElement(createToasterResponse));
-        for (SimpleNetconfClientSessionListener listener : SESSION_LISTENERS) {
+        final NetconfMessage modifiedToasterData = sendRequestToDevice(GET_TOASTER_DATA_REQUEST_XML, sessionListener);
+        final String toasterDarknessFactor = modifiedToasterData.getDocument()
+                .getDocumentElement().getElementsByTagName("darknessFactor").item(0).getTextContent();
+        Assertions.assertEquals(EXPECTED_DARKNESS_FACTOR, toasterDarknessFactor);
+        for (SimpleNetconfClientSessionListener listener : SESSION_LISTENERS.subList(1, SESSION_LISTENERS.size())) {
             final NetconfMessage toasterData = sendRequestToDevice(GET_TOASTER_DATA_REQUEST_XML, listener);
-            final String toasterDarknessFactor = toasterData.getDocument()
-                    .getDocumentElement().getElementsByTagName("darknessFactor").item(0).getTextContent();
-            Assertions.assertEquals(EXPECTED_DARKNESS_FACTOR, toasterDarknessFactor);
+            Assertions.assertEquals(0, toasterData.getDocument()
+                    .getDocumentElement().getElementsByTagName("darknessFactor").getLength());
         }
     }
 
@@ -154,7 +157,7 @@ public class DeviceTest {
         return NetconfClientConfigurationBuilder.create()
             .withTcpParameters(new TcpClientParametersBuilder()
                 .setRemoteAddress(new Host(new IpAddress(Ipv4Address.getDefaultInstance("127.0.0.1"))))
-                .setRemotePort(new PortNumber(Uint16.valueOf(DEVICE_STARTING_PORT))).build())
+                .setRemotePort(new PortNumber(Uint16.valueOf(port))).build())
                 .withSessionListener(sessionListener)
                 .withConnectionTimeoutMillis(NetconfClientConfigurationBuilder.DEFAULT_CONNECTION_TIMEOUT_MILLIS)
                 .withProtocol(NetconfClientProtocol.SSH)
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import io.lighty.netconf.device.utils.SyntheticDataConfig;
+import java.io.File;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+
+/**
+ * Sources of initial data of a single datastore.
+ * @param file XML file with initial data, also used to save the datastore on close
+ * @param content XML document with initial data, takes precedence over file
+ * @param data parsed initial data, takes precedence over content
+ * @param seed immutable data tree shared with other devices, data are written as delta against it
+ * @param generated configuration of data generated from device models and used as seed when seed is not set
+ */
+record InitialDatastore(File file, String content, NormalizedNode data, NormalizedNode seed,
+        SyntheticDataConfig generated) {
+
+    static InitialDatastore ofFile(final File file) {
+        return new InitialDatastore(file, null, null, null, null);
+    }
+}
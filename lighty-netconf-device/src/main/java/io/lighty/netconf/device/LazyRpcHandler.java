@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+
+/**
+ * RPC handler which activates device on the first request and optionally evicts device state
+ * when no request was received for configured idle timeout.
+ */
+final class LazyRpcHandler implements RpcHandler, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LazyRpcHandler.class);
+    private static final ScheduledExecutorService EVICTION_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("netconf-device-eviction").setDaemon(true).build());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Supplier<RpcHandler> activation;
+    private final Runnable eviction;
+    private final long idleTimeoutNanos;
+    private final ScheduledFuture<?> evictionTask;
+    private volatile RpcHandler activeHandler;
+    private volatile long lastRequestNanos;
+
+    /**
+     * Creates lazy RPC handler.
+     * @param activation activates device and returns handler processing requests
+     * @param eviction evicts device state, device is activated again by the next request
+     * @param idleTimeout idle period after which device state is evicted or null to never evict it
+     */
+    LazyRpcHandler(final Supplier<RpcHandler> activation, final Runnable eviction, final Duration idleTimeout) {
+        this.activation = activation;
+        this.eviction = eviction;
+        if (idleTimeout != null) {
+            this.idleTimeoutNanos = idleTimeout.toNanos();
+            final long checkPeriodMillis = Math.max(1, idleTimeout.toMillis() / 2);
+            this.evictionTask = EVICTION_SCHEDULER.scheduleWithFixedDelay(this::evictIfIdle,
+                checkPeriodMillis, checkPeriodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.idleTimeoutNanos = Long.MAX_VALUE;
+            this.evictionTask = null;
+        }
+    }
+
+    @Override
+    public Optional<Document> getResponse(final XmlElement rpcElement) {
+        lastRequestNanos = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            RpcHandler handler = activeHandler;
+            if (handler == null) {
+                handler = activate();
+            }
+            return handler.getResponse(rpcElement);
+        } finally {
+            lastRequestNanos = System.nanoTime();
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isActive() {
+        return activeHandler != null;
+    }
+
+    @Override
+    public void close() {
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+    }
+
+    /**
+     * Activates device while holding write lock, read lock of the caller is kept during activation.
+     */
+    private RpcHandler activate() {
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (activeHandler == null) {
+                LOG.debug("Activating Netconf device on first request");
+                activeHandler = activation.get();
+            }
+            return activeHandler;
+        } finally {
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void evictIfIdle() {
+        if (activeHandler == null || System.nanoTime() - lastRequestNanos < idleTimeoutNanos
+                || !lock.writeLock().tryLock()) {
+            return;
+        }
+        try {
+            if (activeHandler != null && System.nanoTime() - lastRequestNanos >= idleTimeoutNanos) {
+                LOG.debug("Evicting state of idle Netconf device");
+                eviction.run();
+                activeHandler = null;
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Failed to evict state of idle Netconf device", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
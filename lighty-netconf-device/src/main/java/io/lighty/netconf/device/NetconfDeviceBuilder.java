@@ -7,6 +7,9 @@
  */
 package io.lighty.netconf.device;
 
+import io.lighty.netconf.device.datastore.DatastoreConfig;
+import io.lighty.netconf.device.datastore.ListenerDispatchConfig;
+import io.lighty.netconf.device.datastore.OffHeapListConfig;
 import io.lighty.netconf.device.requests.CommitRequestProcessor;
 import io.lighty.netconf.device.requests.DeleteConfigRequestProcessor;
 import io.lighty.netconf.device.requests.EditConfigRequestProcessor;
@@ -15,19 +18,33 @@ import io.lighty.netconf.device.requests.GetRequestProcessor;
 import io.lighty.netconf.device.requests.RequestProcessor;
 import io.lighty.netconf.device.requests.notification.CreateSubscriptionRequestProcessor;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import io.lighty.netconf.device.requests.notification.NotificationQueueConfig;
+import io.lighty.netconf.device.requests.notification.NotificationReplayConfig;
+import io.lighty.netconf.device.requests.notification.NotificationStream;
+import io.lighty.netconf.device.simulation.CounterSimulation;
+import io.lighty.netconf.device.simulation.CounterSimulationConfig;
 import io.lighty.netconf.device.utils.ModelUtils;
+import io.lighty.netconf.device.utils.SyntheticDataConfig;
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
 import org.opendaylight.netconf.auth.AuthProvider;
 import org.opendaylight.netconf.shaded.sshd.server.auth.pubkey.PublickeyAuthenticator;
 import org.opendaylight.netconf.test.tool.config.ConfigurationBuilder;
 import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 
 public class NetconfDeviceBuilder {
 
@@ -35,16 +52,36 @@ public class NetconfDeviceBuilder {
     private ConfigurationBuilder configurationBuilder;
     private File operationalData;
     private File configurationData;
+    private String operationalDataContent;
+    private String configurationDataContent;
+    private NormalizedNode operationalDataTree;
+    private NormalizedNode configurationDataTree;
+    private NormalizedNode operationalDataSeed;
+    private NormalizedNode configurationDataSeed;
+    private SyntheticDataConfig operationalDataGenerated;
+    private SyntheticDataConfig configurationDataGenerated;
+    private AdapterContext sharedAdapterContext;
     private Map<QName, RequestProcessor> requestProcessors;
     private Set<String> allCapabilities;
-    private NotificationPublishServiceImpl creator;
+    private boolean notificationsEnabled;
+    private NotificationQueueConfig notificationQueueConfig;
+    private NotificationReplayConfig notificationReplayConfig;
+    private List<NotificationStream> notificationStreams;
+    private boolean yangPushEnabled;
+    private ScheduledExecutorService yangPushExecutor;
+    private CounterSimulationConfig counterSimulationConfig;
+    private ScheduledExecutorService counterSimulationExecutor;
+    private DatastoreConfig datastoreConfig = DatastoreConfig.defaults();
     private boolean netconfMonitoringEnabled;
+    private boolean lazyActivation;
+    private Duration idleEvictionTimeout;
 
     public NetconfDeviceBuilder() {
         this.configurationBuilder = new ConfigurationBuilder();
         this.requestProcessors = new HashMap<>();
         this.moduleInfos = new HashSet<>();
         this.allCapabilities = new HashSet<>();
+        this.notificationStreams = new ArrayList<>();
         this.netconfMonitoringEnabled = true;
     }
 
@@ -76,6 +113,125 @@ public class NetconfDeviceBuilder {
         return this;
     }
 
+    /**
+     * Sets initial operational datastore from XML document. Takes precedence over
+     * initial data loaded from {@link #setOperationalDatastore(File)}.
+     * @param operationalDataXml XML document with operational data
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setOperationalDatastoreContent(String operationalDataXml) {
+        this.operationalDataContent = operationalDataXml;
+        return this;
+    }
+
+    /**
+     * Sets initial configuration datastore from XML document. Takes precedence over
+     * initial data loaded from {@link #setConfigDatastore(File)}.
+     * @param configurationDataXml XML document with configuration data
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setConfigDatastoreContent(String configurationDataXml) {
+        this.configurationDataContent = configurationDataXml;
+        return this;
+    }
+
+    /**
+     * Sets initial operational datastore from already parsed data tree. Takes precedence over
+     * {@link #setOperationalDatastoreContent(String)}.
+     * @param data operational data tree
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setOperationalDatastoreData(NormalizedNode data) {
+        this.operationalDataTree = data;
+        return this;
+    }
+
+    /**
+     * Sets initial configuration datastore from already parsed data tree. Takes precedence over
+     * {@link #setConfigDatastoreContent(String)}.
+     * @param data configuration data tree
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setConfigDatastoreData(NormalizedNode data) {
+        this.configurationDataTree = data;
+        return this;
+    }
+
+    /**
+     * Sets immutable operational data tree shared with other devices. Datastore starts with this tree
+     * and copies only the modified parts of it. If content is set as well, only its difference
+     * against the seed is written.
+     * @param seed shared operational data tree
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setOperationalDatastoreSeed(NormalizedNode seed) {
+        this.operationalDataSeed = seed;
+        return this;
+    }
+
+    /**
+     * Sets immutable configuration data tree shared with other devices. Datastore starts with this tree
+     * and copies only the modified parts of it. If content is set as well, only its difference
+     * against the seed is written.
+     * @param seed shared configuration data tree
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setConfigDatastoreSeed(NormalizedNode seed) {
+        this.configurationDataSeed = seed;
+        return this;
+    }
+
+    /**
+     * Fills operational datastore with data generated from device models when the device starts.
+     * Generated data are used as seed, so they are ignored when seed is set. If content is set as well,
+     * only its difference against the generated data is written.
+     * @param config sizes and seed of generated data
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setOperationalDatastoreGenerated(SyntheticDataConfig config) {
+        this.operationalDataGenerated = config;
+        return this;
+    }
+
+    /**
+     * Fills configuration datastore with data generated from device models when the device starts.
+     * Generated data are used as seed, so they are ignored when seed is set. If content is set as well,
+     * only its difference against the generated data is written.
+     * @param config sizes and seed of generated data
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder setConfigDatastoreGenerated(SyntheticDataConfig config) {
+        this.configurationDataGenerated = config;
+        return this;
+    }
+
+    /**
+     * Reuses adapter context of another device instead of parsing models again. Adapter context must be
+     * created from the same models as configured in this builder, including netconf-monitoring model
+     * when it is enabled.
+     * @param adapterContext adapter context of another device
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withSharedAdapterContext(AdapterContext adapterContext) {
+        this.sharedAdapterContext = adapterContext;
+        return this;
+    }
+
+    /**
+     * Creates adapter context of the models configured in this builder, including netconf-monitoring model
+     * when it is enabled, and uses it for the built device. Returned context can be passed
+     * to {@link #withSharedAdapterContext(AdapterContext)} of other devices, or used to parse their data
+     * before they are built.
+     * @return adapter context of the built device
+     */
+    public AdapterContext createSharedAdapterContext() {
+        if (sharedAdapterContext == null) {
+            addNetconfMonitoringModel();
+            sharedAdapterContext = NetconfDeviceServicesImpl.createAdapterContext(moduleInfos);
+        }
+        return sharedAdapterContext;
+    }
+
     public NetconfDeviceBuilder withCapabilities(Set<String> capabilities) {
         this.allCapabilities.addAll(capabilities);
         return this;
@@ -136,7 +292,139 @@ public class NetconfDeviceBuilder {
                         .notification._1._0.rev080714.YangModuleInfoImpl.INSTANCE;
         this.moduleInfos.add(netconfNotificationModel);
         this.withRequestProcessor(new CreateSubscriptionRequestProcessor());
-        this.creator = new NotificationPublishServiceImpl();
+        this.notificationsEnabled = true;
+        return this;
+    }
+
+    /**
+     * Enables default notification processor delivering notifications through bounded per-session queues.
+     * Notifications are written to sessions in batches and slow subscribers are handled according
+     * to the overflow policy of the configuration.
+     * @param queueConfig configuration of session notification queues
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withNotificationQueue(NotificationQueueConfig queueConfig) {
+        this.notificationQueueConfig = queueConfig;
+        return this.withDefaultNotificationProcessor();
+    }
+
+    /**
+     * Enables default notification processor keeping recently published notifications, so that
+     * create-subscription with startTime replays them.
+     * @param replayConfig configuration of notification replay buffer
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withNotificationReplay(NotificationReplayConfig replayConfig) {
+        this.notificationReplayConfig = replayConfig;
+        return this.withDefaultNotificationProcessor();
+    }
+
+    /**
+     * Enables default notification processor and defines event stream sessions can subscribe to,
+     * in addition to default NETCONF stream containing all notifications.
+     * @param stream event stream
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withNotificationStream(NotificationStream stream) {
+        this.notificationStreams.add(stream);
+        return this.withDefaultNotificationProcessor();
+    }
+
+    /**
+     * Enables default notification processor and YANG-push, so that sessions can establish periodic
+     * and on-change subscriptions to datastore contents.
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withYangPush() {
+        this.yangPushEnabled = true;
+        return this.withDefaultNotificationProcessor();
+    }
+
+    /**
+     * Enables default notification processor and YANG-push with pushes executed by given executor.
+     * Devices of one simulated fleet can share the executor instead of running thread per device.
+     * @param executor executor of datastore pushes, it is not shut down when the device is closed
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withYangPush(ScheduledExecutorService executor) {
+        this.yangPushExecutor = executor;
+        return this.withYangPush();
+    }
+
+    /**
+     * Advances selected operational leaves, such as interface counters, while the device is running.
+     * @param config simulated leaves and tick interval
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withCounterSimulation(CounterSimulationConfig config) {
+        this.counterSimulationConfig = config;
+        return this;
+    }
+
+    /**
+     * Advances selected operational leaves on given executor, which can be shared by a fleet of devices.
+     * @param config simulated leaves and tick interval
+     * @param executor executor of simulation ticks, it is not shut down when the device is closed
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withCounterSimulation(CounterSimulationConfig config,
+            ScheduledExecutorService executor) {
+        this.counterSimulationExecutor = executor;
+        return this.withCounterSimulation(config);
+    }
+
+    /**
+     * Splits datastores into shards by module of top-level data nodes. Transactions modifying data
+     * of different modules, such as topology and toaster state, are then committed concurrently.
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withShardedDatastores() {
+        this.datastoreConfig = this.datastoreConfig.withSharding();
+        return this;
+    }
+
+    /**
+     * Splits datastores into shards and runs their commits on given executor, which can be shared by a fleet
+     * of devices.
+     * @param executor executor running commits, it is not shut down when the device is closed
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withShardedDatastores(ExecutorService executor) {
+        this.datastoreConfig = this.datastoreConfig.withSharding(executor);
+        return this;
+    }
+
+    /**
+     * Keeps entries of given operational lists, such as route tables or topology nodes, off-heap. Entries
+     * are decoded when they are read, so heap use does not grow with the size of the lists.
+     * @param lists configuration of off-heap lists
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withOffHeapOperationalLists(OffHeapListConfig lists) {
+        this.datastoreConfig = this.datastoreConfig.withOperationalOffHeapLists(lists);
+        return this;
+    }
+
+    /**
+     * Notifies data tree change listeners, such as listeners of the example devices, asynchronously
+     * from bounded per-listener queues, so that slow listeners do not slow down commits.
+     * @param config configuration of listener queues
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withAsyncDataTreeChangeListeners(ListenerDispatchConfig config) {
+        this.datastoreConfig = this.datastoreConfig.withListenerDispatch(config);
+        return this;
+    }
+
+    /**
+     * Notifies data tree change listeners asynchronously on given executor, which can be shared by a fleet
+     * of devices. Number of threads of the configuration is not used.
+     * @param config configuration of listener queues
+     * @param executor executor delivering notifications, it is not shut down when the device is closed
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withAsyncDataTreeChangeListeners(ListenerDispatchConfig config, Executor executor) {
+        this.datastoreConfig = this.datastoreConfig.withListenerDispatch(config, executor);
         return this;
     }
 
@@ -152,12 +440,42 @@ public class NetconfDeviceBuilder {
         return this;
     }
 
+    /**
+     * Method sets lazyActivation flag. Lazily activated device binds its port on start, but loads initial
+     * datastores, netconf-monitoring schemas and initializes request processors only when the first
+     * request is received.
+     * @param enabled specifies if device should be activated lazily
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withLazyActivation(boolean enabled) {
+        this.lazyActivation = enabled;
+        return this;
+    }
+
+    /**
+     * Enables eviction of idle device state. When device receives no request for the idle timeout,
+     * its datastores are cleared and loaded again from initial data on the next request, so all changes
+     * made to the device are lost. Implies lazy activation.
+     * @param idleTimeout idle period after which device state is evicted
+     * @return this Builder
+     */
+    public NetconfDeviceBuilder withIdleEviction(Duration idleTimeout) {
+        this.idleEvictionTimeout = idleTimeout;
+        return this;
+    }
+
     public NetconfDeviceBuilder setBindingPort(int port) {
         this.configurationBuilder.setStartingPort(port);
         return this;
     }
 
-    // FIXME All created devices share the same datastore. Each simulated devices must have a separate datastore space.
+    /**
+     * Sets number of ports the device is listening on. All ports are served by the same device
+     * and share its datastores, use {@link io.lighty.netconf.device.fleet.NetconfDeviceFleet}
+     * to simulate independent devices.
+     * @param deviceCount number of consecutive ports starting with binding port
+     * @return this Builder
+     */
     public NetconfDeviceBuilder setDeviceCount(int deviceCount) {
         this.configurationBuilder.setDeviceCount(deviceCount);
         return this;
@@ -176,17 +494,41 @@ public class NetconfDeviceBuilder {
      */
     public NetconfDevice build() {
         this.configurationBuilder.setCapabilities(this.allCapabilities);
+        addNetconfMonitoringModel();
+        this.configurationBuilder.setGetDefaultYangResources(Collections.emptySet());
+        this.configurationBuilder.setModels(moduleInfos);
+        final NotificationPublishServiceImpl creator = notificationsEnabled
+            ? new NotificationPublishServiceImpl(notificationQueueConfig, notificationReplayConfig) : null;
+        if (creator != null) {
+            notificationStreams.forEach(creator::addStream);
+            if (yangPushEnabled) {
+                creator.enableYangPush(yangPushExecutor);
+            }
+        }
+        final NetconfDeviceServicesImpl netconfDeviceServices = sharedAdapterContext == null
+            ? new NetconfDeviceServicesImpl(moduleInfos, creator, datastoreConfig)
+            : new NetconfDeviceServicesImpl(sharedAdapterContext, creator, datastoreConfig);
+        final CounterSimulation counterSimulation = counterSimulationConfig == null ? null
+            : counterSimulationExecutor == null
+                ? new CounterSimulation(netconfDeviceServices.getDOMDataBroker(), counterSimulationConfig)
+                : new CounterSimulation(netconfDeviceServices.getDOMDataBroker(), counterSimulationConfig,
+                    counterSimulationExecutor);
+        return new NetconfDeviceImpl(netconfDeviceServices, configurationBuilder.build(),
+            new InitialDatastore(operationalData, operationalDataContent, operationalDataTree, operationalDataSeed,
+                operationalDataGenerated),
+            new InitialDatastore(configurationData, configurationDataContent, configurationDataTree,
+                configurationDataSeed, configurationDataGenerated),
+            requestProcessors, creator, counterSimulation, netconfMonitoringEnabled, lazyActivation,
+            idleEvictionTimeout);
+    }
+
+    private void addNetconfMonitoringModel() {
         if (netconfMonitoringEnabled) {
             YangModuleInfo netconfMonitoringModule =
                 org.opendaylight.yang.svc.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring
                     .rev101004.YangModuleInfoImpl.INSTANCE;
             this.moduleInfos.add(netconfMonitoringModule);
         }
-        this.configurationBuilder.setGetDefaultYangResources(Collections.emptySet());
-        this.configurationBuilder.setModels(moduleInfos);
-        return new NetconfDeviceImpl(moduleInfos, configurationBuilder.build(),
-            operationalData, configurationData, requestProcessors, creator,
-            netconfMonitoringEnabled);
     }
 
 }
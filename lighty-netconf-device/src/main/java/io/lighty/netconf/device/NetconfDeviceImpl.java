@@ -15,6 +15,9 @@ import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.requests.RequestProcessor;
 import io.lighty.netconf.device.requests.RpcHandlerImpl;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import io.lighty.netconf.device.simulation.CounterSimulation;
+import io.lighty.netconf.device.utils.NormalizedNodeDelta;
+import io.lighty.netconf.device.utils.SyntheticDataGenerator;
 import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -24,9 +27,11 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +50,7 @@ import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
 import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
 import org.opendaylight.netconf.test.tool.NetconfDeviceSimulator;
 import org.opendaylight.netconf.test.tool.config.Configuration;
+import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Uri;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.NetconfState;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.monitoring.rev101004.Yang;
@@ -58,10 +64,13 @@ import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.common.Revision;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.opendaylight.yangtools.yang.model.api.ModuleLike;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,24 +79,47 @@ public class NetconfDeviceImpl implements NetconfDevice {
     private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceImpl.class);
     private static final long TIMEOUT_MILLIS = 30_000;
 
-    private NetconfDeviceServices netconfDeviceServices;
+    private NetconfDeviceServicesImpl netconfDeviceServices;
     private NetconfDeviceSimulator netConfDeviceSimulator;
-    private File operationalData;
-    private File configurationData;
+    private InitialDatastore operationalData;
+    private InitialDatastore configurationData;
     private boolean netconfMonitoringEnabled;
+    private Map<QName, RequestProcessor> requestProcessors;
+    private RpcHandlerImpl rpcHandler;
+    private LazyRpcHandler lazyRpcHandler;
+    private NotificationPublishServiceImpl notificationPublishService;
+    private CounterSimulation counterSimulation;
 
     public NetconfDeviceImpl(Collection<YangModuleInfo> moduleInfos, Configuration config,
             File operationalData, File configurationData,
             Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
             boolean netconfMonitoringEnabled) {
+        this(new NetconfDeviceServicesImpl(moduleInfos, creator), config, InitialDatastore.ofFile(operationalData),
+            InitialDatastore.ofFile(configurationData), requestProcessors, creator, null, netconfMonitoringEnabled,
+            false, null);
+    }
+
+    NetconfDeviceImpl(NetconfDeviceServicesImpl netconfDeviceServices, Configuration config,
+            InitialDatastore operationalData, InitialDatastore configurationData,
+            Map<QName, RequestProcessor> requestProcessors, NotificationPublishServiceImpl creator,
+            CounterSimulation counterSimulation, boolean netconfMonitoringEnabled, boolean lazyActivation,
+            Duration idleEvictionTimeout) {
         if (creator != null) {
             config.setOperationsCreator(creator);
         }
-        this.netconfDeviceServices = new NetconfDeviceServicesImpl(moduleInfos, creator);
+        this.notificationPublishService = creator;
+        this.counterSimulation = counterSimulation;
+        this.netconfDeviceServices = netconfDeviceServices;
         this.operationalData = operationalData;
         this.configurationData = configurationData;
-        RpcHandlerImpl rpcHandler = new RpcHandlerImpl(netconfDeviceServices, requestProcessors);
-        config.setRpcHandler(rpcHandler);
+        this.requestProcessors = requestProcessors;
+        if (lazyActivation || idleEvictionTimeout != null) {
+            this.lazyRpcHandler = new LazyRpcHandler(this::activate, this::evict, idleEvictionTimeout);
+            config.setRpcHandler(lazyRpcHandler);
+        } else {
+            this.rpcHandler = new RpcHandlerImpl(netconfDeviceServices, requestProcessors);
+            config.setRpcHandler(rpcHandler);
+        }
         this.netConfDeviceSimulator = new NetconfDeviceSimulator(config);
         this.netconfMonitoringEnabled = netconfMonitoringEnabled;
     }
@@ -95,13 +127,65 @@ public class NetconfDeviceImpl implements NetconfDevice {
     @Override
     public void start() {
         LOG.info("Starting Netconf device");
-        if (operationalData != null && isNotEmpty(operationalData)) {
+        if (lazyRpcHandler == null) {
             initDatastore(LogicalDatastoreType.OPERATIONAL, operationalData);
-        }
-        if (configurationData != null && isNotEmpty(configurationData)) {
             initDatastore(LogicalDatastoreType.CONFIGURATION, configurationData);
         }
         netConfDeviceSimulator.start();
+        if (lazyRpcHandler == null) {
+            prepareNetconfMonitoring();
+            startCounterSimulation();
+        }
+        LOG.info("Netconf device started");
+    }
+
+    /**
+     * Loads initial datastores and initializes request processors of lazily activated device.
+     * Called by the first request received by device, or the first request after eviction.
+     */
+    private RpcHandler activate() {
+        initDatastore(LogicalDatastoreType.OPERATIONAL, operationalData);
+        initDatastore(LogicalDatastoreType.CONFIGURATION, configurationData);
+        prepareNetconfMonitoring();
+        startCounterSimulation();
+        if (rpcHandler == null) {
+            rpcHandler = new RpcHandlerImpl(netconfDeviceServices, requestProcessors);
+        }
+        return rpcHandler;
+    }
+
+    /**
+     * Drops data of lazily activated device, initial datastores are loaded again on next activation.
+     * Counter simulation is stopped only when both datastores were evicted, device which failed to evict
+     * stays active and keeps simulating counters.
+     */
+    private void evict() {
+        evictDatastore(LogicalDatastoreType.OPERATIONAL);
+        evictDatastore(LogicalDatastoreType.CONFIGURATION);
+        if (counterSimulation != null) {
+            counterSimulation.stop();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:AvoidHidingCauseException")
+    private void evictDatastore(LogicalDatastoreType datastoreType) {
+        final DOMDataTreeWriteTransaction writeTx = netconfDeviceServices.getDOMDataBroker().newWriteOnlyTransaction();
+        writeTx.put(datastoreType, YangInstanceIdentifier.of(), ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(SchemaContext.NAME)).build());
+        try {
+            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(
+                    String.format("Unable to evict state of %s datastore of Netconf device", datastoreType), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    String.format("Interrupted while evicting state of %s datastore of Netconf device",
+                        datastoreType), e);
+        }
+    }
+
+    private void prepareNetconfMonitoring() {
         if (netconfMonitoringEnabled) {
             try {
                 prepareSchemasForNetconfMonitoring().get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
@@ -113,23 +197,72 @@ public class NetconfDeviceImpl implements NetconfDevice {
                 Thread.currentThread().interrupt();
             }
         }
-        LOG.info("Netconf device started");
+    }
+
+    private void initDatastore(LogicalDatastoreType datastoreType, InitialDatastore initialData) {
+        if (initialData.content() != null || initialData.data() != null || initialData.seed() != null
+                || initialData.generated() != null) {
+            final NormalizedNode data = initialData.data() != null || initialData.content() == null
+                ? initialData.data() : readInitialData(datastoreType, new StringReader(initialData.content()));
+            writeInitialData(datastoreType, seedOf(datastoreType, initialData), data);
+        } else if (initialData.file() != null && isNotEmpty(initialData.file())) {
+            initDatastore(datastoreType, initialData.file());
+        }
+    }
+
+    private NormalizedNode seedOf(LogicalDatastoreType datastoreType, InitialDatastore initialData) {
+        if (initialData.seed() != null || initialData.generated() == null) {
+            return initialData.seed();
+        }
+        return SyntheticDataGenerator.generate(netconfDeviceServices.getAdapterContext().currentSerializer()
+            .getRuntimeContext().modelContext(), datastoreType, initialData.generated());
     }
 
     @VisibleForTesting()
-    @SuppressWarnings("checkstyle:AvoidHidingCauseException")
     void initDatastore(LogicalDatastoreType datastoreType, File initialData) {
-        LOG.debug("Setting up initial state of {} datastore from XML", datastoreType);
         try (InputStream inputStream = initialData.toURI().toURL().openStream();
             Reader reader = new InputStreamReader(inputStream, Charset.defaultCharset())) {
-            NormalizedNode initialDataBI = netconfDeviceServices.getXmlNodeConverter()
+            writeInitialData(datastoreType, null, readInitialData(datastoreType, reader));
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    String.format("Unable to set initial state of %s datastore from XML!", datastoreType), e);
+        }
+    }
+
+    private NormalizedNode readInitialData(LogicalDatastoreType datastoreType, Reader reader) {
+        try {
+            return netconfDeviceServices.getXmlNodeConverter()
                     .deserialize(netconfDeviceServices.getRootInference(), reader);
+        } catch (DeserializationException e) {
+            throw new IllegalStateException(
+                    String.format("Unable to set initial state of %s datastore from XML!", datastoreType), e);
+        }
+    }
+
+    /**
+     * Writes initial data into datastore. When seed tree is provided, it is written first and data
+     * is written only as a delta against it, so all unchanged subtrees stay shared with other devices
+     * started from the same seed.
+     */
+    @SuppressWarnings("checkstyle:AvoidHidingCauseException")
+    private void writeInitialData(LogicalDatastoreType datastoreType, NormalizedNode seed, NormalizedNode data) {
+        LOG.debug("Setting up initial state of {} datastore from XML", datastoreType);
+        try {
             DOMDataTreeWriteTransaction writeTx = netconfDeviceServices.getDOMDataBroker().newWriteOnlyTransaction();
-            writeTx.put(datastoreType, YangInstanceIdentifier.of(), initialDataBI);
+            if (seed == null) {
+                writeTx.put(datastoreType, YangInstanceIdentifier.of(), data);
+            } else {
+                writeTx.put(datastoreType, YangInstanceIdentifier.of(), seed);
+                if (data != null) {
+                    NormalizedNodeDelta.write(writeTx, datastoreType, YangInstanceIdentifier.of(), seed, data);
+                }
+            }
             writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-            final String dataTreeString = NormalizedNodes.toStringTree(initialDataBI);
-            LOG.trace("Initial {} datastore data: {}", datastoreType, dataTreeString);
-        } catch (DeserializationException | IOException | ExecutionException | TimeoutException e) {
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Initial {} datastore data: {}", datastoreType,
+                    NormalizedNodes.toStringTree(data == null ? seed : data));
+            }
+        } catch (ExecutionException | TimeoutException e) {
             throw new IllegalStateException(
                     String.format("Unable to set initial state of %s datastore from XML!", datastoreType), e);
         } catch (InterruptedException e) {
@@ -181,18 +314,56 @@ public class NetconfDeviceImpl implements NetconfDevice {
         return netconfDeviceServices;
     }
 
+    @VisibleForTesting
+    LazyRpcHandler getLazyRpcHandler() {
+        return lazyRpcHandler;
+    }
+
     @Override
     public void close() throws Exception {
-        if (configurationData != null && configurationData.exists()) {
-            LOG.info("Saving datastore as {}", configurationData);
-            saveDatastore(configurationData, LogicalDatastoreType.CONFIGURATION);
+        if (lazyRpcHandler != null) {
+            lazyRpcHandler.close();
+            if (!lazyRpcHandler.isActive()) {
+                LOG.info("shutting down inactive Netconf device");
+                closeCounterSimulation();
+                closeNotificationPublishService();
+                netConfDeviceSimulator.close();
+                netconfDeviceServices.close();
+                return;
+            }
+        }
+        // stop updates first, so that saved datastores are consistent
+        closeCounterSimulation();
+        if (configurationData.file() != null && configurationData.file().exists()) {
+            LOG.info("Saving datastore as {}", configurationData.file());
+            saveDatastore(configurationData.file(), LogicalDatastoreType.CONFIGURATION);
         }
-        if (operationalData != null && operationalData.exists()) {
-            LOG.info("Saving datastore as {}", operationalData);
-            saveDatastore(operationalData, LogicalDatastoreType.OPERATIONAL);
+        if (operationalData.file() != null && operationalData.file().exists()) {
+            LOG.info("Saving datastore as {}", operationalData.file());
+            saveDatastore(operationalData.file(), LogicalDatastoreType.OPERATIONAL);
         }
         LOG.info("shutting down Netconf device");
+        closeNotificationPublishService();
         netConfDeviceSimulator.close();
+        netconfDeviceServices.close();
+    }
+
+    private void startCounterSimulation() {
+        if (counterSimulation != null) {
+            counterSimulation.start();
+        }
+    }
+
+    private void closeCounterSimulation() {
+        if (counterSimulation != null) {
+            counterSimulation.close();
+        }
+    }
+
+    private void closeNotificationPublishService() {
+        if (notificationPublishService != null) {
+            notificationPublishService.close();
+        }
     }
 
     /**
@@ -8,10 +8,13 @@
 package io.lighty.netconf.device;
 
 import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.netconf.device.datastore.ListenerQueueStats;
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
+import java.util.List;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.NotificationService;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.dom.api.DOMDataBroker;
 import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
 
@@ -34,4 +37,22 @@ public interface NetconfDeviceServices {
 
     XmlNodeConverter getXmlNodeConverter();
 
+    /**
+     * Returns the current version of the given datastore. The version is incremented after every change
+     * committed to the datastore, so replies computed for the same version can be safely reused.
+     *
+     * @param datastoreType type of the datastore
+     * @return version of the datastore content
+     */
+    long getDatastoreVersion(LogicalDatastoreType datastoreType);
+
+    /**
+     * Returns statistics of notification queues of data tree change listeners of the given datastore.
+     * Queues exist only when listeners are notified asynchronously, otherwise the list is empty.
+     *
+     * @param datastoreType type of the datastore
+     * @return queue statistics, one per registered listener
+     */
+    List<ListenerQueueStats> getListenerQueueStats(LogicalDatastoreType datastoreType);
+
 }
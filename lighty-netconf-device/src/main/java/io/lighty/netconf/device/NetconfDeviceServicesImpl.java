@@ -10,12 +10,24 @@ package io.lighty.netconf.device;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.netconf.device.datastore.DatastoreConfig;
+import io.lighty.netconf.device.datastore.DispatchingDOMStore;
+import io.lighty.netconf.device.datastore.ListenerQueueStats;
+import io.lighty.netconf.device.datastore.OffHeapListStore;
+import io.lighty.netconf.device.datastore.ShardedDOMStore;
 import io.lighty.netconf.device.requests.notification.NotificationPublishService;
 import io.lighty.netconf.device.requests.notification.NotificationPublishServiceImpl;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import org.opendaylight.mdsal.binding.api.DataBroker;
 import org.opendaylight.mdsal.binding.api.NotificationService;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
@@ -24,10 +36,12 @@ import org.opendaylight.mdsal.binding.dom.adapter.BindingDOMNotificationServiceA
 import org.opendaylight.mdsal.binding.dom.adapter.ConstantAdapterContext;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
 import org.opendaylight.mdsal.dom.broker.DOMNotificationRouter;
 import org.opendaylight.mdsal.dom.broker.RouterDOMNotificationService;
 import org.opendaylight.mdsal.dom.broker.SerializedDOMDataBroker;
 import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTreeChangePublisher;
 import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
 import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStoreConfigProperties;
 import org.opendaylight.yangtools.binding.data.codec.impl.BindingCodecContext;
@@ -38,6 +52,8 @@ import org.opendaylight.yangtools.binding.runtime.api.BindingRuntimeTypes;
 import org.opendaylight.yangtools.binding.runtime.api.DefaultBindingRuntimeContext;
 import org.opendaylight.yangtools.binding.runtime.api.ModuleInfoSnapshot;
 import org.opendaylight.yangtools.binding.runtime.spi.ModuleInfoSnapshotResolver;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
 import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
@@ -51,6 +67,7 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceServicesImpl.class);
 
+    private final DatastoreConfig datastoreConfig;
     private final Map<LogicalDatastoreType, DOMStore> datastores;
     private final AdapterContext adapterContext;
     private final EffectiveModelContext effectiveModelContext;
@@ -60,18 +77,61 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
     private final NotificationService notificationService;
     private final NotificationPublishServiceImpl notificationPublishService;
     private final XmlNodeConverter xmlNodeConverter;
+    private final Map<LogicalDatastoreType, AtomicLong> datastoreVersions =
+        new EnumMap<>(LogicalDatastoreType.class);
+    // executors created by the services, executors given by datastore configuration are left to their owner
+    private final List<ExecutorService> ownedExecutors = new ArrayList<>();
+    private int shardCount;
+    private Executor listenerDispatchExecutor;
 
     public NetconfDeviceServicesImpl(
         final Collection<YangModuleInfo> moduleInfos, final NotificationPublishServiceImpl creator) {
-        this.adapterContext = createAdapterContext(moduleInfos);
+        this(createAdapterContext(moduleInfos), creator);
+    }
+
+    /**
+     * Creates services with given datastore layout.
+     * @param moduleInfos device models
+     * @param creator notification publish service or null when notifications are not supported
+     * @param datastoreConfig layout of datastores
+     */
+    public NetconfDeviceServicesImpl(final Collection<YangModuleInfo> moduleInfos,
+            final NotificationPublishServiceImpl creator, final DatastoreConfig datastoreConfig) {
+        this(createAdapterContext(moduleInfos), creator, datastoreConfig);
+    }
+
+    /**
+     * Creates services on top of already created adapter context. Adapter context is immutable,
+     * so devices simulating the same models can share it instead of parsing the models again.
+     * @param adapterContext adapter context of device models
+     * @param creator notification publish service or null when notifications are not supported
+     */
+    public NetconfDeviceServicesImpl(
+        final AdapterContext adapterContext, final NotificationPublishServiceImpl creator) {
+        this(adapterContext, creator, DatastoreConfig.defaults());
+    }
+
+    /**
+     * Creates services on top of already created adapter context with given datastore layout.
+     * Sharded datastores keep data of each module with top-level data nodes in separate shard and commit
+     * transactions of different shards concurrently.
+     * @param adapterContext adapter context of device models
+     * @param creator notification publish service or null when notifications are not supported
+     * @param datastoreConfig layout of datastores
+     */
+    public NetconfDeviceServicesImpl(final AdapterContext adapterContext,
+            final NotificationPublishServiceImpl creator, final DatastoreConfig datastoreConfig) {
+        this.adapterContext = adapterContext;
+        this.datastoreConfig = datastoreConfig;
         this.effectiveModelContext = adapterContext.currentSerializer().getRuntimeContext().modelContext();
 
+        this.datastores = createDatastores();
         if (creator != null) {
+            creator.setDatastores(this.datastores);
             creator.setAdapterContext(this.adapterContext);
         }
 
         this.notificationPublishService = creator;
-        this.datastores = createDatastores();
         this.domNotificationRouter = new DOMNotificationRouter(16);
         this.domDataBroker = createDOMDataBroker();
         this.dataBroker = new BindingDOMDataBrokerAdapter(this.adapterContext, this.domDataBroker);
@@ -115,9 +175,44 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
         return this.xmlNodeConverter;
     }
 
+    @Override
+    public long getDatastoreVersion(final LogicalDatastoreType datastoreType) {
+        return this.datastoreVersions.get(datastoreType).get();
+    }
+
+    @Override
+    public List<ListenerQueueStats> getListenerQueueStats(final LogicalDatastoreType datastoreType) {
+        return this.datastores.get(datastoreType) instanceof DispatchingDOMStore store
+            ? store.getListenerQueueStats() : List.of();
+    }
+
+    /**
+     * Shuts down executors created by the services. Executors given by {@link DatastoreConfig} keep running,
+     * since they may be shared with other devices.
+     */
+    public void close() {
+        ownedExecutors.forEach(ExecutorService::shutdown);
+        ownedExecutors.clear();
+    }
+
     private DOMDataBroker createDOMDataBroker() {
-        return new SerializedDOMDataBroker(this.datastores,
-                MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor()));
+        if (!datastoreConfig.sharded()) {
+            return new SerializedDOMDataBroker(this.datastores,
+                    MoreExecutors.listeningDecorator(owned(Executors.newSingleThreadExecutor())));
+        }
+        // shards lock themselves during commit, broker may run commits of different shards concurrently
+        ExecutorService commitExecutor = datastoreConfig.commitExecutor();
+        if (commitExecutor == null) {
+            final int threadCount = Math.max(1, Math.min(shardCount, Runtime.getRuntime().availableProcessors()));
+            commitExecutor = owned(Executors.newFixedThreadPool(threadCount,
+                new ThreadFactoryBuilder().setNameFormat("netconf-device-commit-%d").setDaemon(true).build()));
+        }
+        return new SerializedDOMDataBroker(this.datastores, MoreExecutors.listeningDecorator(commitExecutor));
+    }
+
+    private ExecutorService owned(final ExecutorService executor) {
+        ownedExecutors.add(executor);
+        return executor;
     }
 
     private ListeningExecutorService getDataTreeChangeListenerExecutor() {
@@ -126,25 +221,88 @@ public class NetconfDeviceServicesImpl implements NetconfDeviceServices {
 
     private Map<LogicalDatastoreType, DOMStore> createDatastores() {
         return ImmutableMap.<LogicalDatastoreType, DOMStore>builder()
-                .put(LogicalDatastoreType.OPERATIONAL, createOperationalDatastore())
-                .put(LogicalDatastoreType.CONFIGURATION, createConfigurationDatastore()).build();
+                .put(LogicalDatastoreType.OPERATIONAL, dispatchListeners(createOperationalDatastore()))
+                .put(LogicalDatastoreType.CONFIGURATION, dispatchListeners(createConfigurationDatastore())).build();
+    }
+
+    /**
+     * Moves notification of data tree change listeners off the commit path when configured. Datastore version
+     * is tracked by underlying datastore, so it is up to date as soon as commit completes.
+     */
+    private DOMStore dispatchListeners(final DOMStore store) {
+        if (datastoreConfig.listenerDispatch() == null) {
+            return store;
+        }
+        if (listenerDispatchExecutor == null) {
+            listenerDispatchExecutor = datastoreConfig.listenerExecutor() != null
+                ? datastoreConfig.listenerExecutor()
+                : owned(Executors.newFixedThreadPool(datastoreConfig.listenerDispatch().threads(),
+                    new ThreadFactoryBuilder().setNameFormat("netconf-device-dtcl-%d").setDaemon(true).build()));
+        }
+        return new DispatchingDOMStore(store, listenerDispatchExecutor, datastoreConfig.listenerDispatch());
     }
 
     private DOMStore createConfigurationDatastore() {
-        final InMemoryDOMDataStore store = new InMemoryDOMDataStore("CFG", LogicalDatastoreType.CONFIGURATION,
-                getDataTreeChangeListenerExecutor(),
+        final DOMStore store;
+        if (datastoreConfig.sharded()) {
+            store = createShardedDatastore("CFG", LogicalDatastoreType.CONFIGURATION);
+        } else {
+            final InMemoryDOMDataStore inMemoryStore = new InMemoryDOMDataStore("CFG",
+                LogicalDatastoreType.CONFIGURATION, getDataTreeChangeListenerExecutor(),
                 InMemoryDOMDataStoreConfigProperties.DEFAULT_MAX_DATA_CHANGE_LISTENER_QUEUE_SIZE, false);
-        store.onModelContextUpdated(effectiveModelContext);
+            inMemoryStore.onModelContextUpdated(effectiveModelContext);
+            store = inMemoryStore;
+        }
+        trackDatastoreVersion((DOMStoreTreeChangePublisher) store, LogicalDatastoreType.CONFIGURATION);
         return store;
     }
 
     private DOMStore createOperationalDatastore() {
-        final InMemoryDOMDataStore store = new InMemoryDOMDataStore("OPER", getDataTreeChangeListenerExecutor());
-        store.onModelContextUpdated(effectiveModelContext);
+        DOMStore store;
+        if (datastoreConfig.sharded()) {
+            store = createShardedDatastore("OPER", LogicalDatastoreType.OPERATIONAL);
+        } else {
+            final InMemoryDOMDataStore inMemoryStore =
+                new InMemoryDOMDataStore("OPER", getDataTreeChangeListenerExecutor());
+            inMemoryStore.onModelContextUpdated(effectiveModelContext);
+            store = inMemoryStore;
+        }
+        if (datastoreConfig.operationalOffHeapLists() != null) {
+            store = new OffHeapListStore(store, effectiveModelContext, datastoreConfig.operationalOffHeapLists());
+        }
+        trackDatastoreVersion((DOMStoreTreeChangePublisher) store, LogicalDatastoreType.OPERATIONAL);
+        return store;
+    }
+
+    private DOMStore createShardedDatastore(final String name, final LogicalDatastoreType datastoreType) {
+        final ShardedDOMStore store = new ShardedDOMStore(name, datastoreType, effectiveModelContext,
+            getDataTreeChangeListenerExecutor());
+        this.shardCount += store.getShardCount();
         return store;
     }
 
-    private AdapterContext createAdapterContext(Collection<YangModuleInfo> moduleInfos) {
+    /**
+     * Registers listener on the root of the datastore which increments the datastore version
+     * after every committed change.
+     */
+    private void trackDatastoreVersion(final DOMStoreTreeChangePublisher store,
+            final LogicalDatastoreType datastoreType) {
+        final AtomicLong version = new AtomicLong();
+        this.datastoreVersions.put(datastoreType, version);
+        store.registerTreeChangeListener(YangInstanceIdentifier.of(), new DOMDataTreeChangeListener() {
+            @Override
+            public void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+                version.incrementAndGet();
+            }
+
+            @Override
+            public void onInitialData() {
+                // datastore is empty, there is nothing to invalidate
+            }
+        });
+    }
+
+    static AdapterContext createAdapterContext(Collection<YangModuleInfo> moduleInfos) {
         final YangParserFactory yangParserFactory = new DefaultYangParserFactory();
         ModuleInfoSnapshotResolver snapshotResolver
                 = new ModuleInfoSnapshotResolver("netconf-simulator", new DefaultYangTextToIRSourceTransformer(),
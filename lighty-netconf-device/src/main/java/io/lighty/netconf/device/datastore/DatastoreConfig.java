@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Layout of device datastores.
+ *
+ * @param sharded true when each module with top-level data has its own {@link ShardedDOMStore} shard
+ * @param operationalOffHeapLists operational lists kept by {@link OffHeapListStore} or null when all operational
+ *     data are kept on the heap
+ * @param listenerDispatch asynchronous dispatch of data tree change notifications or null when listeners
+ *     are notified on the commit path
+ * @param commitExecutor executor running commits of sharded datastores or null when device creates its own;
+ *     it is not shut down when the device is closed
+ * @param listenerExecutor executor delivering asynchronous notifications or null when device creates its own;
+ *     it is not shut down when the device is closed
+ */
+public record DatastoreConfig(boolean sharded, @Nullable OffHeapListConfig operationalOffHeapLists,
+        @Nullable ListenerDispatchConfig listenerDispatch, @Nullable ExecutorService commitExecutor,
+        @Nullable Executor listenerExecutor) {
+
+    /**
+     * Creates configuration of one in-memory datastore per datastore type.
+     *
+     * @return default configuration
+     */
+    public static DatastoreConfig defaults() {
+        return new DatastoreConfig(false, null, null, null, null);
+    }
+
+    /**
+     * Splits both datastores to shards by top-level module.
+     *
+     * @return configuration with sharded datastores
+     */
+    public DatastoreConfig withSharding() {
+        return new DatastoreConfig(true, operationalOffHeapLists, listenerDispatch, commitExecutor,
+            listenerExecutor);
+    }
+
+    /**
+     * Splits both datastores to shards by top-level module and commits them on shared executor.
+     *
+     * @param executor executor running commits, it is not shut down when the device is closed
+     * @return configuration with sharded datastores
+     */
+    public DatastoreConfig withSharding(final ExecutorService executor) {
+        return new DatastoreConfig(true, operationalOffHeapLists, listenerDispatch, executor, listenerExecutor);
+    }
+
+    /**
+     * Keeps given lists of operational datastore off-heap.
+     *
+     * @param lists configuration of off-heap lists
+     * @return configuration with off-heap operational lists
+     */
+    public DatastoreConfig withOperationalOffHeapLists(final OffHeapListConfig lists) {
+        return new DatastoreConfig(sharded, lists, listenerDispatch, commitExecutor, listenerExecutor);
+    }
+
+    /**
+     * Notifies data tree change listeners of both datastores asynchronously.
+     *
+     * @param dispatch configuration of listener queues
+     * @return configuration with asynchronous listeners
+     */
+    public DatastoreConfig withListenerDispatch(final ListenerDispatchConfig dispatch) {
+        return new DatastoreConfig(sharded, operationalOffHeapLists, dispatch, commitExecutor, listenerExecutor);
+    }
+
+    /**
+     * Notifies data tree change listeners of both datastores asynchronously on shared executor.
+     * {@link ListenerDispatchConfig#threads()} is not used, size of the executor is up to its owner.
+     *
+     * @param dispatch configuration of listener queues
+     * @param executor executor delivering notifications, it is not shut down when the device is closed
+     * @return configuration with asynchronous listeners
+     */
+    public DatastoreConfig withListenerDispatch(final ListenerDispatchConfig dispatch, final Executor executor) {
+        return new DatastoreConfig(sharded, operationalOffHeapLists, dispatch, commitExecutor, executor);
+    }
+}
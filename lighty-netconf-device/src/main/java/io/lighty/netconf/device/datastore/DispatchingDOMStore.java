@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionChain;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTreeChangePublisher;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+
+/**
+ * Datastore notifying data tree change listeners asynchronously. Delegate datastore notifies listeners
+ * on the commit path, this store only queues the changes there and listeners are invoked by dispatch executor,
+ * so slow listener does not increase latency of commits. See {@link ListenerDispatchConfig} for queueing
+ * of the changes.
+ */
+public final class DispatchingDOMStore implements DOMStore, DOMStoreTreeChangePublisher {
+
+    private final DOMStore delegate;
+    private final Executor executor;
+    private final int queueCapacity;
+    private final Set<QueuedListener> listeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates store dispatching notifications of given datastore.
+     *
+     * @param delegate datastore of the data, it has to publish tree changes
+     * @param executor executor invoking listeners
+     * @param config configuration of listener queues
+     */
+    public DispatchingDOMStore(final DOMStore delegate, final Executor executor,
+            final ListenerDispatchConfig config) {
+        Preconditions.checkArgument(delegate instanceof DOMStoreTreeChangePublisher,
+            "Delegate datastore %s does not publish tree changes", delegate);
+        this.delegate = delegate;
+        this.executor = executor;
+        this.queueCapacity = config.queueCapacity();
+    }
+
+    @Override
+    public DOMStoreReadTransaction newReadOnlyTransaction() {
+        return delegate.newReadOnlyTransaction();
+    }
+
+    @Override
+    public DOMStoreWriteTransaction newWriteOnlyTransaction() {
+        return delegate.newWriteOnlyTransaction();
+    }
+
+    @Override
+    public DOMStoreReadWriteTransaction newReadWriteTransaction() {
+        return delegate.newReadWriteTransaction();
+    }
+
+    @Override
+    public DOMStoreTransactionChain createTransactionChain() {
+        return delegate.createTransactionChain();
+    }
+
+    @Override
+    public Registration registerTreeChangeListener(final YangInstanceIdentifier treeId,
+            final DOMDataTreeChangeListener listener) {
+        final QueuedListener queued = new QueuedListener(treeId, listener, executor, queueCapacity);
+        listeners.add(queued);
+        final Registration registration = ((DOMStoreTreeChangePublisher) delegate)
+            .registerTreeChangeListener(treeId, queued);
+        return () -> {
+            registration.close();
+            listeners.remove(queued);
+            queued.close();
+        };
+    }
+
+    /**
+     * Provides statistics of queues of currently registered listeners.
+     *
+     * @return queue statistics, one per listener
+     */
+    public List<ListenerQueueStats> getListenerQueueStats() {
+        return listeners.stream().map(QueuedListener::stats).toList();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Configuration of asynchronous dispatch of data tree change notifications by {@link DispatchingDOMStore}.
+ * Every listener has its own queue of changes which were not delivered yet. All changes pending when
+ * the listener is invoked are delivered in single call and changes of the same subtree are coalesced,
+ * so slow listener receives fewer batches with the latest state of each changed subtree.
+ * When queue of a listener holds {@code queueCapacity} subtrees, commits changing another subtree wait until
+ * the listener catches up.
+ *
+ * @param threads number of threads invoking listeners
+ * @param queueCapacity maximum number of changed subtrees pending for one listener
+ */
+public record ListenerDispatchConfig(int threads, int queueCapacity) {
+
+    public ListenerDispatchConfig {
+        Preconditions.checkArgument(threads > 0, "Number of threads must be positive, was %s", threads);
+        Preconditions.checkArgument(queueCapacity > 0, "Queue capacity must be positive, was %s", queueCapacity);
+    }
+
+    /**
+     * Creates configuration invoking listeners by 2 threads with queues of up to 10 000 changed subtrees per listener.
+     *
+     * @return default configuration
+     */
+    public static ListenerDispatchConfig defaults() {
+        return new ListenerDispatchConfig(2, 10_000);
+    }
+}
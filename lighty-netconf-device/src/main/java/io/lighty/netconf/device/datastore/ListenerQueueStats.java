@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+
+/**
+ * Snapshot of notification queue of one data tree change listener.
+ *
+ * @param treeId path the listener is registered to
+ * @param listener description of the listener
+ * @param queueDepth number of changed subtrees waiting for delivery
+ * @param maxQueueDepth highest observed queue depth
+ * @param deliveredBatches number of invocations of the listener
+ * @param coalescedChanges number of changes aggregated with a queued change of the same subtree
+ * @param blockedCommits number of commits which waited for space in the queue
+ * @param overflowedCommits number of commits queued over capacity, because the listener did not catch up in time
+ */
+public record ListenerQueueStats(YangInstanceIdentifier treeId, String listener, int queueDepth, int maxQueueDepth,
+        long deliveredBatches, long coalescedChanges, long blockedCommits, long overflowedCommits) {
+}
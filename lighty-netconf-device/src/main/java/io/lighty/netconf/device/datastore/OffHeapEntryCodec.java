@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.opendaylight.yangtools.yang.common.Decimal64;
+import org.opendaylight.yangtools.yang.common.Empty;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.common.Uint64;
+import org.opendaylight.yangtools.yang.common.Uint8;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeWithValue;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserMapNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+/**
+ * Compact binary encoding of list entries kept off-heap. Encoding does not need schema, node names are replaced
+ * by codes of a dictionary shared by all entries of a store, so encoded entry carries only structure and values.
+ * Anydata, anyxml and instance-identifier values are not supported.
+ */
+final class OffHeapEntryCodec {
+
+    private static final byte CONTAINER = 0;
+    private static final byte MAP_ENTRY = 1;
+    private static final byte CHOICE = 2;
+    private static final byte LEAF = 3;
+    private static final byte SYSTEM_LEAF_SET = 4;
+    private static final byte USER_LEAF_SET = 5;
+    private static final byte LEAF_SET_ENTRY = 6;
+    private static final byte SYSTEM_MAP = 7;
+    private static final byte USER_MAP = 8;
+    private static final byte UNKEYED_LIST = 9;
+    private static final byte UNKEYED_LIST_ENTRY = 10;
+
+    private static final byte STRING = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte INT8 = 2;
+    private static final byte INT16 = 3;
+    private static final byte INT32 = 4;
+    private static final byte INT64 = 5;
+    private static final byte UINT8 = 6;
+    private static final byte UINT16 = 7;
+    private static final byte UINT32 = 8;
+    private static final byte UINT64 = 9;
+    private static final byte DECIMAL64 = 10;
+    private static final byte IDENTITY = 11;
+    private static final byte EMPTY = 12;
+    private static final byte BINARY = 13;
+    private static final byte BITS = 14;
+
+    private final List<QName> qnames = new CopyOnWriteArrayList<>();
+    private final Map<QName, Integer> codes = new ConcurrentHashMap<>();
+
+    /**
+     * Encodes list entry.
+     *
+     * @param entry list entry
+     * @return encoded entry
+     * @throws IllegalArgumentException if entry contains unsupported node or value
+     */
+    byte[] encode(final MapEntryNode entry) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeNode(out, entry);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to encode " + entry.name(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes list entry.
+     *
+     * @param buffer buffer positioned at the start of encoded entry
+     * @return decoded entry
+     */
+    MapEntryNode decode(final ByteBuffer buffer) {
+        return (MapEntryNode) readNode(buffer);
+    }
+
+    private void writeNode(final DataOutputStream out, final NormalizedNode node) throws IOException {
+        switch (node) {
+            case LeafNode<?> leaf -> {
+                out.writeByte(LEAF);
+                writeQName(out, leaf.name().getNodeType());
+                writeValue(out, leaf.body());
+            }
+            case LeafSetEntryNode<?> entry -> {
+                out.writeByte(LEAF_SET_ENTRY);
+                writeQName(out, entry.name().getNodeType());
+                writeValue(out, entry.body());
+            }
+            case MapEntryNode entry -> {
+                out.writeByte(MAP_ENTRY);
+                writeQName(out, entry.name().getNodeType());
+                out.writeInt(entry.name().size());
+                for (final Map.Entry<QName, Object> key : entry.name().entrySet()) {
+                    writeQName(out, key.getKey());
+                    writeValue(out, key.getValue());
+                }
+                writeChildren(out, entry);
+            }
+            case ContainerNode container -> writeContainer(out, CONTAINER, container);
+            case ChoiceNode choice -> writeContainer(out, CHOICE, choice);
+            case UnkeyedListEntryNode entry -> writeContainer(out, UNKEYED_LIST_ENTRY, entry);
+            case UserMapNode map -> writeCollection(out, USER_MAP, map.name(), map.body());
+            case SystemMapNode map -> writeCollection(out, SYSTEM_MAP, map.name(), map.body());
+            case UserLeafSetNode<?> leafSet -> writeCollection(out, USER_LEAF_SET, leafSet.name(), leafSet.body());
+            case SystemLeafSetNode<?> leafSet ->
+                writeCollection(out, SYSTEM_LEAF_SET, leafSet.name(), leafSet.body());
+            case UnkeyedListNode list -> writeCollection(out, UNKEYED_LIST, list.name(), list.body());
+            default -> throw new IllegalArgumentException("Unsupported node " + node.contract().getSimpleName()
+                + " " + node.name());
+        }
+    }
+
+    private void writeContainer(final DataOutputStream out, final byte tag, final DataContainerNode container)
+            throws IOException {
+        out.writeByte(tag);
+        writeQName(out, container.name().getNodeType());
+        writeChildren(out, container);
+    }
+
+    private void writeChildren(final DataOutputStream out, final DataContainerNode container) throws IOException {
+        out.writeInt(container.size());
+        for (final DataContainerChild child : container.body()) {
+            writeNode(out, child);
+        }
+    }
+
+    private void writeCollection(final DataOutputStream out, final byte tag, final NodeIdentifier name,
+            final Iterable<? extends NormalizedNode> children) throws IOException {
+        out.writeByte(tag);
+        writeQName(out, name.getNodeType());
+        int size = 0;
+        for (final NormalizedNode ignored : children) {
+            size++;
+        }
+        out.writeInt(size);
+        for (final NormalizedNode child : children) {
+            writeNode(out, child);
+        }
+    }
+
+    private void writeValue(final DataOutputStream out, final Object value) throws IOException {
+        switch (value) {
+            case String string -> {
+                out.writeByte(STRING);
+                writeString(out, string);
+            }
+            case Boolean bool -> {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean(bool);
+            }
+            case Byte number -> {
+                out.writeByte(INT8);
+                out.writeByte(number);
+            }
+            case Short number -> {
+                out.writeByte(INT16);
+                out.writeShort(number);
+            }
+            case Integer number -> {
+                out.writeByte(INT32);
+                out.writeInt(number);
+            }
+            case Long number -> {
+                out.writeByte(INT64);
+                out.writeLong(number);
+            }
+            case Uint8 number -> {
+                out.writeByte(UINT8);
+                out.writeByte(number.byteValue());
+            }
+            case Uint16 number -> {
+                out.writeByte(UINT16);
+                out.writeShort(number.shortValue());
+            }
+            case Uint32 number -> {
+                out.writeByte(UINT32);
+                out.writeInt(number.intValue());
+            }
+            case Uint64 number -> {
+                out.writeByte(UINT64);
+                out.writeLong(number.longValue());
+            }
+            case Decimal64 number -> {
+                out.writeByte(DECIMAL64);
+                out.writeByte(number.scale());
+                out.writeLong(number.unscaledValue());
+            }
+            case QName identity -> {
+                out.writeByte(IDENTITY);
+                writeQName(out, identity);
+            }
+            case Empty empty -> out.writeByte(EMPTY);
+            case byte[] binary -> {
+                out.writeByte(BINARY);
+                out.writeInt(binary.length);
+                out.write(binary);
+            }
+            case Set<?> bits -> {
+                out.writeByte(BITS);
+                out.writeInt(bits.size());
+                for (final Object bit : bits) {
+                    writeString(out, (String) bit);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported value " + value.getClass().getSimpleName());
+        }
+    }
+
+    private void writeQName(final DataOutputStream out, final QName qname) throws IOException {
+        Integer code = codes.get(qname);
+        if (code == null) {
+            synchronized (this) {
+                code = codes.get(qname);
+                if (code == null) {
+                    qnames.add(qname);
+                    code = qnames.size() - 1;
+                    codes.put(qname, code);
+                }
+            }
+        }
+        out.writeInt(code);
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private NormalizedNode readNode(final ByteBuffer in) {
+        final byte tag = in.get();
+        final QName qname = readQName(in);
+        final NodeIdentifier name = new NodeIdentifier(qname);
+        return switch (tag) {
+            case LEAF -> ImmutableNodes.leafNode(name, readValue(in));
+            case LEAF_SET_ENTRY -> {
+                final Object value = readValue(in);
+                yield ImmutableNodes.newLeafSetEntryBuilder().withNodeIdentifier(new NodeWithValue<>(qname, value))
+                    .withValue(value).build();
+            }
+            case MAP_ENTRY -> {
+                final int keyCount = in.getInt();
+                final ImmutableMap.Builder<QName, Object> keys = ImmutableMap.builderWithExpectedSize(keyCount);
+                for (int i = 0; i < keyCount; i++) {
+                    keys.put(readQName(in), readValue(in));
+                }
+                final var builder = ImmutableNodes.newMapEntryBuilder()
+                    .withNodeIdentifier(NodeIdentifierWithPredicates.of(qname, keys.build()));
+                readChildren(in, builder::withChild);
+                yield builder.build();
+            }
+            case CONTAINER -> {
+                final var builder = ImmutableNodes.newContainerBuilder().withNodeIdentifier(name);
+                readChildren(in, builder::withChild);
+                yield builder.build();
+            }
+            case CHOICE -> {
+                final var builder = ImmutableNodes.newChoiceBuilder().withNodeIdentifier(name);
+                readChildren(in, builder::withChild);
+                yield builder.build();
+            }
+            case UNKEYED_LIST_ENTRY -> {
+                final var builder = ImmutableNodes.newUnkeyedListEntryBuilder().withNodeIdentifier(name);
+                readChildren(in, builder::withChild);
+                yield builder.build();
+            }
+            case SYSTEM_MAP -> {
+                final var builder = ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(name);
+                readChildren(in, child -> builder.withChild((MapEntryNode) child));
+                yield builder.build();
+            }
+            case USER_MAP -> {
+                final var builder = ImmutableNodes.newUserMapBuilder().withNodeIdentifier(name);
+                readChildren(in, child -> builder.withChild((MapEntryNode) child));
+                yield builder.build();
+            }
+            case SYSTEM_LEAF_SET -> {
+                final var builder = ImmutableNodes.newSystemLeafSetBuilder().withNodeIdentifier(name);
+                readChildren(in, child -> builder.withChild((LeafSetEntryNode) child));
+                yield builder.build();
+            }
+            case USER_LEAF_SET -> {
+                final var builder = ImmutableNodes.newUserLeafSetBuilder().withNodeIdentifier(name);
+                readChildren(in, child -> builder.withChild((LeafSetEntryNode) child));
+                yield builder.build();
+            }
+            case UNKEYED_LIST -> {
+                final var builder = ImmutableNodes.newUnkeyedListBuilder().withNodeIdentifier(name);
+                readChildren(in, child -> builder.withChild((UnkeyedListEntryNode) child));
+                yield builder.build();
+            }
+            default -> throw new IllegalStateException("Unknown node tag " + tag);
+        };
+    }
+
+    private void readChildren(final ByteBuffer in, final Consumer<DataContainerChild> consumer) {
+        final int size = in.getInt();
+        for (int i = 0; i < size; i++) {
+            consumer.accept((DataContainerChild) readNode(in));
+        }
+    }
+
+    private Object readValue(final ByteBuffer in) {
+        final byte tag = in.get();
+        return switch (tag) {
+            case STRING -> readString(in);
+            case BOOLEAN -> in.get() != 0;
+            case INT8 -> in.get();
+            case INT16 -> in.getShort();
+            case INT32 -> in.getInt();
+            case INT64 -> in.getLong();
+            case UINT8 -> Uint8.fromByteBits(in.get());
+            case UINT16 -> Uint16.fromShortBits(in.getShort());
+            case UINT32 -> Uint32.fromIntBits(in.getInt());
+            case UINT64 -> Uint64.fromLongBits(in.getLong());
+            case DECIMAL64 -> {
+                final byte scale = in.get();
+                yield Decimal64.of(scale, in.getLong());
+            }
+            case IDENTITY -> readQName(in);
+            case EMPTY -> Empty.value();
+            case BINARY -> {
+                final byte[] binary = new byte[in.getInt()];
+                in.get(binary);
+                yield binary;
+            }
+            case BITS -> {
+                final int size = in.getInt();
+                final ImmutableSet.Builder<String> bits = ImmutableSet.builderWithExpectedSize(size);
+                for (int i = 0; i < size; i++) {
+                    bits.add(readString(in));
+                }
+                yield bits.build();
+            }
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    private QName readQName(final ByteBuffer in) {
+        return qnames.get(in.getInt());
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import tech.pantheon.triemap.ImmutableTrieMap;
+import tech.pantheon.triemap.MutableTrieMap;
+import tech.pantheon.triemap.TrieMap;
+
+/**
+ * Entries of one list encoded outside of the heap. Encoded entries are appended to segments, which are direct
+ * buffers or memory-mapped files, and only index of entry keys stays on the heap. Segments are never overwritten,
+ * so that {@link Snapshot} taken before a change keeps reading the entries it indexed. Space of replaced entries
+ * is reclaimed by copying live entries to new segments when more than half of the used space is garbage.
+ */
+final class OffHeapList {
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final OffHeapEntryCodec codec;
+    private final int segmentSize;
+    private final @Nullable Path directory;
+    // guarded by this
+    private final MutableTrieMap<NodeIdentifierWithPredicates, Long> index = TrieMap.create();
+    // guarded by this
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    // guarded by this
+    private int writePosition;
+    // guarded by this
+    private long usedBytes;
+    // guarded by this
+    private long liveBytes;
+    private volatile Snapshot current;
+
+    OffHeapList(final OffHeapEntryCodec codec, final int segmentSize, final @Nullable Path directory) {
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.directory = directory;
+        this.current = new Snapshot(codec, index.immutableSnapshot(), segments, 0);
+    }
+
+    /**
+     * Provides snapshot of committed entries.
+     *
+     * @return current snapshot
+     */
+    Snapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Applies changes of committed transaction and publishes new snapshot.
+     *
+     * @param changes changes of the list
+     */
+    synchronized void apply(final OffHeapListChanges changes) {
+        if (changes.isReplaced()) {
+            index.clear();
+            liveBytes = 0;
+        }
+        for (final Map.Entry<NodeIdentifierWithPredicates, MapEntryNode> change : changes.entries().entrySet()) {
+            final Long previous = change.getValue() == null ? index.remove(change.getKey())
+                : index.put(change.getKey(), append(codec.encode(change.getValue())));
+            if (previous != null) {
+                liveBytes -= LENGTH_BYTES + lengthAt(segments, previous);
+            }
+        }
+        if (usedBytes > segmentSize && usedBytes > 2 * liveBytes) {
+            compact();
+        }
+        current = new Snapshot(codec, index.immutableSnapshot(), segments, index.size());
+    }
+
+    // caller holds lock of this
+    private long append(final byte[] bytes) {
+        final int length = LENGTH_BYTES + bytes.length;
+        if (segments.length == 0 || writePosition + length > segments[segments.length - 1].capacity()) {
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = allocate(Math.max(segmentSize, length));
+            writePosition = 0;
+        }
+        final int segment = segments.length - 1;
+        final int offset = writePosition;
+        segments[segment].putInt(offset, bytes.length).put(offset + LENGTH_BYTES, bytes);
+        writePosition += length;
+        usedBytes += length;
+        liveBytes += length;
+        return location(segment, offset);
+    }
+
+    /**
+     * Copies live entries to new segments. Old segments stay readable by older snapshots until they are collected.
+     */
+    // caller holds lock of this
+    private void compact() {
+        final ByteBuffer[] oldSegments = segments;
+        segments = new ByteBuffer[0];
+        usedBytes = 0;
+        liveBytes = 0;
+        for (final Map.Entry<NodeIdentifierWithPredicates, Long> entry : index.immutableSnapshot().entrySet()) {
+            final ByteBuffer segment = oldSegments[segmentOf(entry.getValue())];
+            final int offset = offsetOf(entry.getValue());
+            final byte[] bytes = new byte[segment.getInt(offset)];
+            segment.get(offset + LENGTH_BYTES, bytes);
+            index.put(entry.getKey(), append(bytes));
+        }
+    }
+
+    private ByteBuffer allocate(final int size) {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        try {
+            final Path file = Files.createTempFile(directory, "offheap-list-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // mapping stays valid after the channel is closed and the file is deleted
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                Files.delete(file);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to map segment of off-heap list in " + directory, e);
+        }
+    }
+
+    private static int lengthAt(final ByteBuffer[] segments, final long location) {
+        return segments[segmentOf(location)].getInt(offsetOf(location));
+    }
+
+    private static long location(final int segment, final int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int segmentOf(final long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(final long location) {
+        return (int) location;
+    }
+
+    /**
+     * Immutable view of list entries. Entries are decoded each time they are accessed.
+     */
+    static final class Snapshot {
+
+        private final OffHeapEntryCodec codec;
+        private final ImmutableTrieMap<NodeIdentifierWithPredicates, Long> index;
+        private final ByteBuffer[] segments;
+        private final int size;
+
+        Snapshot(final OffHeapEntryCodec codec, final ImmutableTrieMap<NodeIdentifierWithPredicates, Long> index,
+                final ByteBuffer[] segments, final int size) {
+            this.codec = codec;
+            this.index = index;
+            this.segments = segments;
+            this.size = size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(final NodeIdentifierWithPredicates key) {
+            return index.containsKey(key);
+        }
+
+        @Nullable MapEntryNode get(final NodeIdentifierWithPredicates key) {
+            final Long location = index.get(key);
+            return location == null ? null : decode(location);
+        }
+
+        Iterator<NodeIdentifierWithPredicates> keys() {
+            return index.keySet().iterator();
+        }
+
+        private MapEntryNode decode(final long location) {
+            return codec.decode(segments[segmentOf(location)].duplicate().position(offsetOf(location) + LENGTH_BYTES));
+        }
+    }
+}
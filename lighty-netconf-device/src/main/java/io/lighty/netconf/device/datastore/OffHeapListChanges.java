@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+
+/**
+ * Changes of an off-heap list made by one transaction. Entry mapped to null is removed, replaced list drops
+ * all committed entries before the changed entries are applied.
+ */
+final class OffHeapListChanges {
+
+    private final Map<NodeIdentifierWithPredicates, MapEntryNode> entries;
+    private boolean replaced;
+
+    OffHeapListChanges() {
+        this(new LinkedHashMap<>(), false);
+    }
+
+    private OffHeapListChanges(final Map<NodeIdentifierWithPredicates, MapEntryNode> entries,
+            final boolean replaced) {
+        this.entries = entries;
+        this.replaced = replaced;
+    }
+
+    boolean isReplaced() {
+        return replaced;
+    }
+
+    boolean isEmpty() {
+        return !replaced && entries.isEmpty();
+    }
+
+    Map<NodeIdentifierWithPredicates, MapEntryNode> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    void clear() {
+        replaced = true;
+        entries.clear();
+    }
+
+    void put(final MapEntryNode entry) {
+        entries.put(entry.name(), entry);
+    }
+
+    void remove(final NodeIdentifierWithPredicates key) {
+        entries.put(key, null);
+    }
+
+    /**
+     * Looks up changed entry.
+     *
+     * @param key key of the entry
+     * @return true when the entry was changed or when all committed entries were dropped
+     */
+    boolean isChanged(final NodeIdentifierWithPredicates key) {
+        return replaced || entries.containsKey(key);
+    }
+
+    @Nullable MapEntryNode get(final NodeIdentifierWithPredicates key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Copies the changes, so that view created by a read is not affected by later writes of the transaction.
+     *
+     * @return copy of the changes
+     */
+    OffHeapListChanges copy() {
+        return new OffHeapListChanges(new LinkedHashMap<>(entries), replaced);
+    }
+}
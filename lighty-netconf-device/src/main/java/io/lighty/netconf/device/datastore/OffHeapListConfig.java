@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import java.nio.file.Path;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+
+/**
+ * Configuration of lists kept off-heap by {@link OffHeapListStore}.
+ *
+ * @param lists paths of list nodes, such as {@code /network-topology/topology[topology-id=x]/node}
+ * @param directory directory of memory-mapped segment files or null when segments are direct buffers
+ * @param segmentSize size of one segment in bytes
+ */
+public record OffHeapListConfig(Set<YangInstanceIdentifier> lists, @Nullable Path directory, int segmentSize) {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    public OffHeapListConfig {
+        lists = Set.copyOf(lists);
+        Preconditions.checkArgument(!lists.isEmpty(), "at least one list is required");
+        Preconditions.checkArgument(segmentSize > 0, "segmentSize must be positive");
+        for (final YangInstanceIdentifier list : lists) {
+            Preconditions.checkArgument(!list.isEmpty() && list.getLastPathArgument() instanceof NodeIdentifier,
+                "%s is not path of a list node", list);
+            for (final YangInstanceIdentifier other : lists) {
+                Preconditions.checkArgument(list.equals(other) || !list.contains(other),
+                    "%s is nested in another off-heap list %s", other, list);
+            }
+        }
+    }
+
+    /**
+     * Creates configuration keeping segments in direct buffers of default size.
+     *
+     * @param lists paths of list nodes
+     * @return configuration of the lists
+     */
+    public static OffHeapListConfig of(final Set<YangInstanceIdentifier> lists) {
+        return new OffHeapListConfig(lists, null, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Keeps segments in memory-mapped files of given directory, so that they do not count against direct
+     * memory limit and can be paged out by the operating system.
+     *
+     * @param segmentDirectory directory of segment files
+     * @return configuration with given directory
+     */
+    public OffHeapListConfig withDirectory(final Path segmentDirectory) {
+        return new OffHeapListConfig(lists, segmentDirectory, segmentSize);
+    }
+}
@@ -0,0 +1,695 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.netconf.device.utils.NormalizedNodeDelta;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionChain;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTreeChangePublisher;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNodes;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTree;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidateNode;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeConfiguration;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeModification;
+import org.opendaylight.yangtools.yang.data.tree.api.DataValidationFailedException;
+import org.opendaylight.yangtools.yang.data.tree.api.ModificationType;
+import org.opendaylight.yangtools.yang.data.tree.impl.di.InMemoryDataTreeFactory;
+import org.opendaylight.yangtools.yang.data.tree.spi.DataTreeCandidates;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Datastore keeping selected lists off-heap. Entries of configured lists are encoded by {@link OffHeapEntryCodec}
+ * into direct buffers or memory-mapped files and are decoded lazily when they are read, everything else is kept
+ * by delegate datastore. Reads of a list or its ancestors return view over committed entries, so heap use does not
+ * grow with the size of the list.
+ *
+ * <p>
+ * Entries are validated against the operational schema when they are written. Commits are serialized by this
+ * store: changes of off-heap lists are applied and then the delegate commits, once both are done the store
+ * publishes new {@link Generation}. Read-only transactions read the generation published when they were opened,
+ * so they never mix data of different commits. Read-write transactions read the delegate as of their opening
+ * and off-heap lists as of the last published generation. Changes of off-heap entries are not checked for
+ * conflicts, last committed transaction wins.
+ *
+ * <p>
+ * Listeners registered inside an off-heap list are notified by this store only. Listeners on ancestors of a list
+ * get candidates of the delegate with off-heap lists included in their data, followed by candidate of changed
+ * off-heap lists in the same notification. When the delegate notifies its listeners outside of the commit,
+ * the off-heap candidate is delivered separately once the commit completes.
+ */
+public final class OffHeapListStore implements DOMStore, DOMStoreTreeChangePublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapListStore.class);
+    private static final NodeIdentifier ROOT = new NodeIdentifier(SchemaContext.NAME);
+
+    private final DOMStore delegate;
+    private final ImmutableMap<YangInstanceIdentifier, OffHeapList> lists;
+    private final ImmutableMap<YangInstanceIdentifier, NormalizedNode> parentStructures;
+    private final DataTree validationTree;
+    private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+    // commit running on the current thread, listeners notified by the delegate during the commit take part in it
+    private final ThreadLocal<PendingCommit> committing = new ThreadLocal<>();
+    private final Object commitLock = new Object();
+    private volatile Generation generation;
+
+    /**
+     * Creates store keeping configured lists off-heap.
+     *
+     * @param delegate datastore of all other data, it has to publish tree changes
+     * @param modelContext model context of the datastore
+     * @param config configuration of off-heap lists
+     */
+    public OffHeapListStore(final DOMStore delegate, final EffectiveModelContext modelContext,
+            final OffHeapListConfig config) {
+        Preconditions.checkArgument(delegate instanceof DOMStoreTreeChangePublisher,
+            "Delegate datastore %s does not publish tree changes", delegate);
+        this.delegate = delegate;
+        final OffHeapEntryCodec codec = new OffHeapEntryCodec();
+        final ImmutableMap.Builder<YangInstanceIdentifier, OffHeapList> builder = ImmutableMap.builder();
+        final ImmutableMap.Builder<YangInstanceIdentifier, NormalizedNode> structures = ImmutableMap.builder();
+        for (final YangInstanceIdentifier list : config.lists()) {
+            builder.put(list, new OffHeapList(codec, config.segmentSize(), config.directory()));
+            final YangInstanceIdentifier parent = list.getParent();
+            if (parent != null && !parent.isEmpty()) {
+                structures.put(list, ImmutableNodes.fromInstanceId(modelContext, parent));
+            }
+        }
+        this.lists = builder.build();
+        this.parentStructures = structures.build();
+        this.validationTree = new InMemoryDataTreeFactory().create(DataTreeConfiguration.DEFAULT_OPERATIONAL,
+            modelContext);
+        this.generation = newGeneration();
+    }
+
+    @Override
+    public DOMStoreReadTransaction newReadOnlyTransaction() {
+        final Generation current = generation;
+        return new OffHeapListTransaction(this, current.lists(), current.delegate(), false);
+    }
+
+    @Override
+    public DOMStoreWriteTransaction newWriteOnlyTransaction() {
+        return new OffHeapListTransaction(this, generation.lists(), delegate.newWriteOnlyTransaction(), true);
+    }
+
+    @Override
+    public DOMStoreReadWriteTransaction newReadWriteTransaction() {
+        return new OffHeapListTransaction(this, generation.lists(), delegate.newReadWriteTransaction(), true);
+    }
+
+    /**
+     * Creates transaction chain. Ordering of the chain applies to the delegate datastore, reads of off-heap lists
+     * observe the last published generation and changes of the transaction itself.
+     */
+    @Override
+    public DOMStoreTransactionChain createTransactionChain() {
+        final DOMStoreTransactionChain chain = delegate.createTransactionChain();
+        return new DOMStoreTransactionChain() {
+            @Override
+            public DOMStoreReadTransaction newReadOnlyTransaction() {
+                return new OffHeapListTransaction(OffHeapListStore.this, generation.lists(),
+                    chain.newReadOnlyTransaction(), true);
+            }
+
+            @Override
+            public DOMStoreWriteTransaction newWriteOnlyTransaction() {
+                return new OffHeapListTransaction(OffHeapListStore.this, generation.lists(),
+                    chain.newWriteOnlyTransaction(), true);
+            }
+
+            @Override
+            public DOMStoreReadWriteTransaction newReadWriteTransaction() {
+                return new OffHeapListTransaction(OffHeapListStore.this, generation.lists(),
+                    chain.newReadWriteTransaction(), true);
+            }
+
+            @Override
+            public void close() {
+                chain.close();
+            }
+        };
+    }
+
+    @Override
+    public Registration registerTreeChangeListener(final YangInstanceIdentifier treeId,
+            final DOMDataTreeChangeListener listener) {
+        final YangInstanceIdentifier enclosing = lists.keySet().stream().filter(list -> list.contains(treeId))
+            .findFirst().orElse(null);
+        final ListenerRegistration registration = new ListenerRegistration(treeId, listener, enclosing);
+        if (enclosing == null) {
+            // delegate notifies about data outside of off-heap lists and about initial data
+            final Registration delegateRegistration;
+            synchronized (commitLock) {
+                delegateRegistration = ((DOMStoreTreeChangePublisher) delegate)
+                    .registerTreeChangeListener(treeId, registration);
+                listeners.add(registration);
+            }
+            return () -> {
+                listeners.remove(registration);
+                delegateRegistration.close();
+            };
+        }
+        // delegate holds no data inside off-heap lists, initial data are provided by this store
+        synchronized (commitLock) {
+            registration.notifyInitialData(generation);
+            listeners.add(registration);
+        }
+        return () -> listeners.remove(registration);
+    }
+
+    ImmutableMap<YangInstanceIdentifier, OffHeapList> lists() {
+        return lists;
+    }
+
+    /**
+     * Provides structure of ancestors of a list starting by top-level node, or null for top-level list.
+     */
+    @Nullable NormalizedNode parentStructure(final YangInstanceIdentifier list) {
+        return parentStructures.get(list);
+    }
+
+    /**
+     * Validates entry of off-heap list against the schema, without keeping it on the heap afterwards.
+     *
+     * @param list path of the list
+     * @param entry written entry
+     * @throws IllegalArgumentException when the entry is not valid
+     */
+    void validate(final YangInstanceIdentifier list, final MapEntryNode entry) {
+        final DataTreeModification modification = validationTree.takeSnapshot().newModification();
+        final NormalizedNode structure = parentStructures.get(list);
+        if (structure != null) {
+            modification.merge(YangInstanceIdentifier.of(structure.name()), structure);
+        }
+        modification.write(list.node(entry.name()), entry);
+        modification.ready();
+        try {
+            validationTree.validate(modification);
+        } catch (final DataValidationFailedException e) {
+            throw new IllegalArgumentException("Entry " + entry.name() + " of off-heap list " + list
+                + " is not valid", e);
+        }
+    }
+
+    /**
+     * Commits delegate cohort together with changes of off-heap lists and notifies listeners.
+     */
+    ListenableFuture<? extends CommitInfo> commit(final DOMStoreThreePhaseCommitCohort delegateCohort,
+            final Map<YangInstanceIdentifier, OffHeapListChanges> changes) {
+        synchronized (commitLock) {
+            final Generation before = generation;
+            changes.forEach((list, listChanges) -> lists.get(list).apply(listChanges));
+            final PendingCommit pending = new PendingCommit(changes, before);
+            final PendingCommit outer = committing.get();
+            final ListenableFuture<? extends CommitInfo> future;
+            committing.set(pending);
+            try {
+                future = delegateCohort.commit();
+            } finally {
+                committing.set(outer);
+            }
+            Futures.addCallback(future, new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(final CommitInfo result) {
+                    synchronized (commitLock) {
+                        pending.complete();
+                        notifyListeners(pending);
+                    }
+                }
+
+                @Override
+                public void onFailure(final Throwable cause) {
+                    revert(pending);
+                }
+            }, MoreExecutors.directExecutor());
+            return future;
+        }
+    }
+
+    private Generation newGeneration() {
+        return new Generation(delegate.newReadOnlyTransaction(),
+            ImmutableMap.copyOf(Maps.transformValues(lists, OffHeapList::snapshot)));
+    }
+
+    private void notifyListeners(final PendingCommit pending) {
+        if (pending.changes.isEmpty()) {
+            return;
+        }
+        for (final ListenerRegistration registration : listeners) {
+            if (pending.notified.add(registration)) {
+                final DataTreeCandidate candidate = registration.candidate(pending);
+                if (candidate != null) {
+                    registration.listener.onDataTreeChanged(List.of(candidate));
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores committed entries of lists changed by a commit the delegate failed to apply. Entries of replaced
+     * lists are restored one by one, so the whole list is decoded on the heap.
+     */
+    private void revert(final PendingCommit pending) {
+        synchronized (commitLock) {
+            LOG.warn("Delegate failed to commit, reverting changes of off-heap lists {}", pending.changes.keySet());
+            pending.changes.forEach((list, listChanges) -> {
+                final OffHeapList.Snapshot snapshot = pending.before.lists().get(list);
+                final OffHeapListChanges reverted = new OffHeapListChanges();
+                if (listChanges.isReplaced()) {
+                    reverted.clear();
+                    snapshot.keys().forEachRemaining(key -> reverted.put(snapshot.get(key)));
+                } else {
+                    for (final NodeIdentifierWithPredicates key : listChanges.entries().keySet()) {
+                        final MapEntryNode entry = snapshot.get(key);
+                        if (entry == null) {
+                            reverted.remove(key);
+                        } else {
+                            reverted.put(entry);
+                        }
+                    }
+                }
+                lists.get(list).apply(reverted);
+            });
+            generation = newGeneration();
+        }
+    }
+
+    private boolean hasListsUnder(final YangInstanceIdentifier path) {
+        return lists.keySet().stream().anyMatch(list -> isUnder(list, path));
+    }
+
+    /**
+     * Adds off-heap lists of a generation to data of their ancestor. Lists are added as views, their entries are
+     * decoded only when they are accessed.
+     */
+    private @Nullable NormalizedNode withLists(final YangInstanceIdentifier path, final @Nullable NormalizedNode data,
+            final Generation source) {
+        NormalizedNode result = data;
+        for (final Map.Entry<YangInstanceIdentifier, OffHeapList.Snapshot> list : source.lists().entrySet()) {
+            if (result != null && isUnder(list.getKey(), path)) {
+                final List<PathArgument> relative = list.getKey().relativeTo(path).orElseThrow().getPathArguments();
+                result = OffHeapListTransaction.replaceAt(result, relative, 0, view(list.getKey(), list.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private static @Nullable MapNode view(final YangInstanceIdentifier list, final OffHeapList.Snapshot snapshot) {
+        return snapshot.size() == 0 ? null
+            : new OffHeapMapNode((NodeIdentifier) list.getLastPathArgument(), snapshot, new OffHeapListChanges());
+    }
+
+    private static boolean isUnder(final YangInstanceIdentifier list, final YangInstanceIdentifier path) {
+        return path.contains(list) && !path.equals(list);
+    }
+
+    private static ModificationType modificationType(final boolean existedBefore, final boolean existsAfter) {
+        if (!existedBefore) {
+            return ModificationType.WRITE;
+        }
+        return existsAfter ? ModificationType.SUBTREE_MODIFIED : ModificationType.DELETE;
+    }
+
+    /**
+     * Committed state of the store: snapshot of the delegate together with snapshots of all off-heap lists.
+     *
+     * @param delegate read transaction of the delegate, shared by all read-only transactions of the generation
+     * @param lists snapshots of off-heap lists
+     */
+    record Generation(DOMStoreReadTransaction delegate,
+            ImmutableMap<YangInstanceIdentifier, OffHeapList.Snapshot> lists) {
+
+        @Nullable NormalizedNode read(final YangInstanceIdentifier path) {
+            return Futures.getUnchecked(delegate.read(path)).orElse(null);
+        }
+    }
+
+    /**
+     * Commit being applied. Generation after the commit is published by the first listener notified during
+     * the commit, so that the listener reads committed data, and again once the delegate completes the commit,
+     * since delegate may notify listeners before all of its data are committed.
+     */
+    private final class PendingCommit {
+
+        private final Map<YangInstanceIdentifier, OffHeapListChanges> changes;
+        private final Generation before;
+        private final Set<ListenerRegistration> notified = ConcurrentHashMap.newKeySet();
+        // guarded by this
+        private @Nullable Generation after;
+
+        PendingCommit(final Map<YangInstanceIdentifier, OffHeapListChanges> changes, final Generation before) {
+            this.changes = changes;
+            this.before = before;
+        }
+
+        synchronized Generation publish() {
+            if (after == null) {
+                complete();
+            }
+            return after;
+        }
+
+        // caller holds commit lock
+        synchronized void complete() {
+            after = newGeneration();
+            generation = after;
+        }
+    }
+
+    /**
+     * Listener registered through this store. Listeners outside of off-heap lists are registered on the delegate
+     * through this registration, which adds off-heap data to candidates of the delegate.
+     */
+    private final class ListenerRegistration implements DOMDataTreeChangeListener {
+
+        private final YangInstanceIdentifier treeId;
+        private final DOMDataTreeChangeListener listener;
+        // off-heap list containing the tree of the listener, or null
+        private final @Nullable YangInstanceIdentifier enclosing;
+        private final boolean ancestor;
+
+        ListenerRegistration(final YangInstanceIdentifier treeId, final DOMDataTreeChangeListener listener,
+                final @Nullable YangInstanceIdentifier enclosing) {
+            this.treeId = treeId;
+            this.listener = listener;
+            this.enclosing = enclosing;
+            this.ancestor = hasListsUnder(treeId);
+        }
+
+        @Override
+        public void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+            final PendingCommit pending = committing.get();
+            if (pending == null) {
+                // initial data or notification delivered by the delegate after the commit completed
+                final Generation current = generation;
+                listener.onDataTreeChanged(withLists(changes, current, current));
+                return;
+            }
+            final List<DataTreeCandidate> candidates = withLists(changes, pending.before, pending.publish());
+            if (pending.notified.add(this)) {
+                final DataTreeCandidate offHeap = candidate(pending);
+                if (offHeap != null) {
+                    candidates.add(offHeap);
+                }
+            }
+            listener.onDataTreeChanged(candidates);
+        }
+
+        @Override
+        public void onInitialData() {
+            listener.onInitialData();
+        }
+
+        void notifyInitialData(final Generation current) {
+            final NodeIdentifierWithPredicates key = entryKey();
+            final NormalizedNode data = key == null ? view(enclosing, current.lists().get(enclosing))
+                : find(current.lists().get(enclosing).get(key), inEntry());
+            if (data == null) {
+                listener.onInitialData();
+            } else {
+                listener.onDataTreeChanged(List.of(DataTreeCandidates.newDataTreeCandidate(treeId,
+                    new OffHeapCandidateNode(data.name(), ModificationType.WRITE, () -> null, () -> data, List::of))));
+            }
+        }
+
+        /**
+         * Creates candidate of off-heap lists changed by a commit relative to the tree of the listener.
+         */
+        @Nullable DataTreeCandidate candidate(final PendingCommit pending) {
+            final DataTreeCandidateNode node;
+            if (enclosing != null) {
+                node = pending.changes.containsKey(enclosing) ? enclosedNode(pending) : null;
+            } else if (ancestor && pending.changes.keySet().stream().anyMatch(list -> isUnder(list, treeId))) {
+                node = ancestorNode(treeId, treeId.isEmpty() ? ROOT : treeId.getLastPathArgument(),
+                    pending.before.read(treeId), pending.publish().read(treeId), pending);
+            } else {
+                node = null;
+            }
+            return node == null ? null : DataTreeCandidates.newDataTreeCandidate(treeId, node);
+        }
+
+        private List<DataTreeCandidate> withLists(final List<DataTreeCandidate> changes, final Generation before,
+                final Generation after) {
+            final List<DataTreeCandidate> candidates = new ArrayList<>(changes.size() + 1);
+            for (final DataTreeCandidate change : changes) {
+                candidates.add(ancestor ? DataTreeCandidates.newDataTreeCandidate(change.getRootPath(),
+                    new ListViewNode(change.getRootPath(), change.getRootNode(), before, after)) : change);
+            }
+            return candidates;
+        }
+
+        private @Nullable DataTreeCandidateNode enclosedNode(final PendingCommit pending) {
+            final OffHeapList.Snapshot before = pending.before.lists().get(enclosing);
+            final OffHeapList.Snapshot after = pending.publish().lists().get(enclosing);
+            final NodeIdentifierWithPredicates key = entryKey();
+            if (key == null) {
+                return listNode(enclosing, before, after, pending.changes.get(enclosing));
+            }
+            if (!pending.changes.get(enclosing).isChanged(key)) {
+                return null;
+            }
+            final NormalizedNode dataBefore = find(before.get(key), inEntry());
+            final NormalizedNode dataAfter = find(after.get(key), inEntry());
+            if (Objects.equals(dataBefore, dataAfter)) {
+                return null;
+            }
+            return new OffHeapCandidateNode(treeId.getLastPathArgument(),
+                dataAfter == null ? ModificationType.DELETE : ModificationType.WRITE,
+                () -> dataBefore, () -> dataAfter, List::of);
+        }
+
+        /**
+         * Creates node of an ancestor of changed off-heap lists, data of the ancestor are read from the delegate.
+         */
+        private @Nullable DataTreeCandidateNode ancestorNode(final YangInstanceIdentifier path,
+                final PathArgument name, final @Nullable NormalizedNode delegateBefore,
+                final @Nullable NormalizedNode delegateAfter, final PendingCommit pending) {
+            if (delegateBefore == null && delegateAfter == null) {
+                return null;
+            }
+            return new OffHeapCandidateNode(name, modificationType(delegateBefore != null, delegateAfter != null),
+                () -> OffHeapListStore.this.withLists(path, delegateBefore, pending.before),
+                () -> OffHeapListStore.this.withLists(path, delegateAfter, pending.publish()),
+                () -> {
+                    final Set<PathArgument> next = new LinkedHashSet<>();
+                    pending.changes.keySet().stream().filter(list -> isUnder(list, path))
+                        .forEach(list -> next.add(list.getPathArguments().get(path.size())));
+                    final List<DataTreeCandidateNode> children = new ArrayList<>();
+                    for (final PathArgument child : next) {
+                        final YangInstanceIdentifier childPath = path.node(child);
+                        final DataTreeCandidateNode node = pending.changes.containsKey(childPath)
+                            ? listNode(childPath, pending.before.lists().get(childPath),
+                                pending.publish().lists().get(childPath), pending.changes.get(childPath))
+                            : ancestorNode(childPath, child, NormalizedNodeDelta.childByArg(delegateBefore, child),
+                                NormalizedNodeDelta.childByArg(delegateAfter, child), pending);
+                        if (node != null) {
+                            children.add(node);
+                        }
+                    }
+                    return children;
+                });
+        }
+
+        private @Nullable NodeIdentifierWithPredicates entryKey() {
+            return treeId.equals(enclosing) ? null
+                : (NodeIdentifierWithPredicates) treeId.relativeTo(enclosing).orElseThrow().getPathArguments().get(0);
+        }
+
+        private List<PathArgument> inEntry() {
+            final List<PathArgument> relative = treeId.relativeTo(enclosing).orElseThrow().getPathArguments();
+            return relative.subList(1, relative.size());
+        }
+    }
+
+    /**
+     * Creates node of changed off-heap list with nodes of its changed entries.
+     */
+    private static @Nullable DataTreeCandidateNode listNode(final YangInstanceIdentifier list,
+            final OffHeapList.Snapshot before, final OffHeapList.Snapshot after, final OffHeapListChanges changes) {
+        if (before.size() == 0 && after.size() == 0) {
+            return null;
+        }
+        return new OffHeapCandidateNode(list.getLastPathArgument(),
+            modificationType(before.size() != 0, after.size() != 0), () -> view(list, before), () -> view(list, after),
+            () -> {
+                final Set<NodeIdentifierWithPredicates> keys = new LinkedHashSet<>(changes.entries().keySet());
+                if (changes.isReplaced()) {
+                    before.keys().forEachRemaining(keys::add);
+                }
+                final List<DataTreeCandidateNode> entries = new ArrayList<>(keys.size());
+                for (final NodeIdentifierWithPredicates key : keys) {
+                    final boolean existedBefore = before.contains(key);
+                    final boolean existsAfter = after.contains(key);
+                    if (existedBefore || existsAfter) {
+                        entries.add(new OffHeapCandidateNode(key,
+                            existsAfter ? ModificationType.WRITE : ModificationType.DELETE,
+                            () -> before.get(key), () -> after.get(key), List::of));
+                    }
+                }
+                return entries;
+            });
+    }
+
+    private static @Nullable NormalizedNode find(final @Nullable MapEntryNode entry, final List<PathArgument> path) {
+        return entry == null ? null : NormalizedNodes.findNode(entry, path).orElse(null);
+    }
+
+    /**
+     * Candidate node of the delegate with off-heap lists added to data of their ancestors.
+     */
+    private final class ListViewNode implements DataTreeCandidateNode {
+
+        private final YangInstanceIdentifier path;
+        private final DataTreeCandidateNode delegateNode;
+        private final Generation before;
+        private final Generation after;
+
+        ListViewNode(final YangInstanceIdentifier path, final DataTreeCandidateNode delegateNode,
+                final Generation before, final Generation after) {
+            this.path = path;
+            this.delegateNode = delegateNode;
+            this.before = before;
+            this.after = after;
+        }
+
+        @Override
+        public PathArgument name() {
+            return delegateNode.name();
+        }
+
+        @Override
+        public List<DataTreeCandidateNode> childNodes() {
+            final List<DataTreeCandidateNode> children = new ArrayList<>();
+            for (final DataTreeCandidateNode child : delegateNode.childNodes()) {
+                children.add(wrap(child));
+            }
+            return children;
+        }
+
+        @Override
+        public @Nullable DataTreeCandidateNode modifiedChild(final PathArgument childName) {
+            final DataTreeCandidateNode child = delegateNode.modifiedChild(childName);
+            return child == null ? null : wrap(child);
+        }
+
+        @Override
+        public ModificationType modificationType() {
+            return delegateNode.modificationType();
+        }
+
+        @Override
+        public @Nullable NormalizedNode dataBefore() {
+            return withLists(path, delegateNode.dataBefore(), before);
+        }
+
+        @Override
+        public @Nullable NormalizedNode dataAfter() {
+            return withLists(path, delegateNode.dataAfter(), after);
+        }
+
+        private DataTreeCandidateNode wrap(final DataTreeCandidateNode child) {
+            final YangInstanceIdentifier childPath = path.node(child.name());
+            return hasListsUnder(childPath) ? new ListViewNode(childPath, child, before, after) : child;
+        }
+    }
+
+    /**
+     * Candidate node of off-heap data. Data and children are resolved when they are first accessed, so entries
+     * of large lists are decoded only for listeners which read them. Written entries do not list their children.
+     */
+    private static final class OffHeapCandidateNode implements DataTreeCandidateNode {
+
+        private final PathArgument name;
+        private final ModificationType modificationType;
+        private final Supplier<@Nullable NormalizedNode> dataBefore;
+        private final Supplier<@Nullable NormalizedNode> dataAfter;
+        private final Supplier<List<DataTreeCandidateNode>> childNodes;
+
+        OffHeapCandidateNode(final PathArgument name, final ModificationType modificationType,
+                final Supplier<@Nullable NormalizedNode> dataBefore, final Supplier<@Nullable NormalizedNode> dataAfter,
+                final Supplier<List<DataTreeCandidateNode>> childNodes) {
+            this.name = name;
+            this.modificationType = modificationType;
+            this.dataBefore = Suppliers.memoize(dataBefore);
+            this.dataAfter = Suppliers.memoize(dataAfter);
+            this.childNodes = Suppliers.memoize(childNodes);
+        }
+
+        @Override
+        public PathArgument name() {
+            return name;
+        }
+
+        @Override
+        public List<DataTreeCandidateNode> childNodes() {
+            return childNodes.get();
+        }
+
+        @Override
+        public @Nullable DataTreeCandidateNode modifiedChild(final PathArgument childName) {
+            for (final DataTreeCandidateNode child : childNodes.get()) {
+                if (child.name().equals(childName)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public ModificationType modificationType() {
+            return modificationType;
+        }
+
+        @Override
+        public @Nullable NormalizedNode dataBefore() {
+            return dataBefore.get();
+        }
+
+        @Override
+        public @Nullable NormalizedNode dataAfter() {
+            return dataAfter.get();
+        }
+    }
+}
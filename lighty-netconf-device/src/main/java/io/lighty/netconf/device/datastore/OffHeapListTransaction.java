@@ -0,0 +1,403 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.netconf.device.utils.NormalizedNodeDelta;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.yangtools.yang.common.Empty;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DistinctNodeContainer;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.api.schema.OrderedNodeContainer;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.builder.NormalizedNodeContainerBuilder;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+/**
+ * Transaction of {@link OffHeapListStore}. Operations inside an off-heap list are recorded as
+ * {@link OffHeapListChanges}, operations on ancestors of off-heap lists are split into changes of the lists
+ * and operation on the rest of data, which is passed to delegate transaction together with all other operations.
+ * Snapshots of off-heap lists are taken when the transaction is opened, written entries are validated before
+ * they are recorded.
+ */
+final class OffHeapListTransaction implements DOMStoreReadWriteTransaction {
+
+    private final OffHeapListStore store;
+    private final ImmutableMap<YangInstanceIdentifier, OffHeapList.Snapshot> snapshots;
+    private final DOMStoreTransaction delegate;
+    // read-only transactions share read transaction of the generation they read, it is not closed by them
+    private final boolean ownsDelegate;
+    // guarded by this
+    private final Map<YangInstanceIdentifier, OffHeapListChanges> changes = new LinkedHashMap<>();
+    // guarded by this
+    private final Set<YangInstanceIdentifier> structured = new HashSet<>();
+
+    OffHeapListTransaction(final OffHeapListStore store,
+            final ImmutableMap<YangInstanceIdentifier, OffHeapList.Snapshot> snapshots,
+            final DOMStoreTransaction delegate, final boolean ownsDelegate) {
+        this.store = store;
+        this.snapshots = snapshots;
+        this.delegate = delegate;
+        this.ownsDelegate = ownsDelegate;
+    }
+
+    @Override
+    public Object getIdentifier() {
+        return delegate.getIdentifier();
+    }
+
+    @Override
+    public synchronized FluentFuture<Optional<NormalizedNode>> read(final YangInstanceIdentifier path) {
+        final YangInstanceIdentifier list = listContaining(path);
+        if (list != null) {
+            final List<PathArgument> relative = path.relativeTo(list).orElseThrow().getPathArguments();
+            final MapEntryNode entry = currentEntry(list, entryKey(list, relative));
+            return FluentFuture.from(Futures.immediateFuture(entry == null ? Optional.<NormalizedNode>empty()
+                : NormalizedNodes.findNode(entry, relative.subList(1, relative.size()))));
+        }
+        if (store.lists().containsKey(path)) {
+            final MapNode view = view(path);
+            return FluentFuture.from(Futures.immediateFuture(
+                view.size() == 0 ? Optional.<NormalizedNode>empty() : Optional.<NormalizedNode>of(view)));
+        }
+        final Map<YangInstanceIdentifier, MapNode> views = new LinkedHashMap<>();
+        for (final YangInstanceIdentifier nested : listsUnder(path)) {
+            views.put(nested, view(nested));
+        }
+        final FluentFuture<Optional<NormalizedNode>> read = ((DOMStoreReadTransaction) delegate).read(path);
+        if (views.isEmpty()) {
+            return read;
+        }
+        return read.transform(data -> data.map(node -> {
+            NormalizedNode result = node;
+            for (final Map.Entry<YangInstanceIdentifier, MapNode> view : views.entrySet()) {
+                final List<PathArgument> relative = view.getKey().relativeTo(path).orElseThrow().getPathArguments();
+                result = replaceAt(result, relative, 0, view.getValue().size() == 0 ? null : view.getValue());
+            }
+            return result;
+        }), MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public FluentFuture<Boolean> exists(final YangInstanceIdentifier path) {
+        return read(path).transform(Optional::isPresent, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public synchronized void write(final YangInstanceIdentifier path, final NormalizedNode data) {
+        final YangInstanceIdentifier list = listContaining(path);
+        if (list != null) {
+            modifyEntry(list, path, data, false);
+            return;
+        }
+        NormalizedNode remaining = data;
+        final List<YangInstanceIdentifier> populated = new ArrayList<>();
+        for (final YangInstanceIdentifier nested : listsUnder(path)) {
+            final List<PathArgument> relative = nested.relativeTo(path).orElseThrow().getPathArguments();
+            final OffHeapListChanges listChanges = changesOf(nested);
+            listChanges.clear();
+            final Optional<NormalizedNode> listNode = NormalizedNodes.findNode(data, relative);
+            if (listNode.isPresent()) {
+                final Collection<MapEntryNode> entries = entriesOf(nested, listNode.orElseThrow());
+                for (final MapEntryNode entry : entries) {
+                    store.validate(nested, entry);
+                    listChanges.put(entry);
+                }
+                if (!entries.isEmpty()) {
+                    populated.add(nested);
+                }
+                if (!relative.isEmpty()) {
+                    remaining = replaceAt(remaining, relative, 0, null);
+                }
+            }
+        }
+        if (!store.lists().containsKey(path)) {
+            ((DOMStoreWriteTransaction) delegate).write(path, remaining);
+        }
+        populated.forEach(this::ensureStructure);
+    }
+
+    @Override
+    public synchronized void merge(final YangInstanceIdentifier path, final NormalizedNode data) {
+        final YangInstanceIdentifier list = listContaining(path);
+        if (list != null) {
+            modifyEntry(list, path, data, true);
+            return;
+        }
+        NormalizedNode remaining = data;
+        final List<YangInstanceIdentifier> populated = new ArrayList<>();
+        for (final YangInstanceIdentifier nested : listsUnder(path)) {
+            final List<PathArgument> relative = nested.relativeTo(path).orElseThrow().getPathArguments();
+            final Optional<NormalizedNode> listNode = NormalizedNodes.findNode(data, relative);
+            if (listNode.isPresent()) {
+                final OffHeapListChanges listChanges = changesOf(nested);
+                final Collection<MapEntryNode> entries = entriesOf(nested, listNode.orElseThrow());
+                for (final MapEntryNode entry : entries) {
+                    final MapEntryNode merged = (MapEntryNode) merge(currentEntry(nested, entry.name()), entry);
+                    store.validate(nested, merged);
+                    listChanges.put(merged);
+                }
+                if (!entries.isEmpty()) {
+                    populated.add(nested);
+                }
+                if (!relative.isEmpty()) {
+                    remaining = replaceAt(remaining, relative, 0, null);
+                }
+            }
+        }
+        if (!store.lists().containsKey(path)) {
+            ((DOMStoreWriteTransaction) delegate).merge(path, remaining);
+        }
+        populated.forEach(this::ensureStructure);
+    }
+
+    @Override
+    public synchronized void delete(final YangInstanceIdentifier path) {
+        final YangInstanceIdentifier list = listContaining(path);
+        if (list != null) {
+            modifyEntry(list, path, null, false);
+            return;
+        }
+        for (final YangInstanceIdentifier nested : listsUnder(path)) {
+            changesOf(nested).clear();
+        }
+        ((DOMStoreWriteTransaction) delegate).delete(path);
+    }
+
+    @Override
+    public synchronized DOMStoreThreePhaseCommitCohort ready() {
+        final Map<YangInstanceIdentifier, OffHeapListChanges> committed = new LinkedHashMap<>();
+        changes.forEach((list, listChanges) -> {
+            if (!listChanges.isEmpty()) {
+                committed.put(list, listChanges);
+            }
+        });
+        return new CommitCohort(((DOMStoreWriteTransaction) delegate).ready(), committed);
+    }
+
+    @Override
+    public void close() {
+        if (ownsDelegate) {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Writes, merges or deletes (when data is null) node inside an entry of off-heap list.
+     */
+    private void modifyEntry(final YangInstanceIdentifier list, final YangInstanceIdentifier path,
+            final @Nullable NormalizedNode data, final boolean merge) {
+        final List<PathArgument> relative = path.relativeTo(list).orElseThrow().getPathArguments();
+        final NodeIdentifierWithPredicates key = entryKey(list, relative);
+        final MapEntryNode entry = currentEntry(list, key);
+        final NormalizedNode modified;
+        if (relative.size() == 1) {
+            modified = data == null || !merge ? data : merge(entry, data);
+        } else if (entry == null) {
+            Preconditions.checkArgument(data == null, "Entry %s of off-heap list %s does not exist", key, list);
+            return;
+        } else {
+            final List<PathArgument> inEntry = relative.subList(1, relative.size());
+            final NormalizedNode child = data == null || !merge ? data
+                : merge(NormalizedNodes.findNode(entry, inEntry).orElse(null), data);
+            modified = replaceAt(entry, inEntry, 0, child);
+        }
+        if (modified == null) {
+            changesOf(list).remove(key);
+        } else {
+            Preconditions.checkArgument(modified instanceof MapEntryNode, "%s is not entry of list %s", path, list);
+            store.validate(list, (MapEntryNode) modified);
+            changesOf(list).put((MapEntryNode) modified);
+            ensureStructure(list);
+        }
+    }
+
+    private @Nullable YangInstanceIdentifier listContaining(final YangInstanceIdentifier path) {
+        for (final YangInstanceIdentifier list : store.lists().keySet()) {
+            if (list.contains(path) && !list.equals(path)) {
+                return list;
+            }
+        }
+        return null;
+    }
+
+    private List<YangInstanceIdentifier> listsUnder(final YangInstanceIdentifier path) {
+        final List<YangInstanceIdentifier> nested = new ArrayList<>();
+        for (final YangInstanceIdentifier list : store.lists().keySet()) {
+            if (path.contains(list)) {
+                nested.add(list);
+            }
+        }
+        return nested;
+    }
+
+    private static NodeIdentifierWithPredicates entryKey(final YangInstanceIdentifier list,
+            final List<PathArgument> relative) {
+        Preconditions.checkArgument(relative.get(0) instanceof NodeIdentifierWithPredicates,
+            "Path inside off-heap list %s has to start by entry key", list);
+        return (NodeIdentifierWithPredicates) relative.get(0);
+    }
+
+    private static Collection<MapEntryNode> entriesOf(final YangInstanceIdentifier list, final NormalizedNode node) {
+        Preconditions.checkArgument(node instanceof MapNode, "Off-heap list %s has to be keyed list", list);
+        return ((MapNode) node).body();
+    }
+
+    private @Nullable MapEntryNode currentEntry(final YangInstanceIdentifier list,
+            final NodeIdentifierWithPredicates key) {
+        final OffHeapListChanges listChanges = changes.get(list);
+        return listChanges != null && listChanges.isChanged(key) ? listChanges.get(key) : snapshots.get(list).get(key);
+    }
+
+    private MapNode view(final YangInstanceIdentifier list) {
+        final OffHeapListChanges listChanges = changes.get(list);
+        return new OffHeapMapNode((NodeIdentifier) list.getLastPathArgument(), snapshots.get(list),
+            listChanges == null ? new OffHeapListChanges() : listChanges.copy());
+    }
+
+    private OffHeapListChanges changesOf(final YangInstanceIdentifier list) {
+        return changes.computeIfAbsent(list, key -> new OffHeapListChanges());
+    }
+
+    /**
+     * Makes sure ancestors of the list exist in delegate datastore, so that reads of ancestors include the list.
+     */
+    private void ensureStructure(final YangInstanceIdentifier list) {
+        final NormalizedNode structure = store.parentStructure(list);
+        if (structure != null && structured.add(list)) {
+            ((DOMStoreWriteTransaction) delegate).merge(YangInstanceIdentifier.of(structure.name()), structure);
+        }
+    }
+
+    private static NormalizedNode merge(final @Nullable NormalizedNode base, final NormalizedNode data) {
+        // ordered-by-user lists are replaced as a whole, so their order is kept
+        if (base == null || base.contract() != data.contract() || !(data instanceof DistinctNodeContainer<?, ?> node)
+                || data instanceof OrderedNodeContainer) {
+            return data;
+        }
+        NormalizedNode result = base;
+        for (final NormalizedNode child : node.body()) {
+            result = withChild(result, child.name(),
+                merge(NormalizedNodeDelta.childByArg(result, child.name()), child));
+        }
+        return result;
+    }
+
+    /**
+     * Replaces node at relative path, or removes it when replacement is null. Node is returned unchanged when
+     * a parent on the path does not exist.
+     */
+    static @Nullable NormalizedNode replaceAt(final NormalizedNode node, final List<PathArgument> relative,
+            final int index, final @Nullable NormalizedNode replacement) {
+        if (index == relative.size()) {
+            return replacement;
+        }
+        final PathArgument name = relative.get(index);
+        final NormalizedNode child = NormalizedNodeDelta.childByArg(node, name);
+        if (child == null && (index < relative.size() - 1 || replacement == null)) {
+            return node;
+        }
+        final NormalizedNode newChild = child == null ? replacement : replaceAt(child, relative, index + 1,
+            replacement);
+        return newChild == child ? node : withChild(node, name, newChild);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static NormalizedNode withChild(final NormalizedNode parent, final PathArgument name,
+            final @Nullable NormalizedNode child) {
+        final NormalizedNodeContainerBuilder builder = switch (parent) {
+            case ContainerNode node -> ImmutableNodes.newContainerBuilder().withNodeIdentifier(node.name());
+            case MapEntryNode node -> ImmutableNodes.newMapEntryBuilder().withNodeIdentifier(node.name());
+            case ChoiceNode node -> ImmutableNodes.newChoiceBuilder().withNodeIdentifier(node.name());
+            case UnkeyedListEntryNode node -> ImmutableNodes.newUnkeyedListEntryBuilder()
+                .withNodeIdentifier(node.name());
+            case UserMapNode node -> ImmutableNodes.newUserMapBuilder().withNodeIdentifier(node.name());
+            case SystemMapNode node -> ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(node.name());
+            case UserLeafSetNode<?> node -> ImmutableNodes.newUserLeafSetBuilder().withNodeIdentifier(node.name());
+            case SystemLeafSetNode<?> node -> ImmutableNodes.newSystemLeafSetBuilder()
+                .withNodeIdentifier(node.name());
+            default -> throw new IllegalArgumentException("Unable to modify children of " + parent.name());
+        };
+        for (final Object existing : (Collection) parent.body()) {
+            if (!((NormalizedNode) existing).name().equals(name)) {
+                builder.addChild(existing);
+            }
+        }
+        if (child != null) {
+            builder.addChild(child);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Commits delegate transaction together with changes of off-heap lists through the store.
+     */
+    private final class CommitCohort implements DOMStoreThreePhaseCommitCohort {
+
+        private final DOMStoreThreePhaseCommitCohort delegateCohort;
+        private final Map<YangInstanceIdentifier, OffHeapListChanges> committed;
+
+        CommitCohort(final DOMStoreThreePhaseCommitCohort delegateCohort,
+                final Map<YangInstanceIdentifier, OffHeapListChanges> committed) {
+            this.delegateCohort = delegateCohort;
+            this.committed = committed;
+        }
+
+        @Override
+        public ListenableFuture<Boolean> canCommit() {
+            return delegateCohort.canCommit();
+        }
+
+        @Override
+        public ListenableFuture<Empty> preCommit() {
+            return delegateCohort.preCommit();
+        }
+
+        @Override
+        public ListenableFuture<Empty> abort() {
+            return delegateCohort.abort();
+        }
+
+        @Override
+        public ListenableFuture<? extends CommitInfo> commit() {
+            return store.commit(delegateCohort, committed);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.collect.AbstractIterator;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemMapNode;
+
+/**
+ * List backed by {@link OffHeapList.Snapshot}, optionally overlaid by uncommitted changes of a transaction.
+ * Entries are decoded when they are accessed and are not retained, so iterating over the list while it is
+ * serialized keeps only one entry on the heap at a time.
+ */
+final class OffHeapMapNode implements SystemMapNode {
+
+    private final NodeIdentifier name;
+    private final OffHeapList.Snapshot snapshot;
+    private final OffHeapListChanges changes;
+    private final Map<NodeIdentifierWithPredicates, MapEntryNode> entries = new Entries();
+
+    OffHeapMapNode(final NodeIdentifier name, final OffHeapList.Snapshot snapshot,
+            final OffHeapListChanges changes) {
+        this.name = name;
+        this.snapshot = snapshot;
+        this.changes = changes;
+    }
+
+    @Override
+    public NodeIdentifier name() {
+        return name;
+    }
+
+    @Override
+    public Class<SystemMapNode> contract() {
+        return SystemMapNode.class;
+    }
+
+    @Override
+    public Map<NodeIdentifierWithPredicates, MapEntryNode> asMap() {
+        return entries;
+    }
+
+    @Override
+    public Collection<MapEntryNode> body() {
+        return entries.values();
+    }
+
+    @Override
+    public MapEntryNode childByArg(final NodeIdentifierWithPredicates child) {
+        return entries.get(child);
+    }
+
+    @Override
+    public int size() {
+        if (changes.isEmpty()) {
+            return snapshot.size();
+        }
+        int size = changes.isReplaced() ? 0 : snapshot.size();
+        for (final Map.Entry<NodeIdentifierWithPredicates, MapEntryNode> change : changes.entries().entrySet()) {
+            final boolean committed = !changes.isReplaced() && snapshot.contains(change.getKey());
+            if (change.getValue() != null && !committed) {
+                size++;
+            } else if (change.getValue() == null && committed) {
+                size--;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapMapNode{name=" + name + ", size=" + size() + "}";
+    }
+
+    private final class Entries extends AbstractMap<NodeIdentifierWithPredicates, MapEntryNode> {
+
+        private final Set<Map.Entry<NodeIdentifierWithPredicates, MapEntryNode>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<NodeIdentifierWithPredicates, MapEntryNode>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return OffHeapMapNode.this.size();
+            }
+        };
+
+        @Override
+        public Set<Map.Entry<NodeIdentifierWithPredicates, MapEntryNode>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public MapEntryNode get(final Object key) {
+            if (!(key instanceof NodeIdentifierWithPredicates entryKey)) {
+                return null;
+            }
+            return changes.isChanged(entryKey) ? changes.get(entryKey) : snapshot.get(entryKey);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+    }
+
+    /**
+     * Iterates committed entries which were not changed, followed by entries written by the transaction.
+     */
+    private final class EntryIterator
+            extends AbstractIterator<Map.Entry<NodeIdentifierWithPredicates, MapEntryNode>> {
+
+        private final Iterator<NodeIdentifierWithPredicates> committed =
+            changes.isReplaced() ? Collections.emptyIterator() : snapshot.keys();
+        private final Iterator<MapEntryNode> written = changes.entries().values().iterator();
+
+        @Override
+        protected Map.Entry<NodeIdentifierWithPredicates, MapEntryNode> computeNext() {
+            while (committed.hasNext()) {
+                final NodeIdentifierWithPredicates key = committed.next();
+                if (!changes.isChanged(key)) {
+                    final MapEntryNode entry = snapshot.get(key);
+                    if (entry != null) {
+                        return Map.entry(key, entry);
+                    }
+                }
+            }
+            while (written.hasNext()) {
+                final MapEntryNode entry = written.next();
+                if (entry != null) {
+                    return Map.entry(entry.name(), entry);
+                }
+            }
+            return endOfData();
+        }
+    }
+}
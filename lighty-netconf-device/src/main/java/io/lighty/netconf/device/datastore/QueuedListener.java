@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.data.tree.api.ModificationType;
+import org.opendaylight.yangtools.yang.data.tree.spi.DataTreeCandidates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listener registered to the datastore on behalf of asynchronously notified listener. Changes are queued
+ * on the commit thread and delivered by dispatch executor, at most one delivery per listener is running
+ * at a time, so the listener observes changes in commit order. Changes queued while the listener is busy
+ * are coalesced per changed subtree: a change of a subtree which is already waiting for delivery is aggregated
+ * with the waiting one, so the listener sees the net effect of all queued commits instead of every intermediate
+ * state, and the queue holds at most one candidate per subtree.
+ */
+final class QueuedListener implements DOMDataTreeChangeListener {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueuedListener.class);
+
+    private final YangInstanceIdentifier treeId;
+    private final DOMDataTreeChangeListener delegate;
+    private final Executor executor;
+    private final int capacity;
+
+    // guarded by this
+    private final Map<YangInstanceIdentifier, DataTreeCandidate> pending = new LinkedHashMap<>();
+    // guarded by this
+    private boolean initialDataPending;
+    // guarded by this
+    private boolean dispatchScheduled;
+    // guarded by this
+    private boolean closed;
+    // guarded by this
+    private int maxQueueDepth;
+    // guarded by this
+    private long deliveredBatches;
+    // guarded by this
+    private long coalescedChanges;
+    // guarded by this
+    private long blockedCommits;
+    // guarded by this
+    private long overflowedCommits;
+
+    QueuedListener(final YangInstanceIdentifier treeId, final DOMDataTreeChangeListener delegate,
+            final Executor executor, final int capacity) {
+        this.treeId = treeId;
+        this.delegate = delegate;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues changes for the listener. When the queue is full and changes touch a subtree which is not waiting
+     * for delivery yet, caller waits until the listener catches up, at most {@link TimeoutUtil#TIMEOUT_MILLIS},
+     * so that listener committing to the datastore from its own callback cannot block the datastore forever.
+     * Changes queued over capacity after the timeout are counted in {@link ListenerQueueStats#overflowedCommits()}.
+     */
+    @Override
+    public synchronized void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+        if (closed || changes.isEmpty()) {
+            return;
+        }
+        if (pending.size() >= capacity && !allPending(changes)) {
+            blockedCommits++;
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TimeoutUtil.TIMEOUT_MILLIS);
+            try {
+                long remaining = deadline - System.nanoTime();
+                while (!closed && pending.size() >= capacity && remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warn("Interrupted while waiting for notification queue of listener {}", delegate, e);
+            }
+            if (closed) {
+                return;
+            }
+            if (pending.size() >= capacity) {
+                overflowedCommits++;
+                LOG.warn("Listener {} did not process {} queued changes in time, queueing over capacity",
+                    delegate, pending.size());
+            }
+        }
+        for (final DataTreeCandidate change : changes) {
+            enqueue(change);
+        }
+        maxQueueDepth = Math.max(maxQueueDepth, pending.size());
+        if (!pending.isEmpty()) {
+            scheduleDispatch();
+        }
+    }
+
+    @Override
+    public synchronized void onInitialData() {
+        if (closed) {
+            return;
+        }
+        initialDataPending = true;
+        scheduleDispatch();
+    }
+
+    /**
+     * Discards queued changes, changes committed later are ignored.
+     */
+    synchronized void close() {
+        closed = true;
+        pending.clear();
+        notifyAll();
+    }
+
+    synchronized ListenerQueueStats stats() {
+        return new ListenerQueueStats(treeId, delegate.toString(), pending.size(), maxQueueDepth, deliveredBatches,
+            coalescedChanges, blockedCommits, overflowedCommits);
+    }
+
+    // guarded by this
+    private boolean allPending(final List<DataTreeCandidate> changes) {
+        for (final DataTreeCandidate change : changes) {
+            if (!pending.containsKey(change.getRootPath())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds change to the queue or aggregates it with queued change of the same subtree. Change which reverts
+     * the queued one is not delivered at all.
+     */
+    private void enqueue(final DataTreeCandidate change) {
+        final YangInstanceIdentifier path = change.getRootPath();
+        final DataTreeCandidate queued = pending.get(path);
+        if (queued == null) {
+            pending.put(path, change);
+            return;
+        }
+        coalescedChanges++;
+        final DataTreeCandidate aggregated = DataTreeCandidates.aggregate(List.of(queued, change));
+        if (aggregated.getRootNode().modificationType() == ModificationType.UNMODIFIED) {
+            pending.remove(path);
+        } else {
+            pending.put(path, aggregated);
+        }
+    }
+
+    // guarded by this
+    private void scheduleDispatch() {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            executor.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        final boolean initialData;
+        final List<DataTreeCandidate> changes;
+        synchronized (this) {
+            if (closed) {
+                dispatchScheduled = false;
+                return;
+            }
+            initialData = initialDataPending;
+            initialDataPending = false;
+            changes = new ArrayList<>(pending.values());
+            pending.clear();
+            if (!changes.isEmpty()) {
+                deliveredBatches++;
+            }
+            notifyAll();
+        }
+        try {
+            if (initialData) {
+                delegate.onInitialData();
+            }
+            if (!changes.isEmpty()) {
+                delegate.onDataTreeChanged(changes);
+            }
+        } catch (final RuntimeException e) {
+            LOG.warn("Listener {} failed to process {} changes", delegate, changes.size(), e);
+        }
+        synchronized (this) {
+            dispatchScheduled = false;
+            if (!closed && (initialDataPending || !pending.isEmpty())) {
+                scheduleDispatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import io.lighty.netconf.device.datastore.ShardedDOMStore.Shard;
+import java.util.List;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.yangtools.yang.common.Empty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Commit cohort of {@link ShardedTransaction}. Shards modified by the transaction are locked in shard order
+ * in {@link #canCommit()} and released when the transaction is committed or aborted, so that each shard validates,
+ * prepares and commits one transaction at a time while transactions of other shards proceed. Shard locks are fair
+ * and do not block threads, {@link #canCommit()} completes once all shards are locked.
+ *
+ * <p>Candidates of all shards are validated in {@link #canCommit()} and prepared in {@link #preCommit()} before
+ * any shard is committed. A failure in these phases aborts all shards, so nothing is committed. Shards stay locked
+ * until the commit, so prepared candidates cannot be invalidated by other transactions and committing them does not
+ * fail on conflicts. If a shard commit fails anyway, shards committed before it are not rolled back and the
+ * transaction is reported as failed.
+ *
+ * <p>Commits are atomic per datastore only, each datastore has its own sharded store and its own transactions.
+ */
+final class ShardedCommitCohort implements DOMStoreThreePhaseCommitCohort {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedCommitCohort.class);
+
+    private final List<Shard> shards;
+    private final List<DOMStoreThreePhaseCommitCohort> cohorts;
+    private final SettableFuture<Empty> locked = SettableFuture.create();
+    // guarded by this
+    private int lockedShards;
+    // guarded by this
+    private ListenableFuture<Empty> acquisition;
+    // guarded by this
+    private boolean unlocked;
+
+    ShardedCommitCohort(final List<Shard> shards, final List<DOMStoreThreePhaseCommitCohort> cohorts) {
+        this.shards = List.copyOf(shards);
+        this.cohorts = List.copyOf(cohorts);
+    }
+
+    @Override
+    public ListenableFuture<Boolean> canCommit() {
+        lockFrom(0);
+        ListenableFuture<Boolean> result = Futures.transform(locked, ignored -> Boolean.TRUE,
+            MoreExecutors.directExecutor());
+        for (final DOMStoreThreePhaseCommitCohort cohort : cohorts) {
+            result = Futures.transformAsync(result, canCommit -> Boolean.TRUE.equals(canCommit)
+                ? cohort.canCommit() : Futures.immediateFuture(Boolean.FALSE), MoreExecutors.directExecutor());
+        }
+        return result;
+    }
+
+    @Override
+    public ListenableFuture<Empty> preCommit() {
+        ListenableFuture<Empty> result = Futures.immediateFuture(Empty.value());
+        for (final DOMStoreThreePhaseCommitCohort cohort : cohorts) {
+            result = Futures.transformAsync(result, ignored -> cohort.preCommit(), MoreExecutors.directExecutor());
+        }
+        return result;
+    }
+
+    @Override
+    public ListenableFuture<Empty> abort() {
+        final ListenableFuture<List<Empty>> aborts = Futures.successfulAsList(cohorts.stream()
+            .map(DOMStoreThreePhaseCommitCohort::abort)
+            .toList());
+        aborts.addListener(this::unlock, MoreExecutors.directExecutor());
+        return Futures.transform(aborts, ignored -> Empty.value(), MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<? extends CommitInfo> commit() {
+        // all candidates are prepared, every shard is committed even if a previous one failed
+        final List<ListenableFuture<? extends CommitInfo>> commits = cohorts.stream()
+            .<ListenableFuture<? extends CommitInfo>>map(DOMStoreThreePhaseCommitCohort::commit)
+            .toList();
+        final ListenableFuture<CommitInfo> committed = Futures.transform(Futures.allAsList(commits),
+            ignored -> CommitInfo.empty(), MoreExecutors.directExecutor());
+        Futures.addCallback(committed, new FutureCallback<CommitInfo>() {
+            @Override
+            public void onSuccess(final CommitInfo result) {
+                unlock();
+            }
+
+            @Override
+            public void onFailure(final Throwable throwable) {
+                LOG.error("Commit of transaction spanning {} shards failed, shards committed before the failure"
+                    + " stay committed", shards.size(), throwable);
+                unlock();
+            }
+        }, MoreExecutors.directExecutor());
+        return committed;
+    }
+
+    /**
+     * Locks modified shards in shard order, starting by the shard at the index.
+     */
+    private void lockFrom(final int index) {
+        if (index == shards.size()) {
+            locked.set(Empty.value());
+            return;
+        }
+        final ListenableFuture<Empty> next = shards.get(index).commitQueue().acquire();
+        final boolean cancelled;
+        synchronized (this) {
+            cancelled = unlocked;
+            acquisition = next;
+        }
+        if (cancelled) {
+            next.cancel(false);
+        }
+        next.addListener(() -> onLocked(index, next), MoreExecutors.directExecutor());
+    }
+
+    private void onLocked(final int index, final ListenableFuture<Empty> lock) {
+        if (lock.isCancelled()) {
+            return;
+        }
+        synchronized (this) {
+            if (unlocked) {
+                // transaction was aborted while waiting for the lock
+                shards.get(index).commitQueue().release();
+                return;
+            }
+            lockedShards++;
+            acquisition = null;
+        }
+        lockFrom(index + 1);
+    }
+
+    private void unlock() {
+        final int toRelease;
+        final ListenableFuture<Empty> pending;
+        synchronized (this) {
+            if (unlocked) {
+                return;
+            }
+            unlocked = true;
+            toRelease = lockedShards;
+            pending = acquisition;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        locked.cancel(false);
+        shards.subList(0, toRelease).forEach(shard -> shard.commitQueue().release());
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionChain;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTreeChangePublisher;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
+import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStoreConfigProperties;
+import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.yang.common.Empty;
+import org.opendaylight.yangtools.yang.common.QNameModule;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Datastore split into shards by module of top-level data nodes. Every module defining top-level data has its own
+ * {@link InMemoryDOMDataStore}, data of unknown modules are kept in default shard. Transactions touch only shards
+ * of modified subtrees and shards are locked only while transaction is committed, so commits of independent
+ * subtrees can run concurrently when broker executes commits on more threads. Transaction spanning more shards
+ * locks all of them in shard order and commits them together, see {@link ShardedCommitCohort}.
+ *
+ * <p>
+ * Reads of datastore root merge roots of all shards. Such read observes snapshot of each shard separately, so it may
+ * observe only part of concurrently committed transaction spanning more shards. Listeners registered on root are
+ * registered on every shard and each notification describes changes of one shard.
+ */
+public final class ShardedDOMStore implements DOMStore, DOMStoreTreeChangePublisher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShardedDOMStore.class);
+
+    private final String name;
+    private final ImmutableMap<QNameModule, Shard> shardsByModule;
+    private final ImmutableList<Shard> shards;
+    private final Shard defaultShard;
+    private final AtomicLong transactionCounter = new AtomicLong();
+
+    /**
+     * Creates shards for all modules of model context which define top-level data nodes.
+     *
+     * @param name name of the datastore, shards are named after it
+     * @param datastoreType type of the datastore
+     * @param modelContext model context of the datastore
+     * @param dataChangeListenerExecutor executor of listener notifications shared by all shards
+     */
+    public ShardedDOMStore(final String name, final LogicalDatastoreType datastoreType,
+            final EffectiveModelContext modelContext, final ExecutorService dataChangeListenerExecutor) {
+        this.name = name;
+        final List<Shard> allShards = new ArrayList<>();
+        this.defaultShard = new Shard(0, createStore(name + "-default", datastoreType, modelContext,
+            dataChangeListenerExecutor));
+        allShards.add(this.defaultShard);
+        final ImmutableMap.Builder<QNameModule, Shard> byModule = ImmutableMap.builder();
+        for (final Module module : modelContext.getModules()) {
+            if (!module.getChildNodes().isEmpty()) {
+                final Shard shard = new Shard(allShards.size(), createStore(name + "-" + module.getName(),
+                    datastoreType, modelContext, dataChangeListenerExecutor));
+                allShards.add(shard);
+                byModule.put(module.getQNameModule(), shard);
+            }
+        }
+        this.shardsByModule = byModule.build();
+        this.shards = ImmutableList.copyOf(allShards);
+        LOG.debug("Datastore {} split into {} shards", name, this.shards.size());
+    }
+
+    /**
+     * Provides number of shards, including the default one.
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public DOMStoreReadTransaction newReadOnlyTransaction() {
+        return new ShardedTransaction(nextIdentifier(), ShardedTransaction.Kind.READ_ONLY, this, Shard::store);
+    }
+
+    @Override
+    public DOMStoreWriteTransaction newWriteOnlyTransaction() {
+        return new ShardedTransaction(nextIdentifier(), ShardedTransaction.Kind.WRITE_ONLY, this, Shard::store);
+    }
+
+    @Override
+    public DOMStoreReadWriteTransaction newReadWriteTransaction() {
+        return new ShardedTransaction(nextIdentifier(), ShardedTransaction.Kind.READ_WRITE, this, Shard::store);
+    }
+
+    @Override
+    public DOMStoreTransactionChain createTransactionChain() {
+        return new ShardedTransactionChain(this);
+    }
+
+    @Override
+    public Registration registerTreeChangeListener(final YangInstanceIdentifier treeId,
+            final DOMDataTreeChangeListener listener) {
+        if (!treeId.isEmpty()) {
+            return shardOf(treeId.getPathArguments().get(0)).store().registerTreeChangeListener(treeId, listener);
+        }
+        final List<Registration> registrations = new ArrayList<>(shards.size());
+        for (final Shard shard : shards) {
+            registrations.add(shard.store().registerTreeChangeListener(treeId, listener));
+        }
+        return () -> registrations.forEach(Registration::close);
+    }
+
+    ImmutableList<Shard> shards() {
+        return shards;
+    }
+
+    /**
+     * Provides shard holding subtree of given top-level node.
+     */
+    Shard shardOf(final PathArgument topLevelArgument) {
+        return shardsByModule.getOrDefault(topLevelArgument.getNodeType().getModule(), defaultShard);
+    }
+
+    String nextIdentifier() {
+        return name + "-" + transactionCounter.incrementAndGet();
+    }
+
+    private static InMemoryDOMDataStore createStore(final String name, final LogicalDatastoreType datastoreType,
+            final EffectiveModelContext modelContext, final ExecutorService dataChangeListenerExecutor) {
+        final InMemoryDOMDataStore store = new InMemoryDOMDataStore(name, datastoreType, dataChangeListenerExecutor,
+            InMemoryDOMDataStoreConfigProperties.DEFAULT_MAX_DATA_CHANGE_LISTENER_QUEUE_SIZE, false);
+        store.onModelContextUpdated(modelContext);
+        return store;
+    }
+
+    /**
+     * Shard of the datastore. Commit queue makes sure only one transaction at a time is committed to the store.
+     */
+    record Shard(int index, InMemoryDOMDataStore store, CommitQueue commitQueue) {
+
+        Shard(final int index, final InMemoryDOMDataStore store) {
+            this(index, store, new CommitQueue());
+        }
+    }
+
+    /**
+     * Fair lock of a shard which does not block threads. Transactions get the lock in the order they asked
+     * for it, waiting transactions are completed when the lock is released.
+     */
+    static final class CommitQueue {
+
+        // guarded by this
+        private final Deque<SettableFuture<Empty>> waiting = new ArrayDeque<>();
+        // guarded by this
+        private boolean held;
+
+        /**
+         * Asks for the lock.
+         *
+         * @return future completed when the lock is acquired, cancelling it withdraws the request
+         */
+        synchronized ListenableFuture<Empty> acquire() {
+            if (!held) {
+                held = true;
+                return Futures.immediateFuture(Empty.value());
+            }
+            final SettableFuture<Empty> acquisition = SettableFuture.create();
+            waiting.add(acquisition);
+            return acquisition;
+        }
+
+        /**
+         * Releases the lock, or passes it to the first transaction still waiting for it.
+         */
+        void release() {
+            while (true) {
+                final SettableFuture<Empty> next;
+                synchronized (this) {
+                    next = waiting.poll();
+                    if (next == null) {
+                        held = false;
+                        return;
+                    }
+                }
+                if (next.set(Empty.value())) {
+                    return;
+                }
+                // request was cancelled meanwhile
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.netconf.device.datastore.ShardedDOMStore.Shard;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionFactory;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+/**
+ * Transaction of {@link ShardedDOMStore}. Operation on a subtree is delegated to transaction of the shard holding
+ * the subtree, operation on datastore root is split among all shards. Shard transactions are opened lazily, so
+ * transaction touching one subtree does not lock other shards when it is committed.
+ */
+final class ShardedTransaction implements DOMStoreReadWriteTransaction {
+
+    enum Kind {
+        READ_ONLY,
+        WRITE_ONLY,
+        READ_WRITE
+    }
+
+    private static final NodeIdentifier ROOT = new NodeIdentifier(SchemaContext.NAME);
+
+    private final Object identifier;
+    private final Kind kind;
+    private final ShardedDOMStore store;
+    private final Function<Shard, DOMStoreTransactionFactory> factories;
+    // guarded by this, ordered by shard index, so that commit locks shards in the same order
+    private final Map<Shard, DOMStoreTransaction> transactions = new TreeMap<>(Comparator.comparingInt(Shard::index));
+    // guarded by this
+    private final Set<Shard> written = new HashSet<>();
+    // guarded by this
+    private boolean finished;
+
+    ShardedTransaction(final Object identifier, final Kind kind, final ShardedDOMStore store,
+            final Function<Shard, DOMStoreTransactionFactory> factories) {
+        this.identifier = identifier;
+        this.kind = kind;
+        this.store = store;
+        this.factories = factories;
+    }
+
+    @Override
+    public Object getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public FluentFuture<Optional<NormalizedNode>> read(final YangInstanceIdentifier path) {
+        if (!path.isEmpty()) {
+            return readTransaction(store.shardOf(path.getPathArguments().get(0))).read(path);
+        }
+        final List<ListenableFuture<Optional<NormalizedNode>>> reads = new ArrayList<>();
+        for (final Shard shard : store.shards()) {
+            reads.add(readTransaction(shard).read(path));
+        }
+        return FluentFuture.from(Futures.allAsList(reads))
+            .transform(ShardedTransaction::mergeRoots, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public FluentFuture<Boolean> exists(final YangInstanceIdentifier path) {
+        if (!path.isEmpty()) {
+            return readTransaction(store.shardOf(path.getPathArguments().get(0))).exists(path);
+        }
+        return read(path).transform(Optional::isPresent, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void write(final YangInstanceIdentifier path, final NormalizedNode data) {
+        if (!path.isEmpty()) {
+            writeTransaction(store.shardOf(path.getPathArguments().get(0))).write(path, data);
+            return;
+        }
+        // every shard is replaced, shards without children of written root are cleared
+        final Map<Shard, List<DataContainerChild>> children = splitRoot(data);
+        for (final Shard shard : store.shards()) {
+            writeTransaction(shard).write(path, createRoot(children.getOrDefault(shard, List.of())));
+        }
+    }
+
+    @Override
+    public void merge(final YangInstanceIdentifier path, final NormalizedNode data) {
+        if (!path.isEmpty()) {
+            writeTransaction(store.shardOf(path.getPathArguments().get(0))).merge(path, data);
+            return;
+        }
+        for (final Map.Entry<Shard, List<DataContainerChild>> entry : splitRoot(data).entrySet()) {
+            writeTransaction(entry.getKey()).merge(path, createRoot(entry.getValue()));
+        }
+    }
+
+    @Override
+    public void delete(final YangInstanceIdentifier path) {
+        if (!path.isEmpty()) {
+            writeTransaction(store.shardOf(path.getPathArguments().get(0))).delete(path);
+            return;
+        }
+        for (final Shard shard : store.shards()) {
+            writeTransaction(shard).delete(path);
+        }
+    }
+
+    @Override
+    public synchronized DOMStoreThreePhaseCommitCohort ready() {
+        Preconditions.checkState(!finished, "Transaction %s is already finished", identifier);
+        finished = true;
+        final List<Shard> shards = new ArrayList<>();
+        final List<DOMStoreThreePhaseCommitCohort> cohorts = new ArrayList<>();
+        for (final Map.Entry<Shard, DOMStoreTransaction> entry : transactions.entrySet()) {
+            if (written.contains(entry.getKey())) {
+                shards.add(entry.getKey());
+                cohorts.add(((DOMStoreWriteTransaction) entry.getValue()).ready());
+            } else {
+                // shard was only read, it does not take part in the commit
+                entry.getValue().close();
+            }
+        }
+        return new ShardedCommitCohort(shards, cohorts);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!finished) {
+            finished = true;
+            transactions.values().forEach(DOMStoreTransaction::close);
+        }
+    }
+
+    private synchronized DOMStoreReadTransaction readTransaction(final Shard shard) {
+        Preconditions.checkState(kind != Kind.WRITE_ONLY, "Transaction %s is write-only", identifier);
+        return (DOMStoreReadTransaction) transaction(shard);
+    }
+
+    private synchronized DOMStoreWriteTransaction writeTransaction(final Shard shard) {
+        Preconditions.checkState(kind != Kind.READ_ONLY, "Transaction %s is read-only", identifier);
+        final DOMStoreTransaction transaction = transaction(shard);
+        written.add(shard);
+        return (DOMStoreWriteTransaction) transaction;
+    }
+
+    // caller holds lock of this
+    private DOMStoreTransaction transaction(final Shard shard) {
+        Preconditions.checkState(!finished, "Transaction %s is already finished", identifier);
+        return transactions.computeIfAbsent(shard, key -> {
+            final DOMStoreTransactionFactory factory = factories.apply(key);
+            return switch (kind) {
+                case READ_ONLY -> factory.newReadOnlyTransaction();
+                case WRITE_ONLY -> factory.newWriteOnlyTransaction();
+                case READ_WRITE -> factory.newReadWriteTransaction();
+            };
+        });
+    }
+
+    private Map<Shard, List<DataContainerChild>> splitRoot(final NormalizedNode data) {
+        Preconditions.checkArgument(data instanceof ContainerNode, "Datastore root has to be container, not %s",
+            data);
+        final Map<Shard, List<DataContainerChild>> children = new HashMap<>();
+        for (final DataContainerChild child : ((ContainerNode) data).body()) {
+            children.computeIfAbsent(store.shardOf(child.name()), key -> new ArrayList<>()).add(child);
+        }
+        return children;
+    }
+
+    private static ContainerNode createRoot(final List<DataContainerChild> children) {
+        final var builder = ImmutableNodes.newContainerBuilder().withNodeIdentifier(ROOT);
+        children.forEach(builder::withChild);
+        return builder.build();
+    }
+
+    private static Optional<NormalizedNode> mergeRoots(final List<Optional<NormalizedNode>> roots) {
+        final List<DataContainerChild> children = new ArrayList<>();
+        boolean present = false;
+        for (final Optional<NormalizedNode> root : roots) {
+            if (root.orElse(null) instanceof ContainerNode container) {
+                present = true;
+                children.addAll(container.body());
+            }
+        }
+        return present ? Optional.of(createRoot(children)) : Optional.empty();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.base.Preconditions;
+import io.lighty.netconf.device.datastore.ShardedDOMStore.Shard;
+import java.util.HashMap;
+import java.util.Map;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadWriteTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionChain;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTransactionFactory;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+
+/**
+ * Transaction chain of {@link ShardedDOMStore}. Transactions of the chain open shard transactions from chains
+ * of the shards, which are created lazily, so each shard keeps ordering of the chain on its own.
+ */
+final class ShardedTransactionChain implements DOMStoreTransactionChain {
+
+    private final ShardedDOMStore store;
+    // guarded by this
+    private final Map<Shard, DOMStoreTransactionChain> chains = new HashMap<>();
+    // guarded by this
+    private boolean closed;
+
+    ShardedTransactionChain(final ShardedDOMStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public DOMStoreReadTransaction newReadOnlyTransaction() {
+        return new ShardedTransaction(store.nextIdentifier(), ShardedTransaction.Kind.READ_ONLY, store,
+            this::chainOf);
+    }
+
+    @Override
+    public DOMStoreWriteTransaction newWriteOnlyTransaction() {
+        return new ShardedTransaction(store.nextIdentifier(), ShardedTransaction.Kind.WRITE_ONLY, store,
+            this::chainOf);
+    }
+
+    @Override
+    public DOMStoreReadWriteTransaction newReadWriteTransaction() {
+        return new ShardedTransaction(store.nextIdentifier(), ShardedTransaction.Kind.READ_WRITE, store,
+            this::chainOf);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            chains.values().forEach(DOMStoreTransactionChain::close);
+        }
+    }
+
+    private synchronized DOMStoreTransactionFactory chainOf(final Shard shard) {
+        Preconditions.checkState(!closed, "Transaction chain is closed");
+        return chains.computeIfAbsent(shard, key -> key.store().createTransactionChain());
+    }
+}
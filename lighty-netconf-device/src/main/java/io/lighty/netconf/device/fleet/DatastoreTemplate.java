@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Initial datastore XML containing {@code ${name}} placeholders. Template is split into literal
+ * and placeholder segments once, rendering for a device only concatenates the segments.
+ */
+public final class DatastoreTemplate {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{([A-Za-z0-9_.-]+)}");
+
+    private final String content;
+    private final List<String> literals;
+    private final List<String> placeholders;
+    private final int literalsLength;
+
+    private DatastoreTemplate(final String content) {
+        this.content = content;
+        final List<String> literalSegments = new ArrayList<>();
+        final List<String> placeholderSegments = new ArrayList<>();
+        final Matcher matcher = PLACEHOLDER.matcher(content);
+        int position = 0;
+        while (matcher.find()) {
+            literalSegments.add(content.substring(position, matcher.start()));
+            placeholderSegments.add(matcher.group(1));
+            position = matcher.end();
+        }
+        literalSegments.add(content.substring(position));
+        this.literals = List.copyOf(literalSegments);
+        this.placeholders = List.copyOf(placeholderSegments);
+        this.literalsLength = literalSegments.stream().mapToInt(String::length).sum();
+    }
+
+    public static DatastoreTemplate of(final String content) {
+        return new DatastoreTemplate(content);
+    }
+
+    public static DatastoreTemplate load(final File templateFile) throws IOException {
+        return new DatastoreTemplate(Files.readString(templateFile.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Names of all placeholders used in this template.
+     * @return placeholder names in order of their first occurrence
+     */
+    public Set<String> getPlaceholders() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(placeholders));
+    }
+
+    /**
+     * Replaces placeholders with provided values. Values are escaped so they can be used
+     * both as element text and as attribute value.
+     * @param values placeholder values keyed by placeholder name
+     * @return rendered XML document
+     * @throws IllegalArgumentException if value for some placeholder is missing
+     */
+    public String render(final Map<String, String> values) {
+        final StringBuilder result = new StringBuilder(literalsLength + placeholders.size() * 16);
+        for (int i = 0; i < placeholders.size(); i++) {
+            result.append(literals.get(i));
+            final String value = values.get(placeholders.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException(
+                    String.format("No value provided for template placeholder ${%s}", placeholders.get(i)));
+            }
+            appendEscaped(result, value);
+        }
+        return result.append(literals.get(placeholders.size())).toString();
+    }
+
+    /**
+     * Source of this template with placeholders not replaced.
+     */
+    String content() {
+        return content;
+    }
+
+    private static void appendEscaped(final StringBuilder builder, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char character = value.charAt(i);
+            switch (character) {
+                case '&' -> builder.append("&amp;");
+                case '<' -> builder.append("&lt;");
+                case '>' -> builder.append("&gt;");
+                case '"' -> builder.append("&quot;");
+                case '\'' -> builder.append("&apos;");
+                default -> builder.append(character);
+            }
+        }
+    }
+}
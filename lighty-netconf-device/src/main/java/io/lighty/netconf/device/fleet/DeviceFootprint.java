@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import io.lighty.netconf.device.utils.NormalizedNodeDelta;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodeContainer;
+
+/**
+ * Heap usage of a single device datastores compared to seed trees shared by the fleet.
+ * Own bytes are an estimate based on number of copied nodes and size of their values.
+ * @param identity identity of the device
+ * @param sharedNodes number of data nodes shared with seed trees
+ * @param ownNodes number of data nodes allocated by this device
+ * @param estimatedOwnBytes estimated heap retained only by this device
+ */
+public record DeviceFootprint(DeviceIdentity identity, long sharedNodes, long ownNodes, long estimatedOwnBytes) {
+
+    private static final int NODE_BYTES = 48;
+    private static final int VALUE_BYTES = 16;
+
+    static DeviceFootprint of(final DeviceIdentity identity, final NormalizedNode seed, final NormalizedNode data) {
+        final Counter counter = new Counter();
+        counter.visit(seed, data);
+        return new DeviceFootprint(identity, counter.sharedNodes, counter.ownNodes, counter.ownBytes);
+    }
+
+    DeviceFootprint add(final DeviceFootprint other) {
+        return new DeviceFootprint(identity, sharedNodes + other.sharedNodes, ownNodes + other.ownNodes,
+            estimatedOwnBytes + other.estimatedOwnBytes);
+    }
+
+    private static final class Counter {
+        private long sharedNodes;
+        private long ownNodes;
+        private long ownBytes;
+
+        void visit(final NormalizedNode seed, final NormalizedNode data) {
+            if (data == null) {
+                return;
+            }
+            if (seed == data) {
+                sharedNodes += countNodes(data);
+                return;
+            }
+            ownNodes++;
+            ownBytes += NODE_BYTES;
+            if (data instanceof NormalizedNodeContainer<?> container) {
+                for (final NormalizedNode child : container.body()) {
+                    visit(seed == null ? null : NormalizedNodeDelta.childByArg(seed, child.name()), child);
+                }
+            } else if (data instanceof LeafNode<?> || data instanceof LeafSetEntryNode<?>) {
+                ownBytes += estimateValueBytes(data.body());
+            }
+        }
+
+        private static long countNodes(final NormalizedNode node) {
+            long count = 1;
+            if (node instanceof NormalizedNodeContainer<?> container) {
+                for (final NormalizedNode child : container.body()) {
+                    count += countNodes(child);
+                }
+            }
+            return count;
+        }
+
+        private static long estimateValueBytes(final Object value) {
+            return value instanceof String string ? VALUE_BYTES + 2L * string.length() : VALUE_BYTES;
+        }
+    }
+}
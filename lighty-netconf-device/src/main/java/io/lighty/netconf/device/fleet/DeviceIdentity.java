@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identity of a single device in {@link NetconfDeviceFleet}.
+ * @param index zero based position of the device in the fleet
+ * @param port TCP port the device is listening on
+ * @param hostname hostname of the device
+ * @param serialNumber serial number of the device
+ */
+public record DeviceIdentity(int index, int port, String hostname, String serialNumber) {
+
+    public static final String INDEX = "index";
+    public static final String PORT = "port";
+    public static final String HOSTNAME = "hostname";
+    public static final String SERIAL_NUMBER = "serial-number";
+
+    /**
+     * Values of built-in template placeholders for this device.
+     * @return mutable map of placeholder values
+     */
+    public Map<String, String> toTemplateValues() {
+        final Map<String, String> values = new HashMap<>();
+        values.put(INDEX, String.valueOf(index));
+        values.put(PORT, String.valueOf(port));
+        values.put(HOSTNAME, hostname);
+        values.put(SERIAL_NUMBER, serialNumber);
+        return values;
+    }
+}
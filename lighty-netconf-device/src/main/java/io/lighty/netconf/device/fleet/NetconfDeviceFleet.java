@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Preconditions;
+import io.lighty.netconf.device.NetconfDevice;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Group of independent NETCONF devices running in a single JVM. Every device listens on its own port
+ * and has its own datastores, initial datastores are rendered per device from shared templates.
+ * All devices of the fleet are expected to be created from the same models.
+ */
+public final class NetconfDeviceFleet implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NetconfDeviceFleet.class);
+
+    private final List<DeviceIdentity> identities;
+    private final Function<DeviceIdentity, NetconfDeviceBuilder> deviceBuilderFactory;
+    private final DatastoreTemplate configTemplate;
+    private final DatastoreTemplate operationalTemplate;
+    private final Map<String, Function<DeviceIdentity, String>> templateProperties;
+    private final Map<Integer, NetconfDevice> devices = new LinkedHashMap<>();
+    private final Map<LogicalDatastoreType, SeededTemplate> seededTemplates =
+        new EnumMap<>(LogicalDatastoreType.class);
+    private AdapterContext sharedAdapterContext;
+
+    private NetconfDeviceFleet(final Builder builder) {
+        this.deviceBuilderFactory = builder.deviceBuilderFactory;
+        this.configTemplate = builder.configTemplate;
+        this.operationalTemplate = builder.operationalTemplate;
+        this.templateProperties = Map.copyOf(builder.templateProperties);
+        final List<DeviceIdentity> deviceIdentities = new ArrayList<>(builder.ports.size());
+        int index = 0;
+        for (final Integer port : builder.ports) {
+            deviceIdentities.add(new DeviceIdentity(index, port,
+                String.format(builder.hostnamePattern, index),
+                String.format(builder.serialNumberPattern, index)));
+            index++;
+        }
+        this.identities = List.copyOf(deviceIdentities);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds and starts all devices of the fleet. Models of the first device are shared with all other devices.
+     * Initial datastore templates are parsed once into seed trees shared by all devices, including the first
+     * one, and every device parses and stores only its own placeholder values, see {@link SeededTemplate}.
+     * When any device fails to start, devices which were already started are closed and the failure is rethrown.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public synchronized void start() {
+        Preconditions.checkState(devices.isEmpty(), "Fleet is already started");
+        LOG.info("Starting fleet of {} Netconf devices", identities.size());
+        try {
+            identities.forEach(this::startDevice);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to start fleet, closing {} started devices", devices.size(), e);
+            try {
+                close();
+            } catch (Exception closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        LOG.info("Fleet of {} Netconf devices started", devices.size());
+    }
+
+    private void startDevice(final DeviceIdentity identity) {
+        final NetconfDeviceBuilder deviceBuilder = deviceBuilderFactory.apply(identity)
+            .setBindingPort(identity.port())
+            .setDeviceCount(1);
+        if (devices.isEmpty()) {
+            prepareSharedState(deviceBuilder);
+        } else {
+            deviceBuilder.withSharedAdapterContext(sharedAdapterContext);
+        }
+        final Map<String, String> values = templateValues(identity);
+        final SeededTemplate config = seededTemplates.get(LogicalDatastoreType.CONFIGURATION);
+        if (config != null) {
+            deviceBuilder.setConfigDatastoreSeed(config.seed())
+                .setConfigDatastoreData(config.render(values));
+        }
+        final SeededTemplate operational = seededTemplates.get(LogicalDatastoreType.OPERATIONAL);
+        if (operational != null) {
+            deviceBuilder.setOperationalDatastoreSeed(operational.seed())
+                .setOperationalDatastoreData(operational.render(values));
+        }
+        final NetconfDevice device = deviceBuilder.build();
+        // device is registered before it is started, so it is closed even if it fails to start
+        devices.put(identity.port(), device);
+        device.start();
+        LOG.debug("Started device {} on port {}", identity.hostname(), identity.port());
+    }
+
+    /**
+     * Compares datastores of every device with seed trees shared by the fleet. Report reflects
+     * current state, so it shows how much memory was added by writes to particular devices.
+     * @return footprint of every started device
+     */
+    public synchronized List<DeviceFootprint> getFootprintReport() {
+        final List<DeviceFootprint> report = new ArrayList<>(devices.size());
+        for (final DeviceIdentity identity : identities) {
+            final NetconfDevice device = devices.get(identity.port());
+            if (device != null) {
+                DeviceFootprint footprint = new DeviceFootprint(identity, 0, 0, 0);
+                for (final LogicalDatastoreType datastoreType : LogicalDatastoreType.values()) {
+                    final SeededTemplate template = seededTemplates.get(datastoreType);
+                    footprint = footprint.add(DeviceFootprint.of(identity, template == null ? null : template.seed(),
+                        readDatastore(device.getNetconfDeviceServices(), datastoreType)));
+                }
+                report.add(footprint);
+            }
+        }
+        return report;
+    }
+
+    public List<DeviceIdentity> getIdentities() {
+        return identities;
+    }
+
+    /**
+     * Started devices keyed by port they are listening on.
+     * @return unmodifiable view of started devices
+     */
+    public synchronized Map<Integer, NetconfDevice> getDevices() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(devices));
+    }
+
+    public synchronized Optional<NetconfDevice> getDevice(final int port) {
+        return Optional.ofNullable(devices.get(port));
+    }
+
+    @Override
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public synchronized void close() throws Exception {
+        LOG.info("Shutting down fleet of {} Netconf devices", devices.size());
+        Exception failure = null;
+        for (final NetconfDevice device : devices.values()) {
+            try {
+                device.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        devices.clear();
+        seededTemplates.clear();
+        sharedAdapterContext = null;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Creates models shared by all devices from the builder of the first device and splits datastore templates.
+     */
+    private void prepareSharedState(final NetconfDeviceBuilder firstDeviceBuilder) {
+        sharedAdapterContext = firstDeviceBuilder.createSharedAdapterContext();
+        final EffectiveModelContext modelContext = sharedAdapterContext.currentSerializer().getRuntimeContext()
+            .modelContext();
+        if (configTemplate != null) {
+            seededTemplates.put(LogicalDatastoreType.CONFIGURATION, SeededTemplate.of(configTemplate, modelContext));
+        }
+        if (operationalTemplate != null) {
+            seededTemplates.put(LogicalDatastoreType.OPERATIONAL, SeededTemplate.of(operationalTemplate, modelContext));
+        }
+    }
+
+    private static NormalizedNode readDatastore(final NetconfDeviceServices services,
+            final LogicalDatastoreType datastoreType) {
+        try (DOMDataTreeReadTransaction tx = services.getDOMDataBroker().newReadOnlyTransaction()) {
+            return tx.read(datastoreType, YangInstanceIdentifier.of())
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElse(null);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(String.format("Unable to read %s datastore", datastoreType), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while reading %s datastore", datastoreType),
+                e);
+        }
+    }
+
+    private Map<String, String> templateValues(final DeviceIdentity identity) {
+        final Map<String, String> values = identity.toTemplateValues();
+        templateProperties.forEach((name, property) -> values.put(name, property.apply(identity)));
+        return values;
+    }
+
+    public static final class Builder {
+
+        private final Set<Integer> ports = new LinkedHashSet<>();
+        private final Map<String, Function<DeviceIdentity, String>> templateProperties = new LinkedHashMap<>();
+        private Function<DeviceIdentity, NetconfDeviceBuilder> deviceBuilderFactory;
+        private DatastoreTemplate configTemplate;
+        private DatastoreTemplate operationalTemplate;
+        private String hostnamePattern = "netconf-device-%d";
+        private String serialNumberPattern = "SN%08d";
+
+        private Builder() {
+        }
+
+        /**
+         * Adds range of consecutive ports, one device is created for every port.
+         * @param startingPort port of the first device
+         * @param deviceCount number of devices
+         * @return this Builder
+         */
+        public Builder setPortRange(final int startingPort, final int deviceCount) {
+            Preconditions.checkArgument(deviceCount > 0, "Device count must be positive");
+            Preconditions.checkArgument(startingPort > 0 && startingPort + deviceCount - 1 <= 65535,
+                "Port range %s-%s is out of bounds", startingPort, startingPort + deviceCount - 1);
+            for (int port = startingPort; port < startingPort + deviceCount; port++) {
+                addPort(port);
+            }
+            return this;
+        }
+
+        /**
+         * Adds explicit list of ports, one device is created for every port.
+         * @param devicePorts ports of devices
+         * @return this Builder
+         */
+        public Builder setPorts(final Collection<Integer> devicePorts) {
+            devicePorts.forEach(this::addPort);
+            return this;
+        }
+
+        /**
+         * Sets factory creating pre-configured builder for every device. Factory is called once per device
+         * so each device can get its own request processors and services. Binding port, device count
+         * and initial datastores are set by the fleet.
+         * @param factory device builder factory
+         * @return this Builder
+         */
+        public Builder setDeviceBuilderFactory(final Function<DeviceIdentity, NetconfDeviceBuilder> factory) {
+            this.deviceBuilderFactory = requireNonNull(factory);
+            return this;
+        }
+
+        public Builder setConfigDatastoreTemplate(final DatastoreTemplate template) {
+            this.configTemplate = template;
+            return this;
+        }
+
+        public Builder setOperationalDatastoreTemplate(final DatastoreTemplate template) {
+            this.operationalTemplate = template;
+            return this;
+        }
+
+        /**
+         * Sets {@link String#format(String, Object...)} pattern of device hostname, formatted with device index.
+         * @param pattern hostname pattern
+         * @return this Builder
+         */
+        public Builder setHostnamePattern(final String pattern) {
+            this.hostnamePattern = requireNonNull(pattern);
+            return this;
+        }
+
+        /**
+         * Sets {@link String#format(String, Object...)} pattern of device serial number, formatted with
+         * device index.
+         * @param pattern serial number pattern
+         * @return this Builder
+         */
+        public Builder setSerialNumberPattern(final String pattern) {
+            this.serialNumberPattern = requireNonNull(pattern);
+            return this;
+        }
+
+        /**
+         * Adds custom template placeholder computed from device identity.
+         * @param name placeholder name
+         * @param property function computing placeholder value
+         * @return this Builder
+         */
+        public Builder withTemplateProperty(final String name, final Function<DeviceIdentity, String> property) {
+            this.templateProperties.put(requireNonNull(name), requireNonNull(property));
+            return this;
+        }
+
+        public NetconfDeviceFleet build() {
+            Preconditions.checkState(deviceBuilderFactory != null, "Device builder factory is not set");
+            Preconditions.checkState(!ports.isEmpty(), "No device ports are set");
+            return new NetconfDeviceFleet(this);
+        }
+
+        private void addPort(final int port) {
+            Preconditions.checkArgument(ports.add(port), "Port %s is used by more than one device", port);
+        }
+    }
+}
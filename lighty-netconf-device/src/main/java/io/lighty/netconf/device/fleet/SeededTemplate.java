@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.utils.NormalizedNodeMerge;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack.Inference;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Datastore template split into data shared by all devices of a fleet and a small template of per-device values.
+ * Template is split by the model: list entry with placeholder in its key, or any other node with placeholder
+ * in its value, is moved to the device template together with its ancestors and keys of ancestor list entries.
+ * Keyless lists containing a placeholder are moved as a whole, since their entries can not be merged.
+ * Remaining document is parsed once into seed tree, so data of a device are created by parsing only its own
+ * values and merging them into the seed.
+ */
+final class SeededTemplate {
+
+    private static final String PLACEHOLDER_START = "${";
+
+    private final NormalizedNode seed;
+    private final @Nullable DatastoreTemplate deviceTemplate;
+    private final XmlNodeConverter converter;
+    private final Inference rootInference;
+
+    private SeededTemplate(final NormalizedNode seed, final @Nullable DatastoreTemplate deviceTemplate,
+            final XmlNodeConverter converter, final Inference rootInference) {
+        this.seed = seed;
+        this.deviceTemplate = deviceTemplate;
+        this.converter = converter;
+        this.rootInference = rootInference;
+    }
+
+    /**
+     * Splits template and parses its shared part.
+     * @param template datastore template
+     * @param modelContext models of the devices
+     * @return split template
+     * @throws IllegalStateException when template can not be parsed
+     */
+    static SeededTemplate of(final DatastoreTemplate template, final EffectiveModelContext modelContext) {
+        final XmlNodeConverter converter = new XmlNodeConverter(modelContext);
+        final Inference rootInference = SchemaInferenceStack.of(modelContext).toInference();
+        if (template.getPlaceholders().isEmpty()) {
+            return new SeededTemplate(parse(converter, rootInference, template.content()), null, converter,
+                rootInference);
+        }
+        final Map<String, Module> modules = new HashMap<>();
+        for (final Module module : modelContext.getModules()) {
+            modules.putIfAbsent(module.getNamespace().toString(), module);
+        }
+
+        // both parts are cut from their own copy of the document, marks are deterministic
+        final Document shared = parseDocument(template.content());
+        final Marks sharedMarks = new Marks(modules);
+        sharedMarks.collect(shared.getDocumentElement(), null);
+        sharedMarks.units.forEach(unit -> unit.getParentNode().removeChild(unit));
+
+        final Document device = parseDocument(template.content());
+        final Marks deviceMarks = new Marks(modules);
+        deviceMarks.collect(device.getDocumentElement(), null);
+        deviceMarks.prune(device.getDocumentElement());
+
+        return new SeededTemplate(parse(converter, rootInference, toXml(shared)),
+            DatastoreTemplate.of(toXml(device)), converter, rootInference);
+    }
+
+    /**
+     * Data tree shared by all devices.
+     */
+    NormalizedNode seed() {
+        return seed;
+    }
+
+    /**
+     * Renders data of a device. Returned tree shares all nodes with the seed, except of per-device values
+     * and their ancestors.
+     * @param values placeholder values of the device
+     * @return data of the device, the seed itself when template has no placeholders
+     */
+    NormalizedNode render(final Map<String, String> values) {
+        if (deviceTemplate == null) {
+            return seed;
+        }
+        return NormalizedNodeMerge.merge(seed, parse(converter, rootInference, deviceTemplate.render(values)));
+    }
+
+    private static NormalizedNode parse(final XmlNodeConverter converter, final Inference rootInference,
+            final String content) {
+        try {
+            return converter.deserialize(rootInference, new StringReader(content));
+        } catch (DeserializationException e) {
+            throw new IllegalStateException("Unable to parse initial datastore template", e);
+        }
+    }
+
+    private static Document parseDocument(final String content) {
+        try {
+            final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(content)));
+        } catch (ParserConfigurationException | SAXException | IOException e) {
+            throw new IllegalStateException("Unable to parse initial datastore template", e);
+        }
+    }
+
+    private static String toXml(final Document document) {
+        try {
+            final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            final StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(document), new StreamResult(writer));
+            return writer.toString();
+        } catch (TransformerException e) {
+            throw new IllegalStateException("Unable to split initial datastore template", e);
+        }
+    }
+
+    private static List<Element> childElements(final Element parent) {
+        final List<Element> children = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    private static boolean containsPlaceholder(final Element element) {
+        if (attributesContainPlaceholder(element)) {
+            return true;
+        }
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            final boolean found = node instanceof Element child ? containsPlaceholder(child)
+                : (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE)
+                    && node.getNodeValue().contains(PLACEHOLDER_START);
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean attributesContainPlaceholder(final Element element) {
+        final NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            if (attributes.item(i).getNodeValue().contains(PLACEHOLDER_START)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sameNode(final Element first, final Element second) {
+        return first.getLocalName().equals(second.getLocalName())
+            && String.valueOf(first.getNamespaceURI()).equals(String.valueOf(second.getNamespaceURI()));
+    }
+
+    /**
+     * Elements of a template document moved to the device template.
+     */
+    private static final class Marks {
+
+        private final Map<String, Module> modules;
+        // elements containing placeholders, moved to the device template as a whole
+        private final Set<Element> units = new HashSet<>();
+        // key leaves of visited list entries, kept in the device template to identify the entries
+        private final Set<Element> keys = new HashSet<>();
+        private final Set<Element> ancestors = new HashSet<>();
+
+        Marks(final Map<String, Module> modules) {
+            this.modules = modules;
+        }
+
+        /**
+         * Marks units within children of an element.
+         * @param parent parent element
+         * @param parentSchema schema of the parent, null for the root of the document
+         */
+        void collect(final Element parent, final @Nullable DataNodeContainer parentSchema) {
+            for (final Element child : childElements(parent)) {
+                if (!containsPlaceholder(child)) {
+                    continue;
+                }
+                final DataSchemaNode schema = findSchema(parentSchema, child);
+                if (schema instanceof ListSchemaNode list && list.getKeyDefinition().isEmpty()) {
+                    childElements(parent).stream().filter(sibling -> sameNode(sibling, child)).forEach(this::mark);
+                } else if (schema instanceof ListSchemaNode list && !keyContainsPlaceholder(child, list)
+                        && !attributesContainPlaceholder(child)) {
+                    for (final Element entryChild : childElements(child)) {
+                        if (list.getKeyDefinition().contains(qnameOf(entryChild))) {
+                            keys.add(entryChild);
+                        }
+                    }
+                    collect(child, list);
+                } else if (schema instanceof DataNodeContainer container && !(schema instanceof ListSchemaNode)
+                        && !attributesContainPlaceholder(child)) {
+                    collect(child, container);
+                } else {
+                    mark(child);
+                }
+            }
+        }
+
+        /**
+         * Removes all elements except of marked units, their ancestors and keys of ancestor list entries.
+         */
+        void prune(final Element parent) {
+            for (final Element child : childElements(parent)) {
+                if (ancestors.contains(child)) {
+                    prune(child);
+                } else if (!units.contains(child) && !keys.contains(child)) {
+                    parent.removeChild(child);
+                }
+            }
+        }
+
+        private void mark(final Element unit) {
+            if (units.add(unit)) {
+                for (Node node = unit.getParentNode(); node instanceof Element ancestor; node = node.getParentNode()) {
+                    ancestors.add(ancestor);
+                }
+            }
+        }
+
+        private boolean keyContainsPlaceholder(final Element entry, final ListSchemaNode list) {
+            return childElements(entry).stream()
+                .anyMatch(child -> list.getKeyDefinition().contains(qnameOf(child)) && containsPlaceholder(child));
+        }
+
+        private @Nullable DataSchemaNode findSchema(final @Nullable DataNodeContainer parentSchema,
+                final Element element) {
+            final QName qname = qnameOf(element);
+            if (qname == null) {
+                return null;
+            }
+            final DataNodeContainer container = parentSchema == null ? modules.get(element.getNamespaceURI())
+                : parentSchema;
+            final Optional<DataSchemaNode> schema = container.findDataTreeChild(qname);
+            return schema.orElse(null);
+        }
+
+        private @Nullable QName qnameOf(final Element element) {
+            final Module module = modules.get(element.getNamespaceURI());
+            return module == null ? null : QName.create(module.getQNameModule(), element.getLocalName());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Base class of request processors which build the reply from the whole {@link Response} of request execution.
+ * Processors which need per-request context, such as the invoked action, carry it in their own {@link Response}
+ * implementation instead of keeping it in fields shared by concurrent requests. {@link BaseRequestProcessor}
+ * builds the reply from the response data only.
+ */
+public abstract class AbstractRequestProcessor implements RequestProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractRequestProcessor.class);
+
+    private final DocumentBuilderFactory factory;
+    private NetconfDeviceServices netconfDeviceServices;
+
+    protected AbstractRequestProcessor() {
+        this.factory = DocumentBuilderFactory.newInstance();
+        this.factory.setNamespaceAware(true);
+    }
+
+    @Override
+    public void init(NetconfDeviceServices paramNetconfDeviceServices) {
+        this.netconfDeviceServices = paramNetconfDeviceServices;
+    }
+
+    /**
+     * Should process the input {@link Element} and return response of the request.
+     *
+     * <p>The child classes should override this method to achieve the expected behavior.
+     *
+     * @param requestXmlElement XML RPC request element
+     * @return future of the response to be returned by request
+     */
+    protected abstract CompletableFuture<Response> execute(Element requestXmlElement);
+
+    protected NetconfDeviceServices getNetconfDeviceServices() {
+        return netconfDeviceServices;
+    }
+
+    protected DocumentBuilderFactory getDocumentBuilderFactory() {
+        return factory;
+    }
+
+    @Override
+    public Document processRequest(Element requestXmlElement) {
+        try {
+            CompletableFuture<Response> responseOutput = execute(requestXmlElement);
+            return processResponse(responseOutput);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Interrupted while processing XML request: {}", requestXmlElement, e);
+            throw new IllegalStateException(e);
+        } catch (ExecutionException | ParserConfigurationException | TimeoutException e) {
+            LOG.error("Could not process XML request: {}", requestXmlElement, e);
+            try {
+                final DocumentedException error = NetconfDocumentedException.wrap(e);
+                return error.toXMLDocument();
+            } catch (DocumentedException ex) {
+                LOG.error("Could not wrap exception", ex);
+                return ex.toXMLDocument();
+            }
+        }
+    }
+
+    private Document processResponse(final CompletableFuture<Response> responseOutput)
+            throws ExecutionException, InterruptedException, ParserConfigurationException, TimeoutException {
+        final Response listResponse = responseOutput.get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        final Document error = listResponse.getErrorDocument();
+        if (error != null) {
+            return error;
+        } else {
+            return wrapToFinalDocumentReply(listResponse);
+        }
+    }
+
+
+    /**
+     * Wraps successful response to final reply document.
+     *
+     * @param response successful response of request execution
+     * @return final reply document
+     */
+    protected abstract Document wrapToFinalDocumentReply(Response response) throws ParserConfigurationException;
+}
@@ -8,25 +8,16 @@
 package io.lighty.netconf.device.requests;
 
 import io.lighty.codecs.util.exception.SerializationException;
-import io.lighty.netconf.device.NetconfDeviceServices;
 import io.lighty.netconf.device.response.Response;
-import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import org.opendaylight.netconf.api.DocumentedException;
-import org.opendaylight.netconf.api.NetconfDocumentedException;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
 import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
@@ -44,72 +35,19 @@ import org.xml.sax.SAXException;
  * This implementation cannot handle the input parameters and therefore is
  * suitable only for RPCs without any parameter served.
  */
-public abstract class BaseRequestProcessor implements RequestProcessor {
+public abstract class BaseRequestProcessor extends AbstractRequestProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(BaseRequestProcessor.class);
 
-    private final DocumentBuilderFactory factory;
-    private NetconfDeviceServices netconfDeviceServices;
-
-    public BaseRequestProcessor() {
-        this.factory = DocumentBuilderFactory.newInstance();
-        this.factory.setNamespaceAware(true);
-    }
-
-    @Override
-    public void init(NetconfDeviceServices paramNetconfDeviceServices) {
-        this.netconfDeviceServices = paramNetconfDeviceServices;
-    }
-
     /**
-     * Should process the input {@link Element} and return data in form of {@link NormalizedNode}. {@link List} enables
-     * method to return more than one top elements.
-     *
-     * <p>The child classes should override this method to achieve the expected behavior.
+     * Wraps data of successful response to final reply document.
      *
-     * @param requestXmlElement XML RPC request element
-     * @return {@link List} containing {@link NormalizedNode}s to be returned by request.
+     * @param response successful response of request execution
+     * @return final reply document
      */
-    protected abstract CompletableFuture<Response> execute(Element requestXmlElement);
-
-    protected NetconfDeviceServices getNetconfDeviceServices() {
-        return netconfDeviceServices;
-    }
-
-    protected DocumentBuilderFactory getDocumentBuilderFactory() {
-        return factory;
-    }
-
     @Override
-    public Document processRequest(Element requestXmlElement) {
-        try {
-            CompletableFuture<Response> responseOutput = execute(requestXmlElement);
-            return processResponse(responseOutput);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            LOG.error("Interrupted while processing XML request: {}", requestXmlElement, e);
-            throw new IllegalStateException(e);
-        } catch (ExecutionException | ParserConfigurationException | TimeoutException e) {
-            LOG.error("Could not process XML request: {}", requestXmlElement, e);
-            try {
-                final DocumentedException error = NetconfDocumentedException.wrap(e);
-                return error.toXMLDocument();
-            } catch (DocumentedException ex) {
-                LOG.error("Could not wrap exception", ex);
-                return ex.toXMLDocument();
-            }
-        }
-    }
-
-    private Document processResponse(final CompletableFuture<Response> responseOutput)
-            throws ExecutionException, InterruptedException, ParserConfigurationException, TimeoutException {
-        final Response listResponse = responseOutput.get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
-        final Document error = listResponse.getErrorDocument();
-        if (error != null) {
-            return error;
-        } else {
-            return wrapToFinalDocumentReply(listResponse.getData());
-        }
+    protected Document wrapToFinalDocumentReply(final Response response) throws ParserConfigurationException {
+        return wrapToFinalDocumentReply(response.getData());
     }
 
     protected abstract Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.response.Response;
+import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import org.opendaylight.mdsal.binding.dom.adapter.CurrentAdapterSerializer;
+import org.opendaylight.yangtools.binding.Rpc;
+import org.opendaylight.yangtools.binding.RpcInput;
+import org.opendaylight.yangtools.binding.RpcOutput;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XMLStreamNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XmlParserStream;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.impl.schema.NormalizationResultHolder;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
+import org.opendaylight.yangtools.yang.model.spi.meta.EffectiveStatementInference;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Request processor of RPC implemented by binding {@link Rpc}. Input and output schema paths, their inferences
+ * and binding serializer are resolved once in {@link #init(NetconfDeviceServices)}. Request element is parsed
+ * directly into normalized input and normalized output is written directly into reply document, without
+ * intermediate XML strings.
+ *
+ * @param <I> type of RPC input
+ * @param <O> type of RPC output
+ */
+public abstract class BindingRpcRequestProcessor<I extends RpcInput, O extends RpcOutput>
+        extends RpcOutputRequestProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BindingRpcRequestProcessor.class);
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    static {
+        XML_OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    private CurrentAdapterSerializer adapterSerializer;
+    private Absolute inputPath;
+    private EffectiveStatementInference inputInference;
+    private EffectiveStatementInference outputInference;
+
+    /**
+     * Creates processor delegating to binding RPC implementation.
+     *
+     * @param identifier QName of the RPC
+     * @param rpc binding implementation of the RPC
+     * @param <I> type of RPC input
+     * @param <O> type of RPC output
+     * @return new request processor
+     */
+    public static <I extends RpcInput, O extends RpcOutput> BindingRpcRequestProcessor<I, O> of(
+            final QName identifier, final Rpc<I, O> rpc) {
+        return new BindingRpcRequestProcessor<>() {
+            @Override
+            public QName getIdentifier() {
+                return identifier;
+            }
+
+            @Override
+            protected ListenableFuture<RpcResult<O>> invoke(final I input) {
+                return rpc.invoke(input);
+            }
+        };
+    }
+
+    @Override
+    public void init(final NetconfDeviceServices netconfDeviceServices) {
+        super.init(netconfDeviceServices);
+        this.adapterSerializer = netconfDeviceServices.getAdapterContext().currentSerializer();
+        final EffectiveModelContext modelContext = this.adapterSerializer.getRuntimeContext().modelContext();
+        this.inputPath = getRpcDefInputAbsolutePath();
+        this.inputInference = SchemaInferenceStack.of(modelContext, this.inputPath).toInference();
+        this.outputInference = SchemaInferenceStack.of(modelContext,
+            Absolute.of(getRpcDefinition().getQName(), getRpcDefinition().getOutput().getQName())).toInference();
+    }
+
+    /**
+     * Invokes RPC.
+     *
+     * @param input RPC input
+     * @return future result of RPC invocation
+     */
+    protected abstract ListenableFuture<RpcResult<O>> invoke(I input);
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected CompletableFuture<Response> execute(final Element requestXmlElement) {
+        final I input;
+        try {
+            final ContainerNode inputNode = parseInput(requestXmlElement);
+            input = (I) this.adapterSerializer.fromNormalizedNodeRpcData(this.inputPath, inputNode);
+        } catch (final IllegalArgumentException e) {
+            LOG.error("Error while parsing input of RPC {}", getIdentifier(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
+        Futures.addCallback(invoke(input), new FutureCallback<>() {
+            @Override
+            public void onSuccess(final RpcResult<O> result) {
+                if (!result.isSuccessful()) {
+                    responseFuture.completeExceptionally(new IllegalStateException(
+                        "RPC " + getIdentifier() + " failed: " + result.getErrors()));
+                    return;
+                }
+                final O output = result.getResult();
+                final List<NormalizedNode> data = output == null ? List.of()
+                    : List.of(adapterSerializer.toNormalizedNodeRpcData(output));
+                responseFuture.complete(new ResponseData(data));
+            }
+
+            @Override
+            public void onFailure(final Throwable throwable) {
+                LOG.error("Error while executing RPC {}", getIdentifier(), throwable);
+                responseFuture.completeExceptionally(throwable);
+            }
+        }, MoreExecutors.directExecutor());
+        return responseFuture;
+    }
+
+    @Override
+    protected Document wrapToFinalDocumentReply(final List<NormalizedNode> responseOutput)
+            throws ParserConfigurationException {
+        final Document newDocument = getDocumentBuilderFactory().newDocumentBuilder().newDocument();
+        final Element rpcReply = newDocument.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        newDocument.appendChild(rpcReply);
+        if (responseOutput.isEmpty() || !(responseOutput.get(0) instanceof ContainerNode output)
+                || output.body().isEmpty()) {
+            rpcReply.appendChild(RPCUtil.createOkNode(newDocument));
+        } else {
+            writeOutput(output, rpcReply);
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Response: {}.", RPCUtil.formatXml(rpcReply));
+        }
+        return newDocument;
+    }
+
+    /**
+     * Parses input of the RPC from request element. Request element itself stands for the input container.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private ContainerNode parseInput(final Element requestXmlElement) {
+        final NormalizationResultHolder resultHolder = new NormalizationResultHolder();
+        final NormalizedNodeStreamWriter writer = ImmutableNormalizedNodeStreamWriter.from(resultHolder);
+        try {
+            XmlParserStream.create(writer, this.inputInference).traverse(new DOMSource(requestXmlElement));
+        } catch (final Exception e) {
+            // parser reports malformed content both by checked and runtime exceptions
+            throw new IllegalArgumentException("Unable to parse input of RPC " + getIdentifier(), e);
+        }
+        return (ContainerNode) resultHolder.getResult().data();
+    }
+
+    /**
+     * Writes children of RPC output directly under reply element.
+     */
+    private void writeOutput(final ContainerNode output, final Element rpcReply) {
+        try {
+            final XMLStreamWriter xmlWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(new DOMResult(rpcReply));
+            try (NormalizedNodeStreamWriter streamWriter =
+                     XMLStreamNormalizedNodeStreamWriter.create(xmlWriter, this.outputInference);
+                 NormalizedNodeWriter nodeWriter = NormalizedNodeWriter.forStreamWriter(streamWriter)) {
+                for (final DataContainerChild child : output.body()) {
+                    nodeWriter.write(child);
+                }
+            }
+        } catch (final XMLStreamException | IOException e) {
+            throw new IllegalStateException("Unable to write output of RPC " + getIdentifier(), e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.utils.NormalizedNodeMerge;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Subtree filter of {@code get} operation as described in RFC 6241 section 6, evaluated against normalized
+ * nodes. Top level filter nodes are resolved against the model into {@link Target}s, so only the selected
+ * subtrees are read from the datastores and filtered.
+ *
+ * @param roots top level filter nodes
+ */
+record DataFilter(List<FilterNode> roots) {
+
+    /**
+     * Filter selecting all data.
+     */
+    static final DataFilter ALL = new DataFilter(List.of());
+
+    DataFilter {
+        roots = List.copyOf(roots);
+    }
+
+    /**
+     * Subtree read from the datastores for a top level filter node. Path of the target descends through
+     * containers selected by single containment node, so that reads of filters like
+     * {@code <network-topology><topology/></network-topology>} do not read sibling subtrees.
+     *
+     * @param path path of the subtree
+     * @param filter filter node matching the node at the path
+     */
+    record Target(YangInstanceIdentifier path, FilterNode filter) {
+    }
+
+    /**
+     * Node of subtree filter.
+     *
+     * @param namespace namespace of the node or null when it matches any namespace
+     * @param name local name of the node
+     * @param content content matched by the node or null when node is not a content match node
+     * @param children child nodes
+     */
+    record FilterNode(@Nullable String namespace, String name, @Nullable String content, List<FilterNode> children) {
+
+        FilterNode {
+            children = List.copyOf(children);
+        }
+
+        boolean matches(final NormalizedNode node) {
+            final QName nodeType = node.name().getNodeType();
+            return name.equals(nodeType.getLocalName())
+                && (namespace == null || namespace.equals(nodeType.getNamespace().toString()));
+        }
+    }
+
+    /**
+     * Parses {@code filter} element of the operation.
+     * @param operationElement operation element, such as {@code get}
+     * @return parsed filter, {@link #ALL} when operation has no filter
+     * @throws DocumentedException when filter is not a subtree filter
+     */
+    static DataFilter of(final Element operationElement) throws DocumentedException {
+        final Element filterElement = childElement(operationElement, "filter");
+        if (filterElement == null) {
+            return ALL;
+        }
+        final String type = filterElement.hasAttribute("type") ? filterElement.getAttribute("type")
+            : filterElement.getAttributeNS(RPCUtil.NETCONF_BASE_NAMESPACE, "type");
+        if (!type.isEmpty() && !"subtree".equals(type)) {
+            throw new DocumentedException("Filter type " + type + " is not supported", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED, ErrorSeverity.ERROR);
+        }
+        // filter without any node selects no data, unlike missing filter
+        return new DataFilter(parseChildren(filterElement));
+    }
+
+    boolean selectsAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Resolves top level filter nodes to subtrees of the model. Filter nodes which do not match any top level
+     * data node of the model select no data.
+     */
+    List<Target> targets(final EffectiveModelContext modelContext) {
+        final Set<Target> targets = new LinkedHashSet<>();
+        for (final FilterNode root : roots) {
+            for (final Module module : modelContext.getModules()) {
+                if (root.namespace() != null && !root.namespace().equals(module.getNamespace().toString())) {
+                    continue;
+                }
+                final Optional<DataSchemaNode> schemaNode =
+                    module.findDataChildByName(QName.create(module.getQNameModule(), root.name()));
+                if (schemaNode.isPresent()) {
+                    targets.add(narrow(schemaNode.get(), root));
+                }
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    /**
+     * Filters data selected by a filter node.
+     * @param filter filter node
+     * @param data node matching the filter node
+     * @return selected data or null when filter selects nothing
+     */
+    static @Nullable NormalizedNode apply(final FilterNode filter, final NormalizedNode data) {
+        if (filter.content() != null) {
+            return contentMatch(filter, data);
+        }
+        if (filter.children().isEmpty()) {
+            return data;
+        }
+        return switch (data) {
+            case MapNode map -> filterEntries(filter.children(), map);
+            case DataContainerNode container -> filterContainer(filter.children(), container);
+            default -> data;
+        };
+    }
+
+    private static Target narrow(final DataSchemaNode topLevel, final FilterNode root) {
+        YangInstanceIdentifier path = YangInstanceIdentifier.of(topLevel.getQName());
+        DataSchemaNode schemaNode = topLevel;
+        FilterNode filter = root;
+        while (schemaNode instanceof ContainerSchemaNode container && filter.children().size() == 1) {
+            final FilterNode child = filter.children().get(0);
+            final QName parentName = schemaNode.getQName();
+            if (child.content() != null
+                    || child.namespace() != null && !child.namespace().equals(parentName.getNamespace().toString())) {
+                break;
+            }
+            final Optional<DataSchemaNode> childSchema =
+                container.findDataChildByName(QName.create(parentName, child.name()));
+            if (childSchema.isEmpty()) {
+                break;
+            }
+            schemaNode = childSchema.get();
+            path = path.node(schemaNode.getQName());
+            filter = child;
+        }
+        return new Target(path, filter);
+    }
+
+    private static @Nullable NormalizedNode filterEntries(final List<FilterNode> filters, final MapNode map) {
+        final List<MapEntryNode> selected = new ArrayList<>();
+        for (final MapEntryNode entry : map.body()) {
+            final NormalizedNode filtered = filterContainer(filters, entry);
+            if (filtered != null) {
+                selected.add((MapEntryNode) filtered);
+            }
+        }
+        return selected.isEmpty() ? null : rebuild(map, selected);
+    }
+
+    /**
+     * Filters children of a container. All content match nodes have to match, container is then selected
+     * as a whole when there is no other filter node, otherwise it contains matched content and children
+     * selected by the other filter nodes.
+     */
+    private static @Nullable NormalizedNode filterContainer(final List<FilterNode> filters,
+            final DataContainerNode container) {
+        final Map<PathArgument, NormalizedNode> selected = new LinkedHashMap<>();
+        final List<FilterNode> selectionFilters = new ArrayList<>();
+        for (final FilterNode filter : filters) {
+            if (filter.content() == null) {
+                selectionFilters.add(filter);
+                continue;
+            }
+            final NormalizedNode matched = container.body().stream()
+                .filter(filter::matches)
+                .map(child -> contentMatch(filter, child))
+                .filter(Objects::nonNull)
+                .findFirst().orElse(null);
+            if (matched == null) {
+                return null;
+            }
+            selected.merge(matched.name(), matched, NormalizedNodeMerge::merge);
+        }
+        if (selectionFilters.isEmpty()) {
+            return container;
+        }
+        select(selectionFilters, container, selected);
+        return selected.isEmpty() ? null : rebuild(container, selected.values());
+    }
+
+    /**
+     * Applies selection and containment nodes to children of a container. Choices are not part of the filter,
+     * their children are filtered as if they were children of the container.
+     */
+    private static void select(final List<FilterNode> filters, final DataContainerNode container,
+            final Map<PathArgument, NormalizedNode> selected) {
+        for (final DataContainerChild child : container.body()) {
+            if (child instanceof ChoiceNode choice) {
+                final Map<PathArgument, NormalizedNode> selectedCases = new LinkedHashMap<>();
+                select(filters, choice, selectedCases);
+                if (!selectedCases.isEmpty()) {
+                    selected.put(choice.name(), rebuild(choice, selectedCases.values()));
+                }
+                continue;
+            }
+            for (final FilterNode filter : filters) {
+                if (filter.matches(child)) {
+                    final NormalizedNode filtered = apply(filter, child);
+                    if (filtered != null) {
+                        selected.merge(filtered.name(), filtered, NormalizedNodeMerge::merge);
+                    }
+                }
+            }
+        }
+    }
+
+    private static @Nullable NormalizedNode contentMatch(final FilterNode filter, final NormalizedNode node) {
+        if (node instanceof LeafNode<?> leaf) {
+            return contentMatches(filter.content(), leaf.body()) ? leaf : null;
+        }
+        if (node instanceof LeafSetNode<?> leafSet) {
+            final List<LeafSetEntryNode<?>> matched = new ArrayList<>();
+            for (final LeafSetEntryNode<?> entry : leafSet.body()) {
+                if (contentMatches(filter.content(), entry.body())) {
+                    matched.add(entry);
+                }
+            }
+            return matched.isEmpty() ? null : rebuild(leafSet, matched);
+        }
+        return null;
+    }
+
+    private static boolean contentMatches(final String content, final Object value) {
+        if (value instanceof QName identity) {
+            // identities are written as prefix:name in the filter
+            return identity.getLocalName().equals(content.substring(content.indexOf(':') + 1));
+        }
+        return content.equals(String.valueOf(value));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static NormalizedNode rebuild(final NormalizedNode template,
+            final Iterable<? extends NormalizedNode> children) {
+        final var builder = NormalizedNodeMerge.newBuilder(template);
+        for (final NormalizedNode child : children) {
+            builder.addChild(child);
+        }
+        return (NormalizedNode) builder.build();
+    }
+
+    private static @Nullable Element childElement(final Element parent, final String localName) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child && localName.equals(child.getLocalName())
+                    && RPCUtil.NETCONF_BASE_NAMESPACE.equals(child.getNamespaceURI())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static List<FilterNode> parseChildren(final Element parent) {
+        final List<FilterNode> children = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                final List<FilterNode> grandChildren = parseChildren(child);
+                final String text = child.getTextContent().trim();
+                children.add(new FilterNode(child.getNamespaceURI(), child.getLocalName(),
+                    grandChildren.isEmpty() && !text.isEmpty() ? text : null, grandChildren));
+            }
+        }
+        return children;
+    }
+}
@@ -14,7 +14,9 @@ import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -36,6 +38,8 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
 
     private static final Logger LOG = LoggerFactory.getLogger(DatastoreOutputRequestProcessor.class);
 
+    private final Map<LogicalDatastoreType, CachedReply> cachedReplies = new ConcurrentHashMap<>();
+
     @Override
     protected String convertNormalizedNodeToXmlString(NormalizedNode normalizedNode)
             throws SerializationException {
@@ -64,6 +68,37 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
         return Collections.emptyList();
     }
 
+    /**
+     * Processes request whose reply depends only on the content of the given datastore. Reply is computed once
+     * per datastore version and every following request for the same version gets a copy of the cached reply,
+     * so repeated polling of unchanged datastore skips the read and the serialization of the data.
+     *
+     * @param requestXmlElement XML RPC request element
+     * @param datastoreType datastore the reply is computed from
+     * @return Document a document
+     */
+    protected Document processCachedRequest(final Element requestXmlElement,
+            final LogicalDatastoreType datastoreType) {
+        final long version = getNetconfDeviceServices().getDatastoreVersion(datastoreType);
+        final CachedReply cachedReply = cachedReplies.get(datastoreType);
+        if (cachedReply != null && cachedReply.version() == version) {
+            LOG.debug("Using cached reply for {} datastore version {}", datastoreType, version);
+            return (Document) cachedReply.reply().cloneNode(true);
+        }
+
+        final Document reply = super.processRequest(requestXmlElement);
+        // reply is cached only if no change was committed while it was computed and it is not an error
+        if (version == getNetconfDeviceServices().getDatastoreVersion(datastoreType) && !isErrorReply(reply)) {
+            cachedReplies.put(datastoreType, new CachedReply(version, (Document) reply.cloneNode(true)));
+        }
+        return reply;
+    }
+
+    private static boolean isErrorReply(final Document reply) {
+        return reply.getDocumentElement()
+                .getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-error").getLength() > 0;
+    }
+
     @Override
     protected Document wrapToFinalDocumentReply(List<NormalizedNode> responseOutput)
             throws ParserConfigurationException {
@@ -91,4 +126,7 @@ public abstract class DatastoreOutputRequestProcessor extends BaseRequestProcess
         return rpcReply;
     }
 
+    private record CachedReply(long version, Document reply) {
+    }
+
 }
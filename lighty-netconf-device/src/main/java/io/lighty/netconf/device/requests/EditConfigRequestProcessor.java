@@ -7,11 +7,10 @@
  */
 package io.lighty.netconf.device.requests;
 
-import static java.util.Objects.requireNonNull;
-
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import io.lighty.codecs.util.exception.DeserializationException;
+import io.lighty.netconf.device.NetconfDeviceServices;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
 import io.lighty.netconf.device.response.ResponseErrorMessage;
@@ -22,7 +21,6 @@ import io.lighty.netconf.device.utils.TimeoutUtil;
 import java.io.StringReader;
 import java.util.AbstractCollection;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -39,8 +37,8 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
-import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
-import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadOperations;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteOperations;
 import org.opendaylight.netconf.api.NetconfDocumentedException;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.rev110601.copy.config.input.source.config.source.Config;
 import org.opendaylight.yangtools.yang.common.ErrorSeverity;
@@ -48,19 +46,15 @@ import org.opendaylight.yangtools.yang.common.ErrorTag;
 import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
 import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
 import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
 import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
 import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
-import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNodes;
 import org.opendaylight.yangtools.yang.data.tree.api.SchemaValidationFailedException;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContext;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContext.PathMixin;
-import org.opendaylight.yangtools.yang.data.util.DataSchemaContextTree;
 import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
-import org.opendaylight.yangtools.yang.model.api.Module;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Element;
@@ -70,18 +64,43 @@ import org.w3c.dom.NodeList;
 /**
  * Implementation of edit-config netconf protocol operation.
  * https://tools.ietf.org/html/rfc6241#section-7
+ *
+ * <p>Edits of concurrent requests are committed in groups by {@link GroupCommit}, each request still gets
+ * the result of its own edit.
  */
 public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
 
     private static final Logger LOG = LoggerFactory.getLogger(EditConfigRequestProcessor.class);
     private static final String EDIT_CONFIG_RPC_NAME = "edit-config";
+    private static final int DEFAULT_MAX_GROUP_SIZE = 256;
+
+    private final int maxGroupSize;
+    private GroupCommit groupCommit;
+
+    public EditConfigRequestProcessor() {
+        this(DEFAULT_MAX_GROUP_SIZE);
+    }
+
+    /**
+     * Creates processor committing at most given number of concurrent edits in a single transaction.
+     * @param maxGroupSize maximal number of edits committed together, 1 commits every edit separately
+     */
+    public EditConfigRequestProcessor(final int maxGroupSize) {
+        Preconditions.checkArgument(maxGroupSize > 0, "maxGroupSize must be positive");
+        this.maxGroupSize = maxGroupSize;
+    }
+
+    @Override
+    public void init(final NetconfDeviceServices netconfDeviceServices) {
+        super.init(netconfDeviceServices);
+        this.groupCommit = new GroupCommit(netconfDeviceServices.getDOMDataBroker(), this.maxGroupSize);
+    }
 
     @Override
     public QName getIdentifier() {
         return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, EDIT_CONFIG_RPC_NAME);
     }
 
-    @SuppressWarnings("checkstyle:FallThrough")
     @Override
     protected CompletableFuture<Response> executeOkRequest(final Element requestXmlElement) {
         final Optional<DefaultOperation> defaultOperation = RPCUtil.retrieveDefaultOperation(requestXmlElement);
@@ -152,47 +171,60 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
             data = optionalData.get();
         }
 
-        final DOMDataTreeWriteTransaction writeTx =
-                getNetconfDeviceServices().getDOMDataBroker().newWriteOnlyTransaction();
+        final YangInstanceIdentifier editPath = path;
+        final NormalizedNode editData = data;
+        final Operation editOperation = operationToExecute;
+        final GroupCommit.Edit edit;
         final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
+        // existence preconditions are checked in the transaction which writes the edit
         switch (operationToExecute) {
             case CREATE:
-                if (dataExists(path, operationToExecute, data)) {
-                    final NetconfDocumentedException netconfDocumentedException =
-                            new NetconfDocumentedException("data-exists", ErrorType.RPC, ErrorTag.DATA_EXISTS,
-                                    ErrorSeverity.ERROR);
-                    responseFuture.complete(new ResponseErrorMessage(netconfDocumentedException));
-                    return responseFuture;
-                }
+                edit = writeTx -> {
+                    if (dataExists(writeTx, editPath, editOperation, editData)) {
+                        throw new NetconfDocumentedException("data-exists", ErrorType.RPC, ErrorTag.DATA_EXISTS,
+                            ErrorSeverity.ERROR);
+                    }
+                    ensureParentsByMerge(editPath, writeTx);
+                    writeTx.put(LogicalDatastoreType.CONFIGURATION, editPath, editData);
+                };
+                break;
             case REPLACE:
-                ensureParentsByMerge(path, writeTx);
-                writeTx.put(LogicalDatastoreType.CONFIGURATION, path, data);
+                edit = writeTx -> {
+                    ensureParentsByMerge(editPath, writeTx);
+                    writeTx.put(LogicalDatastoreType.CONFIGURATION, editPath, editData);
+                };
                 break;
             case DELETE:
-                if (!dataExists(path, operationToExecute, data)) {
-                    final NetconfDocumentedException netconfDocumentedException =
-                            new NetconfDocumentedException("data-missing", ErrorType.RPC, ErrorTag.DATA_MISSING,
-                                    ErrorSeverity.ERROR);
-                    responseFuture.complete(new ResponseErrorMessage(netconfDocumentedException));
-                    return responseFuture;
-                }
+                edit = writeTx -> {
+                    if (!dataExists(writeTx, editPath, editOperation, editData)) {
+                        throw new NetconfDocumentedException("data-missing", ErrorType.RPC, ErrorTag.DATA_MISSING,
+                            ErrorSeverity.ERROR);
+                    }
+                    writeTx.delete(LogicalDatastoreType.CONFIGURATION, editPath);
+                };
+                break;
             case REMOVE:
-                writeTx.delete(LogicalDatastoreType.CONFIGURATION, path);
+                edit = writeTx -> writeTx.delete(LogicalDatastoreType.CONFIGURATION, editPath);
                 break;
             case MERGE:
-                writeTx.merge(LogicalDatastoreType.CONFIGURATION, path, data);
+                edit = writeTx -> writeTx.merge(LogicalDatastoreType.CONFIGURATION, editPath, editData);
                 break;
             default:
+                edit = writeTx -> { };
                 break;
         }
         try {
-            writeTx.commit().get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            this.groupCommit.submit(edit).get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
             responseFuture.complete(new ResponseData(Collections.emptyList()));
             return responseFuture;
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             if (e instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
             }
+            if (e.getCause() instanceof NetconfDocumentedException preconditionFailure) {
+                responseFuture.complete(new ResponseErrorMessage(preconditionFailure));
+                return responseFuture;
+            }
             if (e.getCause() instanceof TransactionCommitFailedException) {
                 final Throwable error = e.getCause();
                 if (error.getCause() instanceof SchemaValidationFailedException) {
@@ -207,7 +239,7 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
         }
     }
 
-    private void ensureParentsByMerge(final YangInstanceIdentifier path, final DOMDataTreeWriteTransaction writeTx) {
+    private void ensureParentsByMerge(final YangInstanceIdentifier path, final DOMDataTreeWriteOperations writeTx) {
         final EffectiveModelContext effectiveModelContext = getNetconfDeviceServices().getAdapterContext()
                 .currentSerializer().getRuntimeContext().modelContext();
         final List<PathArgument> normalizedPathWithoutChildArgs = new ArrayList<>();
@@ -232,8 +264,8 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
 
         Preconditions.checkArgument(rootNormalizedPath != null, "Empty path received");
 
-        final NormalizedNode parentStructure = ImmutableNodes.fromInstanceId(effectiveModelContext,
-                YangInstanceIdentifier.of(normalizedPathWithoutChildArgs));
+        final NormalizedNode parentStructure = EditTargetCache.of(effectiveModelContext)
+                .parentStructure(YangInstanceIdentifier.of(normalizedPathWithoutChildArgs));
         writeTx.merge(LogicalDatastoreType.CONFIGURATION, rootNormalizedPath, parentStructure);
     }
 
@@ -285,7 +317,8 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
 
     /**
      * Method will find the {@link YangInstanceIdentifier} from the given list of
-     * {@link QName}.
+     * {@link QName}. Schema part of the path is resolved once and cached, only keys of list entries
+     * are taken from the input.
      *
      * @param yangPath a path
      * @param input a list of normalized nodes
@@ -294,67 +327,29 @@ public class EditConfigRequestProcessor extends OkOutputRequestProcessor {
      */
     private static YangInstanceIdentifier getYangInstanceIdentifier(final List<QName> yangPath,
             final NormalizedNode input, final EffectiveModelContext effectiveModelContext) {
-        DataSchemaContext contextNode = DataSchemaContextTree.from(effectiveModelContext).getRoot();
-        YangInstanceIdentifier targetIdentifier = YangInstanceIdentifier.builder().build();
-        final Iterator<QName> iterator = yangPath.iterator();
-        while (iterator.hasNext()) {
-            final QName currentQname = parseQname(effectiveModelContext, iterator.next());
-            contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
-
-            while (contextNode instanceof PathMixin) {
-                targetIdentifier = YangInstanceIdentifier.of(targetIdentifier.getPathArguments())
-                        .node(contextNode.pathStep());
-                contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
+        final List<PathArgument> pathArguments = new ArrayList<>();
+        for (final EditTargetCache.PathStep step : EditTargetCache.of(effectiveModelContext).pathSteps(yangPath)) {
+            if (step.argument() != null) {
+                pathArguments.add(step.argument());
+                continue;
             }
-
-            final Optional<NormalizedNode> findNode =
-                    NormalizedNodes.findNode(input, targetIdentifier.getPathArguments());
-            if (contextNode.pathStep() == null && findNode.isPresent()) {
+            final Optional<NormalizedNode> findNode = NormalizedNodes.findNode(input, pathArguments);
+            if (findNode.isPresent()) {
                 final MapEntryNode next = ((MapNode) findNode.get()).body().iterator().next();
                 final Map<QName, Object> keyValues = next.name().asMap();
-                targetIdentifier = YangInstanceIdentifier
-                        .builder(YangInstanceIdentifier.of(targetIdentifier.getPathArguments()))
-                        .nodeWithKey(contextNode.dataSchemaNode().getQName(), keyValues).build();
-            } else {
-                targetIdentifier = YangInstanceIdentifier.of(targetIdentifier.getPathArguments())
-                        .node(contextNode.getPathStep());
-            }
-        }
-        return targetIdentifier;
-    }
-
-    /**
-     * Parses Qname.
-     *
-     * @param effectiveModelContext a schema context
-     * @param pathArgument a path
-     * @return QName a parsed path.
-     */
-    private static QName parseQname(final EffectiveModelContext effectiveModelContext, final QName pathArgument) {
-        Optional<Module> module;
-        if (pathArgument.getRevision().isPresent()) {
-            module = effectiveModelContext.findModule(pathArgument.getNamespace(), pathArgument.getRevision());
-        } else {
-            final Collection<? extends Module> modules = effectiveModelContext.findModules(pathArgument.getNamespace());
-            if (modules.size() == 1) {
-                module = Optional.of(modules.iterator().next());
+                pathArguments.add(NodeIdentifierWithPredicates.of(step.listEntry().dataSchemaNode().getQName(),
+                    keyValues));
             } else {
-                module = effectiveModelContext.findModule(pathArgument.getNamespace());
+                pathArguments.add(step.listEntry().getPathStep());
             }
         }
-        if (!module.isPresent()) {
-            throw new IllegalStateException(String.format(
-                    "Couldn't find specified module: %s. Check if all necessary modules are loaded", pathArgument));
-        }
-        final Module next = module.get();
-        return QName.create(next.getNamespace(), next.getRevision(), pathArgument.getLocalName());
+        return YangInstanceIdentifier.of(pathArguments);
     }
 
-    private boolean dataExists(final YangInstanceIdentifier path, final Operation operationToExecute,
-            final NormalizedNode data) {
-        try (DOMDataTreeReadTransaction readTx =
-                     getNetconfDeviceServices().getDOMDataBroker().newReadOnlyTransaction()) {
-            return readTx.exists(LogicalDatastoreType.CONFIGURATION, path)
+    private boolean dataExists(final DOMDataTreeReadOperations tx, final YangInstanceIdentifier path,
+            final Operation operationToExecute, final NormalizedNode data) {
+        try {
+            return tx.exists(LogicalDatastoreType.CONFIGURATION, path)
                     .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             if (e instanceof InterruptedException) {
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNodes;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContext;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContext.PathMixin;
+import org.opendaylight.yangtools.yang.data.util.DataSchemaContextTree;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+
+/**
+ * Schema lookups of edit-config targets which do not depend on edited data. Element paths resolve to
+ * the same path steps for every request, so they are resolved once per model context. Parent structures
+ * merged before replaced data depend on list keys of the target, recently used ones are kept. Devices
+ * sharing the model context share the cache.
+ *
+ * <p>Every cache references its model context, so caches are not released when devices are closed. They are
+ * kept for the life of the process, limited to recently used model contexts.
+ */
+final class EditTargetCache {
+
+    private static final int MAX_PARENT_STRUCTURES = 1024;
+    private static final int MAX_MODEL_CONTEXTS = 16;
+    private static final LoadingCache<EffectiveModelContext, EditTargetCache> CACHES = CacheBuilder.newBuilder()
+        .maximumSize(MAX_MODEL_CONTEXTS)
+        .build(CacheLoader.from(EditTargetCache::new));
+
+    private final EffectiveModelContext modelContext;
+    private final DataSchemaContextTree schemaTree;
+    private final ConcurrentMap<List<QName>, List<PathStep>> paths = new ConcurrentHashMap<>();
+    private final Cache<YangInstanceIdentifier, NormalizedNode> parentStructures = CacheBuilder.newBuilder()
+        .maximumSize(MAX_PARENT_STRUCTURES)
+        .build();
+
+    private EditTargetCache(final EffectiveModelContext modelContext) {
+        this.modelContext = modelContext;
+        this.schemaTree = DataSchemaContextTree.from(modelContext);
+    }
+
+    static EditTargetCache of(final EffectiveModelContext modelContext) {
+        return CACHES.getUnchecked(modelContext);
+    }
+
+    /**
+     * Provides path steps of element path.
+     * @param elementPath QNames of XML elements from config element to the target
+     * @return path steps of the target
+     */
+    List<PathStep> pathSteps(final List<QName> elementPath) {
+        final List<PathStep> steps = paths.get(elementPath);
+        return steps != null ? steps : paths.computeIfAbsent(List.copyOf(elementPath), this::resolve);
+    }
+
+    /**
+     * Provides structure of nodes on the path, without any other data.
+     * @param path path of the innermost node
+     * @return structure starting by the first node of the path
+     */
+    NormalizedNode parentStructure(final YangInstanceIdentifier path) {
+        return parentStructures.asMap().computeIfAbsent(path,
+            key -> ImmutableNodes.fromInstanceId(modelContext, key));
+    }
+
+    private List<PathStep> resolve(final List<QName> elementPath) {
+        final List<PathStep> steps = new ArrayList<>();
+        DataSchemaContext contextNode = schemaTree.getRoot();
+        for (final QName elementQName : elementPath) {
+            final QName currentQname = parseQname(elementQName);
+            contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
+
+            while (contextNode instanceof PathMixin) {
+                steps.add(new PathStep(contextNode.pathStep(), null));
+                contextNode = requireNonNull(((DataSchemaContext.Composite) contextNode).childByQName(currentQname));
+            }
+            steps.add(contextNode.pathStep() != null ? new PathStep(contextNode.pathStep(), null)
+                : new PathStep(null, contextNode));
+        }
+        return List.copyOf(steps);
+    }
+
+    /**
+     * Parses Qname.
+     *
+     * @param pathArgument a path
+     * @return QName a parsed path.
+     */
+    private QName parseQname(final QName pathArgument) {
+        Optional<Module> module;
+        if (pathArgument.getRevision().isPresent()) {
+            module = modelContext.findModule(pathArgument.getNamespace(), pathArgument.getRevision());
+        } else {
+            final Collection<? extends Module> modules = modelContext.findModules(pathArgument.getNamespace());
+            if (modules.size() == 1) {
+                module = Optional.of(modules.iterator().next());
+            } else {
+                module = modelContext.findModule(pathArgument.getNamespace());
+            }
+        }
+        if (!module.isPresent()) {
+            throw new IllegalStateException(String.format(
+                    "Couldn't find specified module: %s. Check if all necessary modules are loaded", pathArgument));
+        }
+        final Module next = module.get();
+        return QName.create(next.getNamespace(), next.getRevision(), pathArgument.getLocalName());
+    }
+
+    /**
+     * Step of target path. Step is either a path argument known from schema, or a list entry whose keys
+     * are taken from edited data.
+     *
+     * @param argument path argument or null for list entry
+     * @param listEntry schema context of list entry or null
+     */
+    record PathStep(@Nullable PathArgument argument, @Nullable DataSchemaContext listEntry) {
+    }
+}
@@ -15,6 +15,7 @@ import java.util.concurrent.CompletableFuture;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
 import org.opendaylight.yangtools.yang.common.QName;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
@@ -30,6 +31,11 @@ public class GetConfigRequestProcessor extends DatastoreOutputRequestProcessor {
         return QName.create(RPCUtil.NETCONF_BASE_NAMESPACE, GET_CONFIG_RPC_NAME);
     }
 
+    @Override
+    public Document processRequest(final Element requestXmlElement) {
+        return processCachedRequest(requestXmlElement, LogicalDatastoreType.CONFIGURATION);
+    }
+
     @Override
     public CompletableFuture<Response> execute(Element requestXml) {
         final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
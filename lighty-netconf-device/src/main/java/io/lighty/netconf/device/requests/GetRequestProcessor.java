@@ -7,23 +7,69 @@
  */
 package io.lighty.netconf.device.requests;
 
+import com.google.common.util.concurrent.FluentFuture;
+import io.lighty.netconf.device.requests.DataFilter.Target;
 import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.response.ResponseData;
+import io.lighty.netconf.device.response.ResponseErrorMessage;
+import io.lighty.netconf.device.utils.NormalizedNodeMerge;
 import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
 import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XMLStreamNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.spi.meta.EffectiveStatementInference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 /**
  * Implementation of get netconf protocol operation.
  * https://tools.ietf.org/html/rfc6241#section-7
+ *
+ * <p>
+ * Reply contains both configuration and state data. Without filter, configuration and state of the whole
+ * datastore are merged by {@link NormalizedNodeMerge#write} while the reply is serialized, so overlapping
+ * subtrees are never copied. Subtree filter is resolved against the model first, so only the selected subtrees
+ * are read. Each datastore is read by its own read-only transaction, since a transaction is bound to one
+ * datastore. Configuration and state of each selected subtree are merged before the filter is applied, since
+ * content match nodes may refer to data of either datastore.
  */
 public class GetRequestProcessor extends DatastoreOutputRequestProcessor {
 
+    private static final Logger LOG = LoggerFactory.getLogger(GetRequestProcessor.class);
     private static final String GET_RPC_NAME = "get";
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
 
     @Override
     public QName getIdentifier() {
@@ -33,9 +79,186 @@ public class GetRequestProcessor extends DatastoreOutputRequestProcessor {
     @Override
     public CompletableFuture<Response> execute(Element requestXml) {
         final CompletableFuture<Response> responseFuture = new CompletableFuture<>();
-        final List<NormalizedNode> allDataFromDatastore =
-                getAllDataFromDatastore(LogicalDatastoreType.OPERATIONAL);
-        responseFuture.complete(new ResponseData(allDataFromDatastore));
-        return  responseFuture;
+        final DataFilter filter;
+        try {
+            filter = DataFilter.of(requestXml);
+        } catch (final DocumentedException e) {
+            responseFuture.complete(new ResponseErrorMessage(new NetconfDocumentedException(e.getMessage(),
+                e.getErrorType(), e.getErrorTag(), e.getErrorSeverity())));
+            return responseFuture;
+        }
+        try {
+            responseFuture.complete(filter.selectsAll() ? readAllData() : new ResponseData(readData(filter)));
+        } catch (final ExecutionException | TimeoutException e) {
+            LOG.error("Exception thrown while getting data from datastores!", e);
+            responseFuture.completeExceptionally(e);
+        } catch (final InterruptedException e) {
+            LOG.error("Interrupted while getting data from datastores!", e);
+            Thread.currentThread().interrupt();
+            responseFuture.completeExceptionally(e);
+        }
+        return responseFuture;
+    }
+
+    @Override
+    protected Document wrapToFinalDocumentReply(final Response response) throws ParserConfigurationException {
+        if (!(response instanceof MergedData merged)) {
+            return super.wrapToFinalDocumentReply(response);
+        }
+        final Document document = getDocumentBuilderFactory().newDocumentBuilder().newDocument();
+        final Element rpcReply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        final Element data = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "data");
+        rpcReply.appendChild(data);
+        document.appendChild(rpcReply);
+        merged.writeTo(data, getNetconfDeviceServices().getRootInference());
+        return document;
+    }
+
+    /**
+     * Reads both datastores as a whole, they are merged when the reply is serialized.
+     */
+    private MergedData readAllData() throws ExecutionException, InterruptedException, TimeoutException {
+        try (DOMDataTreeReadTransaction configTx = newReadOnlyTransaction();
+             DOMDataTreeReadTransaction stateTx = newReadOnlyTransaction()) {
+            final MergedRead read = new MergedRead(configTx, stateTx, YangInstanceIdentifier.of());
+            return new MergedData((ContainerNode) read.readConfig(), (ContainerNode) read.readState());
+        }
+    }
+
+    /**
+     * Reads top-level nodes selected by the filter from both datastores.
+     */
+    private List<NormalizedNode> readData(final DataFilter filter)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        final Map<PathArgument, NormalizedNode> topLevelNodes = new LinkedHashMap<>();
+        try (DOMDataTreeReadTransaction configTx = newReadOnlyTransaction();
+             DOMDataTreeReadTransaction stateTx = newReadOnlyTransaction()) {
+            final EffectiveModelContext modelContext = getNetconfDeviceServices().getAdapterContext()
+                .currentSerializer().getRuntimeContext().modelContext();
+            // all reads are submitted before waiting for any of them
+            final Map<Target, MergedRead> reads = new LinkedHashMap<>();
+            for (final Target target : filter.targets(modelContext)) {
+                reads.put(target, new MergedRead(configTx, stateTx, target.path()));
+            }
+            for (final Map.Entry<Target, MergedRead> read : reads.entrySet()) {
+                final NormalizedNode data = read.getValue().get();
+                final NormalizedNode selected = data == null ? null : DataFilter.apply(read.getKey().filter(), data);
+                if (selected != null) {
+                    final NormalizedNode topLevel = wrapToTopLevel(read.getKey().path(), selected);
+                    topLevelNodes.merge(topLevel.name(), topLevel, NormalizedNodeMerge::merge);
+                }
+            }
+        }
+        return new ArrayList<>(topLevelNodes.values());
+    }
+
+    private DOMDataTreeReadTransaction newReadOnlyTransaction() {
+        return getNetconfDeviceServices().getDOMDataBroker().newReadOnlyTransaction();
+    }
+
+    /**
+     * Wraps node read at path into containers of its ancestors, which are containers by construction
+     * of {@link Target}.
+     */
+    private static NormalizedNode wrapToTopLevel(final YangInstanceIdentifier path, final NormalizedNode node) {
+        final List<PathArgument> pathArguments = path.getPathArguments();
+        NormalizedNode wrapped = node;
+        for (int i = pathArguments.size() - 2; i >= 0; i--) {
+            wrapped = ImmutableNodes.newContainerBuilder()
+                .withNodeIdentifier((NodeIdentifier) pathArguments.get(i))
+                .withChild((DataContainerChild) wrapped)
+                .build();
+        }
+        return wrapped;
+    }
+
+    /**
+     * Pending read of the same path from configuration and operational datastores. Every datastore is read
+     * by its own transaction, mdsal binds a transaction to the first datastore it accesses.
+     */
+    private static final class MergedRead {
+
+        private final FluentFuture<Optional<NormalizedNode>> config;
+        private final FluentFuture<Optional<NormalizedNode>> state;
+
+        MergedRead(final DOMDataTreeReadTransaction configTx, final DOMDataTreeReadTransaction stateTx,
+                final YangInstanceIdentifier path) {
+            this.config = configTx.read(LogicalDatastoreType.CONFIGURATION, path);
+            this.state = stateTx.read(LogicalDatastoreType.OPERATIONAL, path);
+        }
+
+        @Nullable NormalizedNode get() throws ExecutionException, InterruptedException, TimeoutException {
+            final NormalizedNode configData = readConfig();
+            final NormalizedNode stateData = readState();
+            if (configData == null) {
+                return stateData;
+            }
+            return stateData == null ? configData : NormalizedNodeMerge.merge(configData, stateData);
+        }
+
+        @Nullable NormalizedNode readConfig() throws ExecutionException, InterruptedException, TimeoutException {
+            return config.get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElse(null);
+        }
+
+        @Nullable NormalizedNode readState() throws ExecutionException, InterruptedException, TimeoutException {
+            return state.get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).orElse(null);
+        }
+    }
+
+    /**
+     * Reply to get without filter. Configuration and state data are kept as read and merged only when
+     * the reply is written.
+     */
+    private record MergedData(@Nullable ContainerNode config, @Nullable ContainerNode state) implements Response {
+
+        /**
+         * Builds merged top-level nodes, reply itself is written by {@link #writeTo} without building them.
+         */
+        @Override
+        public List<NormalizedNode> getData() {
+            final Map<PathArgument, NormalizedNode> topLevelNodes = new LinkedHashMap<>();
+            forEachTopLevel((configNode, stateNode) -> topLevelNodes.put(configNode.name(),
+                NormalizedNodeMerge.merge(configNode, stateNode)));
+            return new ArrayList<>(topLevelNodes.values());
+        }
+
+        @Override
+        public Document getErrorDocument() {
+            return null;
+        }
+
+        void writeTo(final Element parent, final EffectiveStatementInference rootInference) {
+            forEachTopLevel((configNode, stateNode) -> {
+                try {
+                    final XMLStreamWriter xmlWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(new DOMResult(parent));
+                    try (NormalizedNodeStreamWriter streamWriter =
+                             XMLStreamNormalizedNodeStreamWriter.create(xmlWriter, rootInference)) {
+                        NormalizedNodeMerge.write(configNode, stateNode, streamWriter);
+                    }
+                } catch (final XMLStreamException | IOException e) {
+                    throw new IllegalStateException("Unable to encode " + configNode.name(), e);
+                }
+            });
+        }
+
+        /**
+         * Visits pairs of top-level nodes with the same identifier, node present in one datastore only
+         * is paired with itself.
+         */
+        private void forEachTopLevel(final BiConsumer<NormalizedNode, NormalizedNode> consumer) {
+            if (config != null) {
+                for (final DataContainerChild configNode : config.body()) {
+                    final NormalizedNode stateNode = state == null ? null : state.childByArg(configNode.name());
+                    consumer.accept(configNode, stateNode == null ? configNode : stateNode);
+                }
+            }
+            if (state != null) {
+                for (final DataContainerChild stateNode : state.body()) {
+                    if (config == null || config.childByArg(stateNode.name()) == null) {
+                        consumer.accept(stateNode, stateNode);
+                    }
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Commits concurrent configuration edits together. Edits submitted while a commit is in progress are
+ * collected and written in a single transaction once it finishes, so under load the number of commits
+ * is bounded by the commit latency instead of the number of edits, and a lone edit is committed
+ * immediately. When the group commit fails, edits of the group are committed one by one, so every edit
+ * still gets its own result and an invalid edit does not fail the others.
+ *
+ * <p>Edits are applied to a read-write transaction in submission order, so their preconditions see the
+ * datastore snapshot together with all preceding edits of the group. Edit rejected by its precondition
+ * fails alone, the rest of the group is committed. Datastore rejects the transaction only when data written
+ * by it were changed meanwhile by other writers, so only preconditions of writes, such as absence of data
+ * created by the edit, hold at the commit. Existence of data removed by the delete operation is checked only
+ * against the snapshot; when another writer removes the data before the commit, the delete still succeeds.
+ */
+final class GroupCommit {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GroupCommit.class);
+
+    private final DOMDataBroker dataBroker;
+    private final int maxGroupSize;
+    // guarded by this
+    private List<PendingEdit> pending = new ArrayList<>();
+    // guarded by this
+    private boolean commitInProgress;
+
+    GroupCommit(final DOMDataBroker dataBroker, final int maxGroupSize) {
+        this.dataBroker = dataBroker;
+        this.maxGroupSize = maxGroupSize;
+    }
+
+    /**
+     * Submits edit to be committed with other pending edits.
+     * @param edit writes of the edit
+     * @return future completed when the edit is committed, or failed with the cause of its commit failure
+     */
+    CompletableFuture<CommitInfo> submit(final Edit edit) {
+        final PendingEdit pendingEdit = new PendingEdit(edit, new CompletableFuture<>());
+        synchronized (this) {
+            pending.add(pendingEdit);
+        }
+        commitNext();
+        return pendingEdit.result();
+    }
+
+    private void commitNext() {
+        final List<PendingEdit> group;
+        synchronized (this) {
+            if (commitInProgress || pending.isEmpty()) {
+                return;
+            }
+            commitInProgress = true;
+            if (pending.size() <= maxGroupSize) {
+                group = pending;
+                pending = new ArrayList<>();
+            } else {
+                group = new ArrayList<>(pending.subList(0, maxGroupSize));
+                pending.subList(0, maxGroupSize).clear();
+            }
+        }
+        if (group.size() == 1) {
+            commitSeparately(group, 0);
+            return;
+        }
+
+        LOG.debug("Committing group of {} edits", group.size());
+        final DOMDataTreeReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        final List<PendingEdit> applied = apply(tx, group);
+        if (applied == null) {
+            tx.cancel();
+            commitSeparately(group.stream().filter(edit -> !edit.result().isDone()).toList(), 0);
+            return;
+        }
+        if (applied.isEmpty()) {
+            tx.cancel();
+            finishGroup();
+            return;
+        }
+        tx.commit().addCallback(new FutureCallback<CommitInfo>() {
+            @Override
+            public void onSuccess(final CommitInfo result) {
+                applied.forEach(edit -> edit.result().complete(result));
+                finishGroup();
+            }
+
+            @Override
+            public void onFailure(final Throwable throwable) {
+                LOG.debug("Group commit of {} edits failed, committing them separately", applied.size(),
+                    throwable);
+                commitSeparately(applied, 0);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Commits edits of the group from the index one by one, each in its own transaction.
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void commitSeparately(final List<PendingEdit> group, final int index) {
+        if (index == group.size()) {
+            finishGroup();
+            return;
+        }
+        final PendingEdit edit = group.get(index);
+        final DOMDataTreeReadWriteTransaction tx = dataBroker.newReadWriteTransaction();
+        try {
+            edit.edit().apply(tx);
+        } catch (final NetconfDocumentedException | RuntimeException e) {
+            tx.cancel();
+            edit.result().completeExceptionally(e);
+            commitSeparately(group, index + 1);
+            return;
+        }
+        tx.commit().addCallback(new FutureCallback<CommitInfo>() {
+            @Override
+            public void onSuccess(final CommitInfo result) {
+                edit.result().complete(result);
+                commitSeparately(group, index + 1);
+            }
+
+            @Override
+            public void onFailure(final Throwable throwable) {
+                edit.result().completeExceptionally(throwable);
+                commitSeparately(group, index + 1);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Applies edits of the group to the transaction. Edits rejected by their precondition are failed.
+     * @return edits applied to the transaction or null if some edit failed unexpectedly
+     */
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private static List<PendingEdit> apply(final DOMDataTreeReadWriteTransaction tx, final List<PendingEdit> group) {
+        final List<PendingEdit> applied = new ArrayList<>(group.size());
+        for (final PendingEdit edit : group) {
+            try {
+                edit.edit().apply(tx);
+                applied.add(edit);
+            } catch (final NetconfDocumentedException e) {
+                edit.result().completeExceptionally(e);
+            } catch (final RuntimeException e) {
+                LOG.debug("Edit could not be applied to group transaction", e);
+                return null;
+            }
+        }
+        return applied;
+    }
+
+    private void finishGroup() {
+        synchronized (this) {
+            commitInProgress = false;
+        }
+        commitNext();
+    }
+
+    /**
+     * Configuration edit checking its preconditions and writing its data.
+     */
+    @FunctionalInterface
+    interface Edit {
+        /**
+         * Applies edit to the transaction.
+         * @param tx transaction containing preceding edits of the group
+         * @throws NetconfDocumentedException if precondition of the edit does not hold, nothing is written then
+         */
+        void apply(DOMDataTreeReadWriteTransaction tx) throws NetconfDocumentedException;
+    }
+
+    private record PendingEdit(Edit edit, CompletableFuture<CommitInfo> result) {
+    }
+}
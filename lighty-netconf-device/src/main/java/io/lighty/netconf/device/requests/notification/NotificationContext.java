@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Notification state of the device shared by notification operations of all sessions.
+ *
+ * @param encoder encoder of notification messages
+ * @param subscriptions subscriptions of all sessions
+ * @param streams event streams by their names
+ * @param queueConfig configuration of session queues or null when notifications are sent immediately
+ * @param flushExecutor executor writing session queues or null when notifications are sent immediately
+ * @param replayBuffer buffer of published notifications or null when replay is not supported
+ * @param replayExecutor executor of replays or null when replay is not supported
+ * @param yangPush datastore subscriptions or null when YANG-push is not supported
+ */
+record NotificationContext(NotificationMessageEncoder encoder, NotificationSubscriptions subscriptions,
+        Map<String, NotificationStream> streams, @Nullable NotificationQueueConfig queueConfig,
+        @Nullable ScheduledExecutorService flushExecutor, @Nullable NotificationReplayBuffer replayBuffer,
+        @Nullable ScheduledExecutorService replayExecutor, @Nullable YangPushService yangPush) {
+
+    NotificationContext {
+        streams = Map.copyOf(streams);
+    }
+}
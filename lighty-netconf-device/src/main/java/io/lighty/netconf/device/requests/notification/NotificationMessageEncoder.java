@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.codecs.util.ConverterUtils;
+import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.codecs.util.exception.SerializationException;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import javax.xml.parsers.DocumentBuilder;
+import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.yangtools.binding.Notification;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.NotificationDefinition;
+import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Encodes binding notifications into NETCONF notification messages. Message is encoded once and the same
+ * message is sent to all subscribed sessions.
+ */
+final class NotificationMessageEncoder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationMessageEncoder.class);
+    private static final String NETMOD_NOTIFICATION_NAMESPACE = "urn:ietf:params:xml:ns:netmod:notification";
+    private static final DateTimeFormatter EVENT_TIME_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
+    private final AdapterContext adapterContext;
+    private final EffectiveModelContext effectiveModelContext;
+    private final XmlNodeConverter xmlNodeConverter;
+
+    NotificationMessageEncoder(final AdapterContext adapterContext) {
+        this.adapterContext = adapterContext;
+        this.effectiveModelContext = adapterContext.currentSerializer().getRuntimeContext().modelContext();
+        this.xmlNodeConverter = new XmlNodeConverter(this.effectiveModelContext);
+    }
+
+    EffectiveModelContext getEffectiveModelContext() {
+        return effectiveModelContext;
+    }
+
+    /**
+     * Encodes notification into message.
+     * @return encoded message or empty when notification cannot be encoded
+     */
+    Optional<NetconfMessage> encode(final Notification notificationMessage, final QName quName,
+            final Instant eventTime) {
+        final Optional<? extends NotificationDefinition> notificationDefinition =
+                ConverterUtils.loadNotification(this.effectiveModelContext, quName);
+        if (notificationDefinition.isEmpty()) {
+            throw new UnsupportedOperationException("Cannot load definition for QName: " + quName);
+        }
+        final ContainerNode containerNode = this.adapterContext.currentSerializer()
+                .toNormalizedNodeNotification(notificationMessage);
+
+        final Writer writer;
+        try {
+            writer = xmlNodeConverter.serializeRpc(Absolute.of(notificationDefinition.get().getQName()),
+                    containerNode);
+        } catch (final SerializationException e) {
+            LOG.error("Failed to serialize notification to xml", e);
+            return Optional.empty();
+        }
+        try (InputStream is = new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8))) {
+            final DocumentBuilder builder = UntrustedXML.newDocumentBuilder();
+            final Document notification = builder.parse(is);
+            final Document document = builder.newDocument();
+            final Element content = (Element) document.importNode(notification.getDocumentElement(), true);
+            document.appendChild(createEnvelope(document, content, eventTime));
+            final NetconfMessage netconfMessage = new NetconfMessage(document);
+            LOG.debug("Encoded notification message: {}", netconfMessage);
+            return Optional.of(netconfMessage);
+        } catch (IOException | SAXException e) {
+            LOG.error("Failed to encode notification message", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates message of notification without content defined in RFC 5277, such as {@code replayComplete}.
+     */
+    static NetconfMessage encodeEvent(final String eventName, final Instant eventTime) {
+        final Document document = UntrustedXML.newDocumentBuilder().newDocument();
+        document.appendChild(createEnvelope(document, document.createElementNS(NETMOD_NOTIFICATION_NAMESPACE,
+            eventName), eventTime));
+        return new NetconfMessage(document);
+    }
+
+    /**
+     * Serializes message into form stored in replay buffer.
+     */
+    static byte[] toBytes(final NetconfMessage message) {
+        return XmlUtil.toString(message.getDocument()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses message stored in replay buffer.
+     */
+    static NetconfMessage fromBytes(final byte[] content) throws IOException, SAXException {
+        return new NetconfMessage(XmlUtil.readXmlToDocument(new ByteArrayInputStream(content)));
+    }
+
+    /**
+     * Creates {@code notification} element with event time and given content.
+     */
+    static Element createEnvelope(final Document document, final Element content, final Instant eventTime) {
+        final Element body = document.createElementNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE, "notification");
+        final Element eventTimeElement = document.createElement("eventTime");
+        eventTimeElement.setTextContent(EVENT_TIME_FORMATTER.format(eventTime));
+        body.appendChild(eventTimeElement);
+        body.appendChild(content);
+        return body;
+    }
+}
@@ -7,24 +7,21 @@
  */
 package io.lighty.netconf.device.requests.notification;
 
-import io.lighty.codecs.util.ConverterUtils;
-import io.lighty.codecs.util.XmlNodeConverter;
-import io.lighty.codecs.util.exception.SerializationException;
 import io.lighty.netconf.device.utils.RPCUtil;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import javax.xml.parsers.DocumentBuilder;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
 import org.opendaylight.netconf.api.DocumentedException;
 import org.opendaylight.netconf.api.NetconfSession;
@@ -34,11 +31,11 @@ import org.opendaylight.netconf.server.api.operations.NetconfOperationChainedExe
 import org.opendaylight.netconf.server.api.operations.SessionAwareNetconfOperation;
 import org.opendaylight.yangtools.binding.Notification;
 import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
 import org.opendaylight.yangtools.yang.common.QName;
-import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
-import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
 import org.opendaylight.yangtools.yang.model.api.NotificationDefinition;
-import org.opendaylight.yangtools.yang.model.api.stmt.SchemaNodeIdentifier.Absolute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -48,105 +45,203 @@ import org.xml.sax.SAXException;
 
 public class NotificationOperation implements SessionAwareNetconfOperation {
 
+    /**
+     * Sequence number of notification which is not stored in replay buffer.
+     */
+    static final long NOT_STORED = Long.MAX_VALUE;
+
     private static final Logger LOG = LoggerFactory.getLogger(NotificationOperation.class);
-    private final EffectiveModelContext effectiveModelContext;
-    private final AdapterContext adapterContext;
+    private static final int REPLAY_BATCH_SIZE = 1024;
+    private static final Set<String> PUSH_OPERATIONS =
+        Set.of("establish-subscription", "delete-subscription", "kill-subscription");
+    private final NotificationContext context;
 
-    private final Map<String, List<NetconfSession>> sessions = new HashMap<>();
+    private final Map<NetconfSession, NotificationSubscriptions.Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<NetconfSession, SessionNotificationQueue> queues = new ConcurrentHashMap<>();
+    // live notifications published while replay of the session is in progress
+    private final Map<NetconfSession, List<PendingNotification>> replayingSessions = new ConcurrentHashMap<>();
+    // sessions owning datastore subscriptions by subscription id
+    private final Map<Long, NetconfSession> pushSubscriptions = new ConcurrentHashMap<>();
+    private NetconfSession currentSession;
+    private Element pushOperation;
     private boolean isSubscription;
-    private String streamName;
+    private Set<QName> streamNotifications;
+    private SubscriptionFilter filter;
+    private Instant startTime;
+    private Instant stopTime;
 
 
     public NotificationOperation(final AdapterContext adapterContext) {
-        this.adapterContext = adapterContext;
-        this.effectiveModelContext = adapterContext.currentSerializer().getRuntimeContext().modelContext();
+        this(new NotificationContext(new NotificationMessageEncoder(adapterContext), new NotificationSubscriptions(),
+            Map.of(NotificationStream.NETCONF_STREAM_NAME, NotificationStream.netconf()), null, null, null, null,
+            null));
+    }
+
+    NotificationOperation(final NotificationContext context) {
+        this.context = context;
     }
 
     public void sendMessage(final Notification notificationMessage, final QName quName) {
-        final List<NetconfSession> sessionList = this.sessions.get(quName.getLocalName());
-        if (sessionList != null && !sessionList.isEmpty()) {
-            final ContainerNode containerNode = this.adapterContext.currentSerializer()
-                    .toNormalizedNodeNotification(notificationMessage);
+        if (context.subscriptions().hasSubscribers(quName)) {
+            context.encoder().encode(notificationMessage, quName, Instant.now())
+                .ifPresent(message -> context.subscriptions().publish(quName, message, NOT_STORED));
+        }
+    }
 
-            final Optional<? extends NotificationDefinition> notificationDefinition =
-                    ConverterUtils.loadNotification(this.effectiveModelContext, quName);
-            final XmlNodeConverter xmlNodeConverter = new XmlNodeConverter(this.effectiveModelContext);
+    /**
+     * Unsubscribes all sessions and discards their buffered notifications.
+     */
+    void close() {
+        if (context.yangPush() != null) {
+            this.pushSubscriptions.keySet().forEach(context.yangPush()::delete);
+        }
+        this.pushSubscriptions.clear();
+        this.subscribers.values().forEach(context.subscriptions()::unsubscribe);
+        this.subscribers.clear();
+        this.replayingSessions.clear();
+        this.queues.values().forEach(SessionNotificationQueue::close);
+        this.queues.clear();
+    }
 
-            if (notificationDefinition.isEmpty()) {
-                throw new UnsupportedOperationException("Cannot load definition for QName: " + quName);
+    @Override
+    public void setSession(final NetconfSession session) {
+        this.currentSession = session;
+        if (this.isSubscription) {
+            final Instant replayStart = this.startTime;
+            final Instant replayStop = this.stopTime;
+            final List<PendingNotification> pending = new ArrayList<>();
+            if (replayStart != null) {
+                this.replayingSessions.put(session, pending);
+            }
+            if (replayStop == null || replayStop.isAfter(Instant.now())) {
+                final NotificationSubscriptions.Subscriber subscriber = this.subscribers.computeIfAbsent(session,
+                    key -> (message, sequence) -> sendLive(key, message, sequence));
+                context.subscriptions().subscribe(this.streamNotifications, this.filter, subscriber);
+                LOG.debug("Session {} subscribed to {} with filter {}", session, this.streamNotifications,
+                    this.filter);
+            }
+            if (replayStart != null) {
+                // notifications published from now on are delivered live, older ones are replayed
+                final ReplayRequest request = new ReplayRequest(replayStart, replayStop, this.streamNotifications,
+                    this.filter, context.replayBuffer().lastSequence());
+                context.replayExecutor().execute(() -> replay(session, request, pending));
             }
+        }
+    }
 
-            final Writer writer;
-            try {
-                writer = xmlNodeConverter.serializeRpc(Absolute.of(notificationDefinition.get().getQName()),
-                        containerNode);
-                try (InputStream is = new ByteArrayInputStream(writer.toString().getBytes(StandardCharsets.UTF_8))) {
-                    final DocumentBuilder builder = UntrustedXML.newDocumentBuilder();
-                    final Document notification = builder.parse(is);
-                    final Element body =
-                        notification.createElementNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE,
-                            "notification");
-
-                    final Element notificationElement = notification.getDocumentElement();
-                    final Element eventTime = notification.createElement("eventTime");
-                    final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                    eventTime.setTextContent(dateFormat.format(new Date()));
-                    body.appendChild(eventTime);
-                    body.appendChild(notificationElement);
-                    final Document document = builder.newDocument();
-                    final org.w3c.dom.Node importNode = document.importNode(body, true);
-                    document.appendChild(importNode);
-                    final NetconfMessage netconfMessage = new NetconfMessage(document);
-                    LOG.debug("Sending notification message: {}", netconfMessage.toString());
-                    sessionList.forEach(session -> session.sendMessage(netconfMessage));
-                } catch (IOException | SAXException e) {
-                    LOG.error("Failed to send notification message", e);
-                }
-            } catch (final SerializationException e) {
-                LOG.error("Failed to serialize notification to xml", e);
+    private void sendLive(final NetconfSession session, final NetconfMessage netconfMessage, final long sequence) {
+        final List<PendingNotification> pending = this.replayingSessions.get(session);
+        if (pending == null || !addPending(session, pending, new PendingNotification(sequence, netconfMessage))) {
+            deliver(session, netconfMessage);
+        }
+    }
+
+    private void unsubscribe(final NetconfSession session) {
+        final NotificationSubscriptions.Subscriber subscriber = this.subscribers.remove(session);
+        if (subscriber != null) {
+            context.subscriptions().unsubscribe(subscriber);
+            LOG.debug("Session {} unsubscribed", session);
+        }
+    }
+
+    private void deliver(final NetconfSession session, final NetconfMessage netconfMessage) {
+        if (context.queueConfig() == null) {
+            session.sendMessage(netconfMessage);
+        } else {
+            this.queues.computeIfAbsent(session,
+                key -> new SessionNotificationQueue(key, context.queueConfig(), context.flushExecutor()))
+                .enqueue(netconfMessage);
+        }
+    }
+
+    private boolean addPending(final NetconfSession session, final List<PendingNotification> pending,
+            final PendingNotification notification) {
+        synchronized (pending) {
+            if (this.replayingSessions.get(session) != pending) {
+                return false;
             }
+            pending.add(notification);
+            return true;
         }
     }
 
-    @Override
-    public void setSession(final NetconfSession session) {
-        if (this.isSubscription) {
-            if (this.streamName == null) {
-                final Collection<? extends NotificationDefinition> notifications =
-                        this.effectiveModelContext.getNotifications();
-                notifications.forEach(notification -> {
-                    final String name = notification.getQName().getLocalName();
-                    List<NetconfSession> sessionsList = this.sessions.get(name);
-                    if (sessionsList == null) {
-                        sessionsList = new ArrayList<>();
+    /**
+     * Replays stored notifications published up to last sequence, followed by {@code replayComplete}
+     * and live notifications published meanwhile. Subscription with stop time ends by
+     * {@code notificationComplete} once the stop time passes.
+     */
+    private void replay(final NetconfSession session, final ReplayRequest request,
+            final List<PendingNotification> pending) {
+        final Instant replayStop = request.stopTime();
+        final long lastSequence = request.lastSequence();
+        long sequence = context.replayBuffer().sequenceAt(request.startTime());
+        int replayed = 0;
+        boolean finished = false;
+        while (!finished) {
+            final List<NotificationReplayBuffer.StoredNotification> batch =
+                context.replayBuffer().read(sequence, REPLAY_BATCH_SIZE);
+            finished = batch.isEmpty();
+            for (final NotificationReplayBuffer.StoredNotification stored : batch) {
+                if (stored.sequence() > lastSequence
+                        || (replayStop != null && stored.eventTime().isAfter(replayStop))) {
+                    finished = true;
+                    break;
+                }
+                try {
+                    final NetconfMessage message = NotificationMessageEncoder.fromBytes(stored.content());
+                    if (request.selects(NotificationSubscriptions.notificationContent(message))) {
+                        deliver(session, message);
+                        replayed++;
                     }
-                    sessionsList.add(session);
-                    this.sessions.put(name, sessionsList);
-                });
-            } else {
-                List<NetconfSession> sessionsList = this.sessions.get(this.streamName);
-                if (sessionsList == null) {
-                    sessionsList = new ArrayList<>();
+                } catch (IOException | SAXException e) {
+                    LOG.warn("Failed to replay notification {} to session {}", stored.sequence(), session, e);
                 }
-                sessionsList.add(session);
-                this.sessions.put(this.streamName, sessionsList);
+                sequence = stored.sequence() + 1;
             }
         }
+        deliver(session, NotificationMessageEncoder.encodeEvent("replayComplete", Instant.now()));
+        LOG.debug("Replayed {} notifications to session {}", replayed, session);
+
+        final boolean completed = replayStop != null && !replayStop.isAfter(Instant.now());
+        synchronized (pending) {
+            if (!completed) {
+                pending.stream()
+                    .filter(notification -> notification.sequence() > lastSequence)
+                    .forEach(notification -> deliver(session, notification.message()));
+            }
+            this.replayingSessions.remove(session, pending);
+        }
+        if (completed) {
+            completeSubscription(session);
+        } else if (replayStop != null) {
+            context.replayExecutor().schedule(() -> completeSubscription(session),
+                Duration.between(Instant.now(), replayStop).toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void completeSubscription(final NetconfSession session) {
+        unsubscribe(session);
+        deliver(session, NotificationMessageEncoder.encodeEvent("notificationComplete", Instant.now()));
     }
 
     @Override
     public HandlingPriority canHandle(final Document message) throws DocumentedException {
+        this.pushOperation = context.yangPush() == null ? null : findPushOperation(message);
+        if (this.pushOperation != null) {
+            this.isSubscription = false;
+            return HandlingPriority.HANDLE_WITH_MAX_PRIORITY;
+        }
         this.isSubscription = message.getDocumentElement().getElementsByTagName("create-subscription").getLength() == 1;
         if (this.isSubscription) {
-            final Node stream = message.getDocumentElement().getElementsByTagName("stream").item(0);
-            if (stream == null) {
-                this.streamName = null;
-            } else {
-                this.streamName = stream
-                        .getChildNodes()
-                        .item(0)
-                        .getTextContent().split(":")[1];
-            }
+            final Node stream = message.getDocumentElement()
+                .getElementsByTagNameNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE, "stream").item(0);
+            this.streamNotifications = resolveStream(stream == null ? NotificationStream.NETCONF_STREAM_NAME
+                : stream.getTextContent().trim());
+            this.filter = SubscriptionFilter.of((Element) message.getDocumentElement()
+                .getElementsByTagNameNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE, "filter").item(0));
+            this.startTime = parseTime(message, "startTime");
+            this.stopTime = parseTime(message, "stopTime");
+            validateReplayTimes();
         }
         return new HandlingPriority(0);
     }
@@ -154,7 +249,148 @@ public class NotificationOperation implements SessionAwareNetconfOperation {
     @Override
     public Document handle(final Document requestMessage,
         final NetconfOperationChainedExecution subsequentOperation) throws DocumentedException {
+        if (this.pushOperation != null) {
+            return handlePush(requestMessage.getDocumentElement(), this.pushOperation);
+        }
         return subsequentOperation.execute(requestMessage);
     }
 
+    /**
+     * Establishes or deletes datastore subscription of current session. Session can delete only its own
+     * subscriptions, while kill-subscription deletes subscription of any session.
+     */
+    private Document handlePush(final Element rpc, final Element operation) throws DocumentedException {
+        final YangPushService yangPush = context.yangPush();
+        final NetconfSession session = this.currentSession;
+        final Document document = UntrustedXML.newDocumentBuilder().newDocument();
+        final Element rpcReply = document.createElementNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-reply");
+        if (rpc.hasAttribute("message-id")) {
+            rpcReply.setAttribute("message-id", rpc.getAttribute("message-id"));
+        }
+        document.appendChild(rpcReply);
+        if ("establish-subscription".equals(operation.getLocalName())) {
+            final YangPushRequest request = YangPushRequest.of(operation, yangPush.getModelContext());
+            final long id = yangPush.establish(request, message -> deliver(session, message));
+            this.pushSubscriptions.put(id, session);
+            final Element idElement = document.createElementNS(YangPushRequest.SUBSCRIBED_NOTIFICATIONS_NAMESPACE,
+                "id");
+            idElement.setTextContent(Long.toString(id));
+            rpcReply.appendChild(idElement);
+            LOG.debug("Session {} established subscription {}", session, id);
+            return document;
+        }
+        final long id = parseSubscriptionId(operation);
+        final boolean killed = "kill-subscription".equals(operation.getLocalName());
+        if (!killed && this.pushSubscriptions.get(id) != session) {
+            throw YangPushRequest.error("Subscription " + id + " is not established by the session",
+                ErrorTag.INVALID_VALUE);
+        }
+        if (!yangPush.delete(id)) {
+            throw YangPushRequest.error("Subscription " + id + " does not exist", ErrorTag.INVALID_VALUE);
+        }
+        this.pushSubscriptions.remove(id);
+        rpcReply.appendChild(RPCUtil.createOkNode(document));
+        return document;
+    }
+
+    private static @Nullable Element findPushOperation(final Document message) {
+        for (Node node = message.getDocumentElement().getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element
+                    && YangPushRequest.SUBSCRIBED_NOTIFICATIONS_NAMESPACE.equals(element.getNamespaceURI())
+                    && PUSH_OPERATIONS.contains(element.getLocalName())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static long parseSubscriptionId(final Element operation) throws DocumentedException {
+        final Element id = YangPushRequest.child(operation, YangPushRequest.SUBSCRIBED_NOTIFICATIONS_NAMESPACE, "id");
+        if (id == null) {
+            throw YangPushRequest.error("Subscription id is missing", ErrorTag.MISSING_ELEMENT);
+        }
+        try {
+            return Long.parseLong(id.getTextContent().trim());
+        } catch (final NumberFormatException e) {
+            throw YangPushRequest.error("Invalid subscription id " + id.getTextContent(), ErrorTag.INVALID_VALUE);
+        }
+    }
+
+    /**
+     * Resolves notifications of the stream. Streams not defined on the device are, for backward compatibility,
+     * resolved by the part following colon as local name of single notification.
+     */
+    private Set<QName> resolveStream(final String streamName) throws DocumentedException {
+        final Collection<? extends NotificationDefinition> definitions =
+            context.encoder().getEffectiveModelContext().getNotifications();
+        final NotificationStream stream = context.streams().get(streamName);
+        final int colon = streamName.lastIndexOf(':');
+        final Set<QName> notifications = definitions.stream()
+            .map(NotificationDefinition::getQName)
+            .filter(stream != null ? stream::includes
+                : qname -> colon >= 0 && qname.getLocalName().equals(streamName.substring(colon + 1)))
+            .collect(Collectors.toUnmodifiableSet());
+        if (stream == null && notifications.isEmpty()) {
+            throw new DocumentedException("Stream " + streamName + " does not exist", ErrorType.PROTOCOL,
+                ErrorTag.INVALID_VALUE, ErrorSeverity.ERROR);
+        }
+        return notifications;
+    }
+
+    private void validateReplayTimes() throws DocumentedException {
+        if (this.startTime == null) {
+            if (this.stopTime != null) {
+                throw new DocumentedException("stopTime requires startTime", ErrorType.PROTOCOL,
+                    ErrorTag.MISSING_ELEMENT, ErrorSeverity.ERROR);
+            }
+            return;
+        }
+        if (context.replayBuffer() == null) {
+            throw new DocumentedException("Notification replay is not supported", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED, ErrorSeverity.ERROR);
+        }
+        if (this.startTime.isAfter(Instant.now())) {
+            throw new DocumentedException("startTime is in the future", ErrorType.PROTOCOL,
+                ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR);
+        }
+        if (this.stopTime != null && this.stopTime.isBefore(this.startTime)) {
+            throw new DocumentedException("stopTime is earlier than startTime", ErrorType.PROTOCOL,
+                ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR);
+        }
+    }
+
+    private static Instant parseTime(final Document message, final String elementName) throws DocumentedException {
+        final Node time = message.getDocumentElement()
+            .getElementsByTagNameNS(RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE, elementName).item(0);
+        if (time == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(time.getTextContent().trim()).toInstant();
+        } catch (final DateTimeParseException e) {
+            throw new DocumentedException("Invalid " + elementName + ": " + time.getTextContent(), e,
+                ErrorType.PROTOCOL, ErrorTag.BAD_ELEMENT, ErrorSeverity.ERROR);
+        }
+    }
+
+    /**
+     * Live notification published while the session replays stored notifications.
+     */
+    private record PendingNotification(long sequence, NetconfMessage message) {
+    }
+
+    /**
+     * Replay of notifications selected by subscription, published from start time up to stop time
+     * and not after last sequence.
+     */
+    private record ReplayRequest(Instant startTime, @Nullable Instant stopTime, Set<QName> notifications,
+            SubscriptionFilter filter, long lastSequence) {
+
+        boolean selects(final Element content) {
+            final boolean inStream = notifications.stream().anyMatch(notification ->
+                notification.getLocalName().equals(content.getLocalName())
+                    && notification.getNamespace().toString().equals(content.getNamespaceURI()));
+            return inStream && filter.matches(content);
+        }
+    }
 }
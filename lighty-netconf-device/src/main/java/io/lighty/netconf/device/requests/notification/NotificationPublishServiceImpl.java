@@ -7,8 +7,18 @@
  */
 package io.lighty.netconf.device.requests.notification;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.eclipse.jdt.annotation.Nullable;
 import org.opendaylight.mdsal.binding.dom.adapter.AdapterContext;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
 import org.opendaylight.netconf.server.api.monitoring.Capability;
 import org.opendaylight.netconf.server.api.operations.NetconfOperationService;
 import org.opendaylight.netconf.test.tool.operations.OperationsCreator;
@@ -16,28 +26,139 @@ import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.re
 import org.opendaylight.yangtools.binding.Notification;
 import org.opendaylight.yangtools.yang.common.QName;
 
-public class NotificationPublishServiceImpl implements OperationsCreator, NotificationPublishService {
+/**
+ * Publishes notifications to all sessions subscribed on the device. Notification is encoded once
+ * per publication and each subscription filter is evaluated once per publication, sessions with identical
+ * filter share the result. When created with {@link NotificationQueueConfig}, notifications are delivered
+ * through bounded per-session queues written in batches, otherwise they are sent to sessions immediately.
+ * When created with {@link NotificationReplayConfig}, published notifications are kept in replay buffer
+ * and subscriptions with start time replay them. When YANG-push is enabled, sessions can also establish
+ * periodic and on-change subscriptions to datastore contents.
+ */
+public class NotificationPublishServiceImpl implements OperationsCreator, NotificationPublishService, AutoCloseable {
+
+    private final Set<NotificationOperation> notificationOperations = ConcurrentHashMap.newKeySet();
+    private final NotificationSubscriptions subscriptions = new NotificationSubscriptions();
+    private final Map<String, NotificationStream> streams = new HashMap<>();
+    private final NotificationQueueConfig queueConfig;
+    private final ScheduledExecutorService flushExecutor;
+    private final NotificationReplayBuffer replayBuffer;
+    private final ScheduledExecutorService replayExecutor;
+    private boolean yangPushEnabled;
+    private ScheduledExecutorService yangPushExecutor;
+    private Map<LogicalDatastoreType, DOMStore> datastores = Map.of();
+    private YangPushService yangPush;
+    private NotificationContext context;
+
+    public NotificationPublishServiceImpl() {
+        this(null);
+    }
+
+    /**
+     * Creates publish service delivering notifications through per-session queues.
+     * @param queueConfig configuration of session queues or null to send notifications immediately
+     */
+    public NotificationPublishServiceImpl(final @Nullable NotificationQueueConfig queueConfig) {
+        this(queueConfig, null);
+    }
+
+    /**
+     * Creates publish service delivering notifications through per-session queues and keeping published
+     * notifications for replay.
+     * @param queueConfig configuration of session queues or null to send notifications immediately
+     * @param replayConfig configuration of replay buffer or null when replay is not supported
+     */
+    public NotificationPublishServiceImpl(final @Nullable NotificationQueueConfig queueConfig,
+            final @Nullable NotificationReplayConfig replayConfig) {
+        this.queueConfig = queueConfig;
+        this.flushExecutor = queueConfig == null ? null : createExecutor("notification-flush-%d");
+        this.replayBuffer = replayConfig == null ? null : new NotificationReplayBuffer(replayConfig);
+        this.replayExecutor = replayConfig == null ? null : createExecutor("notification-replay-%d");
+        addStream(NotificationStream.netconf());
+    }
+
+    /**
+     * Defines event stream sessions can subscribe to. Stream with the same name is replaced.
+     * Streams have to be defined before the adapter context is set.
+     * @param stream event stream
+     */
+    public void addStream(final NotificationStream stream) {
+        this.streams.put(stream.name(), stream);
+    }
+
+    /**
+     * Enables YANG-push datastore subscriptions. Has to be enabled before the adapter context is set.
+     * @param executor executor of datastore pushes, which can be shared by many devices, or null to create
+     *     executor owned by this service
+     */
+    public void enableYangPush(final @Nullable ScheduledExecutorService executor) {
+        this.yangPushEnabled = true;
+        this.yangPushExecutor = executor;
+    }
 
-    private NotificationOperation notificationOperation;
-    private AdapterContext adapterContext;
+    /**
+     * Sets datastores of the device YANG-push subscriptions read and listen to. Datastores have to be set
+     * before the adapter context is set.
+     * @param datastores datastores of the device
+     */
+    public void setDatastores(final Map<LogicalDatastoreType, DOMStore> datastores) {
+        this.datastores = Map.copyOf(datastores);
+    }
 
     @Override
     public void publish(final Notification notification, final QName quName) {
         // If the device is not fully started, the mountPoint will not be available, so it is not able to
         // send the notification.
-        if (this.notificationOperation != null) {
-            this.notificationOperation.sendMessage(notification, quName);
+        if (this.context == null || (this.replayBuffer == null && !this.subscriptions.hasSubscribers(quName))) {
+            return;
         }
+        final Instant eventTime = Instant.now();
+        this.context.encoder().encode(notification, quName, eventTime).ifPresent(message -> {
+            final long sequence = this.replayBuffer == null ? NotificationOperation.NOT_STORED
+                : this.replayBuffer.append(eventTime, NotificationMessageEncoder.toBytes(message));
+            this.subscriptions.publish(quName, message, sequence);
+        });
     }
 
     @Override
     public NetconfOperationService getNetconfOperationService(final Set<Capability> capabilities,
             final SessionIdType idType) {
-        this.notificationOperation = new NotificationOperation(this.adapterContext);
-        return new NotificationService(this.notificationOperation, idType);
+        final NotificationOperation notificationOperation = new NotificationOperation(this.context);
+        this.notificationOperations.add(notificationOperation);
+        return new NotificationService(notificationOperation, idType,
+            () -> this.notificationOperations.remove(notificationOperation));
     }
 
     public void setAdapterContext(final AdapterContext adapterContext) {
-        this.adapterContext = adapterContext;
+        final NotificationMessageEncoder encoder = new NotificationMessageEncoder(adapterContext);
+        if (this.yangPushEnabled && !this.datastores.isEmpty() && this.yangPush == null) {
+            this.yangPush = this.yangPushExecutor == null
+                ? new YangPushService(encoder.getEffectiveModelContext(), this.datastores,
+                    createExecutor("yang-push-%d"), true)
+                : new YangPushService(encoder.getEffectiveModelContext(), this.datastores, this.yangPushExecutor,
+                    false);
+        }
+        this.context = new NotificationContext(encoder, this.subscriptions, this.streams, this.queueConfig,
+            this.flushExecutor, this.replayBuffer, this.replayExecutor, this.yangPush);
+    }
+
+    @Override
+    public void close() {
+        this.notificationOperations.forEach(NotificationOperation::close);
+        this.notificationOperations.clear();
+        if (this.yangPush != null) {
+            this.yangPush.close();
+        }
+        if (this.flushExecutor != null) {
+            this.flushExecutor.shutdownNow();
+        }
+        if (this.replayExecutor != null) {
+            this.replayExecutor.shutdownNow();
+        }
+    }
+
+    private static ScheduledExecutorService createExecutor(final String nameFormat) {
+        return Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
     }
 }
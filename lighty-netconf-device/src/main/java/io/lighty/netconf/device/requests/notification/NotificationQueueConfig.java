@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+
+/**
+ * Configuration of per-session outbound notification queue. Notifications published to a session are
+ * buffered and written in batches of at most {@code batchSize} messages, at latest {@code flushInterval}
+ * after the first buffered notification. Next batch is written only when the previous one was written
+ * to the session channel, so slow subscriber fills its buffer and {@code overflowPolicy} decides
+ * what happens to notifications which do not fit into it.
+ *
+ * @param capacity maximum number of notifications buffered for one session
+ * @param batchSize maximum number of notifications written to session at once
+ * @param flushInterval maximum time notification waits in buffer when batch is not full
+ * @param overflowPolicy behavior when session buffer is full
+ */
+public record NotificationQueueConfig(int capacity, int batchSize, Duration flushInterval,
+        OverflowPolicy overflowPolicy) {
+
+    /**
+     * Behavior when notification is published to session with full buffer.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Notification is dropped for the session.
+         */
+        DROP,
+        /**
+         * Publisher waits until there is space in the buffer. Waiting happens on the thread publishing
+         * the notification, so one slow session delays the publisher and delivery to all other sessions.
+         */
+        BLOCK,
+        /**
+         * Session is closed.
+         */
+        DISCONNECT
+    }
+
+    public NotificationQueueConfig {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive, was %s", capacity);
+        Preconditions.checkArgument(batchSize > 0 && batchSize <= capacity,
+            "Batch size must be positive and not greater than capacity, was %s", batchSize);
+        requireNonNull(flushInterval);
+        Preconditions.checkArgument(!flushInterval.isNegative(), "Flush interval must not be negative");
+        requireNonNull(overflowPolicy);
+    }
+
+    /**
+     * Creates configuration buffering up to 10 000 notifications per session, written in batches
+     * of 256 notifications at latest after 10 milliseconds, dropping notifications for sessions
+     * with full buffer.
+     * @return default configuration
+     */
+    public static NotificationQueueConfig defaults() {
+        return new NotificationQueueConfig(10_000, 256, Duration.ofMillis(10), OverflowPolicy.DROP);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ring buffer of encoded notifications ordered by publication. Encoded notifications are stored one after
+ * another in single byte arena, their sequence numbers, event times and positions in the arena are kept
+ * in fixed size ring of entries. Event times never decrease, so entries can be looked up by time
+ * with binary search.
+ */
+final class NotificationReplayBuffer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationReplayBuffer.class);
+
+    /**
+     * Notification read from the buffer.
+     *
+     * @param sequence publication sequence number
+     * @param eventTime event time of notification
+     * @param content encoded notification message
+     */
+    record StoredNotification(long sequence, Instant eventTime, byte[] content) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ByteBuffer arena;
+    private final long[] sequences;
+    private final long[] eventTimes;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    // guarded by lock
+    private int head;
+    private int count;
+    private int writeOffset;
+    private long lastSequence;
+    private long lastEventTime = Long.MIN_VALUE;
+
+    NotificationReplayBuffer(final NotificationReplayConfig config) {
+        this.arena = config.offHeap() ? ByteBuffer.allocateDirect(config.maxBytes())
+            : ByteBuffer.allocate(config.maxBytes());
+        this.sequences = new long[config.maxNotifications()];
+        this.eventTimes = new long[config.maxNotifications()];
+        this.offsets = new int[config.maxNotifications()];
+        this.lengths = new int[config.maxNotifications()];
+    }
+
+    /**
+     * Stores encoded notification, evicting oldest notifications when buffer is full.
+     * @return sequence number of the notification
+     */
+    long append(final Instant eventTime, final byte[] content) {
+        lock.writeLock().lock();
+        try {
+            final long sequence = ++lastSequence;
+            if (content.length > arena.capacity()) {
+                LOG.warn("Notification of {} bytes does not fit into replay buffer, it will not be replayed",
+                    content.length);
+                return sequence;
+            }
+            // keep event times ordered even if clock goes backwards
+            lastEventTime = Math.max(lastEventTime, eventTime.toEpochMilli());
+            store(sequence, content);
+            return sequence;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Provides sequence number of last published notification.
+     */
+    long lastSequence() {
+        lock.readLock().lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Provides sequence number of first stored notification with event time not before start time.
+     * @return sequence number or sequence number of next notification when there is no such notification
+     */
+    long sequenceAt(final Instant startTime) {
+        lock.readLock().lock();
+        try {
+            final int position = firstPosition(eventTimes, startTime.toEpochMilli());
+            return position < count ? sequences[index(position)] : lastSequence + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads stored notifications in publication order. Notifications evicted meanwhile are skipped.
+     * @param fromSequence sequence number of first notification to read
+     * @param maxCount maximum number of notifications to read
+     * @return stored notifications
+     */
+    List<StoredNotification> read(final long fromSequence, final int maxCount) {
+        lock.readLock().lock();
+        try {
+            final List<StoredNotification> notifications = new ArrayList<>(Math.min(maxCount, count));
+            for (int position = firstPosition(sequences, fromSequence);
+                    position < count && notifications.size() < maxCount; position++) {
+                final int index = index(position);
+                final byte[] content = new byte[lengths[index]];
+                arena.get(offsets[index], content);
+                notifications.add(new StoredNotification(sequences[index], Instant.ofEpochMilli(eventTimes[index]),
+                    content));
+            }
+            return notifications;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void store(final long sequence, final byte[] content) {
+        final int length = content.length;
+        if (count == 0) {
+            writeOffset = 0;
+        }
+        if (writeOffset + length > arena.capacity()) {
+            // unused tail of the arena is skipped, notifications stored there are the oldest ones
+            while (count > 0 && offsets[head] >= writeOffset) {
+                evictHead();
+            }
+            writeOffset = 0;
+        }
+        while (count > 0 && (count == sequences.length || overlapsHead(length))) {
+            evictHead();
+        }
+        arena.put(writeOffset, content);
+        final int index = index(count);
+        sequences[index] = sequence;
+        eventTimes[index] = lastEventTime;
+        offsets[index] = writeOffset;
+        lengths[index] = length;
+        count++;
+        writeOffset += length;
+    }
+
+    private boolean overlapsHead(final int length) {
+        return offsets[head] < writeOffset + length && offsets[head] + lengths[head] > writeOffset;
+    }
+
+    private void evictHead() {
+        head = (head + 1) % sequences.length;
+        count--;
+    }
+
+    private int index(final int position) {
+        return (head + position) % sequences.length;
+    }
+
+    /**
+     * Finds first position of entry with value not less than the key in ring ordered by the values.
+     */
+    private int firstPosition(final long[] values, final long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (values[index(middle)] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Configuration of notification replay buffer. Device keeps encoded recently published notifications,
+ * so that {@code create-subscription} with {@code startTime} can replay them as described in RFC 5277.
+ * Oldest notifications are evicted when either limit is reached.
+ *
+ * @param maxNotifications maximum number of stored notifications
+ * @param maxBytes maximum size of stored encoded notifications in bytes
+ * @param offHeap store encoded notifications in direct memory instead of heap
+ */
+public record NotificationReplayConfig(int maxNotifications, int maxBytes, boolean offHeap) {
+
+    public NotificationReplayConfig {
+        Preconditions.checkArgument(maxNotifications > 0, "Maximum notifications must be positive, was %s",
+            maxNotifications);
+        Preconditions.checkArgument(maxBytes > 0, "Maximum bytes must be positive, was %s", maxBytes);
+    }
+
+    /**
+     * Creates configuration storing up to 100 000 notifications in at most 64 MiB of heap.
+     * @return default configuration
+     */
+    public static NotificationReplayConfig defaults() {
+        return new NotificationReplayConfig(100_000, 64 * 1024 * 1024, false);
+    }
+}
@@ -25,12 +25,15 @@ import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.base._1._0.re
 
 public class NotificationService implements NetconfOperationService {
 
-    private final NetconfOperation netconfOperation;
+    private final NotificationOperation netconfOperation;
     private final SessionIdType sessionIdType;
+    private final Runnable onClose;
 
-    NotificationService(final NetconfOperation netconfOperation, final SessionIdType idType) {
+    NotificationService(final NotificationOperation netconfOperation, final SessionIdType idType,
+            final Runnable onClose) {
         this.netconfOperation = netconfOperation;
         this.sessionIdType = idType;
+        this.onClose = onClose;
     }
 
     @Override
@@ -51,7 +54,8 @@ public class NotificationService implements NetconfOperationService {
 
     @Override
     public void close() {
-
+        this.netconfOperation.close();
+        this.onClose.run();
     }
 
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Set;
+import org.opendaylight.yangtools.yang.common.QName;
+
+/**
+ * Event stream sessions can subscribe to with {@code create-subscription}, as defined in RFC 5277.
+ *
+ * @param name name of the stream used in {@code stream} element of subscription
+ * @param description description of the stream
+ * @param notifications notifications published to the stream, empty set stands for all notifications
+ */
+public record NotificationStream(String name, String description, Set<QName> notifications) {
+
+    /**
+     * Name of default stream containing all notifications.
+     */
+    public static final String NETCONF_STREAM_NAME = "NETCONF";
+
+    public NotificationStream {
+        requireNonNull(name);
+        requireNonNull(description);
+        notifications = Set.copyOf(notifications);
+    }
+
+    /**
+     * Creates default stream containing all notifications of the device.
+     * @return default NETCONF stream
+     */
+    public static NotificationStream netconf() {
+        return new NotificationStream(NETCONF_STREAM_NAME, "Default NETCONF event stream", Set.of());
+    }
+
+    boolean includes(final QName notification) {
+        return notifications.isEmpty() || notifications.contains(notification);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Subscriptions of all sessions of the device. Subscribers of each notification are grouped by their filter,
+ * so filter is evaluated once per published notification no matter how many sessions use it.
+ */
+final class NotificationSubscriptions {
+
+    /**
+     * Receiver of notifications selected by subscription.
+     */
+    @FunctionalInterface
+    interface Subscriber {
+
+        /**
+         * Delivers notification.
+         * @param message encoded notification
+         * @param sequence sequence number of notification in replay buffer
+         */
+        void deliver(NetconfMessage message, long sequence);
+    }
+
+    private final Map<QName, Map<SubscriptionFilter, Set<Subscriber>>> subscribers = new ConcurrentHashMap<>();
+
+    void subscribe(final Collection<QName> notifications, final SubscriptionFilter filter,
+            final Subscriber subscriber) {
+        for (final QName notification : notifications) {
+            subscribers.computeIfAbsent(notification, key -> new ConcurrentHashMap<>())
+                .compute(filter, (key, group) -> {
+                    final Set<Subscriber> newGroup = group == null ? ConcurrentHashMap.newKeySet() : group;
+                    newGroup.add(subscriber);
+                    return newGroup;
+                });
+        }
+    }
+
+    void unsubscribe(final Subscriber subscriber) {
+        subscribers.values().forEach(groups -> groups.keySet().forEach(filter ->
+            groups.computeIfPresent(filter, (key, group) -> {
+                group.remove(subscriber);
+                return group.isEmpty() ? null : group;
+            })));
+    }
+
+    boolean hasSubscribers(final QName notification) {
+        final Map<SubscriptionFilter, Set<Subscriber>> groups = subscribers.get(notification);
+        return groups != null && !groups.isEmpty();
+    }
+
+    /**
+     * Delivers notification to subscribers whose filter selects it.
+     */
+    void publish(final QName notification, final NetconfMessage message, final long sequence) {
+        final Map<SubscriptionFilter, Set<Subscriber>> groups = subscribers.get(notification);
+        if (groups == null || groups.isEmpty()) {
+            return;
+        }
+        // all filters are evaluated before delivery starts, message document is not read concurrently
+        // with its serialization
+        final Element content = notificationContent(message);
+        final List<Set<Subscriber>> selected = new ArrayList<>(groups.size());
+        groups.forEach((filter, group) -> {
+            if (filter.matches(content)) {
+                selected.add(group);
+            }
+        });
+        selected.forEach(group -> group.forEach(subscriber -> subscriber.deliver(message, sequence)));
+    }
+
+    /**
+     * Provides content of notification message, i.e. the element following {@code eventTime}.
+     */
+    static Element notificationContent(final NetconfMessage message) {
+        Element content = null;
+        for (Node node = message.getDocument().getDocumentElement().getFirstChild(); node != null;
+                node = node.getNextSibling()) {
+            if (node instanceof Element element) {
+                content = element;
+            }
+        }
+        return content;
+    }
+}
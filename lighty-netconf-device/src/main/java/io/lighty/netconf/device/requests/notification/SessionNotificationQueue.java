@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded outbound notification buffer of single session. Buffered notifications are written by flush
+ * executor in batches, at most one batch per session is being written at a time. Notifications of a batch
+ * are written to the session channel and flushed together, so burst of notifications is sent to the socket
+ * at once.
+ */
+final class SessionNotificationQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionNotificationQueue.class);
+
+    private final NetconfSession session;
+    private final NotificationQueueConfig config;
+    private final ScheduledExecutorService flushExecutor;
+    private final BlockingQueue<NetconfMessage> messages;
+    private final AtomicLong dropped = new AtomicLong();
+    // known after the first notification is sent through the session
+    private volatile Channel channel;
+
+    // guarded by this
+    private boolean flushPending;
+    // guarded by this
+    private ScheduledFuture<?> delayedFlush;
+    private volatile boolean closed;
+
+    SessionNotificationQueue(final NetconfSession session, final NotificationQueueConfig config,
+            final ScheduledExecutorService flushExecutor) {
+        this.session = session;
+        this.config = config;
+        this.flushExecutor = flushExecutor;
+        this.messages = new ArrayBlockingQueue<>(config.capacity());
+    }
+
+    NetconfSession getSession() {
+        return session;
+    }
+
+    /**
+     * Buffers notification for the session. When buffer is full, notification is handled according
+     * to overflow policy.
+     */
+    void enqueue(final NetconfMessage message) {
+        if (closed) {
+            return;
+        }
+        if (!messages.offer(message) && !handleOverflow(message)) {
+            return;
+        }
+        requestFlush();
+    }
+
+    /**
+     * Discards buffered notifications, notifications published later are ignored.
+     */
+    void close() {
+        closed = true;
+        synchronized (this) {
+            if (delayedFlush != null) {
+                delayedFlush.cancel(false);
+                delayedFlush = null;
+            }
+        }
+        messages.clear();
+    }
+
+    /**
+     * Handles notification which does not fit into the buffer.
+     * @return true if notification was buffered
+     */
+    private boolean handleOverflow(final NetconfMessage message) {
+        switch (config.overflowPolicy()) {
+            case DROP -> {
+                LOG.debug("Notification buffer of session {} is full, {} notifications dropped", session,
+                    dropped.incrementAndGet());
+                return false;
+            }
+            case BLOCK -> {
+                // waits on the publishing thread, see OverflowPolicy.BLOCK
+                try {
+                    while (!closed) {
+                        if (messages.offer(message, config.flushInterval().toNanos() + 1, TimeUnit.NANOSECONDS)) {
+                            return true;
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("Interrupted while waiting for notification buffer of session {}", session, e);
+                }
+                return false;
+            }
+            case DISCONNECT -> {
+                LOG.warn("Notification buffer of session {} is full, closing the session", session);
+                close();
+                session.close();
+                return false;
+            }
+            default -> throw new IllegalStateException("Unknown overflow policy " + config.overflowPolicy());
+        }
+    }
+
+    private synchronized void requestFlush() {
+        if (closed) {
+            return;
+        }
+        final boolean batchFull = messages.size() >= config.batchSize();
+        if (!flushPending) {
+            flushPending = true;
+            if (batchFull) {
+                flushExecutor.execute(this::flush);
+            } else {
+                delayedFlush = flushExecutor.schedule(this::flush, config.flushInterval().toNanos(),
+                    TimeUnit.NANOSECONDS);
+            }
+        } else if (batchFull && delayedFlush != null && delayedFlush.cancel(false)) {
+            delayedFlush = null;
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    private void flush() {
+        synchronized (this) {
+            delayedFlush = null;
+        }
+        final List<NetconfMessage> batch = new ArrayList<>(config.batchSize());
+        messages.drainTo(batch, config.batchSize());
+        if (batch.isEmpty() || closed) {
+            completeFlush();
+            return;
+        }
+        List<NetconfMessage> remaining = batch;
+        Channel sessionChannel = channel;
+        if (sessionChannel == null) {
+            // session does not expose its channel, it is taken from the future of the first sent message
+            final ChannelFuture firstWrite = session.sendMessage(batch.getFirst());
+            sessionChannel = firstWrite.channel();
+            channel = sessionChannel;
+            remaining = batch.subList(1, batch.size());
+            if (remaining.isEmpty()) {
+                firstWrite.addListener(this::onBatchWritten);
+                return;
+            }
+        }
+        writeAndFlush(sessionChannel, remaining);
+    }
+
+    /**
+     * Writes messages in the event loop of the channel, as session does, so they are ordered with other
+     * messages of the session, and flushes the channel once.
+     */
+    private void writeAndFlush(final Channel sessionChannel, final List<NetconfMessage> batch) {
+        sessionChannel.eventLoop().execute(() -> {
+            ChannelFuture lastWrite = null;
+            for (final NetconfMessage message : batch) {
+                lastWrite = sessionChannel.write(message);
+            }
+            sessionChannel.flush();
+            lastWrite.addListener(this::onBatchWritten);
+        });
+    }
+
+    private void onBatchWritten(final Future<? super Void> future) {
+        if (future.isSuccess()) {
+            completeFlush();
+        } else {
+            LOG.warn("Failed to send notifications to session {}, discarding its buffer", session, future.cause());
+            close();
+        }
+    }
+
+    private synchronized void completeFlush() {
+        flushPending = false;
+        if (!messages.isEmpty()) {
+            requestFlush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.XMLConstants;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Subtree filter of {@code create-subscription} selecting notifications as described in RFC 5277 and RFC 6241.
+ * Notification is selected when its content matches any top level filter node. Filter is parsed into
+ * immutable tree with structural equality, so sessions with identical filters can share its evaluation.
+ *
+ * @param roots top level filter nodes, empty list selects all notifications
+ */
+record SubscriptionFilter(List<FilterNode> roots) {
+
+    /**
+     * Filter selecting all notifications.
+     */
+    static final SubscriptionFilter ALL = new SubscriptionFilter(List.of());
+
+    SubscriptionFilter {
+        roots = List.copyOf(roots);
+    }
+
+    /**
+     * Parses {@code filter} element of subscription.
+     * @param filterElement filter element or null when subscription has no filter
+     * @return parsed filter
+     * @throws DocumentedException when filter is not a subtree filter
+     */
+    static SubscriptionFilter of(final @Nullable Element filterElement) throws DocumentedException {
+        if (filterElement == null) {
+            return ALL;
+        }
+        final String type = filterElement.getAttribute("type");
+        if (!type.isEmpty() && !"subtree".equals(type)) {
+            throw new DocumentedException("Filter type " + type + " is not supported", ErrorType.PROTOCOL,
+                ErrorTag.OPERATION_NOT_SUPPORTED, ErrorSeverity.ERROR);
+        }
+        return new SubscriptionFilter(parseChildren(filterElement));
+    }
+
+    /**
+     * Evaluates filter against content of notification, i.e. the element following {@code eventTime}.
+     */
+    boolean matches(final Element notificationContent) {
+        return roots.isEmpty() || roots.stream().anyMatch(root -> root.matches(notificationContent));
+    }
+
+    /**
+     * Node of subtree filter.
+     *
+     * @param namespace namespace of the node or null when it matches any namespace
+     * @param name local name of the node
+     * @param attributes attributes matched by the node
+     * @param content content matched by the node or null when node is not a content match node
+     * @param children child nodes
+     */
+    record FilterNode(@Nullable String namespace, String name, Map<String, String> attributes,
+            @Nullable String content, List<FilterNode> children) {
+
+        FilterNode {
+            attributes = Map.copyOf(attributes);
+            children = List.copyOf(children);
+        }
+
+        boolean matches(final Element element) {
+            if (!name.equals(element.getLocalName())
+                    || namespace != null && !namespace.equals(element.getNamespaceURI())) {
+                return false;
+            }
+            for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+                if (!attribute.getValue().equals(element.getAttribute(attribute.getKey()))) {
+                    return false;
+                }
+            }
+            if (content != null) {
+                return content.equals(element.getTextContent().trim());
+            }
+            // content match nodes must all match, then at least one selection or containment node must select
+            boolean hasSelection = false;
+            boolean selected = false;
+            for (final FilterNode child : children) {
+                if (child.content() != null) {
+                    if (!child.matchesAnyChild(element)) {
+                        return false;
+                    }
+                } else {
+                    hasSelection = true;
+                    selected = selected || child.matchesAnyChild(element);
+                }
+            }
+            return !hasSelection || selected;
+        }
+
+        private boolean matchesAnyChild(final Element parent) {
+            for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof Element child && matches(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static List<FilterNode> parseChildren(final Element parent) {
+        final List<FilterNode> children = new ArrayList<>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                children.add(parseNode(child));
+            }
+        }
+        return children;
+    }
+
+    private static FilterNode parseNode(final Element element) {
+        final List<FilterNode> children = parseChildren(element);
+        final String text = element.getTextContent().trim();
+        return new FilterNode(filterNamespace(element), element.getLocalName(), parseAttributes(element),
+            children.isEmpty() && !text.isEmpty() ? text : null, children);
+    }
+
+    private static Map<String, String> parseAttributes(final Element element) {
+        final Map<String, String> attributes = new TreeMap<>();
+        final NamedNodeMap nodeMap = element.getAttributes();
+        for (int i = 0; i < nodeMap.getLength(); i++) {
+            final Attr attribute = (Attr) nodeMap.item(i);
+            if (!XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+                attributes.put(attribute.getLocalName(), attribute.getValue());
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Filter nodes without own namespace inherit namespace of subscription, they match any namespace.
+     */
+    private static String filterNamespace(final Element element) {
+        final String namespace = element.getNamespaceURI();
+        return namespace == null || RPCUtil.CREATE_SUBSCRIPTION_NAMESPACE.equals(namespace)
+            || RPCUtil.NETCONF_BASE_NAMESPACE.equals(namespace) ? null : namespace;
+    }
+}
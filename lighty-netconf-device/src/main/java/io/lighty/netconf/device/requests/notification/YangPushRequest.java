@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.XMLNamespace;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Datastore subscription requested by RFC 8639 {@code establish-subscription} with RFC 8641 augmentations.
+ * Requests are compared structurally, subscriptions with equal requests share datastore reads and encoding.
+ *
+ * @param datastore subscribed datastore
+ * @param targets top level data nodes selected by subtree filter, empty list selects whole datastore
+ * @param onChange true for on-change subscription, false for periodic subscription
+ * @param interval period of periodic subscription or dampening period of on-change subscription
+ */
+record YangPushRequest(LogicalDatastoreType datastore, List<QName> targets, boolean onChange, Duration interval) {
+
+    static final String SUBSCRIBED_NOTIFICATIONS_NAMESPACE =
+        "urn:ietf:params:xml:ns:yang:ietf-subscribed-notifications";
+    static final String YANG_PUSH_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-yang-push";
+
+    YangPushRequest {
+        targets = List.copyOf(targets);
+    }
+
+    /**
+     * Parses {@code establish-subscription} element. Subtree filter selects top level data nodes, deeper
+     * filter content is not evaluated and whole selected subtrees are pushed.
+     * @throws DocumentedException when request is not a supported datastore subscription
+     */
+    static YangPushRequest of(final Element establishSubscription, final EffectiveModelContext modelContext)
+            throws DocumentedException {
+        if (child(establishSubscription, SUBSCRIBED_NOTIFICATIONS_NAMESPACE, "stream") != null) {
+            throw error("Event stream subscriptions are established by create-subscription",
+                ErrorTag.OPERATION_NOT_SUPPORTED);
+        }
+        if (child(establishSubscription, YANG_PUSH_NAMESPACE, "datastore-xpath-filter") != null) {
+            throw error("XPath datastore filter is not supported", ErrorTag.OPERATION_NOT_SUPPORTED);
+        }
+        final LogicalDatastoreType datastore = parseDatastore(child(establishSubscription, YANG_PUSH_NAMESPACE,
+            "datastore"));
+        final List<QName> targets = parseTargets(child(establishSubscription, YANG_PUSH_NAMESPACE,
+            "datastore-subtree-filter"), modelContext);
+
+        final Element periodic = child(establishSubscription, YANG_PUSH_NAMESPACE, "periodic");
+        if (periodic != null) {
+            final Duration period = parseCentiseconds(child(periodic, YANG_PUSH_NAMESPACE, "period"));
+            if (period == null || period.isZero()) {
+                throw error("Periodic subscription requires positive period", ErrorTag.INVALID_VALUE);
+            }
+            return new YangPushRequest(datastore, targets, false, period);
+        }
+        final Element onChange = child(establishSubscription, YANG_PUSH_NAMESPACE, "on-change");
+        if (onChange != null) {
+            final Duration dampening = parseCentiseconds(child(onChange, YANG_PUSH_NAMESPACE, "dampening-period"));
+            return new YangPushRequest(datastore, targets, true, dampening == null ? Duration.ZERO : dampening);
+        }
+        throw error("Subscription has to be either periodic or on-change", ErrorTag.MISSING_ELEMENT);
+    }
+
+    static @Nullable Element child(final Element parent, final String namespace, final String localName) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element && localName.equals(element.getLocalName())
+                    && namespace.equals(element.getNamespaceURI())) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    static DocumentedException error(final String message, final ErrorTag errorTag) {
+        return new DocumentedException(message, ErrorType.APPLICATION, errorTag, ErrorSeverity.ERROR);
+    }
+
+    private static LogicalDatastoreType parseDatastore(final @Nullable Element datastore)
+            throws DocumentedException {
+        if (datastore == null) {
+            return LogicalDatastoreType.OPERATIONAL;
+        }
+        final String identity = datastore.getTextContent().trim();
+        return switch (identity.substring(identity.indexOf(':') + 1)) {
+            case "running" -> LogicalDatastoreType.CONFIGURATION;
+            case "operational" -> LogicalDatastoreType.OPERATIONAL;
+            default -> throw error("Datastore " + identity + " is not supported", ErrorTag.INVALID_VALUE);
+        };
+    }
+
+    private static List<QName> parseTargets(final @Nullable Element filter, final EffectiveModelContext modelContext)
+            throws DocumentedException {
+        final List<QName> targets = new ArrayList<>();
+        if (filter == null) {
+            return targets;
+        }
+        for (Node node = filter.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element element) {
+                final String namespace = element.getNamespaceURI();
+                final Module module = namespace == null ? null
+                    : modelContext.findModules(XMLNamespace.of(namespace)).stream().findFirst().orElse(null);
+                final QName target = module == null ? null : QName.create(module.getQNameModule(),
+                    element.getLocalName());
+                if (target == null || modelContext.dataChildByName(target) == null) {
+                    throw error("Unknown data node " + element.getLocalName() + " in subtree filter",
+                        ErrorTag.INVALID_VALUE);
+                }
+                targets.add(target);
+            }
+        }
+        return targets;
+    }
+
+    private static @Nullable Duration parseCentiseconds(final @Nullable Element element) throws DocumentedException {
+        if (element == null) {
+            return null;
+        }
+        try {
+            return Duration.ofMillis(Long.parseUnsignedLong(element.getTextContent().trim()) * 10);
+        } catch (final NumberFormatException e) {
+            throw error("Invalid " + element.getLocalName() + ": " + element.getTextContent(),
+                ErrorTag.INVALID_VALUE);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.dom.DOMResult;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreTreeChangePublisher;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.yangtools.concepts.Registration;
+import org.opendaylight.yangtools.util.xml.UntrustedXML;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeWriter;
+import org.opendaylight.yangtools.yang.data.codec.xml.XMLStreamNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidateNode;
+import org.opendaylight.yangtools.yang.data.tree.api.ModificationType;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.spi.meta.EffectiveStatementInference;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * RFC 8641 datastore subscriptions of the device. Subscriptions with equal requests form a group sharing
+ * datastore reads and data encoding. Pushed data are encoded once per push, message of each subscription
+ * is created from its envelope with subscription id and a deep copy of the encoded data.
+ * Periodic group reads and encodes selected data once per period. On-change group listens to datastore
+ * changes, coalesces changed data nodes and pushes their current state at most once per dampening period.
+ */
+final class YangPushService implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(YangPushService.class);
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+    private static final String YANG_PATCH_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-yang-patch";
+
+    static {
+        XML_OUTPUT_FACTORY.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    private final EffectiveModelContext modelContext;
+    private final EffectiveStatementInference rootInference;
+    private final Map<LogicalDatastoreType, DOMStore> datastores;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final AtomicLong nextId = new AtomicLong(1);
+    // guarded by this
+    private final Map<YangPushRequest, PushGroup> groups = new HashMap<>();
+    private final Map<Long, PushGroup> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates service pushing data of given datastores.
+     * @param executor executor of pushes
+     * @param ownsExecutor true if executor is shut down when service is closed
+     */
+    YangPushService(final EffectiveModelContext modelContext, final Map<LogicalDatastoreType, DOMStore> datastores,
+            final ScheduledExecutorService executor, final boolean ownsExecutor) {
+        this.modelContext = modelContext;
+        this.rootInference = SchemaInferenceStack.of(modelContext).toInference();
+        this.datastores = Map.copyOf(datastores);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    EffectiveModelContext getModelContext() {
+        return modelContext;
+    }
+
+    /**
+     * Establishes subscription.
+     * @param request subscription request
+     * @param receiver receiver of push notifications
+     * @return id of subscription
+     */
+    synchronized long establish(final YangPushRequest request, final Consumer<NetconfMessage> receiver) {
+        final long id = nextId.getAndIncrement();
+        final PushGroup group = groups.computeIfAbsent(request,
+            key -> key.onChange() ? new OnChangeGroup(key) : new PeriodicGroup(key));
+        group.add(id, receiver);
+        subscriptions.put(id, group);
+        LOG.debug("Established subscription {} of {}", id, request);
+        return id;
+    }
+
+    /**
+     * Deletes subscription.
+     * @return false if there is no subscription with the id
+     */
+    synchronized boolean delete(final long id) {
+        final PushGroup group = subscriptions.remove(id);
+        if (group == null) {
+            return false;
+        }
+        if (group.remove(id)) {
+            groups.remove(group.request);
+            group.close();
+        }
+        LOG.debug("Deleted subscription {}", id);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        groups.values().forEach(PushGroup::close);
+        groups.clear();
+        subscriptions.clear();
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Optional<NormalizedNode> read(final LogicalDatastoreType datastore, final YangInstanceIdentifier path) {
+        try (DOMStoreReadTransaction transaction = datastores.get(datastore).newReadOnlyTransaction()) {
+            return transaction.read(path).get();
+        } catch (final ExecutionException e) {
+            LOG.error("Failed to read {} from {} datastore", path, datastore, e);
+        } catch (final InterruptedException e) {
+            LOG.error("Interrupted while reading {} from {} datastore", path, datastore, e);
+            Thread.currentThread().interrupt();
+        }
+        return Optional.empty();
+    }
+
+    private void writeData(final NormalizedNode data, final Element parent) {
+        try {
+            final XMLStreamWriter xmlWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(new DOMResult(parent));
+            try (NormalizedNodeStreamWriter streamWriter =
+                     XMLStreamNormalizedNodeStreamWriter.create(xmlWriter, rootInference);
+                 NormalizedNodeWriter nodeWriter = NormalizedNodeWriter.forStreamWriter(streamWriter)) {
+                nodeWriter.write(data);
+            }
+        } catch (final XMLStreamException | IOException e) {
+            throw new IllegalStateException("Unable to encode " + data.name(), e);
+        }
+    }
+
+    private String targetPath(final QName target) {
+        return "/" + modelContext.findModule(target.getModule()).map(Module::getName).orElseThrow() + ":"
+            + target.getLocalName();
+    }
+
+    /**
+     * Subscriptions with equal request.
+     */
+    private abstract class PushGroup {
+
+        final YangPushRequest request;
+        final Map<Long, Consumer<NetconfMessage>> receivers = new ConcurrentHashMap<>();
+
+        PushGroup(final YangPushRequest request) {
+            this.request = request;
+        }
+
+        void add(final long id, final Consumer<NetconfMessage> receiver) {
+            receivers.put(id, receiver);
+        }
+
+        /**
+         * Removes subscription from the group.
+         * @return true if group has no other subscription
+         */
+        boolean remove(final long id) {
+            receivers.remove(id);
+            return receivers.isEmpty();
+        }
+
+        abstract void close();
+
+        /**
+         * Creates element with encoded current data selected by the request.
+         */
+        Element encodeContents(final Document document) {
+            final Element contents = document.createElementNS(YangPushRequest.YANG_PUSH_NAMESPACE,
+                "datastore-contents");
+            if (request.targets().isEmpty()) {
+                read(request.datastore(), YangInstanceIdentifier.of()).ifPresent(root ->
+                    ((ContainerNode) root).body().forEach(child -> writeData(child, contents)));
+            } else {
+                for (final QName target : request.targets()) {
+                    read(request.datastore(), YangInstanceIdentifier.of(target))
+                        .ifPresent(data -> writeData(data, contents));
+                }
+            }
+            return contents;
+        }
+
+        /**
+         * Sends update to every subscription of the group. Payload is read and encoded once, messages
+         * of subscriptions differ only in subscription id.
+         */
+        void push(final String updateName, final Element payload) {
+            final Instant eventTime = Instant.now();
+            receivers.forEach((id, receiver) -> receiver.accept(createUpdate(updateName, id, payload, eventTime)));
+        }
+
+        /**
+         * Creates message of one subscription, encoded payload is imported to the message without parsing.
+         */
+        NetconfMessage createUpdate(final String updateName, final long id, final Element payload,
+                final Instant eventTime) {
+            final Document document = UntrustedXML.newDocumentBuilder().newDocument();
+            final Element update = document.createElementNS(YangPushRequest.YANG_PUSH_NAMESPACE, updateName);
+            final Element subscriptionId = document.createElementNS(YangPushRequest.YANG_PUSH_NAMESPACE, "id");
+            subscriptionId.setTextContent(Long.toString(id));
+            update.appendChild(subscriptionId);
+            update.appendChild(document.importNode(payload, true));
+            document.appendChild(NotificationMessageEncoder.createEnvelope(document, update, eventTime));
+            return new NetconfMessage(document);
+        }
+    }
+
+    private final class PeriodicGroup extends PushGroup {
+
+        private final ScheduledFuture<?> pushes;
+
+        PeriodicGroup(final YangPushRequest request) {
+            super(request);
+            final long period = request.interval().toNanos();
+            this.pushes = executor.scheduleAtFixedRate(this::pushContents, period, period, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        void close() {
+            pushes.cancel(false);
+        }
+
+        @SuppressWarnings("checkstyle:IllegalCatch")
+        private void pushContents() {
+            try {
+                push("push-update", encodeContents(UntrustedXML.newDocumentBuilder().newDocument()));
+            } catch (final RuntimeException e) {
+                // exception would cancel all following pushes of the group
+                LOG.error("Failed to push contents of {}", request, e);
+            }
+        }
+    }
+
+    private final class OnChangeGroup extends PushGroup implements DOMDataTreeChangeListener {
+
+        private final Registration registration;
+        private final Set<QName> changed = ConcurrentHashMap.newKeySet();
+        private final AtomicLong patchId = new AtomicLong();
+        // guarded by this
+        private boolean pushScheduled;
+        // guarded by this
+        private long lastPush = System.nanoTime() - request.interval().toNanos();
+
+        OnChangeGroup(final YangPushRequest request) {
+            super(request);
+            this.registration = ((DOMStoreTreeChangePublisher) datastores.get(request.datastore()))
+                .registerTreeChangeListener(YangInstanceIdentifier.of(), this);
+        }
+
+        @Override
+        void add(final long id, final Consumer<NetconfMessage> receiver) {
+            super.add(id, receiver);
+            // sync on start, new subscription receives current contents first
+            executor.execute(() -> receiver.accept(createUpdate("push-update", id,
+                encodeContents(UntrustedXML.newDocumentBuilder().newDocument()), Instant.now())));
+        }
+
+        @Override
+        void close() {
+            registration.close();
+        }
+
+        @Override
+        public void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+            for (final DataTreeCandidate change : changes) {
+                for (final DataTreeCandidateNode node : change.getRootNode().childNodes()) {
+                    final QName name = node.name().getNodeType();
+                    if (node.modificationType() != ModificationType.UNMODIFIED
+                            && (request.targets().isEmpty() || request.targets().contains(name))) {
+                        changed.add(name);
+                    }
+                }
+            }
+            if (!changed.isEmpty()) {
+                schedulePush();
+            }
+        }
+
+        @Override
+        public void onInitialData() {
+            // initial contents are pushed to each subscription when it is established
+        }
+
+        private synchronized void schedulePush() {
+            if (!pushScheduled) {
+                pushScheduled = true;
+                final long delay = Math.max(0, lastPush + request.interval().toNanos() - System.nanoTime());
+                executor.schedule(this::pushChanges, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @SuppressWarnings("checkstyle:IllegalCatch")
+        private void pushChanges() {
+            synchronized (this) {
+                pushScheduled = false;
+                lastPush = System.nanoTime();
+            }
+            final List<QName> names = new ArrayList<>(changed);
+            changed.removeAll(names);
+            if (names.isEmpty()) {
+                return;
+            }
+            try {
+                push("push-change-update", encodePatch(names));
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to push changes of {}", request, e);
+            }
+        }
+
+        /**
+         * Encodes RFC 8072 YANG patch replacing changed data nodes by their current state or deleting them.
+         */
+        private Element encodePatch(final List<QName> names) {
+            final Document document = UntrustedXML.newDocumentBuilder().newDocument();
+            final Element changes = document.createElementNS(YangPushRequest.YANG_PUSH_NAMESPACE,
+                "datastore-changes");
+            final Element patch = appendLeaf(document, changes, "yang-patch", null);
+            appendLeaf(document, patch, "patch-id", Long.toString(patchId.incrementAndGet()));
+            int editId = 0;
+            for (final QName name : names) {
+                final Optional<NormalizedNode> data = read(request.datastore(), YangInstanceIdentifier.of(name));
+                final Element edit = appendLeaf(document, patch, "edit", null);
+                appendLeaf(document, edit, "edit-id", "edit" + ++editId);
+                appendLeaf(document, edit, "operation", data.isPresent() ? "replace" : "delete");
+                appendLeaf(document, edit, "target", targetPath(name));
+                if (data.isPresent()) {
+                    writeData(data.orElseThrow(), appendLeaf(document, edit, "value", null));
+                }
+            }
+            return changes;
+        }
+
+        private static Element appendLeaf(final Document document, final Element parent, final String name,
+                final String value) {
+            final Element element = document.createElementNS(YANG_PATCH_NAMESPACE, name);
+            if (value != null) {
+                element.setTextContent(value);
+            }
+            parent.appendChild(element);
+            return element;
+        }
+    }
+}
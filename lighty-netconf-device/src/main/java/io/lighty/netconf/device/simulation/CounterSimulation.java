@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.simulation;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.lighty.netconf.device.utils.NormalizedNodeDelta;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.common.Uint64;
+import org.opendaylight.yangtools.yang.common.Uint8;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Advances selected operational leaves of a device over time. Simulated leaves are resolved against
+ * operational datastore when simulation starts, their values are kept in primitive arrays and every tick
+ * writes all changed leaves in a single transaction. Tick is skipped while the previous one is being
+ * committed, so slow datastore does not accumulate pending transactions.
+ *
+ * <p>Counters of unsigned types wrap around at maximal value of their type, uint64 counters use unsigned
+ * arithmetic and wrap around at 2^64. Values decreasing below zero are written as zero. If a commit
+ * or a write fails, for example because a client removed the list entry of a simulated leaf,
+ * leaves are resolved again on the next tick.
+ */
+public final class CounterSimulation implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CounterSimulation.class);
+
+    private final DOMDataBroker dataBroker;
+    private final CounterSimulationConfig config;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final AtomicBoolean commitInProgress = new AtomicBoolean();
+    // guarded by this
+    private ScheduledFuture<?> ticks;
+    private volatile Counters counters;
+    private volatile boolean stale;
+
+    /**
+     * Creates simulation running on its own thread.
+     * @param dataBroker data broker of the device
+     * @param config simulated leaves and tick interval
+     */
+    public CounterSimulation(final DOMDataBroker dataBroker, final CounterSimulationConfig config) {
+        this(dataBroker, config, Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("counter-simulation-%d").setDaemon(true).build()), true);
+    }
+
+    /**
+     * Creates simulation running on shared executor, so that thousands of devices do not need
+     * thread per device.
+     * @param dataBroker data broker of the device
+     * @param config simulated leaves and tick interval
+     * @param executor executor of ticks, it is not shut down when simulation is closed
+     */
+    public CounterSimulation(final DOMDataBroker dataBroker, final CounterSimulationConfig config,
+            final ScheduledExecutorService executor) {
+        this(dataBroker, config, executor, false);
+    }
+
+    private CounterSimulation(final DOMDataBroker dataBroker, final CounterSimulationConfig config,
+            final ScheduledExecutorService executor, final boolean ownsExecutor) {
+        this.dataBroker = dataBroker;
+        this.config = config;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Resolves simulated leaves in operational datastore and starts advancing them. Values read
+     * from the datastore become initial values of the simulation.
+     */
+    public synchronized void start() {
+        if (ticks != null) {
+            return;
+        }
+        this.counters = readCounters();
+        this.stale = false;
+        final long period = config.tick().toNanos();
+        this.ticks = executor.scheduleAtFixedRate(this::tick, period, period, TimeUnit.NANOSECONDS);
+        LOG.debug("Simulating {} operational leaves", counters.paths.length);
+    }
+
+    /**
+     * Stops advancing leaves. Simulation can be started again, leaves are resolved again then.
+     */
+    public synchronized void stop() {
+        if (ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+            counters = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    private void tick() {
+        if (!commitInProgress.compareAndSet(false, true)) {
+            LOG.debug("Previous update is still being committed, skipping tick");
+            return;
+        }
+        try {
+            if (stale) {
+                stale = false;
+                counters = readCounters();
+            }
+            final Counters current = counters;
+            final DOMDataTreeWriteTransaction tx = current == null ? null : current.write(dataBroker);
+            if (tx == null) {
+                commitInProgress.set(false);
+                return;
+            }
+            tx.commit().addCallback(new FutureCallback<CommitInfo>() {
+                @Override
+                public void onSuccess(final CommitInfo result) {
+                    commitInProgress.set(false);
+                }
+
+                @Override
+                public void onFailure(final Throwable throwable) {
+                    LOG.warn("Failed to update simulated leaves, resolving them again", throwable);
+                    stale = true;
+                    commitInProgress.set(false);
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (final RuntimeException e) {
+            // exception would cancel all following ticks
+            LOG.error("Failed to update simulated leaves, resolving them again", e);
+            stale = true;
+            commitInProgress.set(false);
+        }
+    }
+
+    private Counters readCounters() {
+        final Optional<NormalizedNode> root;
+        try (DOMDataTreeReadTransaction tx = dataBroker.newReadOnlyTransaction()) {
+            root = tx.read(LogicalDatastoreType.OPERATIONAL, YangInstanceIdentifier.of())
+                .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Unable to read operational datastore", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading operational datastore", e);
+        }
+
+        final List<YangInstanceIdentifier> paths = new ArrayList<>();
+        final List<RateFunction> functions = new ArrayList<>();
+        final List<LeafNode<?>> leaves = new ArrayList<>();
+        root.ifPresent(data -> {
+            for (final SimulatedLeaf leaf : config.leaves()) {
+                resolve(data, leaf.path().getPathArguments(), 0, YangInstanceIdentifier.of(), (path, node) -> {
+                    paths.add(path);
+                    functions.add(leaf.function());
+                    leaves.add(node);
+                });
+            }
+        });
+        return new Counters(paths, functions, leaves, System.nanoTime());
+    }
+
+    /**
+     * Finds leaves matching path arguments from the index. Node identifier in place of list entry
+     * matches all entries of the list.
+     */
+    private static void resolve(final NormalizedNode data, final List<PathArgument> arguments, final int index,
+            final YangInstanceIdentifier path, final LeafConsumer consumer) {
+        if (index == arguments.size()) {
+            if (data instanceof LeafNode<?> leaf) {
+                consumer.accept(path, leaf);
+            }
+            return;
+        }
+        final PathArgument argument = arguments.get(index);
+        if (data instanceof MapNode map && argument instanceof NodeIdentifier) {
+            for (final MapEntryNode entry : map.body()) {
+                resolve(entry, arguments, index + 1, path.node(entry.name()), consumer);
+            }
+            return;
+        }
+        final NormalizedNode child = NormalizedNodeDelta.childByArg(data, argument);
+        if (child != null) {
+            resolve(child, arguments, index + 1, path.node(argument), consumer);
+        }
+    }
+
+    @FunctionalInterface
+    private interface LeafConsumer {
+        void accept(YangInstanceIdentifier path, LeafNode<?> leaf);
+    }
+
+    /**
+     * Resolved simulated leaves. Updates are performed by the single tick task, so arrays are not guarded.
+     */
+    private static final class Counters {
+
+        private final YangInstanceIdentifier[] paths;
+        private final QName[] names;
+        private final RateFunction[] functions;
+        private final ValueType[] types;
+        private final long[] initialValues;
+        private final long[] writtenValues;
+        private final long startNanos;
+
+        Counters(final List<YangInstanceIdentifier> resolvedPaths, final List<RateFunction> resolvedFunctions,
+                final List<LeafNode<?>> leaves, final long startNanos) {
+            final List<Integer> supported = new ArrayList<>();
+            for (int i = 0; i < leaves.size(); i++) {
+                if (ValueType.of(leaves.get(i).body()) == null) {
+                    LOG.warn("Leaf {} does not have integer value, it is not simulated", resolvedPaths.get(i));
+                } else {
+                    supported.add(i);
+                }
+            }
+            final int size = supported.size();
+            this.paths = new YangInstanceIdentifier[size];
+            this.names = new QName[size];
+            this.functions = new RateFunction[size];
+            this.types = new ValueType[size];
+            this.initialValues = new long[size];
+            this.writtenValues = new long[size];
+            for (int i = 0; i < size; i++) {
+                final int leafIndex = supported.get(i);
+                final LeafNode<?> leaf = leaves.get(leafIndex);
+                this.paths[i] = resolvedPaths.get(leafIndex);
+                this.names[i] = leaf.name().getNodeType();
+                this.functions[i] = resolvedFunctions.get(leafIndex);
+                this.types[i] = ValueType.of(leaf.body());
+                // longValue() of Uint64 provides its unsigned bits
+                this.initialValues[i] = ((Number) leaf.body()).longValue();
+                this.writtenValues[i] = this.initialValues[i];
+            }
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Writes leaves whose value changed since the previous tick.
+         * @return transaction with updates or null when no leaf changed
+         */
+        @Nullable DOMDataTreeWriteTransaction write(final DOMDataBroker dataBroker) {
+            final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+            DOMDataTreeWriteTransaction tx = null;
+            for (int i = 0; i < paths.length; i++) {
+                final long value = types[i].normalize(initialValues[i],
+                    functions[i].valueAt(initialValues[i], elapsedSeconds));
+                if (value != writtenValues[i]) {
+                    if (tx == null) {
+                        tx = dataBroker.newWriteOnlyTransaction();
+                    }
+                    tx.put(LogicalDatastoreType.OPERATIONAL, paths[i],
+                        ImmutableNodes.leafNode(names[i], types[i].encode(value)));
+                    writtenValues[i] = value;
+                }
+            }
+            return tx;
+        }
+    }
+
+    /**
+     * Integer types of simulated leaves. Values of all types are held in a long, uint64 values as their
+     * unsigned bits.
+     */
+    enum ValueType {
+        INT8(Byte.MIN_VALUE, Byte.MAX_VALUE),
+        INT16(Short.MIN_VALUE, Short.MAX_VALUE),
+        INT32(Integer.MIN_VALUE, Integer.MAX_VALUE),
+        INT64(Long.MIN_VALUE, Long.MAX_VALUE),
+        UINT8(0, 0xFF),
+        UINT16(0, 0xFFFF),
+        UINT32(0, 0xFFFFFFFFL),
+        // all 64 bits are used, see normalize
+        UINT64(0, -1L);
+
+        private final long min;
+        private final long max;
+
+        ValueType(final long min, final long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        static @Nullable ValueType of(final Object value) {
+            return switch (value) {
+                case Byte ignored -> INT8;
+                case Short ignored -> INT16;
+                case Integer ignored -> INT32;
+                case Long ignored -> INT64;
+                case Uint8 ignored -> UINT8;
+                case Uint16 ignored -> UINT16;
+                case Uint32 ignored -> UINT32;
+                case Uint64 ignored -> UINT64;
+                default -> null;
+            };
+        }
+
+        /**
+         * Limits value to the type, unsigned values wrap around like counters.
+         * @param initial initial value of the leaf
+         * @param value value computed by rate function from the initial value
+         */
+        long normalize(final long initial, final long value) {
+            if (this == UINT64) {
+                // long addition already wraps around at 2^64, only decrease below zero has to be detected
+                final long delta = value - initial;
+                return delta < 0 && Long.compareUnsigned(initial, -delta) < 0 ? 0 : value;
+            }
+            if (value < min) {
+                return min;
+            }
+            if (value > max) {
+                return min == 0 ? value & max : max;
+            }
+            return value;
+        }
+
+        Object encode(final long value) {
+            return switch (this) {
+                case INT8 -> (byte) value;
+                case INT16 -> (short) value;
+                case INT32 -> (int) value;
+                case INT64 -> value;
+                case UINT8 -> Uint8.valueOf(value);
+                case UINT16 -> Uint16.valueOf(value);
+                case UINT32 -> Uint32.valueOf(value);
+                case UINT64 -> Uint64.fromLongBits(value);
+            };
+        }
+    }
+}
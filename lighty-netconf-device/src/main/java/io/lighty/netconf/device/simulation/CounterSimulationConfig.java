@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.simulation;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of operational counter simulation.
+ *
+ * @param tick interval of datastore updates
+ * @param leaves simulated leaves
+ */
+public record CounterSimulationConfig(Duration tick, List<SimulatedLeaf> leaves) {
+
+    public CounterSimulationConfig {
+        Preconditions.checkArgument(!tick.isZero() && !tick.isNegative(), "tick must be positive");
+        leaves = List.copyOf(leaves);
+    }
+}
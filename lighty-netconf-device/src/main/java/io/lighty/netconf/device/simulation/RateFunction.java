@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.simulation;
+
+import com.google.common.base.Preconditions;
+import java.time.Duration;
+
+/**
+ * Value of simulated leaf as a function of time elapsed since simulation start. Functions do not keep
+ * any state, so the value of any number of leaves is computed from their initial value only.
+ */
+@FunctionalInterface
+public interface RateFunction {
+
+    /**
+     * Computes value of the leaf.
+     * @param initialValue value of the leaf when simulation started
+     * @param elapsedSeconds seconds elapsed since simulation started
+     * @return current value of the leaf
+     */
+    long valueAt(long initialValue, double elapsedSeconds);
+
+    /**
+     * Counter increasing with constant rate.
+     * @param perSecond increment per second
+     * @return rate function
+     */
+    static RateFunction constant(final double perSecond) {
+        Preconditions.checkArgument(perSecond >= 0, "Counter rate must not be negative");
+        return (initialValue, elapsedSeconds) -> initialValue + (long) (perSecond * elapsedSeconds);
+    }
+
+    /**
+     * Gauge oscillating around its initial value.
+     * @param amplitude maximal difference from the initial value
+     * @param period period of one oscillation
+     * @return rate function
+     */
+    static RateFunction sine(final long amplitude, final Duration period) {
+        Preconditions.checkArgument(!period.isZero() && !period.isNegative(), "Period must be positive");
+        final double periodSeconds = period.toNanos() / 1e9;
+        return (initialValue, elapsedSeconds) -> initialValue
+            + Math.round(amplitude * Math.sin(2 * Math.PI * elapsedSeconds / periodSeconds));
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.simulation;
+
+import static java.util.Objects.requireNonNull;
+
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+
+/**
+ * Operational leaf advanced by {@link CounterSimulation}. List entry in the path identified by node identifier
+ * without keys stands for all entries of the list, so a single simulated leaf can select a counter
+ * of every interface.
+ *
+ * @param path path of the leaf, possibly with wildcarded list entries
+ * @param function function computing value of the leaf
+ */
+public record SimulatedLeaf(YangInstanceIdentifier path, RateFunction function) {
+
+    public SimulatedLeaf {
+        requireNonNull(path);
+        requireNonNull(function);
+    }
+}
@@ -38,11 +38,13 @@ public class ArgumentParser {
             .nargs(1)
             .help("Set path where the output datastore which will be saved.");
         argumentParser.addArgument("-d", "--devices-count")
+            .nargs(1)
             .setDefault(List.of(DEFAULT_DEVICE_COUNT))
             .help("Number of simulated netconf devices to spin."
                 + " This is the number of actual ports which will be used for the devices.")
             .dest("devices-count");
         argumentParser.addArgument("-t", "--thread-pool-size")
+            .nargs(1)
             .setDefault(List.of(DEFAULT_POOL_SIZE))
             .help("The number of threads to keep in the pool, "
                 + "when creating a device simulator, even if they are idle.")
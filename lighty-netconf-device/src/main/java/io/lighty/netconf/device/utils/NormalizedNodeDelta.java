@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteOperations;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.DistinctNodeContainer;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.OrderedNodeContainer;
+
+/**
+ * Writes differences between two data trees. When base tree is already present in the datastore,
+ * writing only the delta keeps all unchanged subtrees of base tree shared.
+ */
+public final class NormalizedNodeDelta {
+
+    private NormalizedNodeDelta() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Writes operations which turn base tree stored at path into target tree.
+     * @param tx transaction to write operations into
+     * @param datastoreType datastore containing base tree
+     * @param path path of base tree
+     * @param base tree present in the datastore
+     * @param target requested tree
+     */
+    public static void write(final DOMDataTreeWriteOperations tx, final LogicalDatastoreType datastoreType,
+            final YangInstanceIdentifier path, final NormalizedNode base, final NormalizedNode target) {
+        if (base == target) {
+            return;
+        }
+        if (!isMergeable(base, target)) {
+            if (!base.equals(target)) {
+                tx.put(datastoreType, path, target);
+            }
+            return;
+        }
+        for (final NormalizedNode targetChild : ((DistinctNodeContainer<?, ?>) target).body()) {
+            final NormalizedNode baseChild = childByArg(base, targetChild.name());
+            final YangInstanceIdentifier childPath = path.node(targetChild.name());
+            if (baseChild == null) {
+                tx.put(datastoreType, childPath, targetChild);
+            } else {
+                write(tx, datastoreType, childPath, baseChild, targetChild);
+            }
+        }
+        for (final NormalizedNode baseChild : ((DistinctNodeContainer<?, ?>) base).body()) {
+            if (childByArg(target, baseChild.name()) == null) {
+                tx.delete(datastoreType, path.node(baseChild.name()));
+            }
+        }
+    }
+
+    /**
+     * Looks up child of a node.
+     * @param parent parent node
+     * @param name name of the child
+     * @return child node or null if parent is not a container or does not contain such child
+     */
+    @SuppressWarnings("unchecked")
+    public static NormalizedNode childByArg(final NormalizedNode parent, final PathArgument name) {
+        return parent instanceof DistinctNodeContainer<?, ?> container
+            ? ((DistinctNodeContainer<PathArgument, NormalizedNode>) container).childByArg(name) : null;
+    }
+
+    private static boolean isMergeable(final NormalizedNode base, final NormalizedNode target) {
+        // ordered-by-user lists are replaced as a whole, so their order is kept
+        return base instanceof DistinctNodeContainer && !(base instanceof OrderedNodeContainer)
+            && base.contract() == target.contract() && base.name().equals(target.name());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.PathArgument;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.DistinctNodeContainer;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.SystemMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UnkeyedListNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserLeafSetNode;
+import org.opendaylight.yangtools.yang.data.api.schema.UserMapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.builder.NormalizedNodeContainerBuilder;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeWriter;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+/**
+ * Merges two data trees, such as configuration and state data of the same subtree. Only nodes present
+ * in both trees are rebuilt, subtrees present in one of the trees are shared with the merged tree.
+ * {@link #write(NormalizedNode, NormalizedNode, NormalizedNodeStreamWriter)} streams the merge instead,
+ * so that large overlapping trees are serialized without building their merged copy.
+ *
+ * <p>
+ * Children of a choice belong to one of its cases. Identifiers of data nodes are unique across all cases
+ * of a choice, so choices sharing a child hold the same case and are merged. Otherwise the case of the second
+ * tree is taken as a whole, so that merged choice never mixes children of different cases.
+ */
+public final class NormalizedNodeMerge {
+
+    private NormalizedNodeMerge() {
+        throw new UnsupportedOperationException("do not instantiate utility class");
+    }
+
+    /**
+     * Merges two trees of the same node. Children present in both trees are merged recursively, for leaves
+     * and unkeyed lists the node of the second tree wins.
+     * @param first first tree, usually configuration data
+     * @param second second tree, usually state data
+     * @return merged tree
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static NormalizedNode merge(final NormalizedNode first, final NormalizedNode second) {
+        final NormalizedNode resolved = resolve(first, second);
+        if (resolved != null) {
+            return resolved;
+        }
+        final NormalizedNodeContainerBuilder builder = newBuilder(first);
+        for (final Object child : (Collection) first.body()) {
+            final NormalizedNode firstChild = (NormalizedNode) child;
+            final NormalizedNode secondChild = NormalizedNodeDelta.childByArg(second, firstChild.name());
+            builder.addChild(secondChild == null ? firstChild : merge(firstChild, secondChild));
+        }
+        for (final Object child : (Collection) second.body()) {
+            final NormalizedNode secondChild = (NormalizedNode) child;
+            if (NormalizedNodeDelta.childByArg(first, secondChild.name()) == null) {
+                builder.addChild(secondChild);
+            }
+        }
+        return (NormalizedNode) builder.build();
+    }
+
+    /**
+     * Writes merge of two trees of the same node, with the same result as {@link #merge}. Only start and end
+     * of nodes present in both trees are emitted by the merge, all other subtrees are written directly from
+     * their tree.
+     * @param first first tree, usually configuration data
+     * @param second second tree, usually state data
+     * @param writer writer of the merged tree, it is not closed
+     * @throws IOException when writer fails
+     */
+    public static void write(final NormalizedNode first, final NormalizedNode second,
+            final NormalizedNodeStreamWriter writer) throws IOException {
+        write(first, second, writer, NormalizedNodeWriter.forStreamWriter(writer));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static void write(final NormalizedNode first, final NormalizedNode second,
+            final NormalizedNodeStreamWriter writer, final NormalizedNodeWriter nodeWriter) throws IOException {
+        final NormalizedNode resolved = resolve(first, second);
+        if (resolved != null) {
+            nodeWriter.write(resolved);
+            return;
+        }
+        startNode(first, writer);
+        // key leaves go first, as they do when NormalizedNodeWriter writes a map entry
+        final Set<PathArgument> keys = new HashSet<>();
+        if (first instanceof MapEntryNode entry) {
+            for (final QName key : entry.name().keySet()) {
+                final NodeIdentifier keyName = new NodeIdentifier(key);
+                final NormalizedNode secondKey = NormalizedNodeDelta.childByArg(second, keyName);
+                final NormalizedNode keyLeaf = secondKey != null ? secondKey
+                    : NormalizedNodeDelta.childByArg(first, keyName);
+                if (keyLeaf != null) {
+                    nodeWriter.write(keyLeaf);
+                    keys.add(keyName);
+                }
+            }
+        }
+        for (final Object child : (Collection) first.body()) {
+            final NormalizedNode firstChild = (NormalizedNode) child;
+            if (keys.contains(firstChild.name())) {
+                continue;
+            }
+            final NormalizedNode secondChild = NormalizedNodeDelta.childByArg(second, firstChild.name());
+            if (secondChild == null) {
+                nodeWriter.write(firstChild);
+            } else {
+                write(firstChild, secondChild, writer, nodeWriter);
+            }
+        }
+        for (final Object child : (Collection) second.body()) {
+            final NormalizedNode secondChild = (NormalizedNode) child;
+            if (!keys.contains(secondChild.name())
+                    && NormalizedNodeDelta.childByArg(first, secondChild.name()) == null) {
+                nodeWriter.write(secondChild);
+            }
+        }
+        writer.endNode();
+    }
+
+    /**
+     * Resolves merge which does not need to visit children of the trees.
+     * @return merged tree or null when children of both trees have to be merged
+     */
+    private static @Nullable NormalizedNode resolve(final NormalizedNode first, final NormalizedNode second) {
+        if (first == second || !(first instanceof DistinctNodeContainer) || first.contract() != second.contract()
+                || !first.name().equals(second.name())) {
+            return second;
+        }
+        if (((Collection<?>) first.body()).isEmpty()) {
+            return second;
+        }
+        if (((Collection<?>) second.body()).isEmpty()) {
+            return first;
+        }
+        if (first instanceof ChoiceNode firstChoice && !sameCase(firstChoice, (ChoiceNode) second)) {
+            return second;
+        }
+        return null;
+    }
+
+    private static boolean sameCase(final ChoiceNode first, final ChoiceNode second) {
+        for (final DataContainerChild child : first.body()) {
+            if (second.childByArg(child.name()) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void startNode(final NormalizedNode node, final NormalizedNodeStreamWriter writer)
+            throws IOException {
+        final int size = NormalizedNodeStreamWriter.UNKNOWN_SIZE;
+        switch (node) {
+            case ContainerNode container -> writer.startContainerNode(container.name(), size);
+            case MapEntryNode entry -> writer.startMapEntryNode(entry.name(), size);
+            case ChoiceNode choice -> writer.startChoiceNode(choice.name(), size);
+            case UnkeyedListEntryNode entry -> writer.startUnkeyedListItem(entry.name(), size);
+            case UserMapNode map -> writer.startOrderedMapNode(map.name(), size);
+            case SystemMapNode map -> writer.startMapNode(map.name(), size);
+            case UserLeafSetNode<?> leafSet -> writer.startOrderedLeafSet(leafSet.name(), size);
+            case SystemLeafSetNode<?> leafSet -> writer.startLeafSet(leafSet.name(), size);
+            default -> throw new IllegalArgumentException("Node " + node.name() + " does not contain other nodes");
+        }
+    }
+
+    /**
+     * Creates empty builder of a node with the same identifier and type as given node.
+     * @param node template node
+     * @return builder of the node without children
+     * @throws IllegalArgumentException when node is not a container of other nodes
+     */
+    @SuppressWarnings("rawtypes")
+    public static NormalizedNodeContainerBuilder newBuilder(final NormalizedNode node) {
+        return switch (node) {
+            case ContainerNode container -> ImmutableNodes.newContainerBuilder().withNodeIdentifier(container.name());
+            case MapEntryNode entry -> ImmutableNodes.newMapEntryBuilder().withNodeIdentifier(entry.name());
+            case ChoiceNode choice -> ImmutableNodes.newChoiceBuilder().withNodeIdentifier(choice.name());
+            case UnkeyedListEntryNode entry -> ImmutableNodes.newUnkeyedListEntryBuilder()
+                .withNodeIdentifier(entry.name());
+            case UnkeyedListNode list -> ImmutableNodes.newUnkeyedListBuilder().withNodeIdentifier(list.name());
+            case UserMapNode map -> ImmutableNodes.newUserMapBuilder().withNodeIdentifier(map.name());
+            case SystemMapNode map -> ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(map.name());
+            case UserLeafSetNode<?> leafSet -> ImmutableNodes.newUserLeafSetBuilder()
+                .withNodeIdentifier(leafSet.name());
+            case SystemLeafSetNode<?> leafSet -> ImmutableNodes.newSystemLeafSetBuilder()
+                .withNodeIdentifier(leafSet.name());
+            default -> throw new IllegalArgumentException("Node " + node.name() + " does not contain other nodes");
+        };
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import com.google.common.base.Preconditions;
+import java.util.Map;
+import java.util.Set;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.QNameModule;
+
+/**
+ * Configuration of synthetic data generated by {@link SyntheticDataGenerator}.
+ *
+ * @param seed seed of the random generator, the same seed and models always produce the same data
+ * @param defaultListSize number of entries of lists and leaf-lists without explicit size
+ * @param listSizes number of entries of lists and leaf-lists by their QName
+ * @param valueCardinality number of distinct values generated for non-key leaves of the same type
+ * @param modules modules whose top-level nodes are generated, all modules when empty
+ */
+public record SyntheticDataConfig(long seed, int defaultListSize, Map<QName, Integer> listSizes,
+        int valueCardinality, Set<QNameModule> modules) {
+
+    public SyntheticDataConfig {
+        Preconditions.checkArgument(defaultListSize >= 0, "defaultListSize must not be negative");
+        Preconditions.checkArgument(valueCardinality > 0, "valueCardinality must be positive");
+        listSizes.values().forEach(size -> Preconditions.checkArgument(size >= 0, "list size must not be negative"));
+        listSizes = Map.copyOf(listSizes);
+        modules = Set.copyOf(modules);
+    }
+
+    /**
+     * Creates configuration generating 10 entries of every list in all modules.
+     * @param seed seed of the random generator
+     * @return default configuration
+     */
+    public static SyntheticDataConfig defaults(final long seed) {
+        return new SyntheticDataConfig(seed, 10, Map.of(), 1000, Set.of());
+    }
+
+    /**
+     * Number of entries generated for list or leaf-list.
+     * @param list QName of list or leaf-list
+     * @return number of entries
+     */
+    public int listSize(final QName list) {
+        return listSizes.getOrDefault(list, defaultListSize);
+    }
+}
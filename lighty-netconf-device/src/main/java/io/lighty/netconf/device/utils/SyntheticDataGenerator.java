@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.eclipse.jdt.annotation.Nullable;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yangtools.yang.common.Decimal64;
+import org.opendaylight.yangtools.yang.common.Empty;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.common.Uint64;
+import org.opendaylight.yangtools.yang.common.Uint8;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.CaseSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ContainerSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.IdentitySchemaNode;
+import org.opendaylight.yangtools.yang.model.api.LeafListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.LeafSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.ListSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+import org.opendaylight.yangtools.yang.model.api.TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.BinaryTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.BitsTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.BooleanTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.DecimalTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.EmptyTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.EnumTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.IdentityrefTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Int16TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Int32TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Int64TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Int8TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.LeafrefTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.RangeRestrictedTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.StringTypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Uint16TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Uint32TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Uint64TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.Uint8TypeDefinition;
+import org.opendaylight.yangtools.yang.model.api.type.UnionTypeDefinition;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates data trees of requested size directly from device models, without any XML. Generator walks
+ * schema tree of the model context and creates every container, the configured number of entries of every
+ * list and leaf-list, a value of every leaf and one case of every choice. Values are derived from leaf types
+ * and their range, length, enumeration and identity restrictions. List keys are unique within the list,
+ * other leaves take one of {@link SyntheticDataConfig#valueCardinality()} values. Generated tree depends only
+ * on models and configuration, so it is the same on every run with the same seed.
+ *
+ * <p>Leafrefs get a value of the referenced type, but they do not point to existing instances. Leaves of
+ * instance-identifier type, anydata and anyxml nodes are not generated.
+ */
+public final class SyntheticDataGenerator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private final EffectiveModelContext modelContext;
+    private final boolean configOnly;
+    private final SyntheticDataConfig config;
+    private final SplittableRandom random;
+    private final SchemaInferenceStack stack;
+    private final Map<LeafrefTypeDefinition, TypeDefinition<?>> leafrefTypes = new IdentityHashMap<>();
+    private final Map<IdentitySchemaNode, List<QName>> identities = new IdentityHashMap<>();
+    private long generatedNodes;
+
+    private SyntheticDataGenerator(final EffectiveModelContext modelContext, final LogicalDatastoreType datastore,
+            final SyntheticDataConfig config) {
+        this.modelContext = modelContext;
+        this.configOnly = datastore == LogicalDatastoreType.CONFIGURATION;
+        this.config = config;
+        this.random = new SplittableRandom(config.seed());
+        this.stack = SchemaInferenceStack.of(modelContext);
+    }
+
+    /**
+     * Generates root of datastore data tree. Configuration datastore contains only configuration nodes.
+     * Tree can be used as initial content of a device or shared by a fleet of devices as their seed.
+     * @param modelContext models of the device
+     * @param datastore datastore the data are generated for
+     * @param config sizes and seed of generated data
+     * @return root container of generated data
+     */
+    public static ContainerNode generate(final EffectiveModelContext modelContext,
+            final LogicalDatastoreType datastore, final SyntheticDataConfig config) {
+        final SyntheticDataGenerator generator = new SyntheticDataGenerator(modelContext, datastore, config);
+        final var root = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(SchemaContext.NAME));
+        for (final DataSchemaNode node : modelContext.getChildNodes()) {
+            if (config.modules().isEmpty() || config.modules().contains(node.getQName().getModule())) {
+                generator.generateChild(node).ifPresent(root::withChild);
+            }
+        }
+        LOG.debug("Generated {} nodes of {} datastore", generator.generatedNodes, datastore);
+        return root.build();
+    }
+
+    private Optional<DataContainerChild> generateChild(final DataSchemaNode node) {
+        if (configOnly && !node.effectiveConfig().orElse(Boolean.TRUE)) {
+            return Optional.empty();
+        }
+        stack.enterSchemaTree(node.getQName());
+        try {
+            return Optional.ofNullable(switch (node) {
+                case ContainerSchemaNode container -> generateContainer(container);
+                case ListSchemaNode list -> generateList(list);
+                case LeafListSchemaNode leafList -> generateLeafList(leafList);
+                case LeafSchemaNode leaf -> generateLeaf(leaf, random.nextInt(config.valueCardinality()));
+                case ChoiceSchemaNode choice -> generateChoice(choice);
+                default -> null;
+            });
+        } finally {
+            stack.exit();
+        }
+    }
+
+    private List<DataContainerChild> generateChildren(final DataNodeContainer schema, final Set<QName> skipped) {
+        final List<DataContainerChild> children = new ArrayList<>();
+        for (final DataSchemaNode child : schema.getChildNodes()) {
+            if (!skipped.contains(child.getQName())) {
+                generateChild(child).ifPresent(children::add);
+            }
+        }
+        return children;
+    }
+
+    private ContainerNode generateContainer(final ContainerSchemaNode container) {
+        final var builder = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(NodeIdentifier.create(container.getQName()));
+        generateChildren(container, Set.of()).forEach(builder::withChild);
+        generatedNodes++;
+        return builder.build();
+    }
+
+    private DataContainerChild generateChoice(final ChoiceSchemaNode choice) {
+        final List<? extends CaseSchemaNode> cases = List.copyOf(choice.getCases());
+        if (cases.isEmpty()) {
+            return null;
+        }
+        final CaseSchemaNode selected = cases.get(random.nextInt(cases.size()));
+        final var builder = ImmutableNodes.newChoiceBuilder()
+            .withNodeIdentifier(NodeIdentifier.create(choice.getQName()));
+        stack.enterSchemaTree(selected.getQName());
+        try {
+            generateChildren(selected, Set.of()).forEach(builder::withChild);
+        } finally {
+            stack.exit();
+        }
+        return builder.build();
+    }
+
+    private DataContainerChild generateList(final ListSchemaNode list) {
+        final int size = config.listSize(list.getQName());
+        if (list.getKeyDefinition().isEmpty()) {
+            final var builder = ImmutableNodes.newUnkeyedListBuilder()
+                .withNodeIdentifier(NodeIdentifier.create(list.getQName()));
+            for (int i = 0; i < size; i++) {
+                final var entry = ImmutableNodes.newUnkeyedListEntryBuilder()
+                    .withNodeIdentifier(NodeIdentifier.create(list.getQName()));
+                generateChildren(list, Set.of()).forEach(entry::withChild);
+                builder.withChild(entry.build());
+                generatedNodes++;
+            }
+            return builder.build();
+        }
+
+        // keys are derived from entry index, types with few values produce fewer unique entries
+        final Map<NodeIdentifierWithPredicates, MapEntryNode> entries = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            final Map<QName, Object> keyValues = new LinkedHashMap<>();
+            final List<DataContainerChild> keyLeaves = new ArrayList<>();
+            for (final QName key : list.getKeyDefinition()) {
+                stack.enterSchemaTree(key);
+                try {
+                    final DataContainerChild keyLeaf = generateLeaf((LeafSchemaNode) list.getDataChildByName(key), i);
+                    if (keyLeaf == null) {
+                        return null;
+                    }
+                    keyValues.put(key, keyLeaf.body());
+                    keyLeaves.add(keyLeaf);
+                } finally {
+                    stack.exit();
+                }
+            }
+            final NodeIdentifierWithPredicates entryId = NodeIdentifierWithPredicates.of(list.getQName(), keyValues);
+            if (!entries.containsKey(entryId)) {
+                final var entry = ImmutableNodes.newMapEntryBuilder().withNodeIdentifier(entryId);
+                keyLeaves.forEach(entry::withChild);
+                generateChildren(list, keyValues.keySet()).forEach(entry::withChild);
+                entries.put(entryId, entry.build());
+                generatedNodes++;
+            }
+        }
+        final NodeIdentifier listId = NodeIdentifier.create(list.getQName());
+        if (list.isUserOrdered()) {
+            final var builder = ImmutableNodes.newUserMapBuilder().withNodeIdentifier(listId);
+            entries.values().forEach(builder::withChild);
+            return builder.build();
+        }
+        final var builder = ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(listId);
+        entries.values().forEach(builder::withChild);
+        return builder.build();
+    }
+
+    private DataContainerChild generateLeafList(final LeafListSchemaNode leafList) {
+        final int size = config.listSize(leafList.getQName());
+        final Set<Object> values = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            final Object value = generateValue(leafList.getType(), leafList.getQName(), i);
+            if (value == null) {
+                return null;
+            }
+            values.add(value);
+        }
+        generatedNodes += values.size();
+        final NodeIdentifier leafListId = NodeIdentifier.create(leafList.getQName());
+        if (leafList.isUserOrdered()) {
+            final var builder = ImmutableNodes.<Object>newUserLeafSetBuilder().withNodeIdentifier(leafListId);
+            values.forEach(value -> builder.withChild(ImmutableNodes.leafSetEntry(leafList.getQName(), value)));
+            return builder.build();
+        }
+        final var builder = ImmutableNodes.<Object>newSystemLeafSetBuilder().withNodeIdentifier(leafListId);
+        values.forEach(value -> builder.withChild(ImmutableNodes.leafSetEntry(leafList.getQName(), value)));
+        return builder.build();
+    }
+
+    private @Nullable DataContainerChild generateLeaf(final LeafSchemaNode leaf, final long ordinal) {
+        final Object value = generateValue(leaf.getType(), leaf.getQName(), ordinal);
+        if (value == null) {
+            return null;
+        }
+        generatedNodes++;
+        return ImmutableNodes.leafNode(leaf.getQName(), value);
+    }
+
+    /**
+     * Maps ordinal to a value of the type. Different ordinals give different values as long as the type
+     * has enough of them.
+     */
+    private @Nullable Object generateValue(final TypeDefinition<?> type, final QName leaf, final long ordinal) {
+        return switch (type) {
+            case BooleanTypeDefinition bool -> ordinal % 2 != 0;
+            case Int8TypeDefinition int8 -> (byte) bounded(int8, Byte.MIN_VALUE, Byte.MAX_VALUE, ordinal);
+            case Int16TypeDefinition int16 -> (short) bounded(int16, Short.MIN_VALUE, Short.MAX_VALUE, ordinal);
+            case Int32TypeDefinition int32 -> (int) bounded(int32, Integer.MIN_VALUE, Integer.MAX_VALUE, ordinal);
+            case Int64TypeDefinition int64 -> bounded(int64, Long.MIN_VALUE, Long.MAX_VALUE, ordinal);
+            case Uint8TypeDefinition uint8 -> Uint8.valueOf(bounded(uint8, 0, 0xFF, ordinal));
+            case Uint16TypeDefinition uint16 -> Uint16.valueOf(bounded(uint16, 0, 0xFFFF, ordinal));
+            case Uint32TypeDefinition uint32 -> Uint32.valueOf(bounded(uint32, 0, 0xFFFFFFFFL, ordinal));
+            case Uint64TypeDefinition uint64 -> Uint64.valueOf(bounded(uint64, 0, Long.MAX_VALUE, ordinal));
+            case DecimalTypeDefinition decimal -> Decimal64.of(decimal.getFractionDigits(),
+                bounded(decimal, Long.MIN_VALUE, Long.MAX_VALUE, ordinal));
+            case StringTypeDefinition string -> generateString(string, leaf, ordinal);
+            case EnumTypeDefinition enumeration -> enumeration.getValues().isEmpty() ? null
+                : enumeration.getValues().get((int) Math.floorMod(ordinal, enumeration.getValues().size())).getName();
+            case BitsTypeDefinition bits -> {
+                final List<? extends BitsTypeDefinition.Bit> allBits = List.copyOf(bits.getBits());
+                yield allBits.isEmpty() ? ImmutableSet.of()
+                    : ImmutableSet.of(allBits.get((int) Math.floorMod(ordinal, allBits.size())).getName());
+            }
+            case IdentityrefTypeDefinition identityref -> {
+                final List<QName> values = identityref.getIdentities().stream()
+                    .flatMap(base -> derivedIdentities(base).stream())
+                    .toList();
+                yield values.get((int) Math.floorMod(ordinal, values.size()));
+            }
+            case EmptyTypeDefinition empty -> Empty.value();
+            case BinaryTypeDefinition binary -> Long.toString(ordinal).getBytes(StandardCharsets.UTF_8);
+            case UnionTypeDefinition union -> generateValue(union.getTypes().get(0), leaf, ordinal);
+            case LeafrefTypeDefinition leafref -> generateValue(
+                leafrefTypes.computeIfAbsent(leafref, stack::resolveLeafref), leaf, ordinal);
+            default -> null;
+        };
+    }
+
+    private static String generateString(final StringTypeDefinition type, final QName leaf, final long ordinal) {
+        final String value = leaf.getLocalName() + "-" + ordinal;
+        final Optional<Range<Integer>> length = type.getLengthConstraint()
+            .map(constraint -> constraint.getAllowedRanges().asRanges().iterator().next());
+        if (length.isEmpty()) {
+            return value;
+        }
+        final int min = length.orElseThrow().lowerEndpoint();
+        final int max = length.orElseThrow().upperEndpoint();
+        if (value.length() < min) {
+            return value + "x".repeat(min - value.length());
+        }
+        // keep the ordinal at the end, so truncated values stay distinct
+        return value.length() > max ? value.substring(value.length() - max) : value;
+    }
+
+    /**
+     * Maps ordinal into the first allowed range of the type.
+     */
+    private static long bounded(final RangeRestrictedTypeDefinition<?, ?> type, final long defaultMin,
+            final long defaultMax, final long ordinal) {
+        final Optional<? extends Range<?>> range = type.getRangeConstraint()
+            .map(constraint -> constraint.getAllowedRanges().asRanges().iterator().next());
+        final long min = range.map(allowed -> toLong(allowed.lowerEndpoint())).orElse(defaultMin);
+        final long max = range.map(allowed -> toLong(allowed.upperEndpoint())).orElse(defaultMax);
+        final long span = max - min + 1;
+        return span > 0 ? min + Math.floorMod(ordinal, span) : min + (ordinal & Long.MAX_VALUE);
+    }
+
+    private static long toLong(final Object endpoint) {
+        return switch (endpoint) {
+            case Decimal64 decimal -> decimal.unscaledValue();
+            case Uint64 uint64 -> uint64.longValue() < 0 ? Long.MAX_VALUE : uint64.longValue();
+            case Number number -> number.longValue();
+            default -> throw new IllegalArgumentException("Unsupported range endpoint " + endpoint);
+        };
+    }
+
+    /**
+     * Identities derived from the base identity, or the base itself when there is none.
+     */
+    private List<QName> derivedIdentities(final IdentitySchemaNode base) {
+        return identities.computeIfAbsent(base, key -> {
+            final List<QName> derived = modelContext.getDerivedIdentities(key).stream()
+                .map(IdentitySchemaNode::getQName)
+                .toList();
+            return derived.isEmpty() ? List.of(key.getQName()) : derived;
+        });
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.xml.XmlElement;
+import org.opendaylight.netconf.test.tool.rpchandler.RpcHandler;
+import org.w3c.dom.Document;
+
+public class LazyRpcHandlerTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    private static XmlElement request;
+
+    private final AtomicInteger activations = new AtomicInteger();
+    private final AtomicInteger evictions = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        document.appendChild(document.createElementNS("urn:ietf:params:xml:ns:netconf:base:1.0", "get"));
+        request = XmlElement.fromDomDocument(document);
+    }
+
+    @Test
+    public void testActivationOnFirstRequest() {
+        try (LazyRpcHandler handler = new LazyRpcHandler(activation(), evictions::incrementAndGet, null)) {
+            Assertions.assertFalse(handler.isActive());
+            Assertions.assertEquals(0, activations.get());
+
+            handler.getResponse(request);
+            handler.getResponse(request);
+            Assertions.assertTrue(handler.isActive());
+            Assertions.assertEquals(1, activations.get());
+            Assertions.assertEquals(2, requests.get());
+        }
+    }
+
+    @Test
+    public void testEvictionOfIdleDevice() throws InterruptedException {
+        try (LazyRpcHandler handler = new LazyRpcHandler(activation(), evictions::incrementAndGet,
+                Duration.ofMillis(100))) {
+            handler.getResponse(request);
+            Assertions.assertTrue(handler.isActive());
+            waitUntil(() -> !handler.isActive());
+            Assertions.assertEquals(1, evictions.get());
+
+            //next request activates the device again
+            handler.getResponse(request);
+            Assertions.assertTrue(handler.isActive());
+            Assertions.assertEquals(2, activations.get());
+        }
+    }
+
+    @Test
+    public void testNoEvictionWithoutTimeout() throws InterruptedException {
+        try (LazyRpcHandler handler = new LazyRpcHandler(activation(), evictions::incrementAndGet, null)) {
+            handler.getResponse(request);
+            Thread.sleep(300);
+            Assertions.assertTrue(handler.isActive());
+            Assertions.assertEquals(0, evictions.get());
+        }
+    }
+
+    @Test
+    public void testNoEvictionAfterClose() throws InterruptedException {
+        final LazyRpcHandler handler = new LazyRpcHandler(activation(), evictions::incrementAndGet,
+            Duration.ofMillis(100));
+        handler.getResponse(request);
+        handler.close();
+        Thread.sleep(300);
+        Assertions.assertTrue(handler.isActive());
+        Assertions.assertEquals(0, evictions.get());
+    }
+
+    private Supplier<RpcHandler> activation() {
+        return () -> {
+            activations.incrementAndGet();
+            return rpcElement -> {
+                requests.incrementAndGet();
+                return Optional.empty();
+            };
+        };
+    }
+
+    private static void waitUntil(final Supplier<Boolean> condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.get()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Condition was not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
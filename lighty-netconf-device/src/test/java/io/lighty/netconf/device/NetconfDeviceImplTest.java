@@ -9,6 +9,8 @@ package io.lighty.netconf.device;
 
 import io.lighty.codecs.util.exception.DeserializationException;
 import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.requests.GetConfigRequestProcessor;
+import io.lighty.netconf.device.response.Response;
 import io.lighty.netconf.device.utils.ModelUtils;
 import java.io.File;
 import java.io.FileInputStream;
@@ -16,17 +18,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.parsers.DocumentBuilderFactory;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
 import org.opendaylight.mdsal.binding.api.WriteTransaction;
 import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.netconf.api.xml.XmlElement;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NodeId;
 import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
@@ -37,16 +47,24 @@ import org.opendaylight.yangtools.binding.DataObjectIdentifier;
 import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
 import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 
 public class NetconfDeviceImplTest {
 
     private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final String LAZY_CONFIG = "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+        + "<topology><topology-id>lazy-topology</topology-id></topology>"
+        + "</network-topology></data>";
+    private static Set<YangModuleInfo> modules;
     private static NetconfDeviceImpl netconfDevice;
 
     @BeforeAll
     public static void setUp() {
         //set up a simple device
-        final Set<YangModuleInfo> modules = ModelUtils.getModelsFromClasspath(
+        modules = ModelUtils.getModelsFromClasspath(
             ModuleId.from("urn:tech.pantheon.netconfdevice.network.topology.rpcs",
                 "network-topology-rpcs",
                 "2023-09-27"),
@@ -130,4 +148,122 @@ public class NetconfDeviceImplTest {
             file.delete();
         }
     }
+
+    @Test
+    public void testDatastoreVersion() throws ExecutionException, InterruptedException, TimeoutException {
+        final NetconfDeviceServices services = netconfDevice.getNetconfDeviceServices();
+        final long configVersion = services.getDatastoreVersion(LogicalDatastoreType.CONFIGURATION);
+        final long operationalVersion = services.getDatastoreVersion(LogicalDatastoreType.OPERATIONAL);
+        //write a new topology to configuration datastore
+        final DataObjectIdentifier<Topology> tii =
+            DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, new TopologyBuilder().setTopologyId(new TopologyId("version-topology"))
+                    .build().key())
+                .build();
+        final WriteTransaction writeTransaction = services.getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, tii,
+            new TopologyBuilder().setTopologyId(new TopologyId("version-topology")).build());
+        writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        //only version of the modified datastore is changed
+        Assertions.assertTrue(services.getDatastoreVersion(LogicalDatastoreType.CONFIGURATION) > configVersion);
+        Assertions.assertEquals(operationalVersion, services.getDatastoreVersion(LogicalDatastoreType.OPERATIONAL));
+    }
+
+    @Test
+    public void testCachedGetConfigReply() throws Exception {
+        final AtomicInteger executions = new AtomicInteger();
+        final GetConfigRequestProcessor processor = new GetConfigRequestProcessor() {
+            @Override
+            public CompletableFuture<Response> execute(final Element requestXml) {
+                executions.incrementAndGet();
+                return super.execute(requestXml);
+            }
+        };
+        processor.init(netconfDevice.getNetconfDeviceServices());
+        final Element request = parseElement("<get-config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+            + "<source><running/></source></get-config>");
+
+        //repeated request of unchanged datastore reuses the cached reply
+        final Document firstReply = processor.processRequest(request);
+        final Document secondReply = processor.processRequest(request);
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertNotSame(firstReply, secondReply);
+        Assertions.assertTrue(firstReply.getDocumentElement().isEqualNode(secondReply.getDocumentElement()));
+        Assertions.assertFalse(secondReply.getDocumentElement().getTextContent().contains("cached-topology"));
+
+        //commit to the datastore invalidates the cached reply
+        final DataObjectIdentifier<Topology> tii =
+            DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, new TopologyBuilder().setTopologyId(new TopologyId("cached-topology"))
+                    .build().key())
+                .build();
+        final WriteTransaction writeTransaction =
+            netconfDevice.getNetconfDeviceServices().getDataBroker().newWriteOnlyTransaction();
+        writeTransaction.put(LogicalDatastoreType.CONFIGURATION, tii,
+            new TopologyBuilder().setTopologyId(new TopologyId("cached-topology")).build());
+        writeTransaction.commit().get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        final Document thirdReply = processor.processRequest(request);
+        Assertions.assertEquals(2, executions.get());
+        Assertions.assertTrue(thirdReply.getDocumentElement().getTextContent().contains("cached-topology"));
+        //new reply is cached again
+        processor.processRequest(request);
+        Assertions.assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testEvictionAndReactivation() throws Exception {
+        final NetconfDeviceImpl lazyDevice = (NetconfDeviceImpl) new NetconfDeviceBuilder()
+            .setCredentials("admin", "admin")
+            .setBindingPort(17831)
+            .withModels(modules)
+            .setConfigDatastoreContent(LAZY_CONFIG)
+            .withIdleEviction(Duration.ofSeconds(1))
+            .build();
+        lazyDevice.start();
+        try {
+            final LazyRpcHandler handler = lazyDevice.getLazyRpcHandler();
+            final XmlElement request = XmlElement.fromDomElement(
+                parseElement("<get xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\"/>"));
+            //initial data are loaded by the first request
+            Assertions.assertFalse(readLazyTopology(lazyDevice).isPresent());
+            handler.getResponse(request);
+            Assertions.assertTrue(handler.isActive());
+            Assertions.assertTrue(readLazyTopology(lazyDevice).isPresent());
+
+            //idle device drops data of both datastores
+            final long deadline = System.currentTimeMillis() + REQUEST_TIMEOUT_MILLIS;
+            while (handler.isActive() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertFalse(handler.isActive());
+            Assertions.assertFalse(readLazyTopology(lazyDevice).isPresent());
+
+            //next request loads initial data again
+            handler.getResponse(request);
+            Assertions.assertTrue(handler.isActive());
+            Assertions.assertTrue(readLazyTopology(lazyDevice).isPresent());
+        } finally {
+            lazyDevice.close();
+        }
+    }
+
+    private static Optional<Topology> readLazyTopology(final NetconfDeviceImpl device) throws Exception {
+        final DataObjectIdentifier<Topology> tii =
+            DataObjectIdentifier.builder(NetworkTopology.class)
+                .child(Topology.class, new TopologyBuilder().setTopologyId(new TopologyId("lazy-topology"))
+                    .build().key())
+                .build();
+        try (ReadTransaction readTransaction = device.getNetconfDeviceServices().getDataBroker()
+                .newReadOnlyTransaction()) {
+            return readTransaction.read(LogicalDatastoreType.CONFIGURATION, tii)
+                .get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Element parseElement(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
 }
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidateNode;
+import org.opendaylight.yangtools.yang.data.tree.api.ModificationType;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+
+public class OffHeapListStoreTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final QName NETWORK_TOPOLOGY = QName.create(NT_NAMESPACE, "2013-10-21", "network-topology");
+    private static final QName TOPOLOGY = QName.create(NETWORK_TOPOLOGY, "topology");
+    private static final QName TOPOLOGY_ID = QName.create(NETWORK_TOPOLOGY, "topology-id");
+    private static final QName NODE = QName.create(NETWORK_TOPOLOGY, "node");
+    private static final QName NODE_ID = QName.create(NETWORK_TOPOLOGY, "node-id");
+    private static final QName TERMINATION_POINT = QName.create(NETWORK_TOPOLOGY, "termination-point");
+    private static final QName TP_ID = QName.create(NETWORK_TOPOLOGY, "tp-id");
+    private static final String TOPOLOGY_NAME = "topology-1";
+    private static final YangInstanceIdentifier NETWORK_TOPOLOGY_PATH = YangInstanceIdentifier.of(NETWORK_TOPOLOGY);
+    private static final YangInstanceIdentifier TOPOLOGY_PATH = YangInstanceIdentifier.builder(NETWORK_TOPOLOGY_PATH)
+        .node(TOPOLOGY)
+        .nodeWithKey(TOPOLOGY, TOPOLOGY_ID, TOPOLOGY_NAME)
+        .build();
+    private static final YangInstanceIdentifier NODE_LIST_PATH = TOPOLOGY_PATH.node(NODE);
+
+    private static EffectiveModelContext modelContext;
+
+    private InMemoryDOMDataStore delegate;
+    private OffHeapListStore store;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @BeforeEach
+    public void setUpStore() {
+        store = newStore(OffHeapListConfig.DEFAULT_SEGMENT_SIZE);
+    }
+
+    @Test
+    public void testWriteMergeAndDeleteEntry() throws Exception {
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(nodePath("node-1"), node("node-1"));
+        commit(tx.ready());
+        Assertions.assertEquals(Optional.of(node("node-1")), read(store, nodePath("node-1")));
+        //entry is kept off-heap, delegate holds only its ancestors
+        Assertions.assertTrue(read(delegate, NODE_LIST_PATH).isEmpty());
+        Assertions.assertTrue(read(delegate, TOPOLOGY_PATH).isPresent());
+
+        tx = store.newWriteOnlyTransaction();
+        tx.merge(nodePath("node-1"), node("node-1", "tp-1"));
+        commit(tx.ready());
+        Assertions.assertEquals(Optional.of(node("node-1", "tp-1")), read(store, nodePath("node-1")));
+
+        //node inside an entry is modified in the entry
+        tx = store.newWriteOnlyTransaction();
+        tx.merge(nodePath("node-1").node(TERMINATION_POINT), terminationPoints("tp-2"));
+        commit(tx.ready());
+        Assertions.assertEquals(Optional.of(node("node-1", "tp-1", "tp-2")), read(store, nodePath("node-1")));
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(nodePath("node-1").node(TERMINATION_POINT));
+        commit(tx.ready());
+        Assertions.assertEquals(Optional.of(node("node-1")), read(store, nodePath("node-1")));
+
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(nodePath("node-1"));
+        commit(tx.ready());
+        Assertions.assertTrue(read(store, nodePath("node-1")).isEmpty());
+        Assertions.assertTrue(read(store, NODE_LIST_PATH).isEmpty());
+    }
+
+    @Test
+    public void testWriteMergeAndDeleteList() throws Exception {
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NODE_LIST_PATH, nodes(node("node-1"), node("node-2")));
+        commit(tx.ready());
+        Assertions.assertEquals(2, ((MapNode) read(store, NODE_LIST_PATH).orElseThrow()).size());
+
+        tx = store.newWriteOnlyTransaction();
+        tx.merge(NODE_LIST_PATH, nodes(node("node-2", "tp-1"), node("node-3")));
+        commit(tx.ready());
+        final MapNode merged = (MapNode) read(store, NODE_LIST_PATH).orElseThrow();
+        Assertions.assertEquals(3, merged.size());
+        Assertions.assertEquals(node("node-2", "tp-1"), merged.childByArg(nodeKey("node-2")));
+
+        //written list replaces all entries
+        tx = store.newWriteOnlyTransaction();
+        tx.write(NODE_LIST_PATH, nodes(node("node-4")));
+        commit(tx.ready());
+        final MapNode written = (MapNode) read(store, NODE_LIST_PATH).orElseThrow();
+        Assertions.assertEquals(1, written.size());
+        Assertions.assertEquals(node("node-4"), written.childByArg(nodeKey("node-4")));
+
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(NODE_LIST_PATH);
+        commit(tx.ready());
+        Assertions.assertTrue(read(store, NODE_LIST_PATH).isEmpty());
+        Assertions.assertTrue(read(store, TOPOLOGY_PATH).isPresent());
+    }
+
+    @Test
+    public void testWriteMergeAndDeleteAncestor() throws Exception {
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-1"), node("node-2")));
+        commit(tx.ready());
+        //ancestor is split between the delegate and the off-heap list and read back as a whole
+        Assertions.assertEquals(Optional.of(networkTopology()), read(delegate, NETWORK_TOPOLOGY_PATH));
+        Assertions.assertEquals(networkTopology(node("node-1"), node("node-2")),
+            materialize(read(store, NETWORK_TOPOLOGY_PATH).orElseThrow()));
+
+        tx = store.newWriteOnlyTransaction();
+        tx.merge(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-3")));
+        commit(tx.ready());
+        Assertions.assertEquals(networkTopology(node("node-1"), node("node-2"), node("node-3")),
+            materialize(read(store, NETWORK_TOPOLOGY_PATH).orElseThrow()));
+
+        //written ancestor replaces entries of the list
+        tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-4")));
+        commit(tx.ready());
+        Assertions.assertEquals(networkTopology(node("node-4")),
+            materialize(read(store, NETWORK_TOPOLOGY_PATH).orElseThrow()));
+
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(TOPOLOGY_PATH);
+        commit(tx.ready());
+        Assertions.assertTrue(read(store, TOPOLOGY_PATH).isEmpty());
+        Assertions.assertTrue(read(store, NODE_LIST_PATH).isEmpty());
+    }
+
+    @Test
+    public void testInvalidEntryIsRejected() {
+        final MapEntryNode invalid = ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(nodeKey("node-1"))
+            .withChild(ImmutableNodes.leafNode(NODE_ID, "node-1"))
+            .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, "not-a-child-of-node"))
+            .build();
+        final DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tx.write(nodePath("node-1"), invalid));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> tx.write(NODE_LIST_PATH, ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(NODE))
+                .withChild(invalid)
+                .build()));
+    }
+
+    @Test
+    public void testReadOnlyTransactionReadsSnapshot() throws Exception {
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-1")));
+        commit(tx.ready());
+
+        try (DOMStoreReadTransaction snapshot = store.newReadOnlyTransaction()) {
+            tx = store.newWriteOnlyTransaction();
+            tx.write(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-2"), node("node-3")));
+            commit(tx.ready());
+
+            //transaction opened before the commit reads neither list nor ancestors of the commit
+            Assertions.assertEquals(Optional.of(node("node-1")),
+                snapshot.read(nodePath("node-1")).get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            Assertions.assertTrue(snapshot.read(nodePath("node-2")).get(WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                .isEmpty());
+            Assertions.assertEquals(networkTopology(node("node-1")), materialize(
+                snapshot.read(NETWORK_TOPOLOGY_PATH).get(WAIT_MILLIS, TimeUnit.MILLISECONDS).orElseThrow()));
+        }
+        Assertions.assertEquals(networkTopology(node("node-2"), node("node-3")),
+            materialize(read(store, NETWORK_TOPOLOGY_PATH).orElseThrow()));
+    }
+
+    @Test
+    public void testCompactionKeepsEntriesAndSnapshots() throws Exception {
+        store = newStore(256);
+        final int entryCount = 20;
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        for (int i = 0; i < entryCount; i++) {
+            tx.write(nodePath("node-" + i), node("node-" + i));
+        }
+        commit(tx.ready());
+
+        try (DOMStoreReadTransaction snapshot = store.newReadOnlyTransaction()) {
+            //rewriting entries many times turns most of the segments into garbage, which is compacted
+            for (int round = 0; round < 10; round++) {
+                tx = store.newWriteOnlyTransaction();
+                for (int i = 0; i < entryCount; i++) {
+                    tx.write(nodePath("node-" + i), node("node-" + i, "tp-" + round));
+                }
+                commit(tx.ready());
+            }
+            tx = store.newWriteOnlyTransaction();
+            tx.delete(nodePath("node-0"));
+            commit(tx.ready());
+
+            //segments of compacted entries stay readable by older snapshots
+            final MapNode old = (MapNode) snapshot.read(NODE_LIST_PATH).get(WAIT_MILLIS, TimeUnit.MILLISECONDS)
+                .orElseThrow();
+            Assertions.assertEquals(entryCount, old.size());
+            Assertions.assertEquals(node("node-0"), old.childByArg(nodeKey("node-0")));
+        }
+        final MapNode current = (MapNode) read(store, NODE_LIST_PATH).orElseThrow();
+        Assertions.assertEquals(entryCount - 1, current.size());
+        Assertions.assertNull(current.childByArg(nodeKey("node-0")));
+        for (int i = 1; i < entryCount; i++) {
+            Assertions.assertEquals(node("node-" + i, "tp-9"), current.childByArg(nodeKey("node-" + i)));
+        }
+    }
+
+    @Test
+    public void testListenerInsideList() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        store.registerTreeChangeListener(nodePath("node-1"), listener);
+        Assertions.assertEquals(1, listener.initialData.get());
+
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(nodePath("node-1"), node("node-1"));
+        tx.write(nodePath("node-2"), node("node-2"));
+        commit(tx.ready());
+        DataTreeCandidateNode node = singleCandidate(listener).getRootNode();
+        Assertions.assertEquals(ModificationType.WRITE, node.modificationType());
+        Assertions.assertNull(node.dataBefore());
+        Assertions.assertEquals(node("node-1"), node.dataAfter());
+
+        //change of other entry is not notified
+        tx = store.newWriteOnlyTransaction();
+        tx.write(nodePath("node-2"), node("node-2", "tp-1"));
+        commit(tx.ready());
+        Assertions.assertTrue(listener.changes.isEmpty());
+
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(nodePath("node-1"));
+        commit(tx.ready());
+        node = singleCandidate(listener).getRootNode();
+        Assertions.assertEquals(ModificationType.DELETE, node.modificationType());
+        Assertions.assertEquals(node("node-1"), node.dataBefore());
+        Assertions.assertNull(node.dataAfter());
+    }
+
+    @Test
+    public void testAncestorListenerIsNotifiedOncePerCommit() throws Exception {
+        final RecordingListener listener = new RecordingListener();
+        store.registerTreeChangeListener(NETWORK_TOPOLOGY_PATH, listener);
+
+        //commit changes both delegate and off-heap list
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology(node("node-1"), node("node-2")));
+        commit(tx.ready());
+        Assertions.assertEquals(1, listener.changes.size());
+        List<DataTreeCandidate> candidates = listener.changes.remove(0);
+        //data of all candidates include the off-heap list
+        for (final DataTreeCandidate candidate : candidates) {
+            Assertions.assertEquals(networkTopology(node("node-1"), node("node-2")),
+                materialize(candidate.getRootNode().dataAfter()));
+        }
+        DataTreeCandidateNode list = findListNode(candidates);
+        Assertions.assertEquals(ModificationType.WRITE, list.modificationType());
+        Assertions.assertNull(list.dataBefore());
+        Assertions.assertEquals(2, ((MapNode) list.dataAfter()).size());
+
+        //commit changes only the off-heap list
+        tx = store.newWriteOnlyTransaction();
+        tx.write(nodePath("node-2"), node("node-2", "tp-1"));
+        tx.delete(nodePath("node-1"));
+        commit(tx.ready());
+        Assertions.assertEquals(1, listener.changes.size());
+        candidates = listener.changes.remove(0);
+        list = findListNode(candidates);
+        Assertions.assertEquals(ModificationType.SUBTREE_MODIFIED, list.modificationType());
+        Assertions.assertEquals(2, ((MapNode) list.dataBefore()).size());
+        Assertions.assertEquals(1, ((MapNode) list.dataAfter()).size());
+        final DataTreeCandidateNode written = list.modifiedChild(nodeKey("node-2"));
+        Assertions.assertEquals(ModificationType.WRITE, written.modificationType());
+        Assertions.assertEquals(node("node-2"), written.dataBefore());
+        Assertions.assertEquals(node("node-2", "tp-1"), written.dataAfter());
+        final DataTreeCandidateNode deleted = list.modifiedChild(nodeKey("node-1"));
+        Assertions.assertEquals(ModificationType.DELETE, deleted.modificationType());
+        Assertions.assertEquals(node("node-1"), deleted.dataBefore());
+        Assertions.assertNull(deleted.dataAfter());
+    }
+
+    private OffHeapListStore newStore(final int segmentSize) {
+        delegate = new InMemoryDOMDataStore("OPER", MoreExecutors.newDirectExecutorService());
+        delegate.onModelContextUpdated(modelContext);
+        return new OffHeapListStore(delegate, modelContext,
+            new OffHeapListConfig(Set.of(NODE_LIST_PATH), null, segmentSize));
+    }
+
+    private static DataTreeCandidate singleCandidate(final RecordingListener listener) {
+        Assertions.assertEquals(1, listener.changes.size());
+        final List<DataTreeCandidate> candidates = listener.changes.remove(0);
+        Assertions.assertEquals(1, candidates.size());
+        return candidates.get(0);
+    }
+
+    /**
+     * Finds node of the off-heap list in candidates rooted at network-topology.
+     */
+    private static DataTreeCandidateNode findListNode(final List<DataTreeCandidate> candidates) {
+        for (final DataTreeCandidate candidate : candidates) {
+            final DataTreeCandidateNode topologies =
+                candidate.getRootNode().modifiedChild(new NodeIdentifier(TOPOLOGY));
+            final DataTreeCandidateNode topology = topologies == null ? null
+                : topologies.modifiedChild(TOPOLOGY_PATH.getLastPathArgument());
+            final DataTreeCandidateNode list = topology == null ? null
+                : topology.modifiedChild(new NodeIdentifier(NODE));
+            if (list != null) {
+                return list;
+            }
+        }
+        return Assertions.fail("Change of the off-heap list was not notified");
+    }
+
+    private static void commit(final DOMStoreThreePhaseCommitCohort cohort) throws Exception {
+        Assertions.assertTrue(cohort.canCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        cohort.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        cohort.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Optional<NormalizedNode> read(final DOMStore datastore, final YangInstanceIdentifier path)
+            throws Exception {
+        try (DOMStoreReadTransaction tx = datastore.newReadOnlyTransaction()) {
+            return tx.read(path).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Copies network-topology with lazy list views into immutable nodes, so that it can be compared.
+     */
+    private static ContainerNode materialize(final NormalizedNode networkTopology) {
+        final MapEntryNode topology = (MapEntryNode) NormalizedNodes.findNode(networkTopology,
+            TOPOLOGY_PATH.relativeTo(NETWORK_TOPOLOGY_PATH).orElseThrow().getPathArguments()).orElseThrow();
+        final MapNode nodes = (MapNode) topology.childByArg(new NodeIdentifier(NODE));
+        return nodes == null ? networkTopology() : networkTopology(nodes.body().toArray(MapEntryNode[]::new));
+    }
+
+    private static YangInstanceIdentifier nodePath(final String nodeId) {
+        return NODE_LIST_PATH.node(nodeKey(nodeId));
+    }
+
+    private static NodeIdentifierWithPredicates nodeKey(final String nodeId) {
+        return NodeIdentifierWithPredicates.of(NODE, NODE_ID, nodeId);
+    }
+
+    private static ContainerNode networkTopology(final MapEntryNode... entries) {
+        final var topology = ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(NodeIdentifierWithPredicates.of(TOPOLOGY, TOPOLOGY_ID, TOPOLOGY_NAME))
+            .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, TOPOLOGY_NAME));
+        if (entries.length > 0) {
+            topology.withChild(nodes(entries));
+        }
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NETWORK_TOPOLOGY))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(TOPOLOGY))
+                .withChild(topology.build())
+                .build())
+            .build();
+    }
+
+    private static MapNode nodes(final MapEntryNode... nodes) {
+        final var builder = ImmutableNodes.newSystemMapBuilder().withNodeIdentifier(new NodeIdentifier(NODE));
+        for (final MapEntryNode node : nodes) {
+            builder.withChild(node);
+        }
+        return builder.build();
+    }
+
+    private static MapEntryNode node(final String nodeId, final String... tpIds) {
+        final var builder = ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(nodeKey(nodeId))
+            .withChild(ImmutableNodes.leafNode(NODE_ID, nodeId));
+        if (tpIds.length > 0) {
+            builder.withChild(terminationPoints(tpIds));
+        }
+        return builder.build();
+    }
+
+    private static MapNode terminationPoints(final String... tpIds) {
+        final var builder = ImmutableNodes.newSystemMapBuilder()
+            .withNodeIdentifier(new NodeIdentifier(TERMINATION_POINT));
+        for (final String tpId : tpIds) {
+            builder.withChild(ImmutableNodes.newMapEntryBuilder()
+                .withNodeIdentifier(NodeIdentifierWithPredicates.of(TERMINATION_POINT, TP_ID, tpId))
+                .withChild(ImmutableNodes.leafNode(TP_ID, tpId))
+                .build());
+        }
+        return builder.build();
+    }
+
+    private static final class RecordingListener implements DOMDataTreeChangeListener {
+
+        private final List<List<DataTreeCandidate>> changes = new ArrayList<>();
+        private final AtomicInteger initialData = new AtomicInteger();
+
+        @Override
+        public void onDataTreeChanged(final List<DataTreeCandidate> candidates) {
+            changes.add(candidates);
+        }
+
+        @Override
+        public void onInitialData() {
+            initialData.incrementAndGet();
+        }
+    }
+}
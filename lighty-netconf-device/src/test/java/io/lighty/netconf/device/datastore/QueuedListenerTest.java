@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeChangeListener;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.data.tree.api.DataTreeCandidate;
+import org.opendaylight.yangtools.yang.data.tree.spi.DataTreeCandidates;
+
+public class QueuedListenerTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final QName VALUE = QName.create("urn:test:queued-listener", "value");
+    private static final QName OTHER = QName.create(VALUE, "other");
+    private static final YangInstanceIdentifier VALUE_PATH = YangInstanceIdentifier.of(VALUE);
+    private static final YangInstanceIdentifier OTHER_PATH = YangInstanceIdentifier.of(OTHER);
+
+    // dispatch tasks are run by the test, so it controls when the listener catches up
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private RecordingListener delegate;
+
+    @BeforeEach
+    public void setUp() {
+        tasks.clear();
+        delegate = new RecordingListener();
+    }
+
+    @Test
+    public void testChangesAreDeliveredInCommitOrder() {
+        final QueuedListener listener = newListener(10);
+        listener.onInitialData();
+        listener.onDataTreeChanged(List.of(change("v1")));
+        runTasks();
+        listener.onDataTreeChanged(List.of(otherChange("o1")));
+        listener.onDataTreeChanged(List.of(change("v2")));
+        runTasks();
+
+        Assertions.assertEquals(1, delegate.initialData);
+        Assertions.assertEquals(List.of(List.of("v1"), List.of("o1", "v2")), delegate.values());
+        Assertions.assertEquals(0, listener.stats().queueDepth());
+        Assertions.assertEquals(2, listener.stats().maxQueueDepth());
+    }
+
+    @Test
+    public void testQueuedChangesAreCoalescedPerSubtree() {
+        final QueuedListener listener = newListener(10);
+        listener.onDataTreeChanged(List.of(change("v1")));
+        listener.onDataTreeChanged(List.of(change("v2"), otherChange("o1")));
+        listener.onDataTreeChanged(List.of(change("v3")));
+        //all changes are waiting for a single dispatch, one per changed leaf
+        Assertions.assertEquals(1, tasks.size());
+        Assertions.assertEquals(2, listener.stats().queueDepth());
+        runTasks();
+
+        //only the latest state of each leaf is delivered
+        Assertions.assertEquals(List.of(List.of("v3", "o1")), delegate.values());
+        final ListenerQueueStats stats = listener.stats();
+        Assertions.assertEquals(1, stats.deliveredBatches());
+        Assertions.assertEquals(2, stats.coalescedChanges());
+        Assertions.assertEquals(2, stats.maxQueueDepth());
+    }
+
+    @Test
+    public void testChangeOfQueuedSubtreeDoesNotBlock() {
+        final QueuedListener listener = newListener(1);
+        listener.onDataTreeChanged(List.of(change("v1")));
+        //queue is full, but the change is aggregated with the queued one
+        listener.onDataTreeChanged(List.of(change("v2")));
+        runTasks();
+
+        Assertions.assertEquals(List.of(List.of("v2")), delegate.values());
+        Assertions.assertEquals(0, listener.stats().blockedCommits());
+        Assertions.assertEquals(0, listener.stats().overflowedCommits());
+    }
+
+    @Test
+    public void testCommitBlocksAtCapacity() throws Exception {
+        final QueuedListener listener = newListener(1);
+        listener.onDataTreeChanged(List.of(change("v1")));
+
+        final Thread committer = new Thread(() -> listener.onDataTreeChanged(List.of(otherChange("o1"))));
+        committer.start();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (listener.stats().blockedCommits() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, listener.stats().blockedCommits());
+        Assertions.assertTrue(committer.isAlive());
+        Assertions.assertEquals(1, listener.stats().queueDepth());
+
+        //delivery of the first change makes space for the blocked commit
+        runTasks();
+        committer.join(WAIT_MILLIS);
+        Assertions.assertFalse(committer.isAlive());
+        runTasks();
+
+        Assertions.assertEquals(List.of(List.of("v1"), List.of("o1")), delegate.values());
+        Assertions.assertEquals(1, listener.stats().maxQueueDepth());
+        Assertions.assertEquals(0, listener.stats().overflowedCommits());
+    }
+
+    @Test
+    public void testCloseDiscardsQueuedChanges() {
+        final QueuedListener listener = newListener(10);
+        listener.onDataTreeChanged(List.of(change("v1")));
+        listener.close();
+        listener.onDataTreeChanged(List.of(change("v2")));
+        runTasks();
+
+        Assertions.assertTrue(delegate.values().isEmpty());
+        Assertions.assertEquals(0, listener.stats().queueDepth());
+    }
+
+    private QueuedListener newListener(final int capacity) {
+        return new QueuedListener(VALUE_PATH, delegate, tasks::add, capacity);
+    }
+
+    private void runTasks() {
+        for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+            task.run();
+        }
+    }
+
+    private static DataTreeCandidate change(final String value) {
+        return DataTreeCandidates.fromNormalizedNode(VALUE_PATH, ImmutableNodes.leafNode(VALUE, value));
+    }
+
+    private static DataTreeCandidate otherChange(final String value) {
+        return DataTreeCandidates.fromNormalizedNode(OTHER_PATH, ImmutableNodes.leafNode(OTHER, value));
+    }
+
+    private static final class RecordingListener implements DOMDataTreeChangeListener {
+
+        private final List<List<DataTreeCandidate>> batches = new CopyOnWriteArrayList<>();
+        private int initialData;
+
+        @Override
+        public void onDataTreeChanged(final List<DataTreeCandidate> changes) {
+            batches.add(List.copyOf(changes));
+        }
+
+        @Override
+        public void onInitialData() {
+            initialData++;
+        }
+
+        List<List<Object>> values() {
+            return batches.stream()
+                .map(batch -> batch.stream()
+                    .map(change -> change.getRootNode().dataAfter().body())
+                    .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.datastore;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.datastore.ShardedDOMStore.Shard;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.spi.store.DOMStore;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreReadTransaction;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+public class ShardedDOMStoreTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final String SN_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-subscribed-notifications";
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final QName NETWORK_TOPOLOGY = QName.create(NT_NAMESPACE, "2013-10-21", "network-topology");
+    private static final QName TOPOLOGY = QName.create(NETWORK_TOPOLOGY, "topology");
+    private static final QName TOPOLOGY_ID = QName.create(NETWORK_TOPOLOGY, "topology-id");
+    private static final QName STREAMS = QName.create(SN_NAMESPACE, "2019-09-09", "streams");
+    private static final QName STREAM = QName.create(STREAMS, "stream");
+    private static final QName NAME = QName.create(STREAMS, "name");
+    private static final YangInstanceIdentifier NETWORK_TOPOLOGY_PATH = YangInstanceIdentifier.of(NETWORK_TOPOLOGY);
+    private static final YangInstanceIdentifier STREAMS_PATH = YangInstanceIdentifier.of(STREAMS);
+
+    private static EffectiveModelContext modelContext;
+
+    private ShardedDOMStore store;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21"),
+                ModuleId.from(SN_NAMESPACE, "ietf-subscribed-notifications", "2019-09-09")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @BeforeEach
+    public void setUpStore() {
+        store = new ShardedDOMStore("OPER", LogicalDatastoreType.OPERATIONAL, modelContext,
+            MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    public void testSubtreesAreRoutedToShards() throws Exception {
+        final Shard topologyShard = store.shardOf(new NodeIdentifier(NETWORK_TOPOLOGY));
+        final Shard streamsShard = store.shardOf(new NodeIdentifier(STREAMS));
+        Assertions.assertNotEquals(topologyShard.index(), streamsShard.index());
+        //data of unknown modules are kept in the default shard
+        Assertions.assertEquals(0, store.shardOf(new NodeIdentifier(QName.create("urn:example:unknown", "data")))
+            .index());
+
+        final DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology("topology-1"));
+        tx.write(STREAMS_PATH, streams("NETCONF"));
+        commit(tx.ready());
+
+        Assertions.assertTrue(read(topologyShard.store(), NETWORK_TOPOLOGY_PATH).isPresent());
+        Assertions.assertTrue(read(topologyShard.store(), STREAMS_PATH).isEmpty());
+        Assertions.assertTrue(read(streamsShard.store(), STREAMS_PATH).isPresent());
+        Assertions.assertTrue(read(streamsShard.store(), NETWORK_TOPOLOGY_PATH).isEmpty());
+        Assertions.assertEquals(Optional.of(networkTopology("topology-1")), read(store, NETWORK_TOPOLOGY_PATH));
+    }
+
+    @Test
+    public void testRootWriteIsSplitAndRootReadMerged() throws Exception {
+        DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(YangInstanceIdentifier.of(), root(networkTopology("topology-1"), streams("NETCONF")));
+        commit(tx.ready());
+        Assertions.assertTrue(read(store.shardOf(new NodeIdentifier(NETWORK_TOPOLOGY)).store(),
+            NETWORK_TOPOLOGY_PATH).isPresent());
+        Assertions.assertTrue(read(store.shardOf(new NodeIdentifier(STREAMS)).store(), STREAMS_PATH).isPresent());
+        final ContainerNode merged = (ContainerNode) read(store, YangInstanceIdentifier.of()).orElseThrow();
+        Assertions.assertEquals(networkTopology("topology-1"), merged.childByArg(new NodeIdentifier(NETWORK_TOPOLOGY)));
+        Assertions.assertEquals(streams("NETCONF"), merged.childByArg(new NodeIdentifier(STREAMS)));
+
+        //written root replaces all shards
+        tx = store.newWriteOnlyTransaction();
+        tx.write(YangInstanceIdentifier.of(), root(streams("other-stream")));
+        commit(tx.ready());
+        Assertions.assertTrue(read(store, NETWORK_TOPOLOGY_PATH).isEmpty());
+        Assertions.assertEquals(Optional.of(streams("other-stream")), read(store, STREAMS_PATH));
+
+        //merged root changes only shards of its children
+        tx = store.newWriteOnlyTransaction();
+        tx.merge(YangInstanceIdentifier.of(), root(networkTopology("topology-2")));
+        commit(tx.ready());
+        Assertions.assertEquals(Optional.of(networkTopology("topology-2")), read(store, NETWORK_TOPOLOGY_PATH));
+        Assertions.assertEquals(Optional.of(streams("other-stream")), read(store, STREAMS_PATH));
+
+        tx = store.newWriteOnlyTransaction();
+        tx.delete(YangInstanceIdentifier.of());
+        commit(tx.ready());
+        Assertions.assertTrue(read(store, NETWORK_TOPOLOGY_PATH).isEmpty());
+        Assertions.assertTrue(read(store, STREAMS_PATH).isEmpty());
+    }
+
+    @Test
+    public void testFailedCrossShardCommitChangesNoShard() throws Exception {
+        //shard transactions are opened by the first write, before the conflicting commit
+        final DOMStoreWriteTransaction conflicting = store.newWriteOnlyTransaction();
+        conflicting.write(STREAMS_PATH, streams("NETCONF"));
+        conflicting.write(NETWORK_TOPOLOGY_PATH, networkTopology("conflicting-topology"));
+
+        final DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(NETWORK_TOPOLOGY_PATH, networkTopology("topology-1"));
+        commit(tx.ready());
+
+        final DOMStoreThreePhaseCommitCohort cohort = conflicting.ready();
+        Assertions.assertThrows(ExecutionException.class,
+            () -> cohort.canCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        cohort.abort().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(read(store, STREAMS_PATH).isEmpty());
+        Assertions.assertEquals(Optional.of(networkTopology("topology-1")), read(store, NETWORK_TOPOLOGY_PATH));
+
+        //shards were unlocked by the abort
+        final DOMStoreWriteTransaction next = store.newWriteOnlyTransaction();
+        next.write(STREAMS_PATH, streams("NETCONF"));
+        next.write(NETWORK_TOPOLOGY_PATH, networkTopology("topology-2"));
+        commit(next.ready());
+        Assertions.assertEquals(Optional.of(streams("NETCONF")), read(store, STREAMS_PATH));
+        Assertions.assertEquals(Optional.of(networkTopology("topology-2")), read(store, NETWORK_TOPOLOGY_PATH));
+    }
+
+    @Test
+    public void testCommitsOfShardAreQueued() throws Exception {
+        final DOMStoreWriteTransaction initial = store.newWriteOnlyTransaction();
+        initial.write(NETWORK_TOPOLOGY_PATH, networkTopology("topology-0"));
+        commit(initial.ready());
+
+        final DOMStoreThreePhaseCommitCohort first = putTopology("topology-1");
+        final DOMStoreThreePhaseCommitCohort second = putTopology("topology-2");
+        final ListenableFuture<Boolean> firstCanCommit = first.canCommit();
+        Assertions.assertTrue(firstCanCommit.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        //second commit waits for the first one without blocking the thread
+        final ListenableFuture<Boolean> secondCanCommit = second.canCommit();
+        Assertions.assertFalse(secondCanCommit.isDone());
+
+        first.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        first.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(secondCanCommit.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        second.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        second.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(read(store, topologyPath("topology-1")).isPresent());
+        Assertions.assertTrue(read(store, topologyPath("topology-2")).isPresent());
+    }
+
+    @Test
+    public void testAbortWhileWaitingForShard() throws Exception {
+        final DOMStoreWriteTransaction initial = store.newWriteOnlyTransaction();
+        initial.write(NETWORK_TOPOLOGY_PATH, networkTopology("topology-0"));
+        commit(initial.ready());
+
+        final DOMStoreThreePhaseCommitCohort first = putTopology("topology-1");
+        final DOMStoreThreePhaseCommitCohort aborted = putTopology("topology-2");
+        Assertions.assertTrue(first.canCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        final ListenableFuture<Boolean> abortedCanCommit = aborted.canCommit();
+        aborted.abort().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(abortedCanCommit.isCancelled());
+
+        first.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        first.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        //lock is not passed to the aborted transaction
+        final DOMStoreThreePhaseCommitCohort next = putTopology("topology-3");
+        Assertions.assertTrue(next.canCommit().isDone());
+        next.abort().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(read(store, topologyPath("topology-2")).isEmpty());
+    }
+
+    private DOMStoreThreePhaseCommitCohort putTopology(final String topologyId) {
+        final DOMStoreWriteTransaction tx = store.newWriteOnlyTransaction();
+        tx.write(topologyPath(topologyId), topology(topologyId));
+        return tx.ready();
+    }
+
+    private static void commit(final DOMStoreThreePhaseCommitCohort cohort) throws Exception {
+        Assertions.assertTrue(cohort.canCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        cohort.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        cohort.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Optional<NormalizedNode> read(final DOMStore datastore, final YangInstanceIdentifier path)
+            throws Exception {
+        try (DOMStoreReadTransaction tx = datastore.newReadOnlyTransaction()) {
+            return tx.read(path).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static YangInstanceIdentifier topologyPath(final String topologyId) {
+        return YangInstanceIdentifier.builder(NETWORK_TOPOLOGY_PATH)
+            .node(TOPOLOGY)
+            .nodeWithKey(TOPOLOGY, TOPOLOGY_ID, topologyId)
+            .build();
+    }
+
+    private static ContainerNode root(final DataContainerChild... children) {
+        final var builder = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(SchemaContext.NAME));
+        for (final DataContainerChild child : children) {
+            builder.withChild(child);
+        }
+        return builder.build();
+    }
+
+    private static ContainerNode networkTopology(final String topologyId) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NETWORK_TOPOLOGY))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(TOPOLOGY))
+                .withChild(topology(topologyId))
+                .build())
+            .build();
+    }
+
+    private static MapEntryNode topology(final String topologyId) {
+        return ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(NodeIdentifierWithPredicates.of(TOPOLOGY, TOPOLOGY_ID, topologyId))
+            .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, topologyId))
+            .build();
+    }
+
+    private static ContainerNode streams(final String streamName) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(STREAMS))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(STREAM))
+                .withChild(ImmutableNodes.newMapEntryBuilder()
+                    .withNodeIdentifier(NodeIdentifierWithPredicates.of(STREAM, NAME, streamName))
+                    .withChild(ImmutableNodes.leafNode(NAME, streamName))
+                    .build())
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DatastoreTemplateTest {
+
+    @Test
+    public void testRender() {
+        final DatastoreTemplate template = DatastoreTemplate.of("<a>${hostname}</a><b>${port}</b><c>${hostname}</c>");
+        Assertions.assertEquals(List.of("hostname", "port"), List.copyOf(template.getPlaceholders()));
+        Assertions.assertEquals("<a>device-1</a><b>17831</b><c>device-1</c>",
+            template.render(Map.of("hostname", "device-1", "port", "17831")));
+    }
+
+    @Test
+    public void testRenderWithoutPlaceholders() {
+        final DatastoreTemplate template = DatastoreTemplate.of("<a>$ {not-a-placeholder}</a>");
+        Assertions.assertTrue(template.getPlaceholders().isEmpty());
+        Assertions.assertEquals("<a>$ {not-a-placeholder}</a>", template.render(Map.of()));
+    }
+
+    @Test
+    public void testRenderEscapesValues() {
+        final DatastoreTemplate template = DatastoreTemplate.of("<a b=\"${value}\">${value}</a>");
+        Assertions.assertEquals("<a b=\"&lt;&amp;&gt;&quot;&apos;\">&lt;&amp;&gt;&quot;&apos;</a>",
+            template.render(Map.of("value", "<&>\"'")));
+    }
+
+    @Test
+    public void testRenderMissingValue() {
+        final DatastoreTemplate template = DatastoreTemplate.of("<a>${hostname}</a><b>${serial-number}</b>");
+        final IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> template.render(Map.of("hostname", "device-1")));
+        Assertions.assertTrue(exception.getMessage().contains("${serial-number}"));
+    }
+}
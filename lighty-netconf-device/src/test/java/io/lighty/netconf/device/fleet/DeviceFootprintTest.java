@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+public class DeviceFootprintTest {
+
+    private static final QName ROOT = QName.create("urn:test:footprint", "root");
+    private static final QName SHARED = QName.create(ROOT, "shared");
+    private static final QName VALUE = QName.create(ROOT, "value");
+    private static final DeviceIdentity IDENTITY = new DeviceIdentity(0, 17830, "device-0", "SN00000000");
+
+    @Test
+    public void testSharedTree() {
+        final ContainerNode seed = tree("seed");
+        final DeviceFootprint footprint = DeviceFootprint.of(IDENTITY, seed, seed);
+        //root, shared container with its leaf and the value leaf
+        Assertions.assertEquals(4, footprint.sharedNodes());
+        Assertions.assertEquals(0, footprint.ownNodes());
+        Assertions.assertEquals(0, footprint.estimatedOwnBytes());
+    }
+
+    @Test
+    public void testModifiedTree() {
+        final ContainerNode seed = tree("seed");
+        final ContainerNode data = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(ROOT))
+            .withChild(seed.getChildByArg(new NodeIdentifier(SHARED)))
+            .withChild(ImmutableNodes.leafNode(VALUE, "device"))
+            .build();
+        final DeviceFootprint footprint = DeviceFootprint.of(IDENTITY, seed, data);
+        Assertions.assertEquals(2, footprint.sharedNodes());
+        //root and the value leaf are copied
+        Assertions.assertEquals(2, footprint.ownNodes());
+        Assertions.assertTrue(footprint.estimatedOwnBytes() > 0);
+    }
+
+    @Test
+    public void testWithoutSeed() {
+        final DeviceFootprint footprint = DeviceFootprint.of(IDENTITY, null, tree("device"));
+        Assertions.assertEquals(0, footprint.sharedNodes());
+        Assertions.assertEquals(4, footprint.ownNodes());
+        final DeviceFootprint sum = footprint.add(DeviceFootprint.of(IDENTITY, null, null));
+        Assertions.assertEquals(footprint, sum);
+    }
+
+    private static ContainerNode tree(final String value) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(ROOT))
+            .withChild(ImmutableNodes.newContainerBuilder()
+                .withNodeIdentifier(new NodeIdentifier(SHARED))
+                .withChild(ImmutableNodes.leafNode(VALUE, "shared"))
+                .build())
+            .withChild(ImmutableNodes.leafNode(VALUE, value))
+            .build();
+    }
+}
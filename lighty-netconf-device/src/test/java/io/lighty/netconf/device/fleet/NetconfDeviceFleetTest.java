@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDevice;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.binding.api.ReadTransaction;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.TopologyId;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.TopologyKey;
+import org.opendaylight.yangtools.binding.DataObjectIdentifier;
+import org.opendaylight.yangtools.binding.meta.YangModuleInfo;
+
+public class NetconfDeviceFleetTest {
+
+    private static final long REQUEST_TIMEOUT_MILLIS = 5_000;
+    private static final int STARTING_PORT = 17910;
+    private static final int DEVICE_COUNT = 3;
+    private static final String CONFIG_TEMPLATE = "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+        + "<topology><topology-id>${hostname}</topology-id></topology>"
+        + "<topology><topology-id>shared-topology</topology-id>"
+        + "<node><node-id>shared-node</node-id></node>"
+        + "</topology>"
+        + "</network-topology>"
+        + "</data>";
+
+    private static Set<YangModuleInfo> modules;
+
+    @BeforeAll
+    public static void setUp() {
+        modules = ModelUtils.getModelsFromClasspath(
+            ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                "network-topology",
+                "2013-10-21"));
+    }
+
+    @Test
+    public void testStartAndClose() throws Exception {
+        final NetconfDeviceFleet fleet = newFleet(identity -> newDeviceBuilder());
+        try {
+            fleet.start();
+            Assertions.assertEquals(DEVICE_COUNT, fleet.getDevices().size());
+            Assertions.assertThrows(IllegalStateException.class, fleet::start);
+            for (final DeviceIdentity identity : fleet.getIdentities()) {
+                final NetconfDevice device = fleet.getDevice(identity.port()).orElseThrow();
+                //every device has its own topology and the shared one
+                Assertions.assertTrue(readTopology(device, identity.hostname()).isPresent());
+                Assertions.assertTrue(readTopology(device, "shared-topology").isPresent());
+                for (final DeviceIdentity other : fleet.getIdentities()) {
+                    if (other != identity) {
+                        Assertions.assertTrue(readTopology(device, other.hostname()).isEmpty());
+                    }
+                }
+            }
+        } finally {
+            fleet.close();
+        }
+        Assertions.assertTrue(fleet.getDevices().isEmpty());
+    }
+
+    @Test
+    public void testDevicesShareSeed() throws Exception {
+        final NetconfDeviceFleet fleet = newFleet(identity -> newDeviceBuilder());
+        try {
+            fleet.start();
+            final List<DeviceFootprint> report = fleet.getFootprintReport();
+            Assertions.assertEquals(DEVICE_COUNT, report.size());
+            //first device is seeded the same way as the others, so all devices own the same number of nodes
+            for (final DeviceFootprint footprint : report) {
+                Assertions.assertTrue(footprint.sharedNodes() > 0);
+                Assertions.assertEquals(report.get(0).ownNodes(), footprint.ownNodes());
+            }
+        } finally {
+            fleet.close();
+        }
+    }
+
+    @Test
+    public void testStartFailureClosesStartedDevices() throws Exception {
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final NetconfDeviceFleet fleet = newFleet(identity -> {
+            if (failing.get() && identity.index() == DEVICE_COUNT - 1) {
+                throw new IllegalStateException("Device " + identity.hostname() + " failed");
+            }
+            return newDeviceBuilder();
+        });
+        final IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, fleet::start);
+        Assertions.assertTrue(exception.getMessage().contains("failed"));
+        Assertions.assertTrue(fleet.getDevices().isEmpty());
+
+        //ports of closed devices are released, so the fleet can be started again
+        failing.set(false);
+        try {
+            fleet.start();
+            Assertions.assertEquals(DEVICE_COUNT, fleet.getDevices().size());
+        } finally {
+            fleet.close();
+        }
+    }
+
+    private static NetconfDeviceFleet newFleet(final Function<DeviceIdentity, NetconfDeviceBuilder> factory) {
+        return NetconfDeviceFleet.builder()
+            .setPortRange(STARTING_PORT, DEVICE_COUNT)
+            .setDeviceBuilderFactory(factory)
+            .setConfigDatastoreTemplate(DatastoreTemplate.of(CONFIG_TEMPLATE))
+            .build();
+    }
+
+    private static NetconfDeviceBuilder newDeviceBuilder() {
+        return new NetconfDeviceBuilder()
+            .setCredentials("admin", "admin")
+            .withModels(modules);
+    }
+
+    private static Optional<Topology> readTopology(final NetconfDevice device, final String topologyId)
+            throws Exception {
+        final DataObjectIdentifier<Topology> tii = DataObjectIdentifier.builder(NetworkTopology.class)
+            .child(Topology.class, new TopologyKey(new TopologyId(topologyId)))
+            .build();
+        try (ReadTransaction tx = device.getNetconfDeviceServices().getDataBroker().newReadOnlyTransaction()) {
+            return tx.read(LogicalDatastoreType.CONFIGURATION, tii).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
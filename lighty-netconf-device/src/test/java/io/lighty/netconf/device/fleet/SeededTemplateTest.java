@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.fleet;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Link;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.link.Source;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+
+public class SeededTemplateTest {
+
+    private static final QName TOPOLOGY_ID = QName.create(Topology.QNAME, "topology-id");
+    private static final QName LINK_ID = QName.create(Topology.QNAME, "link-id");
+    private static final QName SOURCE_NODE = QName.create(Topology.QNAME, "source-node");
+    private static final String TEMPLATE = "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"urn:TBD:params:xml:ns:yang:network-topology\">"
+        + "<topology><topology-id>${hostname}</topology-id></topology>"
+        + "<topology><topology-id>shared-topology</topology-id>"
+        + "<node><node-id>shared-node</node-id></node>"
+        + "<link><link-id>shared-link</link-id><source><source-node>${hostname}</source-node></source></link>"
+        + "</topology>"
+        + "</network-topology>"
+        + "</data>";
+
+    private static EffectiveModelContext modelContext;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                    "network-topology",
+                    "2013-10-21")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @Test
+    public void testSeedWithoutDeviceValues() {
+        final SeededTemplate template = SeededTemplate.of(DatastoreTemplate.of(TEMPLATE), modelContext);
+        final String seed = NormalizedNodes.toStringTree(template.seed());
+        Assertions.assertFalse(seed.contains("${"));
+        Assertions.assertTrue(seed.contains("shared-node"));
+        //entry with placeholder in its key is not part of the seed, entry with placeholder in other leaf is
+        Assertions.assertTrue(NormalizedNodes.findNode(template.seed(), topologyPath("${hostname}")).isEmpty());
+        Assertions.assertTrue(NormalizedNodes.findNode(template.seed(), linkPath()).isPresent());
+        Assertions.assertTrue(NormalizedNodes.findNode(template.seed(),
+            linkPath().node(Source.QNAME).node(SOURCE_NODE)).isEmpty());
+    }
+
+    @Test
+    public void testRenderSharesSeed() {
+        final SeededTemplate template = SeededTemplate.of(DatastoreTemplate.of(TEMPLATE), modelContext);
+        final NormalizedNode first = template.render(Map.of("hostname", "device-0"));
+        final NormalizedNode second = template.render(Map.of("hostname", "device-1"));
+
+        Assertions.assertTrue(NormalizedNodes.findNode(first, topologyPath("device-0")).isPresent());
+        Assertions.assertTrue(NormalizedNodes.findNode(first, topologyPath("device-1")).isEmpty());
+        Assertions.assertTrue(NormalizedNodes.findNode(second, topologyPath("device-1")).isPresent());
+        final YangInstanceIdentifier sourceNode = linkPath().node(Source.QNAME).node(SOURCE_NODE);
+        Assertions.assertEquals("device-0",
+            ((LeafNode<?>) NormalizedNodes.findNode(first, sourceNode).orElseThrow()).body());
+        Assertions.assertEquals("device-1",
+            ((LeafNode<?>) NormalizedNodes.findNode(second, sourceNode).orElseThrow()).body());
+
+        //subtrees without placeholders are the same instances as in the seed
+        final YangInstanceIdentifier nodes = topologyPath("shared-topology").node(Node.QNAME);
+        final NormalizedNode seedNodes = NormalizedNodes.findNode(template.seed(), nodes).orElseThrow();
+        Assertions.assertSame(seedNodes, NormalizedNodes.findNode(first, nodes).orElseThrow());
+        Assertions.assertSame(seedNodes, NormalizedNodes.findNode(second, nodes).orElseThrow());
+    }
+
+    @Test
+    public void testTemplateWithoutPlaceholders() {
+        final SeededTemplate template = SeededTemplate.of(
+            DatastoreTemplate.of(TEMPLATE.replace("${hostname}", "fixed")), modelContext);
+        Assertions.assertSame(template.seed(), template.render(Map.of("hostname", "device-0")));
+        Assertions.assertTrue(NormalizedNodes.findNode(template.seed(), topologyPath("fixed")).isPresent());
+    }
+
+    private static YangInstanceIdentifier topologyPath(final String topologyId) {
+        return YangInstanceIdentifier.builder()
+            .node(NetworkTopology.QNAME)
+            .node(Topology.QNAME)
+            .nodeWithKey(Topology.QNAME, TOPOLOGY_ID, topologyId)
+            .build();
+    }
+
+    private static YangInstanceIdentifier linkPath() {
+        return YangInstanceIdentifier.builder(topologyPath("shared-topology"))
+            .node(Link.QNAME)
+            .nodeWithKey(Link.QNAME, LINK_ID, "shared-link")
+            .build();
+    }
+}
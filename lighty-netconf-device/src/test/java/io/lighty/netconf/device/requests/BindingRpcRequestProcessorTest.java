@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.NetconfDeviceServices;
+import io.lighty.netconf.device.utils.RPCUtil;
+import java.io.StringReader;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.notification._1._0.rev080714.CreateSubscription;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.notification._1._0.rev080714.CreateSubscriptionInput;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.notification._1._0.rev080714.CreateSubscriptionOutput;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.netconf.notification._1._0.rev080714.CreateSubscriptionOutputBuilder;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class BindingRpcRequestProcessorTest {
+
+    private static final String NOTIFICATION_NAMESPACE = "urn:ietf:params:xml:ns:netconf:notification:1.0";
+
+    private static NetconfDeviceServices services;
+
+    @BeforeAll
+    public static void setUp() {
+        services = new NetconfDeviceBuilder()
+            .withDefaultNotificationProcessor()
+            .build()
+            .getNetconfDeviceServices();
+    }
+
+    @Test
+    public void testInputParsedAndEmptyOutputReplied() throws Exception {
+        final AtomicReference<CreateSubscriptionInput> invokedInput = new AtomicReference<>();
+        final BindingRpcRequestProcessor<CreateSubscriptionInput, CreateSubscriptionOutput> processor =
+            BindingRpcRequestProcessor.of(CreateSubscription.QNAME, (CreateSubscription) input -> {
+                invokedInput.set(input);
+                return RpcResultBuilder.success(new CreateSubscriptionOutputBuilder().build()).buildFuture();
+            });
+        processor.init(services);
+
+        final Document reply = processor.processRequest(parseElement("<create-subscription xmlns=\""
+            + NOTIFICATION_NAMESPACE + "\"><stream>test-stream</stream></create-subscription>"));
+        Assertions.assertEquals("test-stream", invokedInput.get().getStream().getValue());
+        Assertions.assertEquals("rpc-reply", reply.getDocumentElement().getLocalName());
+        Assertions.assertEquals(1,
+            reply.getDocumentElement().getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "ok").getLength());
+    }
+
+    @Test
+    public void testFailedRpcResultReplied() throws Exception {
+        final BindingRpcRequestProcessor<CreateSubscriptionInput, CreateSubscriptionOutput> processor =
+            BindingRpcRequestProcessor.of(CreateSubscription.QNAME, (CreateSubscription) input ->
+                RpcResultBuilder.<CreateSubscriptionOutput>failed()
+                    .withError(ErrorType.APPLICATION, "stream is not available")
+                    .buildFuture());
+        processor.init(services);
+
+        final Document reply = processor.processRequest(parseElement("<create-subscription xmlns=\""
+            + NOTIFICATION_NAMESPACE + "\"><stream>test-stream</stream></create-subscription>"));
+        Assertions.assertEquals(1,
+            reply.getDocumentElement().getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-error")
+                .getLength());
+        Assertions.assertEquals(0,
+            reply.getDocumentElement().getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "ok").getLength());
+    }
+
+    @Test
+    public void testMalformedInputIsNotInvoked() throws Exception {
+        final AtomicReference<CreateSubscriptionInput> invokedInput = new AtomicReference<>();
+        final BindingRpcRequestProcessor<CreateSubscriptionInput, CreateSubscriptionOutput> processor =
+            BindingRpcRequestProcessor.of(CreateSubscription.QNAME, (CreateSubscription) input -> {
+                invokedInput.set(input);
+                return RpcResultBuilder.success(new CreateSubscriptionOutputBuilder().build()).buildFuture();
+            });
+        processor.init(services);
+
+        final Document reply = processor.processRequest(parseElement("<create-subscription xmlns=\""
+            + NOTIFICATION_NAMESPACE + "\"><unknown-leaf>value</unknown-leaf></create-subscription>"));
+        Assertions.assertNull(invokedInput.get());
+        Assertions.assertEquals(1,
+            reply.getDocumentElement().getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-error")
+                .getLength());
+    }
+
+    private static Element parseElement(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.requests.DataFilter.Target;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.io.StringReader;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class DataFilterTest {
+
+    private static final String GET_START = "<get xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">";
+    private static final String FILTER_START = GET_START + "<filter type=\"subtree\">";
+    private static final String FILTER_END = "</filter></get>";
+    private static final String SN_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-subscribed-notifications";
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final QName SUBSCRIPTIONS = QName.create(SN_NAMESPACE, "2019-09-09", "subscriptions");
+    private static final QName SUBSCRIPTION = QName.create(SUBSCRIPTIONS, "subscription");
+    private static final QName ID = QName.create(SUBSCRIPTIONS, "id");
+    private static final QName TARGET = QName.create(SUBSCRIPTIONS, "target");
+    private static final QName STREAM = QName.create(SUBSCRIPTIONS, "stream");
+    private static final QName NETWORK_TOPOLOGY = QName.create(NT_NAMESPACE, "2013-10-21", "network-topology");
+    private static final QName TOPOLOGY = QName.create(NETWORK_TOPOLOGY, "topology");
+    private static final QName TOPOLOGY_ID = QName.create(NETWORK_TOPOLOGY, "topology-id");
+    private static final QName NODE = QName.create(NETWORK_TOPOLOGY, "node");
+    private static final QName NODE_ID = QName.create(NETWORK_TOPOLOGY, "node-id");
+    private static final YangInstanceIdentifier TOPOLOGY_PATH = YangInstanceIdentifier.of(NETWORK_TOPOLOGY)
+        .node(TOPOLOGY);
+    private static final String DATA = "<data xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\">"
+        + "<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+        + "<topology><topology-id>topology-1</topology-id>"
+        + "<node><node-id>node-1</node-id></node><node><node-id>node-2</node-id></node></topology>"
+        + "<topology><topology-id>topology-2</topology-id>"
+        + "<node><node-id>node-3</node-id></node></topology>"
+        + "</network-topology>"
+        + "<subscriptions xmlns=\"" + SN_NAMESPACE + "\">"
+        + "<subscription><id>1</id><stream>NETCONF</stream></subscription>"
+        + "</subscriptions>"
+        + "</data>";
+
+    private static EffectiveModelContext modelContext;
+    private static NormalizedNode data;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21"),
+                ModuleId.from(SN_NAMESPACE, "ietf-subscribed-notifications", "2019-09-09")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+        data = new XmlNodeConverter(modelContext)
+            .deserialize(SchemaInferenceStack.of(modelContext).toInference(), new StringReader(DATA));
+    }
+
+    @Test
+    public void testMissingFilterSelectsAll() throws Exception {
+        Assertions.assertTrue(DataFilter.of(parseElement(GET_START + "</get>")).selectsAll());
+        //empty filter selects nothing
+        final DataFilter empty = DataFilter.of(parseElement(FILTER_START + FILTER_END));
+        Assertions.assertFalse(empty.selectsAll());
+        Assertions.assertTrue(empty.targets(modelContext).isEmpty());
+    }
+
+    @Test
+    public void testNonSubtreeFilterIsRejected() {
+        final DocumentedException exception = Assertions.assertThrows(DocumentedException.class,
+            () -> DataFilter.of(parseElement(GET_START + "<filter type=\"xpath\" select=\"/*\"/></get>")));
+        Assertions.assertEquals(ErrorTag.OPERATION_NOT_SUPPORTED, exception.getErrorTag());
+    }
+
+    @Test
+    public void testTargetDescendsThroughSingleContainmentNode() throws Exception {
+        final List<Target> targets = targets("<network-topology xmlns=\"" + NT_NAMESPACE + "\"><topology/>"
+            + "</network-topology>");
+        Assertions.assertEquals(1, targets.size());
+        Assertions.assertEquals(TOPOLOGY_PATH, targets.get(0).path());
+        Assertions.assertEquals("topology", targets.get(0).filter().name());
+        //filter of unknown node reads nothing
+        Assertions.assertTrue(targets("<unknown xmlns=\"urn:example:unknown\"/>").isEmpty());
+    }
+
+    @Test
+    public void testContentMatchSelectsListEntry() throws Exception {
+        final MapNode topologies = (MapNode) applySingle("<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><topology-id>topology-2</topology-id></topology></network-topology>");
+        Assertions.assertEquals(1, topologies.size());
+        //entry selected only by content match node is returned as a whole
+        Assertions.assertSame(findNode(TOPOLOGY_PATH.node(topologyKey("topology-2"))),
+            topologies.childByArg(topologyKey("topology-2")));
+    }
+
+    @Test
+    public void testSelectionNodesWithinListEntry() throws Exception {
+        final MapNode topologies = (MapNode) applySingle("<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><topology-id>topology-1</topology-id>"
+            + "<node><node-id>node-2</node-id></node></topology></network-topology>");
+        final MapEntryNode topology = topologies.childByArg(topologyKey("topology-1"));
+        Assertions.assertNotNull(topology);
+        final MapNode nodes = (MapNode) topology.childByArg(new NodeIdentifier(NODE));
+        Assertions.assertEquals(1, nodes.size());
+        Assertions.assertNotNull(nodes.childByArg(NodeIdentifierWithPredicates.of(NODE, NODE_ID, "node-2")));
+        //content match without matching entry selects nothing
+        Assertions.assertNull(applySingle("<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><topology-id>topology-3</topology-id></topology></network-topology>"));
+    }
+
+    @Test
+    public void testChoicesAreTransparent() throws Exception {
+        final MapNode subscriptions = (MapNode) applySingle("<subscriptions xmlns=\"" + SN_NAMESPACE + "\">"
+            + "<subscription><stream/></subscription></subscriptions>");
+        final MapEntryNode subscription = subscriptions.childByArg(
+            NodeIdentifierWithPredicates.of(SUBSCRIPTION, ID, Uint32.ONE));
+        Assertions.assertNotNull(subscription);
+        final ChoiceNode target = (ChoiceNode) subscription.childByArg(new NodeIdentifier(TARGET));
+        //only the selected leaf of the case is kept
+        Assertions.assertEquals(1, target.size());
+        Assertions.assertEquals("NETCONF", target.getChildByArg(new NodeIdentifier(STREAM)).body());
+    }
+
+    private static NormalizedNode applySingle(final String filter) throws Exception {
+        final List<Target> targets = targets(filter);
+        Assertions.assertEquals(1, targets.size());
+        final Target target = targets.get(0);
+        return DataFilter.apply(target.filter(), findNode(target.path()));
+    }
+
+    private static List<Target> targets(final String filter) throws Exception {
+        return DataFilter.of(parseElement(FILTER_START + filter + FILTER_END)).targets(modelContext);
+    }
+
+    private static NormalizedNode findNode(final YangInstanceIdentifier path) {
+        return NormalizedNodes.findNode(data, path).orElseThrow();
+    }
+
+    private static NodeIdentifierWithPredicates topologyKey(final String topologyId) {
+        return NodeIdentifierWithPredicates.of(TOPOLOGY, TOPOLOGY_ID, topologyId);
+    }
+
+    private static Element parseElement(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import io.lighty.codecs.util.XmlNodeConverter;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.io.StringReader;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.opendaylight.yangtools.yang.model.util.SchemaInferenceStack;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class EditTargetCacheTest {
+
+    private static final String OPERATION_XPATH = "//*[@*[local-name() = 'operation']]";
+    private static final String CONFIG_START = "<config xmlns=\"urn:ietf:params:xml:ns:netconf:base:1.0\""
+        + " xmlns:nc=\"urn:ietf:params:xml:ns:netconf:base:1.0\">";
+    private static final String SN_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-subscribed-notifications";
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final QName SUBSCRIPTIONS = QName.create(SN_NAMESPACE, "2019-09-09", "subscriptions");
+    private static final QName SUBSCRIPTION = QName.create(SUBSCRIPTIONS, "subscription");
+    private static final QName ID = QName.create(SUBSCRIPTIONS, "id");
+    private static final QName TARGET = QName.create(SUBSCRIPTIONS, "target");
+    private static final QName STREAM = QName.create(SUBSCRIPTIONS, "stream");
+    private static final QName STREAM_FILTER = QName.create(SUBSCRIPTIONS, "stream-filter");
+    private static final QName STREAM_FILTER_NAME = QName.create(SUBSCRIPTIONS, "stream-filter-name");
+    private static final QName NETWORK_TOPOLOGY = QName.create(NT_NAMESPACE, "2013-10-21", "network-topology");
+    private static final QName TOPOLOGY = QName.create(NETWORK_TOPOLOGY, "topology");
+    private static final QName TOPOLOGY_ID = QName.create(NETWORK_TOPOLOGY, "topology-id");
+    private static final QName NODE = QName.create(NETWORK_TOPOLOGY, "node");
+    private static final QName NODE_ID = QName.create(NETWORK_TOPOLOGY, "node-id");
+
+    private static EffectiveModelContext modelContext;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from(NT_NAMESPACE, "network-topology", "2013-10-21"),
+                ModuleId.from(SN_NAMESPACE, "ietf-subscribed-notifications", "2019-09-09")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @Test
+    public void testNestedListEntries() throws Exception {
+        final YangInstanceIdentifier expected = YangInstanceIdentifier.builder()
+            .node(NETWORK_TOPOLOGY)
+            .node(TOPOLOGY)
+            .nodeWithKey(TOPOLOGY, TOPOLOGY_ID, "topology-1")
+            .node(NODE)
+            .nodeWithKey(NODE, NODE_ID, "node-1")
+            .build();
+        Assertions.assertEquals(expected, resolve("<network-topology xmlns=\"" + NT_NAMESPACE + "\">"
+            + "<topology><topology-id>topology-1</topology-id>"
+            + "<node nc:operation=\"replace\"><node-id>node-1</node-id></node>"
+            + "</topology></network-topology>"));
+    }
+
+    @Test
+    public void testLeafInChoice() throws Exception {
+        final YangInstanceIdentifier expected = YangInstanceIdentifier.builder()
+            .node(SUBSCRIPTIONS)
+            .node(SUBSCRIPTION)
+            .nodeWithKey(SUBSCRIPTION, ID, Uint32.ONE)
+            .node(TARGET)
+            .node(STREAM)
+            .build();
+        Assertions.assertEquals(expected, resolve("<subscriptions xmlns=\"" + SN_NAMESPACE + "\">"
+            + "<subscription><id>1</id>"
+            + "<stream nc:operation=\"replace\">NETCONF</stream>"
+            + "</subscription></subscriptions>"));
+    }
+
+    @Test
+    public void testLeafInNestedChoice() throws Exception {
+        final YangInstanceIdentifier expected = YangInstanceIdentifier.builder()
+            .node(SUBSCRIPTIONS)
+            .node(SUBSCRIPTION)
+            .nodeWithKey(SUBSCRIPTION, ID, Uint32.valueOf(7))
+            .node(TARGET)
+            .node(STREAM_FILTER)
+            .node(STREAM_FILTER_NAME)
+            .build();
+        Assertions.assertEquals(expected, resolve("<subscriptions xmlns=\"" + SN_NAMESPACE + "\">"
+            + "<subscription><id>7</id>"
+            + "<stream-filter-name nc:operation=\"delete\">filter</stream-filter-name>"
+            + "</subscription></subscriptions>"));
+    }
+
+    @Test
+    public void testStepsAreResolvedOnce() {
+        final EditTargetCache cache = EditTargetCache.of(modelContext);
+        Assertions.assertSame(cache, EditTargetCache.of(modelContext));
+
+        final List<QName> elementPath = List.of(QName.create(SN_NAMESPACE, "subscriptions"),
+            QName.create(SN_NAMESPACE, "subscription"), QName.create(SN_NAMESPACE, "stream"));
+        final List<EditTargetCache.PathStep> steps = cache.pathSteps(elementPath);
+        Assertions.assertSame(steps, cache.pathSteps(List.copyOf(elementPath)));
+        //container, list, list entry, choice and leaf
+        Assertions.assertEquals(5, steps.size());
+        Assertions.assertNull(steps.get(2).argument());
+        Assertions.assertEquals(SUBSCRIPTION, steps.get(2).listEntry().dataSchemaNode().getQName());
+        Assertions.assertEquals(YangInstanceIdentifier.NodeIdentifier.create(TARGET), steps.get(3).argument());
+    }
+
+    private static YangInstanceIdentifier resolve(final String data) throws Exception {
+        final String config = CONFIG_START + data + "</config>";
+        final NormalizedNode configNode = new XmlNodeConverter(modelContext)
+            .deserialize(SchemaInferenceStack.of(modelContext).toInference(), new StringReader(config));
+        return EditConfigRequestProcessor.retrieveElementYII(modelContext, configNode, parseElement(config),
+            OPERATION_XPATH);
+    }
+
+    private static Element parseElement(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.common.api.TransactionCommitFailedException;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadWriteTransaction;
+import org.opendaylight.netconf.api.NetconfDocumentedException;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yangtools.yang.common.ErrorSeverity;
+import org.opendaylight.yangtools.yang.common.ErrorTag;
+import org.opendaylight.yangtools.yang.common.ErrorType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+public class GroupCommitTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final QName TOPOLOGY_ID = QName.create(Topology.QNAME, "topology-id");
+    private static final YangInstanceIdentifier NETWORK_TOPOLOGY_PATH =
+        YangInstanceIdentifier.of(NetworkTopology.QNAME);
+    private static final String INVALID_TOPOLOGY = "invalid-topology";
+
+    private DOMDataBroker dataBroker;
+
+    @BeforeEach
+    public void setUp() {
+        dataBroker = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                    "network-topology",
+                    "2013-10-21")))
+            .build()
+            .getNetconfDeviceServices()
+            .getDOMDataBroker();
+    }
+
+    @Test
+    public void testConcurrentEditsAreCommittedTogether() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(dataBroker, 256);
+        final List<AtomicInteger> applied = new ArrayList<>();
+        final List<GroupCommit.Edit> group = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final AtomicInteger counter = new AtomicInteger();
+            applied.add(counter);
+            group.add(counted(counter, write("topology-" + i)));
+        }
+
+        final List<CompletableFuture<CommitInfo>> results = submitWhileCommitting(groupCommit, group);
+        for (final CompletableFuture<CommitInfo> result : results) {
+            result.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        //every edit was applied once, to the single group transaction
+        applied.forEach(counter -> Assertions.assertEquals(1, counter.get()));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(exists("topology-" + i));
+        }
+    }
+
+    @Test
+    public void testFailingEditDoesNotFailGroup() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(dataBroker, 256);
+        final AtomicInteger validApplied = new AtomicInteger();
+        final List<CompletableFuture<CommitInfo>> results = submitWhileCommitting(groupCommit, List.of(
+            counted(validApplied, write("first-topology")),
+            tx -> {
+                throw new IllegalStateException("Edit failed");
+            },
+            write("second-topology")));
+
+        results.get(0).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        final ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+            () -> results.get(1).get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, failure.getCause());
+        results.get(2).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        //group transaction was abandoned, edits were committed separately
+        Assertions.assertEquals(2, validApplied.get());
+        Assertions.assertTrue(exists("first-topology"));
+        Assertions.assertTrue(exists("second-topology"));
+    }
+
+    @Test
+    public void testFailedGroupCommitIsRetriedSeparately() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(failingBroker(), 256);
+        final List<CompletableFuture<CommitInfo>> results = submitWhileCommitting(groupCommit, List.of(
+            write("first-topology"),
+            write(INVALID_TOPOLOGY),
+            write("second-topology")));
+
+        results.get(0).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        final ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+            () -> results.get(1).get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        Assertions.assertInstanceOf(TransactionCommitFailedException.class, failure.getCause());
+        results.get(2).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(exists("first-topology"));
+        Assertions.assertFalse(exists(INVALID_TOPOLOGY));
+        Assertions.assertTrue(exists("second-topology"));
+    }
+
+    @Test
+    public void testGroupSizeIsLimited() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(dataBroker, 2);
+        final List<GroupCommit.Edit> edits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            edits.add(write("topology-" + i));
+        }
+        for (final CompletableFuture<CommitInfo> result : submitWhileCommitting(groupCommit, edits)) {
+            result.get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(exists("topology-" + i));
+        }
+    }
+
+    @Test
+    public void testPreconditionSeesPrecedingEditsOfGroup() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(dataBroker, 256);
+        final AtomicInteger firstApplied = new AtomicInteger();
+        final List<CompletableFuture<CommitInfo>> results = submitWhileCommitting(groupCommit, List.of(
+            counted(firstApplied, create("created-topology")),
+            create("created-topology"),
+            create("other-topology")));
+
+        results.get(0).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        assertPreconditionFailure(ErrorTag.DATA_EXISTS, results.get(1));
+        results.get(2).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        //rejected edit does not make the group commit separately
+        Assertions.assertEquals(1, firstApplied.get());
+        Assertions.assertTrue(exists("created-topology"));
+        Assertions.assertTrue(exists("other-topology"));
+    }
+
+    @Test
+    public void testDeleteOfMissingDataFailsAlone() throws Exception {
+        final GroupCommit groupCommit = new GroupCommit(dataBroker, 256);
+        groupCommit.submit(write("existing-topology")).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        final List<CompletableFuture<CommitInfo>> results = submitWhileCommitting(groupCommit, List.of(
+            delete("missing-topology"),
+            delete("existing-topology"),
+            delete("existing-topology"),
+            create("existing-topology")));
+
+        assertPreconditionFailure(ErrorTag.DATA_MISSING, results.get(0));
+        results.get(1).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        //second delete sees the first one
+        assertPreconditionFailure(ErrorTag.DATA_MISSING, results.get(2));
+        results.get(3).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(exists("existing-topology"));
+    }
+
+    private static void assertPreconditionFailure(final ErrorTag errorTag,
+            final CompletableFuture<CommitInfo> result) {
+        final ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+            () -> result.get(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+        final NetconfDocumentedException cause = Assertions.assertInstanceOf(NetconfDocumentedException.class,
+            failure.getCause());
+        Assertions.assertEquals(errorTag, cause.getErrorTag());
+    }
+
+    /**
+     * Submits edits while commit of another edit is blocked, so that they are committed as a group.
+     */
+    private static List<CompletableFuture<CommitInfo>> submitWhileCommitting(final GroupCommit groupCommit,
+            final List<GroupCommit.Edit> edits) throws Exception {
+        final CountDownLatch applying = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<CompletableFuture<CommitInfo>> blocking = CompletableFuture.supplyAsync(
+            () -> groupCommit.submit(tx -> {
+                applying.countDown();
+                try {
+                    release.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                write("blocking-topology").apply(tx);
+            }));
+        Assertions.assertTrue(applying.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final List<CompletableFuture<CommitInfo>> results = new ArrayList<>();
+        edits.forEach(edit -> results.add(groupCommit.submit(edit)));
+        release.countDown();
+        blocking.get(WAIT_MILLIS, TimeUnit.MILLISECONDS).get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        return results;
+    }
+
+    private static GroupCommit.Edit counted(final AtomicInteger counter, final GroupCommit.Edit edit) {
+        return tx -> {
+            counter.incrementAndGet();
+            edit.apply(tx);
+        };
+    }
+
+    private static GroupCommit.Edit write(final String topologyId) {
+        return tx -> tx.merge(LogicalDatastoreType.CONFIGURATION, NETWORK_TOPOLOGY_PATH, networkTopology(topologyId));
+    }
+
+    /**
+     * Edit creating topology, like edit-config create operation.
+     */
+    private static GroupCommit.Edit create(final String topologyId) {
+        return tx -> {
+            if (exists(tx, topologyId)) {
+                throw new NetconfDocumentedException("data-exists", ErrorType.RPC, ErrorTag.DATA_EXISTS,
+                    ErrorSeverity.ERROR);
+            }
+            write(topologyId).apply(tx);
+        };
+    }
+
+    /**
+     * Edit deleting topology, like edit-config delete operation.
+     */
+    private static GroupCommit.Edit delete(final String topologyId) {
+        return tx -> {
+            if (!exists(tx, topologyId)) {
+                throw new NetconfDocumentedException("data-missing", ErrorType.RPC, ErrorTag.DATA_MISSING,
+                    ErrorSeverity.ERROR);
+            }
+            tx.delete(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId));
+        };
+    }
+
+    private static boolean exists(final DOMDataTreeReadWriteTransaction tx, final String topologyId) {
+        try {
+            return tx.exists(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId))
+                .get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException | ExecutionException | TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ContainerNode networkTopology(final String topologyId) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NetworkTopology.QNAME))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(Topology.QNAME))
+                .withChild(ImmutableNodes.newMapEntryBuilder()
+                    .withNodeIdentifier(NodeIdentifierWithPredicates.of(Topology.QNAME, TOPOLOGY_ID, topologyId))
+                    .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, topologyId))
+                    .build())
+                .build())
+            .build();
+    }
+
+    private static YangInstanceIdentifier topologyPath(final String topologyId) {
+        return YangInstanceIdentifier.builder(NETWORK_TOPOLOGY_PATH)
+            .node(Topology.QNAME)
+            .nodeWithKey(Topology.QNAME, TOPOLOGY_ID, topologyId)
+            .build();
+    }
+
+    private boolean exists(final String topologyId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try (DOMDataTreeReadTransaction tx = dataBroker.newReadOnlyTransaction()) {
+            return tx.exists(LogicalDatastoreType.CONFIGURATION, topologyPath(topologyId))
+                .get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Data broker failing commits of transactions writing the invalid topology, as if the datastore rejected it.
+     */
+    private DOMDataBroker failingBroker() {
+        return (DOMDataBroker) Proxy.newProxyInstance(DOMDataBroker.class.getClassLoader(),
+            new Class<?>[] {DOMDataBroker.class}, (proxy, method, args) -> {
+                if (method.getName().equals("newReadWriteTransaction")) {
+                    return failingTransaction(dataBroker.newReadWriteTransaction());
+                }
+                return invoke(dataBroker, method, args);
+            });
+    }
+
+    private static DOMDataTreeReadWriteTransaction failingTransaction(final DOMDataTreeReadWriteTransaction delegate) {
+        final AtomicBoolean invalid = new AtomicBoolean();
+        return (DOMDataTreeReadWriteTransaction) Proxy.newProxyInstance(
+            DOMDataTreeReadWriteTransaction.class.getClassLoader(),
+            new Class<?>[] {DOMDataTreeReadWriteTransaction.class}, (proxy, method, args) -> {
+                if ((method.getName().equals("put") || method.getName().equals("merge"))
+                        && args[2].toString().contains(INVALID_TOPOLOGY)) {
+                    invalid.set(true);
+                }
+                if (method.getName().equals("commit") && invalid.get()) {
+                    delegate.cancel();
+                    return FluentFuture.from(Futures.immediateFailedFuture(
+                        new TransactionCommitFailedException("Invalid topology")));
+                }
+                return invoke(delegate, method, args);
+            });
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
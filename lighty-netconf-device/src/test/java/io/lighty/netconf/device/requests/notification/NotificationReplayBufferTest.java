@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.netconf.device.requests.notification.NotificationReplayBuffer.StoredNotification;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class NotificationReplayBufferTest {
+
+    @Test
+    public void testReadInPublicationOrder() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(new NotificationReplayConfig(10, 100,
+            false));
+        Assertions.assertEquals(1, buffer.append(Instant.ofEpochMilli(1_000), content("first")));
+        Assertions.assertEquals(2, buffer.append(Instant.ofEpochMilli(2_000), content("second")));
+        Assertions.assertEquals(3, buffer.append(Instant.ofEpochMilli(3_000), content("third")));
+
+        Assertions.assertEquals(List.of("first", "second", "third"), contents(buffer.read(1, 10)));
+        Assertions.assertEquals(List.of("second"), contents(buffer.read(2, 1)));
+        Assertions.assertEquals(3, buffer.lastSequence());
+    }
+
+    @Test
+    public void testEvictionByNotificationCount() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(new NotificationReplayConfig(3, 100,
+            false));
+        for (int i = 1; i <= 5; i++) {
+            buffer.append(Instant.ofEpochMilli(i), content("n" + i));
+        }
+        //evicted notifications are skipped, reading starts at the oldest stored one
+        final List<StoredNotification> stored = buffer.read(1, 10);
+        Assertions.assertEquals(List.of(3L, 4L, 5L), stored.stream().map(StoredNotification::sequence).toList());
+        Assertions.assertEquals(List.of("n3", "n4", "n5"), contents(stored));
+    }
+
+    @Test
+    public void testArenaWrapAround() {
+        testArenaWrapAround(false);
+    }
+
+    @Test
+    public void testOffHeapArenaWrapAround() {
+        testArenaWrapAround(true);
+    }
+
+    @Test
+    public void testTooLargeNotificationIsNotStored() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(new NotificationReplayConfig(10, 4,
+            false));
+        buffer.append(Instant.ofEpochMilli(1), content("aaaa"));
+        //sequence number is assigned, but notification can not be replayed
+        Assertions.assertEquals(2, buffer.append(Instant.ofEpochMilli(2), content("too-large")));
+        Assertions.assertEquals(List.of("aaaa"), contents(buffer.read(1, 10)));
+        Assertions.assertEquals(2, buffer.lastSequence());
+    }
+
+    @Test
+    public void testSequenceAtTime() {
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(new NotificationReplayConfig(10, 100,
+            false));
+        Assertions.assertEquals(1, buffer.sequenceAt(Instant.ofEpochMilli(0)));
+        buffer.append(Instant.ofEpochMilli(1_000), content("a"));
+        buffer.append(Instant.ofEpochMilli(2_000), content("b"));
+        buffer.append(Instant.ofEpochMilli(3_000), content("c"));
+        //event time going backwards is stored as time of the previous notification
+        buffer.append(Instant.ofEpochMilli(500), content("d"));
+
+        Assertions.assertEquals(1, buffer.sequenceAt(Instant.ofEpochMilli(0)));
+        Assertions.assertEquals(2, buffer.sequenceAt(Instant.ofEpochMilli(1_500)));
+        Assertions.assertEquals(2, buffer.sequenceAt(Instant.ofEpochMilli(2_000)));
+        Assertions.assertEquals(3, buffer.sequenceAt(Instant.ofEpochMilli(3_000)));
+        Assertions.assertEquals(5, buffer.sequenceAt(Instant.ofEpochMilli(4_000)));
+        Assertions.assertEquals(Instant.ofEpochMilli(3_000), buffer.read(4, 1).getFirst().eventTime());
+    }
+
+    private static void testArenaWrapAround(final boolean offHeap) {
+        //arena holds two notifications of 4 bytes, its last 2 bytes are never used
+        final NotificationReplayBuffer buffer = new NotificationReplayBuffer(new NotificationReplayConfig(10, 10,
+            offHeap));
+        buffer.append(Instant.ofEpochMilli(1), content("aaaa"));
+        buffer.append(Instant.ofEpochMilli(2), content("bbbb"));
+        Assertions.assertEquals(List.of("aaaa", "bbbb"), contents(buffer.read(1, 10)));
+
+        buffer.append(Instant.ofEpochMilli(3), content("cccc"));
+        Assertions.assertEquals(List.of("bbbb", "cccc"), contents(buffer.read(1, 10)));
+        buffer.append(Instant.ofEpochMilli(4), content("dddd"));
+        Assertions.assertEquals(List.of("cccc", "dddd"), contents(buffer.read(1, 10)));
+        buffer.append(Instant.ofEpochMilli(5), content("eeee"));
+        Assertions.assertEquals(List.of("dddd", "eeee"), contents(buffer.read(1, 10)));
+
+        //larger notification evicts only notifications it overlaps
+        buffer.append(Instant.ofEpochMilli(6), content("ffffff"));
+        Assertions.assertEquals(List.of("eeee", "ffffff"), contents(buffer.read(1, 10)));
+        buffer.append(Instant.ofEpochMilli(7), content("ggggggg"));
+        Assertions.assertEquals(List.of("ggggggg"), contents(buffer.read(1, 10)));
+        Assertions.assertEquals(7, buffer.read(1, 10).getFirst().sequence());
+    }
+
+    private static byte[] content(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> contents(final List<StoredNotification> notifications) {
+        return notifications.stream()
+            .map(notification -> new String(notification.content(), StandardCharsets.UTF_8))
+            .toList();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import io.lighty.netconf.device.requests.notification.NotificationQueueConfig.OverflowPolicy;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.NetconfSession;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+
+public class SessionNotificationQueueTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+
+    private final AtomicInteger flushes = new AtomicInteger();
+    private final AtomicBoolean sessionClosed = new AtomicBoolean();
+    private EmbeddedChannel channel;
+    private NetconfSession session;
+
+    @BeforeEach
+    public void setUp() {
+        channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(final ChannelHandlerContext ctx) {
+                flushes.incrementAndGet();
+                ctx.flush();
+            }
+        });
+        session = (NetconfSession) Proxy.newProxyInstance(NetconfSession.class.getClassLoader(),
+            new Class<?>[] {NetconfSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "sendMessage" -> channel.writeAndFlush(args[0]);
+                case "close" -> {
+                    sessionClosed.set(true);
+                    yield null;
+                }
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "test-session";
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    @Test
+    public void testBatchFlushedOnce() throws Exception {
+        final SessionNotificationQueue queue = newQueue(10, 5, OverflowPolicy.DROP);
+        final List<NetconfMessage> sent = enqueue(queue, 5);
+        channel.runPendingTasks();
+        Assertions.assertEquals(sent, readOutbound());
+        final int firstBatchFlushes = flushes.get();
+
+        //channel of the session is known now, whole batch is written with single flush
+        final List<NetconfMessage> nextSent = enqueue(queue, 5);
+        channel.runPendingTasks();
+        Assertions.assertEquals(nextSent, readOutbound());
+        Assertions.assertEquals(firstBatchFlushes + 1, flushes.get());
+    }
+
+    @Test
+    public void testMessagesWrittenInBatches() throws Exception {
+        final SessionNotificationQueue queue = newQueue(10, 2, OverflowPolicy.DROP);
+        final List<NetconfMessage> sent = enqueue(queue, 5);
+        final List<NetconfMessage> written = new ArrayList<>();
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (written.size() < sent.size() && System.currentTimeMillis() < deadline) {
+            //last incomplete batch is flushed after flush interval
+            Thread.sleep(20);
+            channel.runPendingTasks();
+            written.addAll(readOutbound());
+        }
+        //next batch is written after the previous one, order of notifications is kept
+        Assertions.assertEquals(sent, written);
+    }
+
+    @Test
+    public void testDropOverflowPolicy() throws Exception {
+        final SessionNotificationQueue queue = newQueue(2, 2, OverflowPolicy.DROP);
+        final List<NetconfMessage> sent = enqueue(queue, 3);
+        channel.runPendingTasks();
+        Assertions.assertEquals(sent.subList(0, 2), readOutbound());
+        Assertions.assertFalse(sessionClosed.get());
+    }
+
+    @Test
+    public void testDisconnectOverflowPolicy() throws Exception {
+        final SessionNotificationQueue queue = newQueue(2, 2, OverflowPolicy.DISCONNECT);
+        enqueue(queue, 3);
+        Assertions.assertTrue(sessionClosed.get());
+        //buffer of closed session is discarded and later notifications are ignored
+        enqueue(queue, 1);
+        channel.runPendingTasks();
+        Assertions.assertTrue(readOutbound().isEmpty());
+    }
+
+    @Test
+    public void testBlockOverflowPolicy() throws Exception {
+        final SessionNotificationQueue queue = newQueue(1, 1, OverflowPolicy.BLOCK);
+        final List<NetconfMessage> messages = List.of(newMessage(0), newMessage(1));
+        final Thread publisher = new Thread(() -> messages.forEach(queue::enqueue));
+        publisher.start();
+        //publisher waits for space in the buffer, no flush is run by the test
+        publisher.join(200);
+        Assertions.assertTrue(publisher.isAlive());
+
+        //closing the queue releases the waiting publisher
+        queue.close();
+        publisher.join(WAIT_MILLIS);
+        Assertions.assertFalse(publisher.isAlive());
+    }
+
+    private SessionNotificationQueue newQueue(final int capacity, final int batchSize, final OverflowPolicy policy) {
+        //event loop of embedded channel runs flushes when the test runs its pending tasks
+        return new SessionNotificationQueue(session,
+            new NotificationQueueConfig(capacity, batchSize, Duration.ofMillis(10), policy), channel.eventLoop());
+    }
+
+    private static List<NetconfMessage> enqueue(final SessionNotificationQueue queue, final int count) {
+        final List<NetconfMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final NetconfMessage message = newMessage(i);
+            messages.add(message);
+            queue.enqueue(message);
+        }
+        return messages;
+    }
+
+    private List<NetconfMessage> readOutbound() {
+        final List<NetconfMessage> messages = new ArrayList<>();
+        for (NetconfMessage message = channel.readOutbound(); message != null; message = channel.readOutbound()) {
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static NetconfMessage newMessage(final int index) {
+        try {
+            return new NetconfMessage(XmlUtil.readXmlToDocument("<notification xmlns=\""
+                + "urn:ietf:params:xml:ns:netconf:notification:1.0\"><eventTime>2020-01-01T00:00:00Z</eventTime>"
+                + "<event-" + index + " xmlns=\"urn:test\"/></notification>"));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
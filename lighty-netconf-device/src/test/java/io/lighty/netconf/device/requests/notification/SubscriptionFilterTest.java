@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import java.io.StringReader;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.netconf.api.DocumentedException;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+public class SubscriptionFilterTest {
+
+    private static final String SUBSCRIPTION_NAMESPACE = "urn:ietf:params:xml:ns:netconf:notification:1.0";
+    private static final String TEST_NAMESPACE = "urn:test:notifications";
+    private static final String DATA_NOTIFICATION = "<data-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+        + "<client-id>1</client-id><payload>test</payload></data-notification>";
+    private static final String STATE_NOTIFICATION = "<state-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+        + "<client-id>2</client-id></state-notification>";
+
+    @Test
+    public void testMissingFilterSelectsAll() throws Exception {
+        final SubscriptionFilter filter = SubscriptionFilter.of(null);
+        Assertions.assertSame(SubscriptionFilter.ALL, filter);
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION)));
+        Assertions.assertTrue(filter.matches(parseElement(STATE_NOTIFICATION)));
+    }
+
+    @Test
+    public void testUnsupportedFilterType() throws Exception {
+        Assertions.assertThrows(DocumentedException.class, () -> SubscriptionFilter.of(parseElement(
+            "<filter xmlns=\"" + SUBSCRIPTION_NAMESPACE + "\" type=\"xpath\" select=\"/data-notification\"/>")));
+    }
+
+    @Test
+    public void testSelectionNode() throws Exception {
+        final SubscriptionFilter filter = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\"/>");
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION)));
+        Assertions.assertFalse(filter.matches(parseElement(STATE_NOTIFICATION)));
+    }
+
+    @Test
+    public void testNamespaceMatching() throws Exception {
+        //node in other namespace does not match, node without own namespace matches any namespace
+        Assertions.assertFalse(parseFilter("<data-notification xmlns=\"urn:other\"/>")
+            .matches(parseElement(DATA_NOTIFICATION)));
+        Assertions.assertTrue(parseFilter("<data-notification/>").matches(parseElement(DATA_NOTIFICATION)));
+    }
+
+    @Test
+    public void testContentMatchNode() throws Exception {
+        final SubscriptionFilter filter = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+            + "<client-id>1</client-id></data-notification>");
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION)));
+        Assertions.assertFalse(filter.matches(parseElement(DATA_NOTIFICATION.replace(">1<", ">3<"))));
+    }
+
+    @Test
+    public void testContentMatchWithSelectionNode() throws Exception {
+        final SubscriptionFilter filter = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+            + "<client-id>1</client-id><payload/></data-notification>");
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION)));
+        //content match node matches, but selection node selects nothing
+        Assertions.assertFalse(filter.matches(parseElement("<data-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+            + "<client-id>1</client-id></data-notification>")));
+    }
+
+    @Test
+    public void testAnyTopLevelNodeMatches() throws Exception {
+        final SubscriptionFilter filter = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\"/>"
+            + "<state-notification xmlns=\"" + TEST_NAMESPACE + "\"/>");
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION)));
+        Assertions.assertTrue(filter.matches(parseElement(STATE_NOTIFICATION)));
+    }
+
+    @Test
+    public void testAttributeMatch() throws Exception {
+        final SubscriptionFilter filter = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\""
+            + " priority=\"high\"/>");
+        Assertions.assertTrue(filter.matches(parseElement(DATA_NOTIFICATION.replace("<data-notification",
+            "<data-notification priority=\"high\""))));
+        Assertions.assertFalse(filter.matches(parseElement(DATA_NOTIFICATION)));
+    }
+
+    @Test
+    public void testIdenticalFiltersAreEqual() throws Exception {
+        //filters of different sessions are grouped by equality, so whitespace and prefixes do not matter
+        final SubscriptionFilter first = parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\">"
+            + "<client-id>1</client-id></data-notification>");
+        final SubscriptionFilter second = parseFilter("<t:data-notification xmlns:t=\"" + TEST_NAMESPACE + "\">\n"
+            + "  <t:client-id> 1 </t:client-id>\n</t:data-notification>");
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Assertions.assertNotEquals(first, parseFilter("<data-notification xmlns=\"" + TEST_NAMESPACE + "\"/>"));
+    }
+
+    private static SubscriptionFilter parseFilter(final String content) throws Exception {
+        return SubscriptionFilter.of(parseElement("<filter xmlns=\"" + SUBSCRIPTION_NAMESPACE + "\" type=\"subtree\">"
+            + content + "</filter>"));
+    }
+
+    private static Element parseElement(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.requests.notification;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreThreePhaseCommitCohort;
+import org.opendaylight.mdsal.dom.spi.store.DOMStoreWriteTransaction;
+import org.opendaylight.mdsal.dom.store.inmemory.InMemoryDOMDataStore;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+import org.w3c.dom.Element;
+
+public class YangPushServiceTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final String YANG_PATCH_NAMESPACE = "urn:ietf:params:xml:ns:yang:ietf-yang-patch";
+    private static final QName TOPOLOGY_ID = QName.create(Topology.QNAME, "topology-id");
+    private static final YangInstanceIdentifier NETWORK_TOPOLOGY_PATH =
+        YangInstanceIdentifier.of(NetworkTopology.QNAME);
+
+    private static EffectiveModelContext modelContext;
+
+    private InMemoryDOMDataStore datastore;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                    "network-topology",
+                    "2013-10-21")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @BeforeEach
+    public void setUpDatastore() {
+        datastore = new InMemoryDOMDataStore("OPER", MoreExecutors.newDirectExecutorService());
+        datastore.onModelContextUpdated(modelContext);
+    }
+
+    @Test
+    public void testPeriodicPushSharedBySubscriptions() throws Exception {
+        write(networkTopology("periodic-topology"));
+        final YangPushRequest request = new YangPushRequest(LogicalDatastoreType.OPERATIONAL, List.of(), false,
+            Duration.ofMillis(50));
+        try (YangPushService service = newService()) {
+            final BlockingQueue<NetconfMessage> firstReceived = new LinkedBlockingQueue<>();
+            final BlockingQueue<NetconfMessage> secondReceived = new LinkedBlockingQueue<>();
+            final long firstId = service.establish(request, firstReceived::add);
+            final long secondId = service.establish(request, secondReceived::add);
+            Assertions.assertNotEquals(firstId, secondId);
+
+            final Element firstUpdate = update(firstReceived, "push-update");
+            final Element secondUpdate = update(secondReceived, "push-update");
+            //messages of both subscriptions carry the same data and differ in subscription id
+            Assertions.assertEquals(Long.toString(firstId), child(firstUpdate, "id").getTextContent());
+            Assertions.assertEquals(Long.toString(secondId), child(secondUpdate, "id").getTextContent());
+            final Element contents = child(firstUpdate, "datastore-contents");
+            Assertions.assertTrue(contents.isEqualNode(child(secondUpdate, "datastore-contents")));
+            Assertions.assertTrue(contents.getTextContent().contains("periodic-topology"));
+            Assertions.assertEquals(1, contents.getElementsByTagNameNS(NetworkTopology.QNAME.getNamespace()
+                .toString(), "network-topology").getLength());
+        }
+    }
+
+    @Test
+    public void testOnChangePushesYangPatch() throws Exception {
+        final YangPushRequest request = new YangPushRequest(LogicalDatastoreType.OPERATIONAL,
+            List.of(NetworkTopology.QNAME), true, Duration.ZERO);
+        try (YangPushService service = newService()) {
+            final BlockingQueue<NetconfMessage> received = new LinkedBlockingQueue<>();
+            service.establish(request, received::add);
+            //new subscription receives current contents first
+            update(received, "push-update");
+
+            write(networkTopology("changed-topology"));
+            final Element patch = yangPatch(update(received, "push-change-update"));
+            Assertions.assertEquals("replace", patchLeaf(patch, "operation"));
+            Assertions.assertEquals("/network-topology:network-topology", patchLeaf(patch, "target"));
+            Assertions.assertTrue(patchChild(patch, "value").getTextContent().contains("changed-topology"));
+
+            delete();
+            final Element deletePatch = yangPatch(update(received, "push-change-update"));
+            Assertions.assertEquals("delete", patchLeaf(deletePatch, "operation"));
+            Assertions.assertEquals(0, deletePatch.getElementsByTagNameNS(YANG_PATCH_NAMESPACE, "value").getLength());
+        }
+    }
+
+    @Test
+    public void testDeletedSubscriptionIsNotPushed() throws Exception {
+        final YangPushRequest request = new YangPushRequest(LogicalDatastoreType.OPERATIONAL, List.of(), false,
+            Duration.ofMillis(20));
+        try (YangPushService service = newService()) {
+            final BlockingQueue<NetconfMessage> received = new LinkedBlockingQueue<>();
+            final long id = service.establish(request, received::add);
+            update(received, "push-update");
+
+            Assertions.assertTrue(service.delete(id));
+            Assertions.assertFalse(service.delete(id));
+            //push running during delete may still be delivered, later pushes are not
+            Thread.sleep(100);
+            received.clear();
+            Assertions.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private YangPushService newService() {
+        return new YangPushService(modelContext, Map.of(LogicalDatastoreType.OPERATIONAL, datastore),
+            new ScheduledThreadPoolExecutor(1), true);
+    }
+
+    private void write(final ContainerNode data) throws Exception {
+        final DOMStoreWriteTransaction transaction = datastore.newWriteOnlyTransaction();
+        transaction.write(NETWORK_TOPOLOGY_PATH, data);
+        commit(transaction.ready());
+    }
+
+    private void delete() throws Exception {
+        final DOMStoreWriteTransaction transaction = datastore.newWriteOnlyTransaction();
+        transaction.delete(NETWORK_TOPOLOGY_PATH);
+        commit(transaction.ready());
+    }
+
+    private static void commit(final DOMStoreThreePhaseCommitCohort cohort) throws Exception {
+        cohort.canCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        cohort.preCommit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        cohort.commit().get(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static ContainerNode networkTopology(final String topologyId) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NetworkTopology.QNAME))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(Topology.QNAME))
+                .withChild(ImmutableNodes.newMapEntryBuilder()
+                    .withNodeIdentifier(NodeIdentifierWithPredicates.of(Topology.QNAME, TOPOLOGY_ID, topologyId))
+                    .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, topologyId))
+                    .build())
+                .build())
+            .build();
+    }
+
+    /**
+     * Waits for next message and provides its update element, i.e. content of the notification.
+     */
+    private static Element update(final BlockingQueue<NetconfMessage> received, final String updateName)
+            throws InterruptedException {
+        final NetconfMessage message = received.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        Assertions.assertNotNull(message, "Expected " + updateName);
+        final Element update = NotificationSubscriptions.notificationContent(message);
+        Assertions.assertEquals(updateName, update.getLocalName());
+        Assertions.assertEquals(YangPushRequest.YANG_PUSH_NAMESPACE, update.getNamespaceURI());
+        return update;
+    }
+
+    private static Element yangPatch(final Element update) {
+        final Element changes = child(update, "datastore-changes");
+        final Element patch = YangPushRequest.child(changes, YANG_PATCH_NAMESPACE, "yang-patch");
+        Assertions.assertNotNull(patch, "yang-patch has to be in ietf-yang-patch namespace");
+        return patch;
+    }
+
+    private static Element patchChild(final Element patch, final String name) {
+        final Element edit = YangPushRequest.child(patch, YANG_PATCH_NAMESPACE, "edit");
+        Assertions.assertNotNull(edit);
+        final Element element = YangPushRequest.child(edit, YANG_PATCH_NAMESPACE, name);
+        Assertions.assertNotNull(element, name + " has to be in ietf-yang-patch namespace");
+        return element;
+    }
+
+    private static String patchLeaf(final Element patch, final String name) {
+        return patchChild(patch, name).getTextContent();
+    }
+
+    private static Element child(final Element parent, final String name) {
+        final Element element = YangPushRequest.child(parent, YangPushRequest.YANG_PUSH_NAMESPACE, name);
+        Assertions.assertNotNull(element, name + " has to be in ietf-yang-push namespace");
+        return element;
+    }
+}
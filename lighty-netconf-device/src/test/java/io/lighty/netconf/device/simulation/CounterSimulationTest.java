@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.simulation;
+
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import io.lighty.netconf.device.simulation.CounterSimulation.ValueType;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.common.api.CommitInfo;
+import org.opendaylight.mdsal.dom.api.DOMDataBroker;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeReadTransaction;
+import org.opendaylight.mdsal.dom.api.DOMDataTreeWriteTransaction;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.Uint32;
+import org.opendaylight.yangtools.yang.common.Uint64;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.LeafNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+public class CounterSimulationTest {
+
+    private static final long WAIT_MILLIS = 5_000;
+    private static final QName COUNTER = QName.create("urn:example:counters", "counter");
+
+    @Test
+    public void testUint64WrapsAroundAt2To64() {
+        final long max = Uint64.MAX_VALUE.longValue();
+        Assertions.assertEquals(max, ValueType.UINT64.normalize(max - 1, max));
+        Assertions.assertEquals(Uint64.valueOf(2), ValueType.UINT64.encode(ValueType.UINT64.normalize(max - 1,
+            max - 1 + 4)));
+        //values above 2^63 are not clamped
+        final long aboveSignedRange = Uint64.valueOf("9223372036854775818").longValue();
+        Assertions.assertEquals(Uint64.valueOf("9223372036854775828"),
+            ValueType.UINT64.encode(ValueType.UINT64.normalize(aboveSignedRange, aboveSignedRange + 10)));
+        //decrease below zero is written as zero
+        Assertions.assertEquals(0, ValueType.UINT64.normalize(2, -3));
+        Assertions.assertEquals(aboveSignedRange - 5, ValueType.UINT64.normalize(aboveSignedRange,
+            aboveSignedRange - 5));
+    }
+
+    @Test
+    public void testSmallTypesWrapAround() {
+        Assertions.assertEquals(Uint32.valueOf(1), ValueType.UINT32.encode(ValueType.UINT32.normalize(
+            0xFFFFFFFFL, 0xFFFFFFFFL + 2)));
+        Assertions.assertEquals(0xFF & 300, ValueType.UINT8.normalize(250, 300));
+        Assertions.assertEquals(0, ValueType.UINT16.normalize(3, -1));
+        //signed types saturate
+        Assertions.assertEquals(Integer.MAX_VALUE, ValueType.INT32.normalize(0, Long.MAX_VALUE));
+        Assertions.assertEquals(Byte.MIN_VALUE, ValueType.INT8.normalize(0, -1000));
+    }
+
+    @Test
+    public void testSimulatedCounterWraps() throws Exception {
+        final RecordingBroker broker = new RecordingBroker(Uint64.fromLongBits(-2), 0);
+        final CounterSimulation simulation = new CounterSimulation(broker.proxy(),
+            new CounterSimulationConfig(Duration.ofMillis(10), List.of(new SimulatedLeaf(
+                YangInstanceIdentifier.of(COUNTER), RateFunction.constant(1_000_000)))),
+            new ScheduledThreadPoolExecutor(1));
+        try {
+            simulation.start();
+            final LeafNode<?> written = broker.written.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            Assertions.assertNotNull(written);
+            Assertions.assertTrue(((Uint64) written.body()).compareTo(Uint64.valueOf(1_000_000)) < 0);
+        } finally {
+            simulation.close();
+        }
+    }
+
+    @Test
+    public void testFailedWriteResolvesLeavesAgain() throws Exception {
+        final RecordingBroker broker = new RecordingBroker(Uint64.ZERO, 1);
+        final CounterSimulation simulation = new CounterSimulation(broker.proxy(),
+            new CounterSimulationConfig(Duration.ofMillis(10), List.of(new SimulatedLeaf(
+                YangInstanceIdentifier.of(COUNTER), RateFunction.constant(1_000_000)))),
+            new ScheduledThreadPoolExecutor(1));
+        try {
+            simulation.start();
+            Assertions.assertNotNull(broker.written.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            //read on start and again after the failed write
+            Assertions.assertEquals(2, broker.reads.get());
+        } finally {
+            simulation.close();
+        }
+    }
+
+    /**
+     * Data broker providing datastore with a single counter and recording written values. First writes
+     * fail synchronously.
+     */
+    private static final class RecordingBroker {
+
+        private final ContainerNode root;
+        private final AtomicInteger failingWrites;
+        private final AtomicInteger reads = new AtomicInteger();
+        private final BlockingQueue<LeafNode<?>> written = new LinkedBlockingQueue<>();
+
+        RecordingBroker(final Uint64 initialValue, final int failingWrites) {
+            this.root = ImmutableNodes.newContainerBuilder()
+                .withNodeIdentifier(new NodeIdentifier(SchemaContext.NAME))
+                .withChild(ImmutableNodes.leafNode(COUNTER, initialValue))
+                .build();
+            this.failingWrites = new AtomicInteger(failingWrites);
+        }
+
+        DOMDataBroker proxy() {
+            return (DOMDataBroker) Proxy.newProxyInstance(DOMDataBroker.class.getClassLoader(),
+                new Class<?>[] {DOMDataBroker.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "newReadOnlyTransaction" -> readTransaction();
+                    case "newWriteOnlyTransaction" -> {
+                        if (failingWrites.getAndDecrement() > 0) {
+                            throw new IllegalStateException("Write failed");
+                        }
+                        yield writeTransaction();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        private DOMDataTreeReadTransaction readTransaction() {
+            return (DOMDataTreeReadTransaction) Proxy.newProxyInstance(
+                DOMDataTreeReadTransaction.class.getClassLoader(), new Class<?>[] {DOMDataTreeReadTransaction.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "read" -> {
+                        reads.incrementAndGet();
+                        yield FluentFuture.from(Futures.immediateFuture(Optional.<NormalizedNode>of(root)));
+                    }
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        private DOMDataTreeWriteTransaction writeTransaction() {
+            return (DOMDataTreeWriteTransaction) Proxy.newProxyInstance(
+                DOMDataTreeWriteTransaction.class.getClassLoader(), new Class<?>[] {DOMDataTreeWriteTransaction.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "put" -> {
+                        written.add((LeafNode<?>) args[2]);
+                        yield null;
+                    }
+                    case "commit" -> CommitInfo.emptyFluentFuture();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        }
+    }
+}
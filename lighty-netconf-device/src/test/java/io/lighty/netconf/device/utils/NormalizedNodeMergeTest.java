@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifierWithPredicates;
+import org.opendaylight.yangtools.yang.data.api.schema.ChoiceNode;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.DataContainerChild;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.data.api.schema.NormalizedNode;
+import org.opendaylight.yangtools.yang.data.api.schema.stream.NormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.impl.schema.ImmutableNormalizedNodeStreamWriter;
+import org.opendaylight.yangtools.yang.data.impl.schema.NormalizationResultHolder;
+import org.opendaylight.yangtools.yang.data.spi.node.ImmutableNodes;
+
+public class NormalizedNodeMergeTest {
+
+    private static final String NT_NAMESPACE = "urn:TBD:params:xml:ns:yang:network-topology";
+    private static final QName NETWORK_TOPOLOGY = QName.create(NT_NAMESPACE, "2013-10-21", "network-topology");
+    private static final QName TOPOLOGY = QName.create(NETWORK_TOPOLOGY, "topology");
+    private static final QName TOPOLOGY_ID = QName.create(NETWORK_TOPOLOGY, "topology-id");
+    private static final QName NODE = QName.create(NETWORK_TOPOLOGY, "node");
+    private static final QName NODE_ID = QName.create(NETWORK_TOPOLOGY, "node-id");
+    private static final QName TARGET = QName.create(NETWORK_TOPOLOGY, "target");
+    private static final QName STREAM = QName.create(NETWORK_TOPOLOGY, "stream");
+    private static final QName REPLAY = QName.create(NETWORK_TOPOLOGY, "replay");
+    private static final QName DATASTORE = QName.create(NETWORK_TOPOLOGY, "datastore");
+
+    @Test
+    public void testMergeRebuildsOnlyOverlappingNodes() {
+        final MapEntryNode configOnly = topology("config-only");
+        final MapEntryNode stateOnly = topology("state-only");
+        final ContainerNode config = networkTopology(configOnly, topology("shared", node("n1")));
+        final ContainerNode state = networkTopology(stateOnly, topology("shared", node("n2")));
+
+        final ContainerNode merged = (ContainerNode) NormalizedNodeMerge.merge(config, state);
+        Assertions.assertEquals(networkTopology(configOnly, stateOnly, topology("shared", node("n1"), node("n2"))),
+            merged);
+        //subtrees present in one of the trees are shared, not copied
+        final MapNode topologies = (MapNode) merged.getChildByArg(new NodeIdentifier(TOPOLOGY));
+        Assertions.assertSame(configOnly, topologies.childByArg(topologyKey("config-only")));
+        Assertions.assertSame(stateOnly, topologies.childByArg(topologyKey("state-only")));
+    }
+
+    @Test
+    public void testLeafOfSecondTreeWins() {
+        final ContainerNode first = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NETWORK_TOPOLOGY))
+            .withChild(ImmutableNodes.leafNode(STREAM, "config"))
+            .build();
+        final ContainerNode second = ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NETWORK_TOPOLOGY))
+            .withChild(ImmutableNodes.leafNode(STREAM, "state"))
+            .build();
+        Assertions.assertSame(second.childByArg(new NodeIdentifier(STREAM)),
+            ((ContainerNode) NormalizedNodeMerge.merge(first, second)).childByArg(new NodeIdentifier(STREAM)));
+    }
+
+    @Test
+    public void testChoicesOfDifferentCasesAreNotMixed() {
+        final ChoiceNode streamCase = choice(ImmutableNodes.leafNode(STREAM, "NETCONF"));
+        final ChoiceNode datastoreCase = choice(ImmutableNodes.leafNode(DATASTORE, "running"));
+        Assertions.assertSame(datastoreCase, NormalizedNodeMerge.merge(streamCase, datastoreCase));
+        Assertions.assertEquals(datastoreCase, write(streamCase, datastoreCase));
+    }
+
+    @Test
+    public void testChoicesOfSameCaseAreMerged() {
+        final ChoiceNode config = choice(ImmutableNodes.leafNode(STREAM, "NETCONF"));
+        final ChoiceNode state = choice(ImmutableNodes.leafNode(STREAM, "NETCONF"),
+            ImmutableNodes.leafNode(REPLAY, "true"));
+        final ChoiceNode merged = (ChoiceNode) NormalizedNodeMerge.merge(config, state);
+        Assertions.assertEquals(state, merged);
+    }
+
+    @Test
+    public void testWriteStreamsSameTreeAsMerge() {
+        final ContainerNode config = networkTopology(topology("config-only"), topology("shared", node("n1")),
+            topology("equal", node("n3")));
+        final ContainerNode state = networkTopology(topology("state-only"), topology("shared", node("n2")),
+            topology("equal", node("n3")));
+        Assertions.assertEquals(NormalizedNodeMerge.merge(config, state), write(config, state));
+    }
+
+    private static NormalizedNode write(final NormalizedNode first, final NormalizedNode second) {
+        final NormalizationResultHolder result = new NormalizationResultHolder();
+        final NormalizedNodeStreamWriter writer = ImmutableNormalizedNodeStreamWriter.from(result);
+        try {
+            NormalizedNodeMerge.write(first, second, writer);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Unable to write merged trees", e);
+        }
+        return result.getResult().data();
+    }
+
+    private static ContainerNode networkTopology(final MapEntryNode... topologies) {
+        return ImmutableNodes.newContainerBuilder()
+            .withNodeIdentifier(new NodeIdentifier(NETWORK_TOPOLOGY))
+            .withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(TOPOLOGY))
+                .withValue(List.of(topologies))
+                .build())
+            .build();
+    }
+
+    private static MapEntryNode topology(final String topologyId, final MapEntryNode... nodes) {
+        final var builder = ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(topologyKey(topologyId))
+            .withChild(ImmutableNodes.leafNode(TOPOLOGY_ID, topologyId));
+        if (nodes.length > 0) {
+            builder.withChild(ImmutableNodes.newSystemMapBuilder()
+                .withNodeIdentifier(new NodeIdentifier(NODE))
+                .withValue(List.of(nodes))
+                .build());
+        }
+        return builder.build();
+    }
+
+    private static NodeIdentifierWithPredicates topologyKey(final String topologyId) {
+        return NodeIdentifierWithPredicates.of(TOPOLOGY, TOPOLOGY_ID, topologyId);
+    }
+
+    private static MapEntryNode node(final String nodeId) {
+        return ImmutableNodes.newMapEntryBuilder()
+            .withNodeIdentifier(NodeIdentifierWithPredicates.of(NODE, NODE_ID, nodeId))
+            .withChild(ImmutableNodes.leafNode(NODE_ID, nodeId))
+            .build();
+    }
+
+    private static ChoiceNode choice(final DataContainerChild... children) {
+        return ImmutableNodes.newChoiceBuilder()
+            .withNodeIdentifier(new NodeIdentifier(TARGET))
+            .withValue(List.of(children))
+            .build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.device.utils;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opendaylight.mdsal.common.api.LogicalDatastoreType;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.NetworkTopology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.Topology;
+import org.opendaylight.yang.gen.v1.urn.tbd.params.xml.ns.yang.network.topology.rev131021.network.topology.topology.Node;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.data.api.YangInstanceIdentifier.NodeIdentifier;
+import org.opendaylight.yangtools.yang.data.api.schema.ContainerNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapEntryNode;
+import org.opendaylight.yangtools.yang.data.api.schema.MapNode;
+import org.opendaylight.yangtools.yang.model.api.EffectiveModelContext;
+
+public class SyntheticDataGeneratorTest {
+
+    private static final QName TOPOLOGY_ID = QName.create(Topology.QNAME, "topology-id");
+    private static final QName NODE_ID = QName.create(Topology.QNAME, "node-id");
+
+    private static EffectiveModelContext modelContext;
+
+    @BeforeAll
+    public static void setUp() {
+        modelContext = new NetconfDeviceBuilder()
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from("urn:TBD:params:xml:ns:yang:network-topology",
+                    "network-topology",
+                    "2013-10-21")))
+            .createSharedAdapterContext().currentSerializer().getRuntimeContext().modelContext();
+    }
+
+    @Test
+    public void testSameSeedGeneratesSameData() {
+        final SyntheticDataConfig config = SyntheticDataConfig.defaults(42);
+        final ContainerNode first = SyntheticDataGenerator.generate(modelContext, LogicalDatastoreType.OPERATIONAL,
+            config);
+        final ContainerNode second = SyntheticDataGenerator.generate(modelContext, LogicalDatastoreType.OPERATIONAL,
+            config);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(10, topologies(first).size());
+    }
+
+    @Test
+    public void testListKeysAreUnique() {
+        //single value of non-key leaves must not reduce number of list entries
+        final SyntheticDataConfig config = new SyntheticDataConfig(7, 3, Map.of(Topology.QNAME, 50), 1, Set.of());
+        final MapNode topologies = topologies(SyntheticDataGenerator.generate(modelContext,
+            LogicalDatastoreType.CONFIGURATION, config));
+        Assertions.assertEquals(50, topologies.size());
+
+        final Set<Object> topologyIds = new HashSet<>();
+        for (final MapEntryNode topology : topologies.body()) {
+            final Object topologyId = topology.name().getValue(TOPOLOGY_ID);
+            Assertions.assertTrue(topologyIds.add(topologyId));
+            Assertions.assertEquals(topologyId, topology.getChildByArg(new NodeIdentifier(TOPOLOGY_ID)).body());
+
+            final MapNode nodes = (MapNode) topology.getChildByArg(new NodeIdentifier(Node.QNAME));
+            Assertions.assertEquals(3, nodes.size());
+            final Set<Object> nodeIds = new HashSet<>();
+            nodes.body().forEach(node -> Assertions.assertTrue(nodeIds.add(node.name().getValue(NODE_ID))));
+        }
+    }
+
+    @Test
+    public void testGeneratesSelectedModulesOnly() {
+        final SyntheticDataConfig config = new SyntheticDataConfig(1, 1, Map.of(), 10,
+            Set.of(QName.create("urn:example:missing", "missing").getModule()));
+        final ContainerNode root = SyntheticDataGenerator.generate(modelContext, LogicalDatastoreType.OPERATIONAL,
+            config);
+        Assertions.assertTrue(root.body().isEmpty());
+    }
+
+    @Test
+    public void testInvalidConfig() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new SyntheticDataConfig(1, -1, Map.of(), 10, Set.of()));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new SyntheticDataConfig(1, 1, Map.of(), 0, Set.of()));
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new SyntheticDataConfig(1, 1, Map.of(Topology.QNAME, -1), 10, Set.of()));
+    }
+
+    private static MapNode topologies(final ContainerNode root) {
+        final ContainerNode networkTopology = (ContainerNode) root.getChildByArg(
+            new NodeIdentifier(NetworkTopology.QNAME));
+        return (MapNode) networkTopology.getChildByArg(new NodeIdentifier(Topology.QNAME));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies of one request type into primitive array, percentiles are computed
+ * from sorted copy of recorded values.
+ */
+public final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private long dropped;
+
+    public synchronized void record(final long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    public synchronized void recordError(final long latencyNanos) {
+        errors++;
+        record(latencyNanos);
+    }
+
+    /**
+     * Records request which was not sent, because session had too many outstanding requests.
+     */
+    public synchronized void recordDropped() {
+        dropped++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        final long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, errors, dropped);
+    }
+
+    /**
+     * Sorted latencies recorded until the snapshot was taken.
+     * @param sortedLatencies sorted latencies in nanoseconds
+     * @param errors number of requests answered with rpc-error or failed
+     * @param dropped number of requests not sent because of too many outstanding requests
+     */
+    public record Snapshot(long[] sortedLatencies, long errors, long dropped) {
+
+        public int count() {
+            return sortedLatencies.length;
+        }
+
+        /**
+         * Computes percentile using nearest-rank method.
+         * @param percentile percentile between 0 and 100
+         * @return latency in nanoseconds or 0 when nothing was recorded
+         */
+        public long percentile(final double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            final int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+            return sortedLatencies[Math.min(sortedLatencies.length - 1, Math.max(0, rank - 1))];
+        }
+
+        public long max() {
+            return sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1];
+        }
+    }
+}
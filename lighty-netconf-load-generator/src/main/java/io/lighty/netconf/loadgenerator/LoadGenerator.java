@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import io.lighty.netconf.device.utils.RPCUtil;
+import io.lighty.netconf.device.utils.TimeoutUtil;
+import io.netty.util.concurrent.Future;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.opendaylight.netconf.api.messages.NetconfMessage;
+import org.opendaylight.netconf.api.xml.XmlUtil;
+import org.opendaylight.netconf.client.NetconfClientFactoryImpl;
+import org.opendaylight.netconf.client.NetconfClientSession;
+import org.opendaylight.netconf.client.SimpleNetconfClientSessionListener;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration;
+import org.opendaylight.netconf.client.conf.NetconfClientConfiguration.NetconfClientProtocol;
+import org.opendaylight.netconf.client.conf.NetconfClientConfigurationBuilder;
+import org.opendaylight.netconf.common.di.DefaultNetconfTimer;
+import org.opendaylight.netconf.transport.api.UnsupportedConfigurationException;
+import org.opendaylight.netconf.transport.ssh.SSHNegotiatedAlgListener;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.crypto.types.rev241010.password.grouping.password.type.CleartextPasswordBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Host;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev251204.netconf.client.initiate.stack.grouping.transport.ssh.ssh.SshClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.netconf.client.rev251204.netconf.client.initiate.stack.grouping.transport.ssh.ssh.TcpClientParametersBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.ClientIdentityBuilder;
+import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.ssh.client.rev241010.ssh.client.grouping.client.identity.PasswordBuilder;
+import org.opendaylight.yangtools.yang.common.Uint16;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+/**
+ * Opens NETCONF sessions to simulated devices and sends requests to them at target rate.
+ * Requests are scheduled in open loop, latency of every request is measured from the time
+ * the request was scheduled, so latencies include time spent waiting behind slow requests.
+ */
+public final class LoadGenerator implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final SSHNegotiatedAlgListener ALG_LISTENER = (kexAlgorithm, hostKey, encryption, mac) -> {
+        // No-op
+    };
+
+    private final LoadGeneratorConfiguration configuration;
+    private final Map<RequestType, Document> requests = new EnumMap<>(RequestType.class);
+    private final List<LoadSession> sessions = new ArrayList<>();
+    private final DefaultNetconfTimer timer = new DefaultNetconfTimer();
+    private final NetconfClientFactoryImpl clientFactory = new NetconfClientFactoryImpl(timer);
+
+    public LoadGenerator(final LoadGeneratorConfiguration configuration) throws IOException, SAXException {
+        this.configuration = configuration;
+        for (final RequestType type : configuration.operationMix().getWeights().keySet()) {
+            requests.put(type, loadRequest(type, configuration.payloads().get(type)));
+        }
+    }
+
+    /**
+     * Opens configured number of sessions to every device.
+     */
+    public void connect() throws InterruptedException, ExecutionException, TimeoutException,
+            UnsupportedConfigurationException {
+        for (int device = 0; device < configuration.devicesCount(); device++) {
+            final int port = configuration.startingPort() + device;
+            for (int session = 0; session < configuration.sessionsPerDevice(); session++) {
+                final SimpleNetconfClientSessionListener listener = new SimpleNetconfClientSessionListener();
+                final NetconfClientSession clientSession = clientFactory
+                    .createClient(createClientConfiguration(listener, port), ALG_LISTENER)
+                    .get(TimeoutUtil.TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                sessions.add(new LoadSession(clientSession, listener));
+            }
+        }
+        LOG.info("Opened {} sessions to {} devices", sessions.size(), configuration.devicesCount());
+    }
+
+    /**
+     * Sends requests at target rate for warmup and measured duration and waits for outstanding replies.
+     * @return report of measured part of the run
+     */
+    public LoadReport run() throws InterruptedException {
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("No sessions are open");
+        }
+        final Map<RequestType, LatencyRecorder> recorders = new EnumMap<>(RequestType.class);
+        requests.keySet().forEach(type -> recorders.put(type, new LatencyRecorder()));
+        final OperationMix operationMix = configuration.operationMix();
+        final SplittableRandom random = new SplittableRandom();
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) configuration.rate();
+        final long start = System.nanoTime();
+        final long measureFrom = start + configuration.warmup().toNanos();
+        final long end = measureFrom + configuration.duration().toNanos();
+
+        LOG.info("Sending {} req/s for {} after {} warmup", configuration.rate(), configuration.duration(),
+            configuration.warmup());
+        for (long sequence = 0; ; sequence++) {
+            final long scheduled = start + (long) (sequence * intervalNanos);
+            if (scheduled >= end) {
+                break;
+            }
+            final long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final RequestType type = operationMix.pick(random.nextInt(operationMix.getTotalWeight()));
+            final LoadSession session = sessions.get((int) (sequence % sessions.size()));
+            session.send(requests.get(type), sequence, scheduled,
+                scheduled >= measureFrom ? recorders.get(type) : null);
+        }
+        awaitOutstandingReplies();
+
+        final Map<RequestType, LatencyRecorder.Snapshot> snapshots = new EnumMap<>(RequestType.class);
+        recorders.forEach((type, recorder) -> snapshots.put(type, recorder.snapshot()));
+        return new LoadReport(configuration.duration(), snapshots);
+    }
+
+    @Override
+    public void close() throws Exception {
+        sessions.forEach(session -> session.clientSession.close());
+        sessions.clear();
+        clientFactory.close();
+        timer.close();
+    }
+
+    private void awaitOutstandingReplies() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TimeoutUtil.TIMEOUT_MILLIS);
+        while (sessions.stream().anyMatch(session -> session.outstanding.get() > 0)) {
+            if (System.nanoTime() > deadline) {
+                LOG.warn("Some replies were not received in {} ms", TimeoutUtil.TIMEOUT_MILLIS);
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private NetconfClientConfiguration createClientConfiguration(final SimpleNetconfClientSessionListener listener,
+            final int port) {
+        return NetconfClientConfigurationBuilder.create()
+            .withTcpParameters(new TcpClientParametersBuilder()
+                .setRemoteAddress(new Host(new IpAddress(Ipv4Address.getDefaultInstance(configuration.host()))))
+                .setRemotePort(new PortNumber(Uint16.valueOf(port))).build())
+            .withSessionListener(listener)
+            .withConnectionTimeoutMillis(NetconfClientConfigurationBuilder.DEFAULT_CONNECTION_TIMEOUT_MILLIS)
+            .withProtocol(NetconfClientProtocol.SSH)
+            .withSshParameters(new SshClientParametersBuilder().setClientIdentity(new ClientIdentityBuilder()
+                    .setUsername(configuration.username())
+                    .setPassword(new PasswordBuilder()
+                        .setPasswordType(new CleartextPasswordBuilder()
+                            .setCleartextPassword(configuration.password())
+                            .build())
+                        .build())
+                    .build())
+                .build())
+            .build();
+    }
+
+    private static Document loadRequest(final RequestType type, final File payload) throws IOException, SAXException {
+        try (InputStream inputStream = payload != null ? new FileInputStream(payload)
+                : Objects.requireNonNull(LoadGenerator.class.getClassLoader()
+                    .getResourceAsStream(type.getDefaultPayload()))) {
+            return XmlUtil.readXmlToDocument(inputStream);
+        }
+    }
+
+    private final class LoadSession {
+        private final NetconfClientSession clientSession;
+        private final SimpleNetconfClientSessionListener listener;
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        LoadSession(final NetconfClientSession clientSession, final SimpleNetconfClientSessionListener listener) {
+            this.clientSession = clientSession;
+            this.listener = listener;
+        }
+
+        void send(final Document request, final long messageId, final long scheduled,
+                final LatencyRecorder recorder) {
+            if (outstanding.incrementAndGet() > configuration.maxOutstanding()) {
+                outstanding.decrementAndGet();
+                if (recorder != null) {
+                    recorder.recordDropped();
+                }
+                return;
+            }
+            final Document document = (Document) request.cloneNode(true);
+            document.getDocumentElement().setAttribute("message-id", Long.toString(messageId));
+            final Future<NetconfMessage> reply = listener.sendRequest(new NetconfMessage(document));
+            reply.addListener(done -> {
+                final long latency = System.nanoTime() - scheduled;
+                outstanding.decrementAndGet();
+                if (recorder != null) {
+                    if (reply.isSuccess() && !isErrorReply(reply.getNow())) {
+                        recorder.record(latency);
+                    } else {
+                        recorder.recordError(latency);
+                    }
+                }
+            });
+        }
+
+        private static boolean isErrorReply(final NetconfMessage reply) {
+            return reply.getDocument().getElementsByTagNameNS(RPCUtil.NETCONF_BASE_NAMESPACE, "rpc-error")
+                .getLength() > 0;
+        }
+    }
+}
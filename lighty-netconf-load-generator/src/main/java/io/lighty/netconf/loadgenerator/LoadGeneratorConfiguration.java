@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Parameters of a load generator run.
+ * @param host IPv4 address of simulated devices
+ * @param startingPort port of the first device
+ * @param devicesCount number of devices listening on consecutive ports
+ * @param sessionsPerDevice number of NETCONF sessions opened to every device
+ * @param username SSH username
+ * @param password SSH password
+ * @param rate target number of requests per second sent by all sessions together
+ * @param duration duration of measured part of the run
+ * @param warmup duration of warmup, requests sent during warmup are not reported
+ * @param maxOutstanding maximal number of requests waiting for reply in single session
+ * @param operationMix mix of request types
+ * @param payloads files with requests overriding default payloads
+ */
+public record LoadGeneratorConfiguration(String host, int startingPort, int devicesCount, int sessionsPerDevice,
+        String username, String password, int rate, Duration duration, Duration warmup, int maxOutstanding,
+        OperationMix operationMix, Map<RequestType, File> payloads) {
+}
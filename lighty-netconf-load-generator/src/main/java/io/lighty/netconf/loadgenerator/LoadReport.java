@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of measured part of a load generator run.
+ * @param elapsed duration of measured part of the run
+ * @param snapshots recorded latencies of every request type
+ */
+public record LoadReport(Duration elapsed, Map<RequestType, LatencyRecorder.Snapshot> snapshots) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public long totalRequests() {
+        return snapshots.values().stream().mapToLong(LatencyRecorder.Snapshot::count).sum();
+    }
+
+    public double throughput() {
+        return totalRequests() / Math.max(elapsed.toNanos() / 1e9, 1e-9);
+    }
+
+    /**
+     * Formats report as a table with one row per request type.
+     * @return formatted report
+     */
+    public String format() {
+        final StringBuilder report = new StringBuilder(512);
+        report.append(String.format("Requests: %d in %.1f s, throughput %.1f req/s%n",
+            totalRequests(), elapsed.toMillis() / 1000.0, throughput()));
+        report.append(String.format("%-12s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+            "type", "count", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (final Map.Entry<RequestType, LatencyRecorder.Snapshot> entry : snapshots.entrySet()) {
+            final LatencyRecorder.Snapshot snapshot = entry.getValue();
+            report.append(String.format("%-12s %10d %8d %8d", entry.getKey().getName(), snapshot.count(),
+                snapshot.errors(), snapshot.dropped()));
+            for (final double percentile : PERCENTILES) {
+                report.append(String.format(" %10.3f", toMillis(snapshot.percentile(percentile))));
+            }
+            report.append(String.format(" %10.3f%n", toMillis(snapshot.max())));
+        }
+        return report.toString();
+    }
+
+    private static double toMillis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import net.sourceforge.argparse4j.ArgumentParsers;
+import net.sourceforge.argparse4j.inf.ArgumentParser;
+import net.sourceforge.argparse4j.inf.Namespace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class Main {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Main.class);
+
+    private Main() {
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    public static void main(final String[] args) {
+        final LoadGeneratorConfiguration configuration = parseArguments(args);
+        try (LoadGenerator loadGenerator = new LoadGenerator(configuration)) {
+            loadGenerator.connect();
+            final LoadReport report = loadGenerator.run();
+            LOG.info("Load generator finished\n{}", report.format());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("Load generator interrupted", e);
+        } catch (Exception e) {
+            LOG.error("Load generator failed", e);
+        }
+    }
+
+    static LoadGeneratorConfiguration parseArguments(final String[] args) {
+        final ArgumentParser argumentParser = ArgumentParsers.newFor("Lighty-netconf-load-generator").build();
+        argumentParser.addArgument("--host")
+            .setDefault("127.0.0.1")
+            .help("IPv4 address of simulated devices.");
+        argumentParser.addArgument("-p", "--port")
+            .type(Integer.class)
+            .setDefault(17830)
+            .help("Port of the first device.");
+        argumentParser.addArgument("-d", "--devices-count")
+            .type(Integer.class)
+            .setDefault(1)
+            .help("Number of devices listening on consecutive ports starting with port.")
+            .dest("devices-count");
+        argumentParser.addArgument("-s", "--sessions-per-device")
+            .type(Integer.class)
+            .setDefault(1)
+            .help("Number of NETCONF sessions opened to every device.")
+            .dest("sessions-per-device");
+        argumentParser.addArgument("-u", "--username")
+            .setDefault("admin")
+            .help("SSH username.");
+        argumentParser.addArgument("--password")
+            .setDefault("admin")
+            .help("SSH password.");
+        argumentParser.addArgument("-r", "--rate")
+            .type(Integer.class)
+            .setDefault(100)
+            .help("Target number of requests per second sent by all sessions together.");
+        argumentParser.addArgument("--duration")
+            .type(Integer.class)
+            .setDefault(60)
+            .help("Duration of measured part of the run in seconds.");
+        argumentParser.addArgument("--warmup")
+            .type(Integer.class)
+            .setDefault(10)
+            .help("Duration of warmup in seconds, requests sent during warmup are not reported.");
+        argumentParser.addArgument("--max-outstanding")
+            .type(Integer.class)
+            .setDefault(64)
+            .help("Maximal number of requests waiting for reply in single session, "
+                + "requests over this limit are dropped and reported.")
+            .dest("max-outstanding");
+        argumentParser.addArgument("-m", "--mix")
+            .setDefault("get=25,get-config=25,edit-config=25,rpc=25")
+            .help("Weighted mix of requests, types are get, get-config, edit-config and rpc.");
+        for (final RequestType type : RequestType.values()) {
+            argumentParser.addArgument("--" + type.getName() + "-payload")
+                .dest(type.getName() + "-payload")
+                .help(String.format("File with %s request replacing default toaster request.", type.getName()));
+        }
+
+        final Namespace namespace = argumentParser.parseArgsOrFail(args);
+        final Map<RequestType, File> payloads = new EnumMap<>(RequestType.class);
+        for (final RequestType type : RequestType.values()) {
+            final String payload = namespace.getString(type.getName() + "-payload");
+            if (payload != null) {
+                payloads.put(type, new File(payload));
+            }
+        }
+        return new LoadGeneratorConfiguration(namespace.getString("host"), namespace.getInt("port"),
+            namespace.getInt("devices-count"), namespace.getInt("sessions-per-device"),
+            namespace.getString("username"), namespace.getString("password"), namespace.getInt("rate"),
+            Duration.ofSeconds(namespace.getInt("duration")), Duration.ofSeconds(namespace.getInt("warmup")),
+            namespace.getInt("max-outstanding"), OperationMix.parse(namespace.getString("mix")), payloads);
+    }
+}
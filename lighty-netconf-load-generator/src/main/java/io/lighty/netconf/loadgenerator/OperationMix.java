@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weighted mix of request types, e.g. {@code get=40,get-config=30,edit-config=20,rpc=10}.
+ */
+public final class OperationMix {
+
+    private final Map<RequestType, Integer> weights;
+    private final RequestType[] types;
+    private final int[] cumulativeWeights;
+
+    private OperationMix(final Map<RequestType, Integer> weights) {
+        this.weights = Collections.unmodifiableMap(weights);
+        final List<RequestType> usedTypes = new ArrayList<>();
+        final List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (final Map.Entry<RequestType, Integer> entry : weights.entrySet()) {
+            if (entry.getValue() > 0) {
+                total += entry.getValue();
+                usedTypes.add(entry.getKey());
+                cumulative.add(total);
+            }
+        }
+        Preconditions.checkArgument(total > 0, "Operation mix must contain at least one positive weight");
+        this.types = usedTypes.toArray(new RequestType[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Parses comma separated list of {@code type=weight} pairs.
+     * @param mix operation mix definition
+     * @return parsed operation mix
+     */
+    public static OperationMix parse(final String mix) {
+        final Map<RequestType, Integer> weights = new EnumMap<>(RequestType.class);
+        for (final String part : mix.split(",")) {
+            final String[] pair = part.trim().split("=");
+            Preconditions.checkArgument(pair.length == 2, "Invalid operation mix entry '%s'", part);
+            final int weight = Integer.parseInt(pair[1].trim());
+            Preconditions.checkArgument(weight >= 0, "Negative weight of %s", pair[0]);
+            weights.merge(RequestType.forName(pair[0].trim()), weight, Integer::sum);
+        }
+        return new OperationMix(weights);
+    }
+
+    public Map<RequestType, Integer> getWeights() {
+        return weights;
+    }
+
+    /**
+     * Picks request type according to weights.
+     * @param random uniformly distributed number between 0 (inclusive) and total weight (exclusive)
+     * @return picked request type
+     */
+    public RequestType pick(final int random) {
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (random < cumulativeWeights[i]) {
+                return types[i];
+            }
+        }
+        throw new IllegalArgumentException("Value " + random + " exceeds total weight " + getTotalWeight());
+    }
+
+    public int getTotalWeight() {
+        return cumulativeWeights[cumulativeWeights.length - 1];
+    }
+}
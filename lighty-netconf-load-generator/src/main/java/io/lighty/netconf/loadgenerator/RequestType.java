@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+/**
+ * Types of requests sent by load generator.
+ */
+public enum RequestType {
+
+    GET("get", "get-request.xml"),
+    GET_CONFIG("get-config", "get-config-request.xml"),
+    EDIT_CONFIG("edit-config", "edit-config-request.xml"),
+    RPC("rpc", "rpc-request.xml");
+
+    private final String name;
+    private final String defaultPayload;
+
+    RequestType(final String name, final String defaultPayload) {
+        this.name = name;
+        this.defaultPayload = defaultPayload;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Name of classpath resource containing default request of this type.
+     * @return resource name
+     */
+    public String getDefaultPayload() {
+        return defaultPayload;
+    }
+
+    public static RequestType forName(final String name) {
+        for (final RequestType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown request type " + name);
+    }
+}
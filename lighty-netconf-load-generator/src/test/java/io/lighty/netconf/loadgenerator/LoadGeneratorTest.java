@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 PANTHEON.tech s.r.o. All Rights Reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at https://www.eclipse.org/legal/epl-v10.html
+ */
+package io.lighty.netconf.loadgenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.lighty.core.common.models.ModuleId;
+import io.lighty.netconf.device.NetconfDevice;
+import io.lighty.netconf.device.NetconfDeviceBuilder;
+import io.lighty.netconf.device.utils.ModelUtils;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+public class LoadGeneratorTest {
+
+    private static final String USER = "admin";
+    private static final String PASS = "admin";
+    private static final int DEVICE_PORT = 17840;
+
+    @Test
+    public void operationMixTest() {
+        final OperationMix mix = OperationMix.parse("get=3, edit-config=1,rpc=0");
+        assertEquals(4, mix.getTotalWeight());
+        assertEquals(RequestType.GET, mix.pick(0));
+        assertEquals(RequestType.GET, mix.pick(2));
+        assertEquals(RequestType.EDIT_CONFIG, mix.pick(3));
+        assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("get=0"));
+        assertThrows(IllegalArgumentException.class, () -> OperationMix.parse("delete=1"));
+    }
+
+    @Test
+    public void latencyPercentilesTest() {
+        final LatencyRecorder recorder = new LatencyRecorder();
+        for (long latency = 2000; latency > 0; latency--) {
+            recorder.record(latency);
+        }
+        recorder.recordError(5000);
+        recorder.recordDropped();
+        final LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(2001, snapshot.count());
+        assertEquals(1, snapshot.errors());
+        assertEquals(1, snapshot.dropped());
+        assertEquals(1001, snapshot.percentile(50));
+        assertEquals(1981, snapshot.percentile(99));
+        assertEquals(5000, snapshot.max());
+
+        final LoadReport report = new LoadReport(Duration.ofSeconds(2), Map.of(RequestType.GET, snapshot));
+        assertEquals(1000.5, report.throughput(), 0.001);
+    }
+
+    @Test
+    public void loadSimulatedDeviceTest() throws Exception {
+        //toaster device with default request processors, as in the toaster example
+        final NetconfDevice device = new NetconfDeviceBuilder()
+            .setCredentials(USER, PASS)
+            .setBindingPort(DEVICE_PORT)
+            .withModels(ModelUtils.getModelsFromClasspath(
+                ModuleId.from("http://netconfcentral.org/ns/toaster", "toaster", "2009-11-20"),
+                ModuleId.from("urn:ietf:params:xml:ns:netconf:base:1.0", "ietf-netconf", "2011-06-01")))
+            .withDefaultRequestProcessors()
+            .withDefaultCapabilities()
+            .build();
+        device.start();
+        try (LoadGenerator generator = new LoadGenerator(new LoadGeneratorConfiguration("127.0.0.1", DEVICE_PORT,
+                1, 2, USER, PASS, 100, Duration.ofSeconds(1), Duration.ofMillis(200), 100,
+                OperationMix.parse("get=1,get-config=1,edit-config=1"), Map.of()))) {
+            generator.connect();
+            final LoadReport report = generator.run();
+
+            //every request type of the mix was sent and answered by the device
+            assertEquals(Set.of(RequestType.GET, RequestType.GET_CONFIG, RequestType.EDIT_CONFIG),
+                report.snapshots().keySet());
+            for (final LatencyRecorder.Snapshot snapshot : report.snapshots().values()) {
+                assertTrue(snapshot.count() > 0);
+                assertEquals(0, snapshot.errors());
+                assertEquals(0, snapshot.dropped());
+                assertTrue(snapshot.percentile(50) > 0);
+                assertTrue(snapshot.max() >= snapshot.percentile(50));
+            }
+            assertTrue(report.throughput() > 0);
+            assertTrue(report.format().contains("edit-config"));
+        } finally {
+            device.close();
+        }
+    }
+}